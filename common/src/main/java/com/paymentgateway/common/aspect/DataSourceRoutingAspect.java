@@ -6,56 +6,106 @@ import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Aspect to route calls to the appropriate DataSource based on
  * the @Transactional(readOnly) attribute.
  * <p>
  * This aspect is ordered with HIGHEST_PRECEDENCE to ensure it runs before the
  * Spring TransactionInterceptor.
+ * <p>
+ * The route for each method (its own annotation first, then its class's) is
+ * resolved once and cached, so the per-call cost is a map lookup. Nested
+ * calls restore the outer route on exit instead of clearing it, and a
+ * read-only method that joins a write transaction stays on the primary.
+ * <p>
+ * Routing a call to the primary says nothing about whether it wrote; the
+ * read-your-writes position is raised once
+ * {@link com.paymentgateway.common.datasource.CommittedWriteRecorder} sees a
+ * transaction that flushed a write commit.
  */
 @Slf4j
 @Aspect
 @Component
 public class DataSourceRoutingAspect implements Ordered {
 
+    private final Map<Method, Route> methodRoutes = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Route> classRoutes = new ConcurrentHashMap<>();
+
     @Around("@annotation(org.springframework.transaction.annotation.Transactional) || @within(org.springframework.transaction.annotation.Transactional)")
     public Object routeBasedOnTransaction(ProceedingJoinPoint joinPoint) throws Throwable {
-        org.aspectj.lang.reflect.MethodSignature signature = (org.aspectj.lang.reflect.MethodSignature) joinPoint
-                .getSignature();
-        Transactional transactional = signature.getMethod().getAnnotation(Transactional.class);
-        if (transactional == null) {
-            transactional = joinPoint.getTarget().getClass().getAnnotation(Transactional.class);
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Route route = methodRoutes.computeIfAbsent(method, DataSourceRoutingAspect::resolveMethod);
+        if (route == Route.INHERIT) {
+            route = classRoutes.computeIfAbsent(joinPoint.getTarget().getClass(),
+                    DataSourceRoutingAspect::resolveClass);
         }
 
-        return handleRouting(joinPoint, transactional);
-    }
-
-    // Support class-level annotation if needed, but method-level usually takes
-    // precedence.
-    // Simplifying to handling method-level for now as it's the most common case for
-    // splitting.
-
-    private Object handleRouting(ProceedingJoinPoint joinPoint, Transactional transactional) throws Throwable {
+        DataSourceType outer = DataSourceContextHolder.getDataSourceType();
+        // A read that joins a write transaction runs on the write's connection
+        DataSourceType type = outer == DataSourceType.PRIMARY && route.joinsOuter() ? DataSourceType.PRIMARY
+                : route.type();
+        if (type != outer) {
+            DataSourceContextHolder.setDataSourceType(type);
+        }
         try {
-            if (transactional.readOnly()) {
-                log.debug("Routing to SECONDARY DataSource for read-only transaction: {}", joinPoint.getSignature());
-                DataSourceContextHolder.setDataSourceType(DataSourceType.SECONDARY);
-            } else {
-                log.debug("Routing to PRIMARY DataSource for data-modifying transaction: {}", joinPoint.getSignature());
-                DataSourceContextHolder.setDataSourceType(DataSourceType.PRIMARY);
-            }
             return joinPoint.proceed();
         } finally {
+            if (type != outer) {
+                restore(outer);
+            }
+        }
+    }
+
+    private static void restore(DataSourceType outer) {
+        if (outer == null) {
             DataSourceContextHolder.clearDataSourceType();
+        } else {
+            DataSourceContextHolder.setDataSourceType(outer);
         }
     }
 
+    private static Route resolveMethod(Method method) {
+        Transactional transactional = method.getAnnotation(Transactional.class);
+        return transactional == null ? Route.INHERIT : Route.of(transactional, method);
+    }
+
+    private static Route resolveClass(Class<?> targetClass) {
+        Transactional transactional = AnnotationUtils.findAnnotation(targetClass, Transactional.class);
+        return transactional == null ? Route.WRITE : Route.of(transactional, targetClass);
+    }
+
     @Override
     public int getOrder() {
         return Ordered.HIGHEST_PRECEDENCE;
     }
+
+    /**
+     * Where a transactional method's connection comes from, and whether it
+     * joins a transaction already in progress (in which case it cannot switch
+     * away from the outer one's connection).
+     */
+    record Route(DataSourceType type, boolean joinsOuter) {
+
+        static final Route INHERIT = new Route(null, true);
+        static final Route WRITE = new Route(DataSourceType.PRIMARY, true);
+
+        static Route of(Transactional transactional, Object element) {
+            DataSourceType type = transactional.readOnly() ? DataSourceType.SECONDARY : DataSourceType.PRIMARY;
+            Propagation propagation = transactional.propagation();
+            boolean joinsOuter = propagation != Propagation.REQUIRES_NEW && propagation != Propagation.NOT_SUPPORTED;
+            log.debug("Routing {} to {} DataSource", element, type);
+            return new Route(type, joinsOuter);
+        }
+    }
 }
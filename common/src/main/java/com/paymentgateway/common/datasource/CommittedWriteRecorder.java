@@ -0,0 +1,61 @@
+package com.paymentgateway.common.datasource;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Flags the request's read-your-writes scope for each transaction that
+ * actually wrote and committed.
+ * <p>
+ * Installed as Hibernate's statement inspector, it sees every statement the
+ * persistence context sends. The first one that is not a {@code SELECT}
+ * registers a synchronization on the current transaction, and once that
+ * transaction commits the {@link ReadYourWritesContext} is told a write is
+ * pending. Nothing is queried there: the committing transaction still holds
+ * its connection, so the primary's WAL position is read later by
+ * {@link ReplicaLagMonitor#requiredLsn()}, when the next replica read is
+ * routed or the consistency token is returned. Transactions that only read,
+ * replay an idempotent result, fail validation before flushing or roll back
+ * leave the scope untouched.
+ */
+public class CommittedWriteRecorder implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        if (ReadYourWritesContext.isActive() && TransactionSynchronizationManager.isSynchronizationActive()
+                && !isRead(sql) && !registered()) {
+            TransactionSynchronizationManager.registerSynchronization(new AfterCommit());
+        }
+        return sql;
+    }
+
+    static boolean isRead(String sql) {
+        int start = 0;
+        while (start < sql.length() && Character.isWhitespace(sql.charAt(start))) {
+            start++;
+        }
+        return sql.regionMatches(true, start, "select", 0, 6);
+    }
+
+    private boolean registered() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof AfterCommit afterCommit && afterCommit.owner() == this) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final class AfterCommit implements TransactionSynchronization {
+
+        CommittedWriteRecorder owner() {
+            return CommittedWriteRecorder.this;
+        }
+
+        @Override
+        public void afterCommit() {
+            ReadYourWritesContext.recordUnresolvedWrite();
+        }
+    }
+}
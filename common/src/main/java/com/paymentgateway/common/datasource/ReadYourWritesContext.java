@@ -0,0 +1,78 @@
+package com.paymentgateway.common.datasource;
+
+/**
+ * Thread-local read-your-writes scope for one request.
+ * <p>
+ * Holds the minimum primary WAL position (LSN) a replica must have replayed
+ * before it may serve this request's reads: the position echoed back by the
+ * client from an earlier write, raised by any write made in the request
+ * itself. A committed write is first only flagged; its position is read from
+ * the primary by {@link ReplicaLagMonitor#requiredLsn()} once it is needed.
+ * Outside an open scope nothing is tracked, so pooled worker threads never
+ * carry a stale requirement.
+ */
+public final class ReadYourWritesContext {
+
+    private static final long NONE = -1L;
+    private static final int LSN = 0;
+    private static final int UNRESOLVED_WRITE = 1;
+    private static final ThreadLocal<long[]> SCOPE = new ThreadLocal<>();
+
+    private ReadYourWritesContext() {
+    }
+
+    public static void begin(Long requiredLsn) {
+        SCOPE.set(new long[] { requiredLsn == null ? NONE : requiredLsn, 0 });
+    }
+
+    public static boolean isActive() {
+        return SCOPE.get() != null;
+    }
+
+    /**
+     * The LSN the replica must have reached, or null when any replica within
+     * the lag bound will do. Does not account for a write that committed
+     * since the last resolution; see {@link ReplicaLagMonitor#requiredLsn()}.
+     */
+    public static Long requiredLsn() {
+        long[] scope = SCOPE.get();
+        return scope == null || scope[LSN] == NONE ? null : scope[LSN];
+    }
+
+    /**
+     * Record that a write committed at {@code lsn}; ignored outside a scope.
+     */
+    public static void recordWrite(long lsn) {
+        long[] scope = SCOPE.get();
+        if (scope != null && lsn > scope[LSN]) {
+            scope[LSN] = lsn;
+        }
+    }
+
+    /**
+     * Record that a write committed without reading its position yet; ignored
+     * outside a scope.
+     */
+    public static void recordUnresolvedWrite() {
+        long[] scope = SCOPE.get();
+        if (scope != null) {
+            scope[UNRESOLVED_WRITE] = 1;
+        }
+    }
+
+    /**
+     * Whether a write committed since the last call; clears the flag.
+     */
+    static boolean takeUnresolvedWrite() {
+        long[] scope = SCOPE.get();
+        if (scope == null || scope[UNRESOLVED_WRITE] == 0) {
+            return false;
+        }
+        scope[UNRESOLVED_WRITE] = 0;
+        return true;
+    }
+
+    public static void end() {
+        SCOPE.remove();
+    }
+}
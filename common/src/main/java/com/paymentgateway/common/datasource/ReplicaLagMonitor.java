@@ -0,0 +1,248 @@
+package com.paymentgateway.common.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks how far each PostgreSQL replica trails its primary and decides
+ * whether a read may be served by a replica.
+ * <p>
+ * A background probe samples every replica's replayed WAL position and the
+ * primary's current one. A replica may serve a read only when its latest
+ * sample is fresh, its lag is within {@code maxLagBytes} and, for
+ * read-your-writes, it has replayed at least the caller's LSN token. When no
+ * replica qualifies the read falls back to the primary, so a dead or stalled
+ * replica degrades throughput but never correctness.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements AutoCloseable {
+
+    static final String FALLBACK_COUNTER = "datasource.routing.fallbacks";
+
+    private static final String REPLICA_LSN_SQL = "SELECT CASE WHEN pg_is_in_recovery() "
+            + "THEN pg_last_wal_replay_lsn() ELSE pg_current_wal_insert_lsn() END";
+    private static final String PRIMARY_LSN_SQL = "SELECT pg_current_wal_insert_lsn()";
+
+    private final DataSource primary;
+    private final List<Probe> probes = new ArrayList<>();
+    private final Map<String, Probe> probesByName = new LinkedHashMap<>();
+    private final long maxLagBytes;
+    private final long maxStalenessNanos;
+    private final Counter unknownFallbacks;
+    private final Counter lagFallbacks;
+    private final Counter tokenFallbacks;
+    private final ScheduledExecutorService scheduler;
+
+    public ReplicaLagMonitor(DataSource primary, Map<String, ? extends DataSource> replicas, long maxLagBytes,
+            Duration maxStaleness, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.maxLagBytes = maxLagBytes;
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        this.unknownFallbacks = fallbackCounter(meterRegistry, "unknown");
+        this.lagFallbacks = fallbackCounter(meterRegistry, "lag");
+        this.tokenFallbacks = fallbackCounter(meterRegistry, "token");
+        replicas.forEach((name, dataSource) -> {
+            Probe probe = new Probe(name, dataSource,
+                    meterRegistry.counter("datasource.replica.probe.failures", "replica", name));
+            Gauge.builder("datasource.replica.lag.bytes", probe, p -> {
+                Sample current = p.sample;
+                return current == null ? Double.NaN : current.lagBytes();
+            }).tag("replica", name).register(meterRegistry);
+            probes.add(probe);
+            probesByName.put(name, probe);
+        });
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start(Duration probeInterval) {
+        scheduler.scheduleWithFixedDelay(this::probe, 0, probeInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Whether any replica may serve a read that must observe {@code requiredLsn}
+     * (null when the caller has no read-your-writes requirement). Records why
+     * when none can.
+     */
+    public boolean canServe(Long requiredLsn) {
+        Verdict worst = Verdict.UNKNOWN;
+        for (Probe probe : probes) {
+            Verdict verdict = verdict(probe, requiredLsn);
+            if (verdict == Verdict.OK) {
+                return true;
+            }
+            worst = verdict.ordinal() > worst.ordinal() ? verdict : worst;
+        }
+        (worst == Verdict.TOKEN ? tokenFallbacks : worst == Verdict.LAG ? lagFallbacks : unknownFallbacks).increment();
+        return false;
+    }
+
+    /**
+     * Whether the named replica may serve a read that must observe
+     * {@code requiredLsn}; unknown replicas never can.
+     */
+    public boolean canServe(String replica, Long requiredLsn) {
+        Probe probe = probesByName.get(replica);
+        return probe != null && verdict(probe, requiredLsn) == Verdict.OK;
+    }
+
+    private Verdict verdict(Probe probe, Long requiredLsn) {
+        Sample current = probe.sample;
+        if (current == null || System.nanoTime() - current.takenAt() > maxStalenessNanos) {
+            return Verdict.UNKNOWN;
+        }
+        if (current.lagBytes() > maxLagBytes) {
+            return Verdict.LAG;
+        }
+        if (requiredLsn != null && current.replayedLsn() < requiredLsn) {
+            return Verdict.TOKEN;
+        }
+        return Verdict.OK;
+    }
+
+    /**
+     * The request's read-your-writes LSN (see {@link ReadYourWritesContext}),
+     * first resolving a write committed since the last call to the primary's
+     * current position. Call it only where a connection is about to be
+     * borrowed or the token handed back, never while the committing
+     * transaction still holds its own connection.
+     */
+    public Long requiredLsn() {
+        if (ReadYourWritesContext.takeUnresolvedWrite()) {
+            try {
+                ReadYourWritesContext.recordWrite(primaryLsn());
+            } catch (SQLException e) {
+                // Without a position, keep the rest of the request on the primary
+                ReadYourWritesContext.recordWrite(Long.MAX_VALUE);
+                log.warn("Could not read the primary WAL position after a write: {}", e.getMessage());
+            }
+        }
+        return ReadYourWritesContext.requiredLsn();
+    }
+
+    /**
+     * The primary's current WAL insert position; any transaction committed
+     * before this call is visible on a replica that has replayed past it.
+     */
+    public long primaryLsn() throws SQLException {
+        return queryLsn(primary, PRIMARY_LSN_SQL);
+    }
+
+    void probe() {
+        // Replicas first: a later primary position can only overstate the lag
+        long[] replayed = new long[probes.size()];
+        for (int i = 0; i < probes.size(); i++) {
+            replayed[i] = probes.get(i).replayedLsn();
+        }
+        long current;
+        try {
+            current = queryLsn(primary, PRIMARY_LSN_SQL);
+        } catch (SQLException | RuntimeException e) {
+            log.warn("Primary WAL position probe failed: {}", e.getMessage());
+            return;
+        }
+        long takenAt = System.nanoTime();
+        for (int i = 0; i < probes.size(); i++) {
+            if (replayed[i] >= 0) {
+                probes.get(i).sample = new Sample(replayed[i], Math.max(0, current - replayed[i]), takenAt);
+            }
+        }
+    }
+
+    private static long queryLsn(DataSource dataSource, String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(1);
+            try (ResultSet rows = statement.executeQuery(sql)) {
+                if (!rows.next() || rows.getString(1) == null) {
+                    throw new SQLException("No WAL position returned");
+                }
+                return parseLsn(rows.getString(1));
+            }
+        }
+    }
+
+    /**
+     * Parse PostgreSQL's {@code pg_lsn} text form ({@code 16/B374D848}).
+     */
+    public static long parseLsn(String text) {
+        int slash = text.indexOf('/');
+        if (slash <= 0 || slash == text.length() - 1) {
+            throw new IllegalArgumentException("Invalid LSN: " + text);
+        }
+        long high = Long.parseLong(text, 0, slash, 16);
+        long low = Long.parseLong(text, slash + 1, text.length(), 16);
+        if (high > 0xFFFFFFFFL || low > 0xFFFFFFFFL || high < 0 || low < 0) {
+            throw new IllegalArgumentException("Invalid LSN: " + text);
+        }
+        return high << 32 | low;
+    }
+
+    public static String formatLsn(long lsn) {
+        return Long.toHexString(lsn >>> 32).toUpperCase() + "/" + Long.toHexString(lsn & 0xFFFFFFFFL).toUpperCase();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private static Counter fallbackCounter(MeterRegistry meterRegistry, String reason) {
+        return meterRegistry.counter(FALLBACK_COUNTER, "reason", reason);
+    }
+
+    private enum Verdict {
+        // Ordered by how close the replica came to qualifying
+        UNKNOWN, LAG, TOKEN, OK
+    }
+
+    private record Sample(long replayedLsn, long lagBytes, long takenAt) {
+    }
+
+    private static final class Probe {
+
+        private final String name;
+        private final DataSource dataSource;
+        private final Counter failures;
+        private volatile Sample sample;
+
+        private Probe(String name, DataSource dataSource, Counter failures) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.failures = failures;
+        }
+
+        /**
+         * The replayed position, or -1 when the replica could not be reached
+         * (its last sample then simply ages out).
+         */
+        private long replayedLsn() {
+            try {
+                return queryLsn(dataSource, REPLICA_LSN_SQL);
+            } catch (SQLException | RuntimeException e) {
+                failures.increment();
+                log.warn("Lag probe of replica {} failed: {}", name, e.getMessage());
+                return -1;
+            }
+        }
+    }
+}
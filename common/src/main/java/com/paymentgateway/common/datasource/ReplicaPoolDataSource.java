@@ -0,0 +1,225 @@
+package com.paymentgateway.common.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * The SECONDARY side of {@link RoutingDataSource}: spreads read connections
+ * over any number of replicas.
+ * <p>
+ * A replica is eligible while it is not ejected and, when a
+ * {@link ReplicaLagMonitor} is set, fresh enough for the request's
+ * read-your-writes position. Among eligible replicas the {@link Balancer}
+ * picks one. A replica whose pool fails to hand out a connection is ejected
+ * for {@code ejectionTime} and the next one is tried; it is re-admitted
+ * automatically once that time has passed. With no eligible replica left the
+ * read goes to {@code fallback} (the primary).
+ */
+@Slf4j
+public class ReplicaPoolDataSource extends AbstractDataSource implements AutoCloseable {
+
+    public enum Balancer {
+        /** Fewest active plus waiting connections per unit of weight. */
+        LEAST_OUTSTANDING,
+        /** Smooth weighted round robin over a precomputed schedule. */
+        WEIGHTED_ROUND_ROBIN
+    }
+
+    private final List<Replica> replicas;
+    private final Replica[] schedule;
+    private final Balancer balancer;
+    private final DataSource fallback;
+    private final long ejectionNanos;
+    private final Counter fallbacks;
+    private final AtomicLong cursor = new AtomicLong();
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    public ReplicaPoolDataSource(List<Replica> replicas, Balancer balancer, DataSource fallback,
+            Duration ejectionTime, MeterRegistry meterRegistry) {
+        this.replicas = List.copyOf(replicas);
+        this.schedule = schedule(this.replicas);
+        this.balancer = balancer;
+        this.fallback = fallback;
+        this.ejectionNanos = ejectionTime.toNanos();
+        this.fallbacks = meterRegistry.counter(ReplicaLagMonitor.FALLBACK_COUNTER, "reason", "unavailable");
+        for (Replica replica : this.replicas) {
+            replica.bindMetrics(meterRegistry);
+        }
+    }
+
+    public void setReplicaLagMonitor(ReplicaLagMonitor replicaLagMonitor) {
+        this.replicaLagMonitor = replicaLagMonitor;
+    }
+
+    /**
+     * The replicas' own data sources by name, for probing.
+     */
+    public Map<String, DataSource> getReplicaDataSources() {
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        replicas.forEach(replica -> dataSources.put(replica.name, replica.dataSource));
+        return Collections.unmodifiableMap(dataSources);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(username, password);
+    }
+
+    private Connection connect(String username, String password) throws SQLException {
+        Long requiredLsn = replicaLagMonitor == null ? ReadYourWritesContext.requiredLsn()
+                : replicaLagMonitor.requiredLsn();
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            Replica replica = select(requiredLsn);
+            if (replica == null) {
+                break;
+            }
+            try {
+                Connection connection = username == null ? replica.dataSource.getConnection()
+                        : replica.dataSource.getConnection(username, password);
+                replica.connections.increment();
+                return connection;
+            } catch (SQLException e) {
+                replica.eject(ejectionNanos);
+                log.warn("Ejected replica {} for {} ms: {}", replica.name, ejectionNanos / 1_000_000, e.getMessage());
+            }
+        }
+        fallbacks.increment();
+        return username == null ? fallback.getConnection() : fallback.getConnection(username, password);
+    }
+
+    Replica select(Long requiredLsn) {
+        return balancer == Balancer.LEAST_OUTSTANDING ? leastOutstanding(requiredLsn) : nextInSchedule(requiredLsn);
+    }
+
+    private Replica leastOutstanding(Long requiredLsn) {
+        // Start from a rotating offset so ties spread instead of piling onto the first replica
+        int size = replicas.size();
+        int start = size == 0 ? 0 : (int) Math.floorMod(cursor.getAndIncrement(), (long) size);
+        Replica best = null;
+        double bestLoad = Double.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (!eligible(replica, requiredLsn)) {
+                continue;
+            }
+            double load = (replica.outstanding.getAsInt() + 1.0) / replica.weight;
+            if (load < bestLoad) {
+                best = replica;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+
+    private Replica nextInSchedule(Long requiredLsn) {
+        for (int i = 0; i < schedule.length; i++) {
+            Replica replica = schedule[(int) Math.floorMod(cursor.getAndIncrement(), (long) schedule.length)];
+            if (eligible(replica, requiredLsn)) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private boolean eligible(Replica replica, Long requiredLsn) {
+        return replica.isAdmitted()
+                && (replicaLagMonitor == null || replicaLagMonitor.canServe(replica.name, requiredLsn));
+    }
+
+    /**
+     * Interleave replicas in proportion to their weights (nginx's smooth
+     * weighted round robin), so a heavy replica is never hit in long bursts.
+     */
+    static Replica[] schedule(List<Replica> replicas) {
+        int total = replicas.stream().mapToInt(replica -> replica.weight).sum();
+        Replica[] schedule = new Replica[total];
+        int[] current = new int[replicas.size()];
+        for (int slot = 0; slot < total; slot++) {
+            int best = 0;
+            for (int i = 0; i < replicas.size(); i++) {
+                current[i] += replicas.get(i).weight;
+                if (current[i] > current[best]) {
+                    best = i;
+                }
+            }
+            current[best] -= total;
+            schedule[slot] = replicas.get(best);
+        }
+        return schedule;
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    /**
+     * One read replica: its pool, balancing weight and a live count of
+     * outstanding (active plus waiting) connections.
+     */
+    public static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private final int weight;
+        private final IntSupplier outstanding;
+        private volatile long ejectedUntil;
+        private Counter connections;
+        private Counter ejections;
+
+        public Replica(String name, DataSource dataSource, int weight, IntSupplier outstanding) {
+            if (weight < 1) {
+                throw new IllegalArgumentException("Replica " + name + " needs a weight of at least 1");
+            }
+            this.name = name;
+            this.dataSource = dataSource;
+            this.weight = weight;
+            this.outstanding = outstanding;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        boolean isAdmitted() {
+            long until = ejectedUntil;
+            return until == 0 || System.nanoTime() - until >= 0;
+        }
+
+        private void eject(long forNanos) {
+            ejectedUntil = System.nanoTime() + forNanos;
+            ejections.increment();
+        }
+
+        private void bindMetrics(MeterRegistry meterRegistry) {
+            connections = meterRegistry.counter("datasource.replica.connections", "replica", name);
+            ejections = meterRegistry.counter("datasource.replica.ejections", "replica", name);
+            Gauge.builder("datasource.replica.admitted", this, replica -> replica.isAdmitted() ? 1 : 0)
+                    .tag("replica", name)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -4,11 +4,26 @@ import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
 
 /**
  * Dynamic DataSource routing based on the DataSourceContextHolder.
+ * <p>
+ * With a {@link ReplicaLagMonitor} set, a SECONDARY request is sent to the
+ * primary instead whenever the replica is too far behind or has not yet
+ * replayed the caller's read-your-writes position.
  */
 public class RoutingDataSource extends AbstractRoutingDataSource {
 
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    public void setReplicaLagMonitor(ReplicaLagMonitor replicaLagMonitor) {
+        this.replicaLagMonitor = replicaLagMonitor;
+    }
+
     @Override
     protected Object determineCurrentLookupKey() {
-        return DataSourceContextHolder.getDataSourceType();
+        DataSourceType type = DataSourceContextHolder.getDataSourceType();
+        if (type == DataSourceType.SECONDARY && replicaLagMonitor != null
+                && !replicaLagMonitor.canServe(replicaLagMonitor.requiredLsn())) {
+            return DataSourceType.PRIMARY;
+        }
+        return type;
     }
 }
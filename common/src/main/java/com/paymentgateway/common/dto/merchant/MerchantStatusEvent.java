@@ -0,0 +1,25 @@
+package com.paymentgateway.common.dto.merchant;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by merchant-service on the merchant-status-events topic whenever a
+ * merchant's status changes, so consumers can drop cached merchant snapshots.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MerchantStatusEvent {
+    public static final String TOPIC = "merchant-status-events";
+
+    private String merchantId;
+    private String previousStatus;
+    private String status;
+    private LocalDateTime changedAt;
+}
@@ -12,4 +12,8 @@ import lombok.NoArgsConstructor;
 public class TokenizeResponse {
     private String token;
     private String lastFour;
+    /**
+     * Set instead of {@code token} when one card of a batch could not be tokenized
+     */
+    private String error;
 }
@@ -0,0 +1,305 @@
+package com.paymentgateway.common.event;
+
+import com.paymentgateway.common.model.Transaction;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Compact binary encoding of payment events on the {@code payment-events} topic.
+ * <p>
+ * Layout (schema version 1):
+ * <pre>
+ * byte    magic 'P'
+ * byte    schema version
+ * varint  presence bitmask, one bit per field below (absent fields take no space)
+ * ...     present fields in bit order:
+ *  0 id, 1 merchantId, 3 currency, 6 authorizationCode, 7 referenceNumber,
+ *  8 description, 9 customerEmail, 10 failureReason, 11 idempotencyKey   varint length + UTF-8
+ *  2 amount                                                               byte scale + zigzag varlong unscaled
+ *  4 status, 5 paymentMethod                                              byte code (see below)
+ *  12 createdAt, 13 updatedAt, 14 settledAt                               zigzag varlong epoch micros (UTC)
+ * </pre>
+ * Status and payment method go out as fixed codes from {@link #statusCode} and
+ * {@link #paymentMethodCode}, not ordinals, so the enums may be reordered freely.
+ * A code once assigned is never reused; a new constant takes the next free one
+ * (the switches fail to compile until it has one). New fields
+ * take the next bit and bump {@link #SCHEMA_VERSION}, since decoders read exactly
+ * the fields of their own version.
+ * The card token never goes on the wire.
+ */
+public final class PaymentEventCodec {
+
+    public static final byte MAGIC = 'P';
+    public static final byte SCHEMA_VERSION = 1;
+
+    private static final int ID = 0;
+    private static final int MERCHANT_ID = 1;
+    private static final int AMOUNT = 2;
+    private static final int CURRENCY = 3;
+    private static final int STATUS = 4;
+    private static final int PAYMENT_METHOD = 5;
+    private static final int AUTHORIZATION_CODE = 6;
+    private static final int REFERENCE_NUMBER = 7;
+    private static final int DESCRIPTION = 8;
+    private static final int CUSTOMER_EMAIL = 9;
+    private static final int FAILURE_REASON = 10;
+    private static final int IDEMPOTENCY_KEY = 11;
+    private static final int CREATED_AT = 12;
+    private static final int UPDATED_AT = 13;
+    private static final int SETTLED_AT = 14;
+
+    private PaymentEventCodec() {
+        // Utility class
+    }
+
+    public static byte[] encode(Transaction transaction) {
+        Writer out = new Writer();
+        out.writeByte(MAGIC);
+        out.writeByte(SCHEMA_VERSION);
+        out.writeVarLong(presence(transaction));
+
+        out.writeString(transaction.getId());
+        out.writeString(transaction.getMerchantId());
+        out.writeDecimal(transaction.getAmount());
+        out.writeString(transaction.getCurrency());
+        if (transaction.getStatus() != null) {
+            out.writeByte(statusCode(transaction.getStatus()));
+        }
+        if (transaction.getPaymentMethod() != null) {
+            out.writeByte(paymentMethodCode(transaction.getPaymentMethod()));
+        }
+        out.writeString(transaction.getAuthorizationCode());
+        out.writeString(transaction.getReferenceNumber());
+        out.writeString(transaction.getDescription());
+        out.writeString(transaction.getCustomerEmail());
+        out.writeString(transaction.getFailureReason());
+        out.writeString(transaction.getIdempotencyKey());
+        out.writeTimestamp(transaction.getCreatedAt());
+        out.writeTimestamp(transaction.getUpdatedAt());
+        out.writeTimestamp(transaction.getSettledAt());
+        return out.toByteArray();
+    }
+
+    public static Transaction decode(byte[] bytes) {
+        int version = schemaVersion(bytes);
+        if (version != SCHEMA_VERSION) {
+            throw new IllegalArgumentException("Unsupported payment event schema version " + version);
+        }
+        Reader in = new Reader(bytes, 2);
+        long present = in.readVarLong();
+
+        Transaction transaction = new Transaction();
+        transaction.setId(has(present, ID) ? in.readString() : null);
+        transaction.setMerchantId(has(present, MERCHANT_ID) ? in.readString() : null);
+        transaction.setAmount(has(present, AMOUNT) ? in.readDecimal() : null);
+        transaction.setCurrency(has(present, CURRENCY) ? in.readString() : null);
+        transaction.setStatus(has(present, STATUS) ? status(in.readByte()) : null);
+        transaction.setPaymentMethod(has(present, PAYMENT_METHOD) ? paymentMethod(in.readByte()) : null);
+        transaction.setAuthorizationCode(has(present, AUTHORIZATION_CODE) ? in.readString() : null);
+        transaction.setReferenceNumber(has(present, REFERENCE_NUMBER) ? in.readString() : null);
+        transaction.setDescription(has(present, DESCRIPTION) ? in.readString() : null);
+        transaction.setCustomerEmail(has(present, CUSTOMER_EMAIL) ? in.readString() : null);
+        transaction.setFailureReason(has(present, FAILURE_REASON) ? in.readString() : null);
+        transaction.setIdempotencyKey(has(present, IDEMPOTENCY_KEY) ? in.readString() : null);
+        transaction.setCreatedAt(has(present, CREATED_AT) ? in.readTimestamp() : null);
+        transaction.setUpdatedAt(has(present, UPDATED_AT) ? in.readTimestamp() : null);
+        transaction.setSettledAt(has(present, SETTLED_AT) ? in.readTimestamp() : null);
+        return transaction;
+    }
+
+    /**
+     * Schema version from the header, without decoding the rest.
+     */
+    public static int schemaVersion(byte[] bytes) {
+        if (bytes == null || bytes.length < 2 || bytes[0] != MAGIC) {
+            throw new IllegalArgumentException("Not a payment event");
+        }
+        return bytes[1];
+    }
+
+    static int statusCode(Transaction.TransactionStatus status) {
+        return switch (status) {
+            case INITIATED -> 0;
+            case AUTHORIZED -> 1;
+            case CAPTURED -> 2;
+            case SETTLED -> 3;
+            case FAILED -> 4;
+            case REFUNDED -> 5;
+            case CANCELLED -> 6;
+        };
+    }
+
+    static Transaction.TransactionStatus status(int code) {
+        return switch (code) {
+            case 0 -> Transaction.TransactionStatus.INITIATED;
+            case 1 -> Transaction.TransactionStatus.AUTHORIZED;
+            case 2 -> Transaction.TransactionStatus.CAPTURED;
+            case 3 -> Transaction.TransactionStatus.SETTLED;
+            case 4 -> Transaction.TransactionStatus.FAILED;
+            case 5 -> Transaction.TransactionStatus.REFUNDED;
+            case 6 -> Transaction.TransactionStatus.CANCELLED;
+            default -> throw new IllegalArgumentException("Unknown transaction status code " + code);
+        };
+    }
+
+    static int paymentMethodCode(Transaction.PaymentMethod paymentMethod) {
+        return switch (paymentMethod) {
+            case CARD -> 0;
+            case UPI -> 1;
+            case NET_BANKING -> 2;
+            case WALLET -> 3;
+        };
+    }
+
+    static Transaction.PaymentMethod paymentMethod(int code) {
+        return switch (code) {
+            case 0 -> Transaction.PaymentMethod.CARD;
+            case 1 -> Transaction.PaymentMethod.UPI;
+            case 2 -> Transaction.PaymentMethod.NET_BANKING;
+            case 3 -> Transaction.PaymentMethod.WALLET;
+            default -> throw new IllegalArgumentException("Unknown payment method code " + code);
+        };
+    }
+
+    private static long presence(Transaction t) {
+        long bits = 0;
+        bits |= bit(ID, t.getId());
+        bits |= bit(MERCHANT_ID, t.getMerchantId());
+        bits |= bit(AMOUNT, t.getAmount());
+        bits |= bit(CURRENCY, t.getCurrency());
+        bits |= bit(STATUS, t.getStatus());
+        bits |= bit(PAYMENT_METHOD, t.getPaymentMethod());
+        bits |= bit(AUTHORIZATION_CODE, t.getAuthorizationCode());
+        bits |= bit(REFERENCE_NUMBER, t.getReferenceNumber());
+        bits |= bit(DESCRIPTION, t.getDescription());
+        bits |= bit(CUSTOMER_EMAIL, t.getCustomerEmail());
+        bits |= bit(FAILURE_REASON, t.getFailureReason());
+        bits |= bit(IDEMPOTENCY_KEY, t.getIdempotencyKey());
+        bits |= bit(CREATED_AT, t.getCreatedAt());
+        bits |= bit(UPDATED_AT, t.getUpdatedAt());
+        bits |= bit(SETTLED_AT, t.getSettledAt());
+        return bits;
+    }
+
+    private static long bit(int field, Object value) {
+        return value == null ? 0 : 1L << field;
+    }
+
+    private static boolean has(long present, int field) {
+        return (present & (1L << field)) != 0;
+    }
+
+    private static final class Writer {
+
+        private byte[] buf = new byte[256];
+        private int pos;
+
+        void writeByte(int b) {
+            ensure(1);
+            buf[pos++] = (byte) b;
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[pos++] = (byte) value;
+        }
+
+        void writeZigZag(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, buf, pos, utf8.length);
+            pos += utf8.length;
+        }
+
+        void writeDecimal(BigDecimal value) {
+            if (value == null) {
+                return;
+            }
+            writeByte(value.scale());
+            writeZigZag(value.unscaledValue().longValueExact());
+        }
+
+        void writeTimestamp(LocalDateTime value) {
+            if (value == null) {
+                return;
+            }
+            writeZigZag(value.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + value.getNano() / 1_000);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+
+        private void ensure(int extra) {
+            if (pos + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+            }
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] buf;
+        private int pos;
+
+        Reader(byte[] buf, int pos) {
+            this.buf = buf;
+            this.pos = pos;
+        }
+
+        int readByte() {
+            return buf[pos++];
+        }
+
+        long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buf[pos++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        long readZigZag() {
+            long raw = readVarLong();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        String readString() {
+            int length = (int) readVarLong();
+            String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+
+        BigDecimal readDecimal() {
+            int scale = readByte();
+            return BigDecimal.valueOf(readZigZag(), scale);
+        }
+
+        LocalDateTime readTimestamp() {
+            long micros = readZigZag();
+            return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                    (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+        }
+    }
+}
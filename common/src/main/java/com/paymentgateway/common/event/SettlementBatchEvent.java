@@ -0,0 +1,29 @@
+package com.paymentgateway.common.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One settlement batch on the {@code payment-settlements} topic (JSON, keyed by
+ * merchant id): every transaction of one merchant and currency that a single
+ * settlement pass moved to SETTLED. Replaces a SETTLED event per transaction.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SettlementBatchEvent {
+    private String batchId;
+    private String merchantId;
+    private String currency;
+    private int transactionCount;
+    private BigDecimal totalAmount;
+    private List<String> transactionIds;
+    private LocalDateTime settledAt;
+}
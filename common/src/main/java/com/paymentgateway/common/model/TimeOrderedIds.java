@@ -0,0 +1,67 @@
+package com.paymentgateway.common.model;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Version 7 UUIDs (RFC 9562): a 48-bit Unix millisecond timestamp followed by
+ * random bits. Ids generated close together sort close together, as UUIDs and
+ * as their lowercase string form, so primary-key inserts append at the right
+ * edge of the index instead of splitting pages all over a random keyspace.
+ * <p>
+ * The random part comes from {@link UUID#randomUUID()}, so the ids are exactly
+ * as hard to guess as version 4 ids minus the 48 timestamp bits. Ids from the
+ * same millisecond are not ordered among themselves.
+ */
+public final class TimeOrderedIds {
+
+    private static final long TIMESTAMP_SHIFT = 16;
+    private static final long VERSION_7 = 0x7000L;
+    private static final long RAND_A_MASK = 0x0FFFL;
+
+    private TimeOrderedIds() {
+        // Utility class
+    }
+
+    public static String next() {
+        return uuid().toString();
+    }
+
+    public static UUID uuid() {
+        return at(System.currentTimeMillis());
+    }
+
+    /**
+     * The millisecond a version 7 id was generated at.
+     */
+    public static Instant timestampOf(UUID id) {
+        if (id.version() != 7) {
+            throw new IllegalArgumentException("Not a version 7 UUID: " + id);
+        }
+        return Instant.ofEpochMilli(id.getMostSignificantBits() >>> TIMESTAMP_SHIFT);
+    }
+
+    /**
+     * The millisecond {@code id} was generated at, or empty when it is not the
+     * canonical string form of a version 7 UUID (ids minted before these).
+     */
+    public static Optional<Instant> timestampOf(String id) {
+        if (id == null || id.length() != 36) {
+            return Optional.empty();
+        }
+        try {
+            UUID uuid = UUID.fromString(id);
+            return uuid.version() == 7 ? Optional.of(timestampOf(uuid)) : Optional.empty();
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    static UUID at(long epochMillis) {
+        UUID random = UUID.randomUUID();
+        long msb = (epochMillis << TIMESTAMP_SHIFT) | VERSION_7 | (random.getMostSignificantBits() & RAND_A_MASK);
+        // The version 4 variant bits are the same as version 7's
+        return new UUID(msb, random.getLeastSignificantBits());
+    }
+}
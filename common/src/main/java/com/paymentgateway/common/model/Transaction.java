@@ -1,12 +1,14 @@
 package com.paymentgateway.common.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.paymentgateway.common.money.CurrencyUnits;
+import com.paymentgateway.common.money.Money;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -15,6 +17,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.springframework.data.domain.Persistable;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -26,16 +29,26 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class Transaction {
-
+public class Transaction implements Persistable<String> {
+
+    /**
+     * Decimal places of the {@code amount} column.
+     */
+    public static final int AMOUNT_SCALE = 2;
+
+    /**
+     * Assigned by the application so the id is known before the row is written;
+     * {@link #isNew()} keeps {@code save} a plain INSERT instead of a merge.
+     * Ids are {@link TimeOrderedIds time-ordered}, so new rows land at the end of
+     * the primary key index.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
     private String id;
 
     @Column(nullable = false, name = "merchant_id")
     private String merchantId;
 
-    @Column(nullable = false, precision = 19, scale = 2)
+    @Column(nullable = false, precision = 19, scale = AMOUNT_SCALE)
     private BigDecimal amount;
 
     @Column(nullable = false, length = 3)
@@ -81,6 +94,51 @@ public class Transaction {
     @Column(name = "settled_at")
     private LocalDateTime settledAt;
 
+    /**
+     * A row only gets its creation timestamp on insert, so a missing one means
+     * this entity has never been written.
+     */
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return createdAt == null;
+    }
+
+    /**
+     * {@link #getAmount() amount} and {@link #getCurrency() currency} as one
+     * value; the row keeps its decimal column.
+     */
+    @JsonIgnore
+    public Money getMoney() {
+        return Money.of(amount, currency);
+    }
+
+    public void setMoney(Money money) {
+        requireStorable(money.currency());
+        this.amount = money.toBigDecimal();
+        this.currency = money.currency();
+    }
+
+    /**
+     * Rejects currencies whose minor unit is finer than the amount column
+     * (KWD, BHD and the other three-decimal currencies), which the database
+     * would round.
+     */
+    public static void requireStorable(String currency) {
+        int exponent = CurrencyUnits.exponent(currency);
+        if (exponent > AMOUNT_SCALE) {
+            throw new IllegalArgumentException("Currency " + currency + " has " + exponent
+                    + " decimal places; amounts are stored with " + AMOUNT_SCALE);
+        }
+    }
+
+    @PrePersist
+    void assignId() {
+        if (id == null) {
+            id = TimeOrderedIds.next();
+        }
+    }
+
     public enum TransactionStatus {
         INITIATED,
         AUTHORIZED,
@@ -0,0 +1,69 @@
+package com.paymentgateway.common.money;
+
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ISO 4217 minor-unit exponents (USD 2, JPY 0, KWD 3, ...), read once from the
+ * JDK's currency data. Pseudo-currencies without minor units (XAU, XXX, ...)
+ * are not supported.
+ */
+public final class CurrencyUnits {
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L
+    };
+    private static final Map<String, Unit> UNITS = new HashMap<>();
+
+    static {
+        for (Currency currency : Currency.getAvailableCurrencies()) {
+            int digits = currency.getDefaultFractionDigits();
+            if (digits >= 0 && digits < POWERS_OF_TEN.length) {
+                String code = currency.getCurrencyCode().intern();
+                UNITS.put(code, new Unit(code, digits));
+            }
+        }
+    }
+
+    private CurrencyUnits() {
+        // Utility class
+    }
+
+    /**
+     * Number of decimal places of the currency's minor unit.
+     */
+    public static int exponent(String currency) {
+        return unit(currency).exponent();
+    }
+
+    /**
+     * Minor units per major unit: 100 for USD, 1 for JPY.
+     */
+    public static long scale(String currency) {
+        return POWERS_OF_TEN[exponent(currency)];
+    }
+
+    public static boolean isSupported(String currency) {
+        return currency != null && UNITS.containsKey(currency);
+    }
+
+    /**
+     * The shared instance of the currency code, so money values never hold
+     * their own copy of it.
+     */
+    static String canonical(String currency) {
+        return unit(currency).code();
+    }
+
+    private static Unit unit(String currency) {
+        Unit unit = currency == null ? null : UNITS.get(currency);
+        if (unit == null) {
+            throw new IllegalArgumentException("Unsupported currency: " + currency);
+        }
+        return unit;
+    }
+
+    private record Unit(String code, int exponent) {
+    }
+}
@@ -0,0 +1,92 @@
+package com.paymentgateway.common.money;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.math.BigDecimal;
+
+/**
+ * An amount as a whole number of the currency's minor units (cents for USD,
+ * yen for JPY, see {@link CurrencyUnits}). Comparisons and sums are plain
+ * {@code long} arithmetic, exact and allocation free; {@link BigDecimal} only
+ * appears at the edges, where an amount is read from or written to a decimal
+ * column or a public API.
+ * <p>
+ * Serialized by Jackson as {@code {"minorUnits":1234,"currency":"USD"}}.
+ * Amounts of different currencies are never compared or added.
+ */
+@JsonSerialize(using = MoneyJson.Serializer.class)
+@JsonDeserialize(using = MoneyJson.Deserializer.class)
+public record Money(long minorUnits, String currency) implements Comparable<Money> {
+
+    public Money {
+        currency = CurrencyUnits.canonical(currency);
+    }
+
+    /**
+     * Exact conversion of a decimal amount; amounts with more decimal places
+     * than the currency has are rejected rather than rounded.
+     */
+    public static Money of(BigDecimal amount, String currency) {
+        try {
+            // Shifting the decimal point leaves a fraction exactly when there are too many decimals
+            return new Money(amount.scaleByPowerOfTen(CurrencyUnits.exponent(currency)).longValueExact(), currency);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException(
+                    "Amount " + amount.toPlainString() + " is not a whole number of " + currency + " minor units");
+        }
+    }
+
+    public static Money ofMinor(long minorUnits, String currency) {
+        return new Money(minorUnits, currency);
+    }
+
+    public static Money ofMajor(long majorUnits, String currency) {
+        return new Money(Math.multiplyExact(majorUnits, CurrencyUnits.scale(currency)), currency);
+    }
+
+    @JsonIgnore
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    public boolean isLessThan(Money other) {
+        return compareTo(other) < 0;
+    }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, CurrencyUnits.exponent(currency));
+    }
+
+    /**
+     * Approximate major-unit value, for model features and other places that
+     * never feed back into an amount.
+     */
+    public double toDouble() {
+        return (double) minorUnits / CurrencyUnits.scale(currency);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString() + " " + currency;
+    }
+
+    private void requireSameCurrency(Money other) {
+        // Currency codes are canonical instances
+        if (currency != other.currency) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " vs " + other.currency);
+        }
+    }
+}
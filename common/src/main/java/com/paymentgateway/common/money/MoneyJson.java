@@ -0,0 +1,79 @@
+package com.paymentgateway.common.money;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Streams {@link Money} as {@code {"minorUnits":1234,"currency":"USD"}}
+ * field by field, without the bean introspection and constructor argument
+ * buffering Jackson uses for records.
+ */
+final class MoneyJson {
+
+    private static final String MINOR_UNITS = "minorUnits";
+    private static final String CURRENCY = "currency";
+
+    private MoneyJson() {
+        // Holder for the serializer pair
+    }
+
+    static final class Serializer extends StdSerializer<Money> {
+
+        Serializer() {
+            super(Money.class);
+        }
+
+        @Override
+        public void serialize(Money money, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField(MINOR_UNITS, money.minorUnits());
+            generator.writeStringField(CURRENCY, money.currency());
+            generator.writeEndObject();
+        }
+    }
+
+    static final class Deserializer extends StdDeserializer<Money> {
+
+        Deserializer() {
+            super(Money.class);
+        }
+
+        @Override
+        public Money deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            JsonToken token = parser.currentToken();
+            if (token == JsonToken.START_OBJECT) {
+                token = parser.nextToken();
+            }
+            Long minorUnits = null;
+            String currency = null;
+            for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if (MINOR_UNITS.equals(field)) {
+                    // getLongValue would truncate 12.7 to 12
+                    if (parser.currentToken() != JsonToken.VALUE_NUMBER_INT) {
+                        return context.reportInputMismatch(Money.class,
+                                "Money minorUnits must be a whole number, got %s", parser.getText());
+                    }
+                    minorUnits = parser.getLongValue();
+                } else if (CURRENCY.equals(field)) {
+                    currency = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (minorUnits == null || !CurrencyUnits.isSupported(currency)) {
+                return context.reportInputMismatch(Money.class,
+                        "Money needs minorUnits and a supported ISO 4217 currency, got %s %s", minorUnits, currency);
+            }
+            return new Money(minorUnits, currency);
+        }
+    }
+}
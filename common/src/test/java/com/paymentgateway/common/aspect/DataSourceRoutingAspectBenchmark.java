@@ -0,0 +1,233 @@
+package com.paymentgateway.common.aspect;
+
+import com.paymentgateway.common.datasource.DataSourceContextHolder;
+import com.paymentgateway.common.datasource.DataSourceType;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.aspectj.lang.reflect.SourceLocation;
+import org.aspectj.runtime.internal.AroundClosure;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call routing overhead: the cached route lookup vs the reflective
+ * annotation resolution the aspect used to do on every call
+ * ({@link #reflectiveMethodLevel}, {@link #reflectiveClassLevel}). The join
+ * point is a plain stub, so the numbers are the aspect's own cost.
+ * <p>
+ * Run with {@code mvn -pl common test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.paymentgateway.common.aspect.DataSourceRoutingAspectBenchmark}
+ * (add {@code -prof gc} via the JMH CLI to compare allocation rates).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataSourceRoutingAspectBenchmark {
+
+    private DataSourceRoutingAspect aspect;
+    private StubJoinPoint methodLevel;
+    private StubJoinPoint classLevel;
+
+    @Setup(Level.Trial)
+    public void setUp() throws NoSuchMethodException {
+        aspect = new DataSourceRoutingAspect();
+        methodLevel = new StubJoinPoint(new ReadService(), ReadService.class.getMethod("find"));
+        classLevel = new StubJoinPoint(new WriteService(), WriteService.class.getMethod("save"));
+    }
+
+    @Benchmark
+    public Object cachedMethodLevel() throws Throwable {
+        return aspect.routeBasedOnTransaction(methodLevel);
+    }
+
+    @Benchmark
+    public Object cachedClassLevel() throws Throwable {
+        return aspect.routeBasedOnTransaction(classLevel);
+    }
+
+    @Benchmark
+    public Object reflectiveMethodLevel() throws Throwable {
+        return reflectiveRoute(methodLevel);
+    }
+
+    @Benchmark
+    public Object reflectiveClassLevel() throws Throwable {
+        return reflectiveRoute(classLevel);
+    }
+
+    /**
+     * The previous implementation, kept here as the baseline.
+     */
+    private static Object reflectiveRoute(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        Transactional transactional = signature.getMethod().getAnnotation(Transactional.class);
+        if (transactional == null) {
+            transactional = joinPoint.getTarget().getClass().getAnnotation(Transactional.class);
+        }
+        try {
+            DataSourceContextHolder.setDataSourceType(
+                    transactional.readOnly() ? DataSourceType.SECONDARY : DataSourceType.PRIMARY);
+            return joinPoint.proceed();
+        } finally {
+            DataSourceContextHolder.clearDataSourceType();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DataSourceRoutingAspectBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    public static class ReadService {
+        @Transactional(readOnly = true)
+        public String find() {
+            return "row";
+        }
+    }
+
+    @Transactional
+    public static class WriteService {
+        public String save() {
+            return "saved";
+        }
+    }
+
+    /**
+     * Just enough of a join point for the aspect: a fixed target and method.
+     */
+    private static final class StubJoinPoint implements ProceedingJoinPoint, MethodSignature {
+
+        private final Object target;
+        private final Method method;
+
+        private StubJoinPoint(Object target, Method method) {
+            this.target = target;
+            this.method = method;
+        }
+
+        @Override
+        public Object proceed() {
+            return target;
+        }
+
+        @Override
+        public Object proceed(Object[] args) {
+            return target;
+        }
+
+        @Override
+        public void set$AroundClosure(AroundClosure arc) {
+        }
+
+        @Override
+        public Signature getSignature() {
+            return this;
+        }
+
+        @Override
+        public Object getTarget() {
+            return target;
+        }
+
+        @Override
+        public Object getThis() {
+            return target;
+        }
+
+        @Override
+        public Object[] getArgs() {
+            return new Object[0];
+        }
+
+        @Override
+        public SourceLocation getSourceLocation() {
+            return null;
+        }
+
+        @Override
+        public String getKind() {
+            return METHOD_EXECUTION;
+        }
+
+        @Override
+        public StaticPart getStaticPart() {
+            return null;
+        }
+
+        @Override
+        public Method getMethod() {
+            return method;
+        }
+
+        @Override
+        public Class getReturnType() {
+            return method.getReturnType();
+        }
+
+        @Override
+        public Class[] getParameterTypes() {
+            return method.getParameterTypes();
+        }
+
+        @Override
+        public String[] getParameterNames() {
+            return new String[0];
+        }
+
+        @Override
+        public Class[] getExceptionTypes() {
+            return method.getExceptionTypes();
+        }
+
+        @Override
+        public String getName() {
+            return method.getName();
+        }
+
+        @Override
+        public int getModifiers() {
+            return method.getModifiers();
+        }
+
+        @Override
+        public Class getDeclaringType() {
+            return method.getDeclaringClass();
+        }
+
+        @Override
+        public String getDeclaringTypeName() {
+            return method.getDeclaringClass().getName();
+        }
+
+        @Override
+        public String toShortString() {
+            return method.getName();
+        }
+
+        @Override
+        public String toLongString() {
+            return method.toString();
+        }
+    }
+}
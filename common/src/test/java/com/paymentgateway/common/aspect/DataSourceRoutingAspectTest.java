@@ -10,11 +10,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.lang.reflect.Method;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.InstanceOfAssertFactories.MAP;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -86,6 +89,65 @@ public class DataSourceRoutingAspectTest {
         assertThat(DataSourceContextHolder.getDataSourceType()).isNull();
     }
 
+    @Test
+    void routeBasedOnTransaction_NestedReadJoinsOuterWriteAndRestoresIt() throws Throwable {
+        ProceedingJoinPoint inner = joinPoint(MockService.class.getMethod("readOnlyMethod"));
+        when(inner.proceed()).thenAnswer(invocation -> {
+            assertThat(DataSourceContextHolder.getDataSourceType()).isEqualTo(DataSourceType.PRIMARY);
+            return "inner";
+        });
+        when(joinPoint.getSignature()).thenReturn(methodSignature);
+        when(methodSignature.getMethod()).thenReturn(MockService.class.getMethod("writeMethod"));
+        when(joinPoint.proceed()).thenAnswer(invocation -> {
+            aspect.routeBasedOnTransaction(inner);
+            assertThat(DataSourceContextHolder.getDataSourceType()).isEqualTo(DataSourceType.PRIMARY);
+            return "outer";
+        });
+
+        assertThat(aspect.routeBasedOnTransaction(joinPoint)).isEqualTo("outer");
+        assertThat(DataSourceContextHolder.getDataSourceType()).isNull();
+    }
+
+    @Test
+    void routeBasedOnTransaction_NestedNewReadTransactionUsesSecondaryThenRestoresPrimary() throws Throwable {
+        ProceedingJoinPoint inner = joinPoint(MockService.class.getMethod("newReadOnlyTransaction"));
+        when(inner.proceed()).thenAnswer(invocation -> {
+            assertThat(DataSourceContextHolder.getDataSourceType()).isEqualTo(DataSourceType.SECONDARY);
+            return "inner";
+        });
+        when(joinPoint.getSignature()).thenReturn(methodSignature);
+        when(methodSignature.getMethod()).thenReturn(MockService.class.getMethod("writeMethod"));
+        when(joinPoint.proceed()).thenAnswer(invocation -> {
+            aspect.routeBasedOnTransaction(inner);
+            assertThat(DataSourceContextHolder.getDataSourceType()).isEqualTo(DataSourceType.PRIMARY);
+            return "outer";
+        });
+
+        aspect.routeBasedOnTransaction(joinPoint);
+
+        assertThat(DataSourceContextHolder.getDataSourceType()).isNull();
+    }
+
+    @Test
+    void routeBasedOnTransaction_ResolvesEachMethodOnce() throws Throwable {
+        Method method = MockService.class.getMethod("readOnlyMethod");
+        when(joinPoint.getSignature()).thenReturn(methodSignature);
+        when(methodSignature.getMethod()).thenReturn(method);
+
+        aspect.routeBasedOnTransaction(joinPoint);
+        aspect.routeBasedOnTransaction(joinPoint);
+
+        assertThat(ReflectionTestUtils.getField(aspect, "methodRoutes")).asInstanceOf(MAP).hasSize(1);
+    }
+
+    private static ProceedingJoinPoint joinPoint(Method method) {
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        MethodSignature signature = mock(MethodSignature.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(signature.getMethod()).thenReturn(method);
+        return joinPoint;
+    }
+
     @Test
     void getOrder_ReturnsHighestPrecedence() {
         assertThat(aspect.getOrder()).isEqualTo(org.springframework.core.Ordered.HIGHEST_PRECEDENCE);
@@ -99,6 +161,10 @@ public class DataSourceRoutingAspectTest {
         @Transactional(readOnly = false)
         public void writeMethod() {
         }
+
+        @Transactional(readOnly = true, propagation = Propagation.REQUIRES_NEW)
+        public void newReadOnlyTransaction() {
+        }
     }
 
     @Transactional
@@ -0,0 +1,75 @@
+package com.paymentgateway.common.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CommittedWriteRecorderTest {
+
+    private final CommittedWriteRecorder recorder = new CommittedWriteRecorder();
+
+    @BeforeEach
+    void setUp() {
+        ReadYourWritesContext.begin(0x1000L);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+        ReadYourWritesContext.end();
+    }
+
+    @Test
+    void inspect_CommittedWriteIsFlaggedForResolution() {
+        recorder.inspect("insert into transactions (amount, id) values (?, ?)");
+        recorder.inspect("update transactions set status=? where id=?");
+
+        // Not until the transaction commits, and once for all its writes
+        assertThat(TransactionSynchronizationManager.getSynchronizations()).hasSize(1);
+        assertThat(ReadYourWritesContext.takeUnresolvedWrite()).isFalse();
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertThat(ReadYourWritesContext.takeUnresolvedWrite()).isTrue();
+        assertThat(ReadYourWritesContext.requiredLsn()).isEqualTo(0x1000L);
+    }
+
+    @Test
+    void inspect_ReadOnlyTransactionIsNotTracked() {
+        recorder.inspect("select t1_0.id from transactions t1_0 where t1_0.idempotency_key=?");
+        recorder.inspect("  SELECT id FROM transactions WHERE id = ? FOR UPDATE");
+
+        assertThat(TransactionSynchronizationManager.getSynchronizations()).isEmpty();
+        assertThat(ReadYourWritesContext.takeUnresolvedWrite()).isFalse();
+    }
+
+    @Test
+    void inspect_RolledBackWriteIsNotTracked() {
+        recorder.inspect("insert into payment_outbox (aggregate_id, event_type, payload) values (?, ?, ?)");
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(ReadYourWritesContext.takeUnresolvedWrite()).isFalse();
+    }
+
+    @Test
+    void inspect_WriteOutsideRequestScopeIsNotTracked() {
+        ReadYourWritesContext.end();
+
+        recorder.inspect("delete from payment_outbox where id=?");
+
+        assertThat(TransactionSynchronizationManager.getSynchronizations()).isEmpty();
+    }
+
+    private static void complete(int status) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(status);
+        }
+    }
+}
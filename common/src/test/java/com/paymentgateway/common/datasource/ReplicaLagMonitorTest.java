@@ -0,0 +1,171 @@
+package com.paymentgateway.common.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReplicaLagMonitorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ReplicaLagMonitor monitor;
+
+    @AfterEach
+    void tearDown() {
+        if (monitor != null) {
+            monitor.close();
+        }
+    }
+
+    @Test
+    void parseLsn_RoundTripsPostgresTextForm() {
+        long lsn = ReplicaLagMonitor.parseLsn("16/B374D848");
+
+        assertThat(lsn).isEqualTo(0x16B374D848L);
+        assertThat(ReplicaLagMonitor.formatLsn(lsn)).isEqualTo("16/B374D848");
+        assertThatThrownBy(() -> ReplicaLagMonitor.parseLsn("B374D848")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ReplicaLagMonitor.parseLsn("1/zz")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void canServe_FalseUntilFirstProbe() throws SQLException {
+        monitor = monitor(lsnSource("0/100"), lsnSource("0/100"), 1024);
+
+        assertThat(monitor.canServe(null)).isFalse();
+        assertThat(fallbacks("unknown")).isEqualTo(1.0);
+    }
+
+    @Test
+    void canServe_TrueWhenReplicaIsCaughtUp() throws SQLException {
+        monitor = monitor(lsnSource("0/1000"), lsnSource("0/1000"), 1024);
+
+        monitor.probe();
+
+        assertThat(monitor.canServe(null)).isTrue();
+        assertThat(monitor.canServe(0x1000L)).isTrue();
+        assertThat(meterRegistry.get("datasource.replica.lag.bytes").tag("replica", "r1").gauge().value()).isZero();
+    }
+
+    @Test
+    void canServe_FalseWhenLagExceedsBound() throws SQLException {
+        monitor = monitor(lsnSource("0/10000"), lsnSource("0/1000"), 1024);
+
+        monitor.probe();
+
+        assertThat(monitor.canServe(null)).isFalse();
+        assertThat(fallbacks("lag")).isEqualTo(1.0);
+    }
+
+    @Test
+    void canServe_FalseUntilReplicaReplaysTheToken() throws SQLException {
+        monitor = monitor(lsnSource("0/1200"), lsnSource("0/1000"), 1024);
+
+        monitor.probe();
+
+        assertThat(monitor.canServe(0x1000L)).isTrue();
+        assertThat(monitor.canServe(0x1100L)).isFalse();
+        assertThat(fallbacks("token")).isEqualTo(1.0);
+    }
+
+    @Test
+    void probe_FailureKeepsReadsOnPrimaryOnceSampleIsStale() throws SQLException {
+        DataSource replica = mock(DataSource.class);
+        when(replica.getConnection()).thenThrow(new SQLException("connection refused"));
+        monitor = monitor(lsnSource("0/1000"), replica, 1024);
+
+        monitor.probe();
+
+        assertThat(monitor.canServe(null)).isFalse();
+        assertThat(meterRegistry.get("datasource.replica.probe.failures").tag("replica", "r1").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void canServe_AnyCaughtUpReplicaWillDo() throws SQLException {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("behind", lsnSource("0/1000"));
+        replicas.put("current", lsnSource("0/1200"));
+        monitor = new ReplicaLagMonitor(lsnSource("0/1200"), replicas, 1024, Duration.ofMinutes(1), meterRegistry);
+
+        monitor.probe();
+
+        assertThat(monitor.canServe(0x1100L)).isTrue();
+        assertThat(monitor.canServe("behind", 0x1100L)).isFalse();
+        assertThat(monitor.canServe("current", 0x1100L)).isTrue();
+        assertThat(monitor.canServe("unknown", null)).isFalse();
+    }
+
+    @Test
+    void requiredLsn_ResolvesCommittedWriteOnceWhenNeeded() throws SQLException {
+        DataSource primary = lsnSource("0/2000");
+        monitor = monitor(primary, lsnSource("0/2000"), 1024);
+        ReadYourWritesContext.begin(0x1000L);
+        try {
+            assertThat(monitor.requiredLsn()).isEqualTo(0x1000L);
+            verify(primary, never()).getConnection();
+
+            ReadYourWritesContext.recordUnresolvedWrite();
+            ReadYourWritesContext.recordUnresolvedWrite();
+
+            assertThat(monitor.requiredLsn()).isEqualTo(0x2000L);
+            assertThat(monitor.requiredLsn()).isEqualTo(0x2000L);
+            verify(primary, times(1)).getConnection();
+        } finally {
+            ReadYourWritesContext.end();
+        }
+    }
+
+    @Test
+    void requiredLsn_UnknownWritePositionKeepsRequestOnPrimary() throws SQLException {
+        DataSource primary = mock(DataSource.class);
+        when(primary.getConnection()).thenThrow(new SQLException("primary unreachable"));
+        monitor = monitor(primary, lsnSource("0/1000"), 1024);
+        ReadYourWritesContext.begin(null);
+        try {
+            ReadYourWritesContext.recordUnresolvedWrite();
+
+            assertThat(monitor.requiredLsn()).isEqualTo(Long.MAX_VALUE);
+        } finally {
+            ReadYourWritesContext.end();
+        }
+    }
+
+    private ReplicaLagMonitor monitor(DataSource primary, DataSource replica, long maxLagBytes) {
+        return new ReplicaLagMonitor(primary, Map.of("r1", replica), maxLagBytes, Duration.ofMinutes(1),
+                meterRegistry);
+    }
+
+    private double fallbacks(String reason) {
+        return meterRegistry.get(ReplicaLagMonitor.FALLBACK_COUNTER).tag("reason", reason).counter().count();
+    }
+
+    private static DataSource lsnSource(String lsn) throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        ResultSet rows = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(rows);
+        when(rows.next()).thenReturn(true);
+        when(rows.getString(1)).thenReturn(lsn);
+        return dataSource;
+    }
+}
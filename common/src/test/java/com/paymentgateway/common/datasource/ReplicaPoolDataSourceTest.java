@@ -0,0 +1,129 @@
+package com.paymentgateway.common.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaPoolDataSourceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DataSource primary = mock(DataSource.class);
+
+    @Test
+    void schedule_InterleavesByWeight() {
+        ReplicaPoolDataSource.Replica a = replica("a", 5, () -> 0);
+        ReplicaPoolDataSource.Replica b = replica("b", 1, () -> 0);
+        ReplicaPoolDataSource.Replica c = replica("c", 1, () -> 0);
+
+        ReplicaPoolDataSource.Replica[] schedule = ReplicaPoolDataSource.schedule(List.of(a, b, c));
+
+        assertThat(Arrays.stream(schedule).map(ReplicaPoolDataSource.Replica::getName))
+                .containsExactly("a", "a", "b", "a", "c", "a", "a");
+    }
+
+    @Test
+    void leastOutstanding_PicksLeastLoadedPerUnitOfWeight() {
+        AtomicInteger busy = new AtomicInteger(8);
+        ReplicaPoolDataSource.Replica heavy = replica("heavy", 4, busy::get);
+        ReplicaPoolDataSource.Replica light = replica("light", 1, () -> 1);
+        ReplicaPoolDataSource pool = pool(ReplicaPoolDataSource.Balancer.LEAST_OUTSTANDING, heavy, light);
+
+        // (8 + 1) / 4 = 2.25 loses to (1 + 1) / 1 = 2
+        assertThat(pool.select(null)).isSameAs(light);
+
+        busy.set(2);
+        assertThat(pool.select(null)).isSameAs(heavy);
+    }
+
+    @Test
+    void select_SkipsReplicasTheLagMonitorRejects() {
+        ReplicaPoolDataSource.Replica behind = replica("behind", 1, () -> 0);
+        ReplicaPoolDataSource.Replica current = replica("current", 1, () -> 5);
+        ReplicaPoolDataSource pool = pool(ReplicaPoolDataSource.Balancer.LEAST_OUTSTANDING, behind, current);
+        ReplicaLagMonitor monitor = mock(ReplicaLagMonitor.class);
+        when(monitor.canServe("behind", 42L)).thenReturn(false);
+        when(monitor.canServe("current", 42L)).thenReturn(true);
+        pool.setReplicaLagMonitor(monitor);
+
+        assertThat(pool.select(42L)).isSameAs(current);
+    }
+
+    @Test
+    void getConnection_EjectsFailingReplicaAndUsesTheNext() throws SQLException {
+        DataSource broken = mock(DataSource.class);
+        when(broken.getConnection()).thenThrow(new SQLException("connection refused"));
+        DataSource healthy = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(healthy.getConnection()).thenReturn(connection);
+        ReplicaPoolDataSource pool = pool(ReplicaPoolDataSource.Balancer.WEIGHTED_ROUND_ROBIN,
+                new ReplicaPoolDataSource.Replica("broken", broken, 1, () -> 0),
+                new ReplicaPoolDataSource.Replica("healthy", healthy, 1, () -> 0));
+
+        List<Connection> connections = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            connections.add(pool.getConnection());
+        }
+
+        assertThat(connections).containsOnly(connection);
+        assertThat(counter("datasource.replica.ejections", "broken")).isEqualTo(1.0);
+        assertThat(counter("datasource.replica.connections", "healthy")).isEqualTo(4.0);
+        assertThat(meterRegistry.get("datasource.replica.admitted").tag("replica", "broken").gauge().value())
+                .isZero();
+    }
+
+    @Test
+    void getConnection_FallsBackToPrimaryWhenNoReplicaIsEligible() throws SQLException {
+        DataSource broken = mock(DataSource.class);
+        when(broken.getConnection()).thenThrow(new SQLException("connection refused"));
+        Connection primaryConnection = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        ReplicaPoolDataSource pool = pool(ReplicaPoolDataSource.Balancer.LEAST_OUTSTANDING,
+                new ReplicaPoolDataSource.Replica("broken", broken, 1, () -> 0));
+
+        assertThat(pool.getConnection()).isSameAs(primaryConnection);
+        assertThat(pool.getConnection()).isSameAs(primaryConnection);
+        assertThat(meterRegistry.get(ReplicaLagMonitor.FALLBACK_COUNTER).tag("reason", "unavailable").counter()
+                .count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void getConnection_ReadmitsReplicaAfterEjectionTime() throws SQLException {
+        DataSource flaky = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(flaky.getConnection()).thenThrow(new SQLException("restarting")).thenReturn(connection);
+        when(primary.getConnection()).thenReturn(mock(Connection.class));
+        ReplicaPoolDataSource pool = new ReplicaPoolDataSource(
+                List.of(new ReplicaPoolDataSource.Replica("flaky", flaky, 1, () -> 0)),
+                ReplicaPoolDataSource.Balancer.LEAST_OUTSTANDING, primary, Duration.ZERO, meterRegistry);
+
+        assertThat(pool.getConnection()).isNotSameAs(connection);
+        assertThat(pool.getConnection()).isSameAs(connection);
+    }
+
+    private ReplicaPoolDataSource pool(ReplicaPoolDataSource.Balancer balancer,
+            ReplicaPoolDataSource.Replica... replicas) {
+        return new ReplicaPoolDataSource(List.of(replicas), balancer, primary, Duration.ofMinutes(1), meterRegistry);
+    }
+
+    private double counter(String name, String replica) {
+        return meterRegistry.get(name).tag("replica", replica).counter().count();
+    }
+
+    private static ReplicaPoolDataSource.Replica replica(String name, int weight,
+            IntSupplier outstanding) {
+        return new ReplicaPoolDataSource.Replica(name, mock(DataSource.class), weight, outstanding);
+    }
+}
@@ -2,6 +2,11 @@ package com.paymentgateway.common.datasource;
 
 import org.junit.jupiter.api.Test;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class RoutingDataSourceTest {
 
@@ -18,4 +23,27 @@ public class RoutingDataSourceTest {
         DataSourceContextHolder.clearDataSourceType();
         assertThat(routingDataSource.determineCurrentLookupKey()).isNull();
     }
+
+    @Test
+    void determineCurrentLookupKey_FallsBackToPrimaryWhenReplicaCannotServe() {
+        ReplicaLagMonitor monitor = mock(ReplicaLagMonitor.class);
+        routingDataSource.setReplicaLagMonitor(monitor);
+        when(monitor.requiredLsn()).thenReturn(42L);
+        try {
+            when(monitor.canServe(42L)).thenReturn(false);
+            DataSourceContextHolder.setDataSourceType(DataSourceType.SECONDARY);
+            assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo(DataSourceType.PRIMARY);
+
+            when(monitor.canServe(42L)).thenReturn(true);
+            assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo(DataSourceType.SECONDARY);
+
+            DataSourceContextHolder.setDataSourceType(DataSourceType.PRIMARY);
+            assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo(DataSourceType.PRIMARY);
+            verify(monitor, never()).canServe(null);
+            // Primary routes never resolve the read-your-writes position
+            verify(monitor, times(2)).requiredLsn();
+        } finally {
+            DataSourceContextHolder.clearDataSourceType();
+        }
+    }
 }
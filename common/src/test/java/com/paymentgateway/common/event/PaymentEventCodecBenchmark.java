@@ -0,0 +1,79 @@
+package com.paymentgateway.common.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paymentgateway.common.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binary payment event codec vs the Jackson path previously used for
+ * {@code payment-events} (Spring's JsonSerializer/JsonDeserializer wrap the same
+ * ObjectMapper calls). Encoded sizes are printed at setup.
+ * <p>
+ * Run with {@code mvn -pl common test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.paymentgateway.common.event.PaymentEventCodecBenchmark}
+ * (add {@code -prof gc} via the JMH CLI to compare allocation rates).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentEventCodecBenchmark {
+
+    private ObjectMapper objectMapper;
+    private Transaction transaction;
+    private byte[] binary;
+    private byte[] json;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        transaction = PaymentEventCodecTest.sampleTransaction();
+        binary = PaymentEventCodec.encode(transaction);
+        json = objectMapper.writeValueAsBytes(transaction);
+        System.out.printf("%nencoded size: binary=%d bytes, json=%d bytes%n", binary.length, json.length);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return PaymentEventCodec.encode(transaction);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws IOException {
+        return objectMapper.writeValueAsBytes(transaction);
+    }
+
+    @Benchmark
+    public Transaction decodeBinary() {
+        return PaymentEventCodec.decode(binary);
+    }
+
+    @Benchmark
+    public Transaction decodeJson() throws IOException {
+        return objectMapper.readValue(json, Transaction.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PaymentEventCodecBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
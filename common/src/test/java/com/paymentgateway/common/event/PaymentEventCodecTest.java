@@ -0,0 +1,129 @@
+package com.paymentgateway.common.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paymentgateway.common.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PaymentEventCodecTest {
+
+    static Transaction sampleTransaction() {
+        LocalDateTime created = LocalDateTime.of(2025, 3, 14, 9, 26, 53, 589_793_000);
+        return Transaction.builder()
+                .id("7c9e6679-7425-40de-944b-e07fc1f90ae7")
+                .merchantId("MERCHANT-001")
+                .amount(new BigDecimal("1234.50"))
+                .currency("USD")
+                .status(Transaction.TransactionStatus.AUTHORIZED)
+                .paymentMethod(Transaction.PaymentMethod.CARD)
+                .cardToken("tok_4111111111111111")
+                .authorizationCode("AUTH_1a2b3c4d")
+                .referenceNumber("REF_1741944413589")
+                .description("Order #98765")
+                .customerEmail("john@example.com")
+                .idempotencyKey("idem-98765")
+                .createdAt(created)
+                .updatedAt(created.plusNanos(2_000))
+                .build();
+    }
+
+    @Test
+    void roundTrip_PreservesEventFields() {
+        Transaction original = sampleTransaction();
+
+        Transaction decoded = PaymentEventCodec.decode(PaymentEventCodec.encode(original));
+
+        assertThat(decoded).usingRecursiveComparison()
+                .ignoringFields("cardToken")
+                .isEqualTo(original);
+        assertThat(decoded.getAmount()).isEqualTo(new BigDecimal("1234.50"));
+    }
+
+    @Test
+    void roundTrip_LeavesCardTokenOffTheWire() {
+        Transaction decoded = PaymentEventCodec.decode(PaymentEventCodec.encode(sampleTransaction()));
+
+        assertThat(decoded.getCardToken()).isNull();
+    }
+
+    @Test
+    void roundTrip_AbsentFieldsStayNull() {
+        Transaction sparse = Transaction.builder()
+                .id("tx-1")
+                .amount(new BigDecimal("-5"))
+                .status(Transaction.TransactionStatus.FAILED)
+                .build();
+
+        Transaction decoded = PaymentEventCodec.decode(PaymentEventCodec.encode(sparse));
+
+        assertThat(decoded.getId()).isEqualTo("tx-1");
+        assertThat(decoded.getAmount()).isEqualTo(new BigDecimal("-5"));
+        assertThat(decoded.getStatus()).isEqualTo(Transaction.TransactionStatus.FAILED);
+        assertThat(decoded.getMerchantId()).isNull();
+        assertThat(decoded.getCreatedAt()).isNull();
+    }
+
+    @Test
+    void encode_WritesSchemaVersionHeader() {
+        byte[] bytes = PaymentEventCodec.encode(sampleTransaction());
+
+        assertThat(bytes[0]).isEqualTo(PaymentEventCodec.MAGIC);
+        assertThat(PaymentEventCodec.schemaVersion(bytes)).isEqualTo(PaymentEventCodec.SCHEMA_VERSION);
+    }
+
+    @Test
+    void decode_RejectsUnknownSchemaVersion() {
+        byte[] bytes = PaymentEventCodec.encode(sampleTransaction());
+        bytes[1] = 99;
+
+        assertThatThrownBy(() -> PaymentEventCodec.decode(bytes))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("99");
+    }
+
+    @Test
+    void codes_AreFixedOnTheWire() {
+        // Changing any of these breaks every record already on the topic
+        assertThat(PaymentEventCodec.statusCode(Transaction.TransactionStatus.INITIATED)).isZero();
+        assertThat(PaymentEventCodec.statusCode(Transaction.TransactionStatus.CANCELLED)).isEqualTo(6);
+        assertThat(PaymentEventCodec.paymentMethodCode(Transaction.PaymentMethod.CARD)).isZero();
+        assertThat(PaymentEventCodec.paymentMethodCode(Transaction.PaymentMethod.WALLET)).isEqualTo(3);
+        for (Transaction.TransactionStatus status : Transaction.TransactionStatus.values()) {
+            assertThat(PaymentEventCodec.status(PaymentEventCodec.statusCode(status))).isEqualTo(status);
+        }
+        for (Transaction.PaymentMethod method : Transaction.PaymentMethod.values()) {
+            assertThat(PaymentEventCodec.paymentMethod(PaymentEventCodec.paymentMethodCode(method))).isEqualTo(method);
+        }
+    }
+
+    @Test
+    void decode_RejectsUnknownStatusCode() {
+        byte[] bytes = PaymentEventCodec.encode(Transaction.builder()
+                .status(Transaction.TransactionStatus.SETTLED)
+                .build());
+        bytes[bytes.length - 1] = 42;
+
+        assertThatThrownBy(() -> PaymentEventCodec.decode(bytes))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("42");
+    }
+
+    @Test
+    void decode_RejectsForeignPayload() {
+        assertThatThrownBy(() -> PaymentEventCodec.decode("{\"id\":\"tx-1\"}".getBytes()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void encode_IsSmallerThanJson() throws Exception {
+        Transaction transaction = sampleTransaction();
+        byte[] json = new ObjectMapper().findAndRegisterModules().writeValueAsBytes(transaction);
+
+        assertThat(PaymentEventCodec.encode(transaction).length).isLessThan(json.length / 2);
+    }
+}
@@ -0,0 +1,64 @@
+package com.paymentgateway.common.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimeOrderedIdsTest {
+
+    @Test
+    void uuid_IsVersion7WithTheRfcVariant() {
+        UUID id = TimeOrderedIds.uuid();
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+    }
+
+    @Test
+    void timestampOf_ReturnsTheGenerationMillisecond() {
+        long before = System.currentTimeMillis();
+        UUID id = TimeOrderedIds.uuid();
+        long after = System.currentTimeMillis();
+
+        assertThat(TimeOrderedIds.timestampOf(id).toEpochMilli()).isBetween(before, after);
+        assertThat(TimeOrderedIds.timestampOf(TimeOrderedIds.at(1_700_000_000_123L)))
+                .isEqualTo(Instant.ofEpochMilli(1_700_000_000_123L));
+    }
+
+    @Test
+    void timestampOf_RejectsOtherVersions() {
+        assertThatThrownBy(() -> TimeOrderedIds.timestampOf(UUID.randomUUID()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void timestampOf_StringIsEmptyForIdsThatAreNotTimeOrdered() {
+        assertThat(TimeOrderedIds.timestampOf(TimeOrderedIds.at(1_700_000_000_123L).toString()))
+                .contains(Instant.ofEpochMilli(1_700_000_000_123L));
+        assertThat(TimeOrderedIds.timestampOf(UUID.randomUUID().toString())).isEmpty();
+        assertThat(TimeOrderedIds.timestampOf("tx-42")).isEmpty();
+        assertThat(TimeOrderedIds.timestampOf("zzzzzzzz-zzzz-7zzz-zzzz-zzzzzzzzzzzz")).isEmpty();
+        assertThat(TimeOrderedIds.timestampOf((String) null)).isEmpty();
+    }
+
+    @Test
+    void next_SortsByMillisecondAsStrings() {
+        List<String> ids = new ArrayList<>();
+        for (long millis = 1_700_000_000_000L; millis < 1_700_000_000_000L + 1000; millis += 7) {
+            ids.add(TimeOrderedIds.at(millis).toString());
+        }
+
+        assertThat(ids).isSorted();
+    }
+
+    @Test
+    void next_KeepsTheRandomBits() {
+        assertThat(TimeOrderedIds.at(0L)).isNotEqualTo(TimeOrderedIds.at(0L));
+    }
+}
@@ -1,9 +1,11 @@
 package com.paymentgateway.common.model;
 
+import com.paymentgateway.common.money.Money;
 import org.junit.jupiter.api.Test;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class TransactionTest {
 
@@ -53,4 +55,47 @@ public class TransactionTest {
         transaction.setId("tx-1");
         assertThat(transaction.getId()).isEqualTo("tx-1");
     }
+
+    @Test
+    void isNew_UntilCreationTimestampAssigned() {
+        Transaction transaction = Transaction.builder().id("tx-1").build();
+        assertThat(transaction.isNew()).isTrue();
+
+        transaction.setCreatedAt(LocalDateTime.now());
+        assertThat(transaction.isNew()).isFalse();
+    }
+
+    @Test
+    void assignId_KeepsExistingId() {
+        Transaction assigned = Transaction.builder().id("tx-1").build();
+        assigned.assignId();
+        assertThat(assigned.getId()).isEqualTo("tx-1");
+
+        Transaction unassigned = new Transaction();
+        unassigned.assignId();
+        assertThat(unassigned.getId()).isNotBlank();
+    }
+
+    @Test
+    void money_MapsToAmountAndCurrency() {
+        Transaction transaction = Transaction.builder()
+                .amount(new BigDecimal("10.5"))
+                .currency("EUR")
+                .build();
+        assertThat(transaction.getMoney()).isEqualTo(Money.ofMinor(1050, "EUR"));
+
+        transaction.setMoney(Money.ofMinor(1500, "JPY"));
+        assertThat(transaction.getAmount()).isEqualTo(new BigDecimal("1500"));
+        assertThat(transaction.getCurrency()).isEqualTo("JPY");
+    }
+
+    @Test
+    void setMoney_RejectsCurrenciesFinerThanTheAmountColumn() {
+        Transaction transaction = new Transaction();
+
+        assertThatThrownBy(() -> transaction.setMoney(Money.ofMinor(1234, "KWD")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Currency KWD has 3 decimal places; amounts are stored with 2");
+        assertThat(transaction.getAmount()).isNull();
+    }
 }
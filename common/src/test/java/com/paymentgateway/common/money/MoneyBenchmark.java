@@ -0,0 +1,101 @@
+package com.paymentgateway.common.money;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The amount handling of one payment, before and after {@link Money}. The
+ * request amount arrives as a {@link BigDecimal} in both cases, as Jackson
+ * parses it from the public API.
+ * <ul>
+ * <li>{@code doubles} / {@code money}: request validation and the authorization
+ * limit, returning the value that goes into the fraud request; formerly
+ * {@code doubleValue()} for every check and a boxed {@code Double}</li>
+ * <li>{@code doublesOnTheWire} / {@code moneyOnTheWire}: the amount's trip to
+ * the fraud service and into its model features, as a JSON double before and
+ * as minor units now</li>
+ * </ul>
+ * Run with {@code mvn -pl common test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.paymentgateway.common.money.MoneyBenchmark}; allocation
+ * per payment is {@code gc.alloc.rate.norm} in the {@code -prof gc} output.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private static final double LIMIT = 10000.0;
+    private static final String CURRENCY = "USD";
+
+    private ObjectMapper objectMapper;
+    private BigDecimal amount;
+    private Money limit;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        amount = new BigDecimal("149.99");
+        limit = Money.ofMajor(10_000, CURRENCY);
+    }
+
+    @Benchmark
+    public Double doubles() {
+        if (amount.doubleValue() <= 0) {
+            throw new IllegalStateException();
+        }
+        return amount.doubleValue() < LIMIT ? amount.doubleValue() : null;
+    }
+
+    @Benchmark
+    public Money money() {
+        Money money = Money.of(amount, CURRENCY);
+        if (!money.isPositive()) {
+            throw new IllegalStateException();
+        }
+        return money.isLessThan(limit) ? money : null;
+    }
+
+    @Benchmark
+    public float doublesOnTheWire() throws IOException {
+        byte[] wire = objectMapper.writeValueAsBytes(new DoubleFraudCheck(amount.doubleValue(), CURRENCY));
+        return objectMapper.readValue(wire, DoubleFraudCheck.class).amount().floatValue();
+    }
+
+    @Benchmark
+    public float moneyOnTheWire() throws IOException {
+        byte[] wire = objectMapper.writeValueAsBytes(new MoneyFraudCheck(Money.of(amount, CURRENCY)));
+        return (float) objectMapper.readValue(wire, MoneyFraudCheck.class).amount().toDouble();
+    }
+
+    public record DoubleFraudCheck(Double amount, String currency) {
+    }
+
+    public record MoneyFraudCheck(Money amount) {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MoneyBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
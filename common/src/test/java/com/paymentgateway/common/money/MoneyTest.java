@@ -0,0 +1,97 @@
+package com.paymentgateway.common.money;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void of_UsesTheCurrencyExponent() {
+        assertThat(Money.of(new BigDecimal("12.34"), "USD").minorUnits()).isEqualTo(1234);
+        assertThat(Money.of(new BigDecimal("12.3"), "USD").minorUnits()).isEqualTo(1230);
+        assertThat(Money.of(new BigDecimal("1500"), "JPY").minorUnits()).isEqualTo(1500);
+        assertThat(Money.of(new BigDecimal("1.234"), "KWD").minorUnits()).isEqualTo(1234);
+        assertThat(Money.of(new BigDecimal("12.340"), "USD").minorUnits()).isEqualTo(1234);
+    }
+
+    @Test
+    void of_RejectsExtraDecimalsInsteadOfRounding() {
+        assertThatThrownBy(() -> Money.of(new BigDecimal("12.345"), "USD"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("USD");
+        assertThatThrownBy(() -> Money.of(new BigDecimal("1.5"), "JPY"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void of_RejectsUnknownCurrencies() {
+        assertThatThrownBy(() -> Money.of(BigDecimal.ONE, "ABC"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unsupported currency: ABC");
+        assertThatThrownBy(() -> Money.ofMinor(1, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(CurrencyUnits.isSupported("XAU")).isFalse();
+    }
+
+    @Test
+    void toBigDecimal_KeepsTheCurrencyScale() {
+        assertThat(Money.ofMinor(1050, "USD").toBigDecimal()).isEqualTo(new BigDecimal("10.50"));
+        assertThat(Money.ofMinor(1050, "JPY").toBigDecimal()).isEqualTo(new BigDecimal("1050"));
+        assertThat(Money.ofMajor(10_000, "USD").minorUnits()).isEqualTo(1_000_000);
+        assertThat(Money.ofMinor(1234, "USD").toDouble()).isEqualTo(12.34);
+        assertThat(Money.ofMinor(1234, "USD")).hasToString("12.34 USD");
+    }
+
+    @Test
+    void arithmetic_StaysWithinOneCurrency() {
+        Money ten = Money.ofMajor(10, "USD");
+
+        assertThat(ten.plus(Money.ofMinor(5, "USD"))).isEqualTo(Money.ofMinor(1005, "USD"));
+        assertThat(Money.ofMinor(999, "USD").isLessThan(ten)).isTrue();
+        assertThat(ten.isPositive()).isTrue();
+        assertThat(Money.ofMinor(0, "USD").isPositive()).isFalse();
+        assertThatThrownBy(() -> ten.isLessThan(Money.ofMajor(10, "EUR")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Money.ofMinor(Long.MAX_VALUE, "USD").plus(ten))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void currency_IsCanonical() {
+        Money money = Money.ofMinor(1, new String("USD"));
+
+        assertThat(money.currency()).isSameAs(Money.ofMinor(2, "USD").currency());
+    }
+
+    @Test
+    void json_RoundTripsMinorUnitsAndCurrency() throws Exception {
+        String json = objectMapper.writeValueAsString(Money.ofMinor(1234, "EUR"));
+
+        assertThat(json).isEqualTo("{\"minorUnits\":1234,\"currency\":\"EUR\"}");
+        assertThat(objectMapper.readValue(json, Money.class)).isEqualTo(Money.ofMinor(1234, "EUR"));
+    }
+
+    @Test
+    void json_RejectsUnknownCurrencyAndMissingUnits() {
+        assertThatThrownBy(() -> objectMapper.readValue("{\"minorUnits\":1,\"currency\":\"ABC\"}", Money.class))
+                .isInstanceOf(MismatchedInputException.class);
+        assertThatThrownBy(() -> objectMapper.readValue("{\"currency\":\"USD\"}", Money.class))
+                .isInstanceOf(MismatchedInputException.class);
+    }
+
+    @Test
+    void json_RejectsFractionalMinorUnits() {
+        assertThatThrownBy(() -> objectMapper.readValue("{\"minorUnits\":12.7,\"currency\":\"USD\"}", Money.class))
+                .isInstanceOf(MismatchedInputException.class);
+        assertThatThrownBy(() -> objectMapper.readValue("{\"minorUnits\":\"12\",\"currency\":\"USD\"}", Money.class))
+                .isInstanceOf(MismatchedInputException.class);
+    }
+}
@@ -3,7 +3,14 @@ package com.paymentgateway.fraud.config;
 import ai.onnxruntime.OrtEnvironment;
 import ai.onnxruntime.OrtException;
 import ai.onnxruntime.OrtSession;
+import com.paymentgateway.fraud.ml.InferenceExecutor;
+import com.paymentgateway.fraud.ml.MicroBatcher;
+import com.paymentgateway.fraud.ml.OnnxBatchModel;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
@@ -20,6 +27,28 @@ import java.io.IOException;
 @Slf4j
 public class OnnxConfig {
 
+    // Native threads per model run; InferenceExecutor sizes its pool from the same value
+    @Value("${fraud.inference.intra-op-threads:1}")
+    private int intraOpThreads = 1;
+
+    @Value("${fraud.inference.optimization-level:ALL_OPT}")
+    private OrtSession.SessionOptions.OptLevel optimizationLevel = OrtSession.SessionOptions.OptLevel.ALL_OPT;
+
+    @Value("${fraud.inference.cpu-arena:true}")
+    private boolean cpuArena = true;
+
+    @Value("${fraud.batching.enabled:true}")
+    private boolean batchingEnabled = true;
+
+    @Value("${fraud.batching.max-batch:32}")
+    private int maxBatch = 32;
+
+    @Value("${fraud.batching.max-wait-micros:200}")
+    private long maxWaitMicros = 200;
+
+    @Value("${fraud.batching.queue-capacity:1024}")
+    private int batchQueueCapacity = 1024;
+
     @Bean
     public OrtEnvironment ortEnvironment() {
         return OrtEnvironment.getEnvironment();
@@ -35,7 +64,7 @@ public class OnnxConfig {
         try {
             byte[] modelBytes = new ClassPathResource("models/logistic_regression.onnx")
                     .getContentAsByteArray();
-            OrtSession session = env.createSession(modelBytes, new OrtSession.SessionOptions());
+            OrtSession session = env.createSession(modelBytes, sessionOptions());
             log.info("✅ Loaded Champion model: logistic_regression.onnx (size: {} KB)",
                     modelBytes.length / 1024);
             return session;
@@ -54,7 +83,7 @@ public class OnnxConfig {
         try {
             byte[] modelBytes = new ClassPathResource("models/xgboost_fraud.onnx")
                     .getContentAsByteArray();
-            OrtSession session = env.createSession(modelBytes, new OrtSession.SessionOptions());
+            OrtSession session = env.createSession(modelBytes, sessionOptions());
             log.info("✅ Loaded Challenger model: xgboost_fraud.onnx (size: {} KB)",
                     modelBytes.length / 1024);
             return session;
@@ -64,6 +93,45 @@ public class OnnxConfig {
         }
     }
 
+    /**
+     * Micro-batcher for the champion, or null when batching is off, the
+     * champion is missing, or its input has a fixed batch size.
+     */
+    @Bean(name = "championBatcher", destroyMethod = "close")
+    public MicroBatcher championBatcher(OrtEnvironment env,
+            @Qualifier("championSession") ObjectProvider<OrtSession> championSession,
+            InferenceExecutor inferenceExecutor, MeterRegistry meterRegistry) throws OrtException {
+        OrtSession session = championSession.getIfAvailable();
+        if (!batchingEnabled || session == null) {
+            return null;
+        }
+        int width = OnnxBatchModel.batchableWidth(session);
+        if (width == 0) {
+            log.warn("Champion model input has a fixed batch size; micro-batching disabled");
+            return null;
+        }
+        return new MicroBatcher("champion", new OnnxBatchModel(env, session, width, maxBatch), width, maxBatch,
+                maxWaitMicros, batchQueueCapacity, inferenceExecutor, meterRegistry);
+    }
+
+    /**
+     * Parallelism comes from running many requests at once on the inference
+     * pool, so each run keeps to a fixed number of native threads and executes
+     * its graph sequentially. The graph is optimized once at load; the arena
+     * and memory patterns let repeated runs of the same shape reuse native
+     * memory instead of allocating it per run.
+     */
+    private OrtSession.SessionOptions sessionOptions() throws OrtException {
+        OrtSession.SessionOptions options = new OrtSession.SessionOptions();
+        options.setIntraOpNumThreads(intraOpThreads);
+        options.setInterOpNumThreads(1);
+        options.setExecutionMode(OrtSession.SessionOptions.ExecutionMode.SEQUENTIAL);
+        options.setOptimizationLevel(optimizationLevel);
+        options.setCPUArenaAllocator(cpuArena);
+        options.setMemoryPatternOptimization(true);
+        return options;
+    }
+
     /**
      * Legacy bean for backward compatibility.
      * 
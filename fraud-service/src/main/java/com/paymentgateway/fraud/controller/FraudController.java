@@ -10,13 +10,19 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/v1/fraud")
 @RequiredArgsConstructor
 public class FraudController {
 
+    /** Checks of one batch scored at the same time */
+    private static final int BATCH_CONCURRENCY = 32;
+
     private final FraudDetectionService fraudService;
 
     @PostMapping("/check")
@@ -24,4 +30,16 @@ public class FraudController {
         return fraudService.evaluateRisk(request)
                 .map(result -> ApiResponse.success("Fraud check completed", result));
     }
+
+    /**
+     * Scores a batch of payments in one round trip; results keep request order.
+     */
+    @PostMapping("/check/batch")
+    public Mono<ApiResponse<List<FraudResult>>> checkFraudBatch(
+            @RequestBody List<@Valid FraudCheckRequest> requests) {
+        return Flux.fromIterable(requests)
+                .flatMapSequential(fraudService::evaluateRisk, BATCH_CONCURRENCY)
+                .collectList()
+                .map(results -> ApiResponse.success("Fraud checks completed", results));
+    }
 }
@@ -1,8 +1,10 @@
 package com.paymentgateway.fraud.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.paymentgateway.common.money.Money;
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
-import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -22,12 +24,19 @@ public class FraudCheckRequest {
     @NotBlank(message = "User ID is required")
     private String userId;
 
+    /**
+     * Minor units and currency, e.g. {@code {"minorUnits":1234,"currency":"USD"}}.
+     */
     @NotNull(message = "Amount is required")
-    @Positive(message = "Amount must be positive")
-    private Double amount;
+    private Money amount;
 
-    private String currency;
     private String ipAddress;
     private String deviceFingerprint;
     private String email;
+
+    @JsonIgnore
+    @AssertTrue(message = "Amount must be positive")
+    public boolean isAmountPositive() {
+        return amount == null || amount.isPositive();
+    }
 }
@@ -0,0 +1,135 @@
+package com.paymentgateway.fraud.ml;
+
+import com.paymentgateway.common.exception.BusinessException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The one place model runs execute: a fixed pool of platform threads shared by
+ * every request, in front of the native ONNX runtime.
+ * <p>
+ * Each run uses {@code fraud.inference.intra-op-threads} native threads, so the
+ * pool defaults to available processors divided by that; more runs at once
+ * would only make them compete for the same cores. Runs beyond the pool wait
+ * in a queue of {@code fraud.inference.queue-capacity}. When that is full the
+ * run is refused straight away with a 503, so an overload sheds work instead of
+ * stretching every request's latency.
+ * <p>
+ * Results come back as a {@link Mono} completed by the inference thread; no
+ * caller thread blocks on a model.
+ */
+@Slf4j
+@Component
+public class InferenceExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final Counter rejected;
+    private final Timer queueWait;
+
+    @Value("${fraud.inference.shutdown-timeout:5s}")
+    private Duration shutdownTimeout = Duration.ofSeconds(5);
+
+    public InferenceExecutor(MeterRegistry meterRegistry,
+            @Value("${fraud.inference.threads:0}") int threads,
+            @Value("${fraud.inference.intra-op-threads:1}") int intraOpThreads,
+            @Value("${fraud.inference.queue-capacity:256}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / Math.max(1, intraOpThreads));
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), daemonThreads("onnx-inference-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.prestartAllCoreThreads();
+        this.rejected = Counter.builder("fraud.inference.rejected")
+                .description("Model runs refused because the inference queue was full")
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("fraud.inference.queue.wait")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("fraud.inference.queue", executor, pool -> pool.getQueue().size()).register(meterRegistry);
+        Gauge.builder("fraud.inference.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        log.info("Inference executor: {} threads x {} intra-op threads, queue {}", poolSize, intraOpThreads,
+                queueCapacity);
+    }
+
+    /**
+     * Runs the task on an inference thread. Fails with a 503
+     * {@link BusinessException} when the queue is full.
+     */
+    public <T> Mono<T> submit(Callable<T> task) {
+        return Mono.defer(() -> {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            long queuedAt = System.nanoTime();
+            try {
+                executor.execute(() -> {
+                    queueWait.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                    try {
+                        result.complete(task.call());
+                    } catch (Exception e) {
+                        result.completeExceptionally(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                rejected.increment();
+                return Mono.error(new BusinessException("Fraud scoring is at capacity, retry later",
+                        "INFERENCE_OVERLOADED", 503));
+            }
+            return Mono.fromFuture(result);
+        });
+    }
+
+    int poolSize() {
+        return executor.getCorePoolSize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        awaitShutdown();
+    }
+
+    /**
+     * Stops taking runs and waits up to {@code fraud.inference.shutdown-timeout}
+     * for the queued and running ones to finish.
+     *
+     * @return whether they all did, so no thread can still be in a model
+     */
+    public boolean awaitShutdown() {
+        return awaitShutdown(executor, shutdownTimeout);
+    }
+
+    static boolean awaitShutdown(ThreadPoolExecutor executor, Duration timeout) {
+        executor.shutdown();
+        try {
+            return executor.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    static ThreadFactory daemonThreads(String namePrefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
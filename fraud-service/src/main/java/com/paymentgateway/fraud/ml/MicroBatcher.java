@@ -0,0 +1,183 @@
+package com.paymentgateway.fraud.ml;
+
+import com.paymentgateway.common.exception.BusinessException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Scores concurrent requests against one model in shared {@code [B, n]} runs.
+ * <p>
+ * A collector thread takes the first waiting request, then gathers more for up
+ * to {@code maxWait} or until {@code maxBatch} are in hand, and hands the batch
+ * to {@link InferenceExecutor} as a single model run. Each caller's
+ * {@link Mono} gets its own row of the result. With nothing else waiting a
+ * request pays at most {@code maxWait} extra; under load batches fill before
+ * the wait runs out.
+ * <p>
+ * Requests beyond {@code queueCapacity} are refused with a 503, as are whole
+ * batches the executor refuses.
+ * <p>
+ * {@link #close()} refuses what is still queued, waits for the batches already
+ * handed to the executor and only then closes the model.
+ */
+@Slf4j
+public class MicroBatcher implements AutoCloseable {
+
+    /**
+     * A model that scores {@code batchSize} rows laid out back to back in
+     * {@code rows}.
+     */
+    @FunctionalInterface
+    public interface BatchModel {
+        double[] score(float[] rows, int batchSize) throws Exception;
+    }
+
+    private static final long CLOSE_TIMEOUT_SECONDS = 5;
+
+    private record Pending(float[] features, MonoSink<Double> sink) {
+    }
+
+    private final BatchModel model;
+    private final int featureCount;
+    private final int maxBatch;
+    private final long maxWaitNanos;
+    private final BlockingQueue<Pending> queue;
+    private final InferenceExecutor executor;
+    private final DistributionSummary batchSize;
+    private final Counter rejected;
+    private final Thread collector;
+    // One party per dispatched batch, plus the batcher's own until close
+    private final Phaser inFlight = new Phaser(1);
+    private volatile boolean running = true;
+
+    public MicroBatcher(String name, BatchModel model, int featureCount, int maxBatch, long maxWaitMicros,
+            int queueCapacity, InferenceExecutor executor, MeterRegistry meterRegistry) {
+        this.model = model;
+        this.featureCount = featureCount;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, maxWaitMicros));
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.executor = executor;
+        this.batchSize = DistributionSummary.builder("fraud.inference.batch.size")
+                .tag("model", name)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("fraud.inference.batch.rejected")
+                .tag("model", name)
+                .register(meterRegistry);
+        Gauge.builder("fraud.inference.batch.queue", queue, BlockingQueue::size)
+                .tag("model", name)
+                .register(meterRegistry);
+        this.collector = new Thread(this::collect, "onnx-batcher-" + name);
+        this.collector.setDaemon(true);
+        this.collector.start();
+        log.info("Micro-batching {}: up to {} rows, {}us max wait, queue {}", name, this.maxBatch, maxWaitMicros,
+                queueCapacity);
+    }
+
+    /**
+     * Scores one row of {@code featureCount} features. The array is read when
+     * the batch runs, so the caller must not change it afterwards.
+     */
+    public Mono<Double> score(float[] features) {
+        return Mono.create(sink -> {
+            if (!running || !queue.offer(new Pending(features, sink))) {
+                rejected.increment();
+                sink.error(overloaded());
+            }
+        });
+    }
+
+    private void collect() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxWaitNanos;
+                queue.drainTo(batch, maxBatch - batch.size());
+                while (batch.size() < maxBatch) {
+                    Pending next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatch - batch.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(pending -> pending.sink().error(overloaded()));
+                return;
+            }
+            dispatch(List.copyOf(batch));
+            batch.clear();
+        }
+    }
+
+    private void dispatch(List<Pending> batch) {
+        batchSize.record(batch.size());
+        inFlight.register();
+        executor.submit(() -> run(batch))
+                .doFinally(signal -> inFlight.arriveAndDeregister())
+                .subscribe(
+                        scores -> {
+                            for (int i = 0; i < batch.size(); i++) {
+                                batch.get(i).sink().success(scores[i]);
+                            }
+                        },
+                        error -> batch.forEach(pending -> pending.sink().error(error)));
+    }
+
+    private double[] run(List<Pending> batch) throws Exception {
+        float[] rows = new float[batch.size() * featureCount];
+        for (int i = 0; i < batch.size(); i++) {
+            float[] features = batch.get(i).features();
+            System.arraycopy(features, 0, rows, i * featureCount, Math.min(features.length, featureCount));
+        }
+        return model.score(rows, batch.size());
+    }
+
+    private static BusinessException overloaded() {
+        return new BusinessException("Fraud scoring is at capacity, retry later", "INFERENCE_OVERLOADED", 503);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        collector.interrupt();
+        try {
+            collector.join(TimeUnit.SECONDS.toMillis(CLOSE_TIMEOUT_SECONDS));
+            List<Pending> left = new ArrayList<>();
+            queue.drainTo(left);
+            left.forEach(pending -> pending.sink().error(overloaded()));
+            inFlight.awaitAdvanceInterruptibly(inFlight.arriveAndDeregister(), CLOSE_TIMEOUT_SECONDS,
+                    TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while draining batches; leaving the batch model open");
+            return;
+        } catch (TimeoutException e) {
+            log.warn("Batches still running after {}s; leaving the batch model open", CLOSE_TIMEOUT_SECONDS);
+            return;
+        }
+        if (model instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.warn("Failed to close batch model: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.paymentgateway.fraud.ml;
+
+import ai.onnxruntime.NodeInfo;
+import ai.onnxruntime.OnnxJavaType;
+import ai.onnxruntime.OnnxMap;
+import ai.onnxruntime.OnnxSequence;
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OnnxValue;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import ai.onnxruntime.SequenceInfo;
+import ai.onnxruntime.TensorInfo;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Runs a whole batch through an ONNX session as one {@code [B, n]} input
+ * tensor and returns the fraud probability of each row. A single request is a
+ * batch of one.
+ * <p>
+ * Each thread scores through its own {@code InferenceContext}: a direct input
+ * buffer with an {@link OnnxTensor} and input map bound to it for every batch
+ * size, so a run copies the features in and creates no tensor. When the model
+ * has a float probability output, that output is pinned to a direct buffer as
+ * well and read in place. Models whose probabilities come as per-row maps
+ * (skl2onnx's ZipMap) are read through {@link #fraudProbabilities}, which
+ * boxes.
+ * <p>
+ * Inference threads live as long as the model, so contexts are only released
+ * by {@link #close()}.
+ */
+@Slf4j
+public class OnnxBatchModel implements MicroBatcher.BatchModel, AutoCloseable {
+
+    private static final String INPUT = "input";
+    private static final Long FRAUD_CLASS = 1L;
+
+    private final OrtEnvironment env;
+    private final OrtSession session;
+    private final int featureCount;
+    private final int maxBatch;
+    // Float [B, k] probability output, pinned per context; null when the model has none
+    private final String pinnedOutput;
+    private final int outputWidth;
+    // Outputs to compute when nothing is pinned; empty computes them all
+    private final Set<String> requestedOutputs;
+    private final ThreadLocal<InferenceContext> contexts = ThreadLocal.withInitial(this::newContext);
+    private final Queue<InferenceContext> allContexts = new ConcurrentLinkedQueue<>();
+
+    public OnnxBatchModel(OrtEnvironment env, OrtSession session, int featureCount, int maxBatch) {
+        this.env = env;
+        this.session = session;
+        this.featureCount = featureCount;
+        this.maxBatch = Math.max(1, maxBatch);
+        String tensorOutput = null;
+        int width = 0;
+        String sequenceOutput = null;
+        try {
+            for (Map.Entry<String, NodeInfo> output : session.getOutputInfo().entrySet()) {
+                if (output.getValue().getInfo() instanceof TensorInfo tensor && tensor.type == OnnxJavaType.FLOAT
+                        && tensor.getShape().length == 2 && tensor.getShape()[1] > 0) {
+                    tensorOutput = output.getKey();
+                    width = (int) tensor.getShape()[1];
+                    break;
+                }
+                if (output.getValue().getInfo() instanceof SequenceInfo) {
+                    sequenceOutput = output.getKey();
+                }
+            }
+        } catch (OrtException e) {
+            log.warn("Could not read model outputs, scoring without pinned outputs: {}", e.getMessage());
+        }
+        this.pinnedOutput = tensorOutput;
+        this.outputWidth = width;
+        this.requestedOutputs = tensorOutput == null && sequenceOutput != null ? Set.of(sequenceOutput) : Set.of();
+    }
+
+    @Override
+    public double[] score(float[] rows, int batchSize) throws OrtException {
+        InferenceContext context = context(batchSize);
+        context.input.put(0, rows, 0, batchSize * featureCount);
+        try (OrtSession.Result result = context.run(batchSize)) {
+            if (pinnedOutput == null) {
+                return fraudProbabilities(result, batchSize);
+            }
+            double[] scores = new double[batchSize];
+            for (int i = 0; i < batchSize; i++) {
+                scores[i] = context.output.get(i * outputWidth + outputWidth - 1);
+            }
+            return scores;
+        }
+    }
+
+    /**
+     * Scores one row; with a pinned output nothing is allocated beyond the
+     * runtime's own result wrapper.
+     */
+    public double scoreOne(float[] features) throws OrtException {
+        InferenceContext context = context(1);
+        context.input.put(0, features, 0, featureCount);
+        try (OrtSession.Result result = context.run(1)) {
+            if (pinnedOutput == null) {
+                return fraudProbabilities(result, 1)[0];
+            }
+            return context.output.get(outputWidth - 1);
+        }
+    }
+
+    private InferenceContext context(int batchSize) {
+        if (batchSize < 1 || batchSize > maxBatch) {
+            throw new IllegalArgumentException("Batch of " + batchSize + " exceeds " + maxBatch);
+        }
+        return contexts.get();
+    }
+
+    private InferenceContext newContext() {
+        InferenceContext context = new InferenceContext();
+        allContexts.add(context);
+        return context;
+    }
+
+    /**
+     * One thread's buffers, with the tensors and maps bound to them created the
+     * first time each batch size is run.
+     */
+    private final class InferenceContext {
+
+        private record Binding(Map<String, OnnxTensor> inputs, Map<String, OnnxTensor> outputs) {
+        }
+
+        private final FloatBuffer input = directFloats(maxBatch * featureCount);
+        private final FloatBuffer output = pinnedOutput == null ? null : directFloats(maxBatch * outputWidth);
+        private final Binding[] bindings = new Binding[maxBatch + 1];
+
+        OrtSession.Result run(int batchSize) throws OrtException {
+            Binding binding = bindings[batchSize];
+            if (binding == null) {
+                binding = bind(batchSize);
+                bindings[batchSize] = binding;
+            }
+            if (pinnedOutput != null) {
+                return session.run(binding.inputs(), binding.outputs());
+            }
+            if (!requestedOutputs.isEmpty()) {
+                return session.run(binding.inputs(), requestedOutputs);
+            }
+            return session.run(binding.inputs());
+        }
+
+        private Binding bind(int batchSize) throws OrtException {
+            OnnxTensor in = OnnxTensor.createTensor(env, input.slice(0, batchSize * featureCount),
+                    new long[] { batchSize, featureCount });
+            if (pinnedOutput == null) {
+                return new Binding(Map.of(INPUT, in), Map.of());
+            }
+            OnnxTensor out = OnnxTensor.createTensor(env, output.slice(0, batchSize * outputWidth),
+                    new long[] { batchSize, outputWidth });
+            return new Binding(Map.of(INPUT, in), Map.of(pinnedOutput, out));
+        }
+
+        void close() {
+            for (Binding binding : bindings) {
+                if (binding != null) {
+                    binding.inputs().values().forEach(OnnxTensor::close);
+                    binding.outputs().values().forEach(OnnxTensor::close);
+                }
+            }
+        }
+    }
+
+    private static FloatBuffer directFloats(int count) {
+        return ByteBuffer.allocateDirect(count * Float.BYTES).order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+
+    /**
+     * Reads the fraud-class probability of each row: the last column of a
+     * {@code [B, k]} float output, or class 1 of the per-row maps that
+     * skl2onnx classifiers emit after their label output.
+     */
+    public static double[] fraudProbabilities(OrtSession.Result result, int batchSize) throws OrtException {
+        double[] scores = new double[batchSize];
+        for (Map.Entry<String, OnnxValue> output : result) {
+            OnnxValue value = output.getValue();
+            if (value instanceof OnnxSequence sequence) {
+                List<? extends OnnxValue> rows = sequence.getValue();
+                for (int i = 0; i < batchSize; i++) {
+                    Object probability = ((OnnxMap) rows.get(i)).getValue().get(FRAUD_CLASS);
+                    scores[i] = ((Number) probability).doubleValue();
+                }
+                return scores;
+            }
+            if (value instanceof OnnxTensor tensor && tensor.getInfo().type == OnnxJavaType.FLOAT
+                    && tensor.getValue() instanceof float[][] matrix) {
+                for (int i = 0; i < batchSize; i++) {
+                    scores[i] = matrix[i][matrix[i].length - 1];
+                }
+                return scores;
+            }
+        }
+        throw new OrtException("Model has no probability output");
+    }
+
+    /**
+     * The row width of the session's {@code [B, n]} input, or 0 when it cannot
+     * be batched: models exported with a fixed batch of one take one row only.
+     */
+    public static int batchableWidth(OrtSession session) throws OrtException {
+        NodeInfo input = session.getInputInfo().get(INPUT);
+        if (input == null || !(input.getInfo() instanceof TensorInfo tensor)) {
+            return 0;
+        }
+        long[] shape = tensor.getShape();
+        return shape.length == 2 && shape[0] < 0 && shape[1] > 0 ? (int) shape[1] : 0;
+    }
+
+    @Override
+    public void close() {
+        InferenceContext context;
+        while ((context = allContexts.poll()) != null) {
+            context.close();
+        }
+    }
+}
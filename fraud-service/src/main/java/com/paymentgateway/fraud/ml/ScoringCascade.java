@@ -0,0 +1,77 @@
+package com.paymentgateway.fraud.ml;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.OptionalDouble;
+
+/**
+ * Decides which tier scores a fraud check.
+ * <p>
+ * Every check is first scored by {@link FastLinearFilter}. A score below
+ * {@code fraud.cascade.approve-below} or above {@code fraud.cascade.block-above}
+ * is final; only the gray zone in between goes on to the ONNX models. How many
+ * checks each tier resolved is counted in {@code fraud.cascade.resolved}.
+ */
+@Slf4j
+@Component
+public class ScoringCascade {
+
+    public enum Tier {
+        RULES, FAST_FILTER, ONNX
+    }
+
+    private final FastLinearFilter fastLinearFilter;
+    private final boolean enabled;
+    private final double approveBelow;
+    private final double blockAbove;
+    private final Map<Tier, Counter> resolved = new EnumMap<>(Tier.class);
+
+    public ScoringCascade(FastLinearFilter fastLinearFilter, MeterRegistry meterRegistry,
+            @Value("${fraud.cascade.enabled:false}") boolean enabled,
+            @Value("${fraud.cascade.approve-below:0.05}") double approveBelow,
+            @Value("${fraud.cascade.block-above:0.95}") double blockAbove) {
+        if (approveBelow > blockAbove) {
+            throw new IllegalArgumentException(
+                    "fraud.cascade.approve-below must not exceed fraud.cascade.block-above");
+        }
+        this.fastLinearFilter = fastLinearFilter;
+        this.enabled = enabled;
+        this.approveBelow = approveBelow;
+        this.blockAbove = blockAbove;
+        for (Tier tier : Tier.values()) {
+            resolved.put(tier, Counter.builder("fraud.cascade.resolved")
+                    .description("Fraud checks decided by each scoring tier")
+                    .tag("tier", tier.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        log.info("Scoring cascade {}: fast filter decides below {} and above {}",
+                enabled ? "enabled" : "disabled", approveBelow, blockAbove);
+    }
+
+    /**
+     * Scores the features with the fast filter.
+     *
+     * @return the score if it is outside the gray zone, otherwise empty
+     */
+    public OptionalDouble tryFastPath(float[] features) {
+        if (!enabled) {
+            return OptionalDouble.empty();
+        }
+        double score = fastLinearFilter.predict(features);
+        if (score < approveBelow || score > blockAbove) {
+            resolvedBy(Tier.FAST_FILTER);
+            return OptionalDouble.of(score);
+        }
+        return OptionalDouble.empty();
+    }
+
+    public void resolvedBy(Tier tier) {
+        resolved.get(tier).increment();
+    }
+}
@@ -0,0 +1,90 @@
+package com.paymentgateway.fraud.ml;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fire-and-forget runs of shadow models, kept apart from {@link InferenceExecutor}
+ * so they never hold up a decision or take its threads.
+ * <p>
+ * The budget is {@code fraud.shadow.threads} concurrent runs over a queue of
+ * {@code fraud.shadow.queue-capacity}. Only {@code fraud.shadow.sample-rate} of
+ * the offered runs are attempted, and a run that finds the queue full is
+ * dropped; both are counted in {@code fraud.shadow.skipped}.
+ */
+@Slf4j
+@Component
+public class ShadowInference {
+
+    private final ThreadPoolExecutor executor;
+    private final double sampleRate;
+    private final Counter sampledOut;
+    private final Counter overloaded;
+
+    @Value("${fraud.inference.shutdown-timeout:5s}")
+    private Duration shutdownTimeout = Duration.ofSeconds(5);
+
+    public ShadowInference(MeterRegistry meterRegistry,
+            @Value("${fraud.shadow.sample-rate:1.0}") double sampleRate,
+            @Value("${fraud.shadow.threads:1}") int threads,
+            @Value("${fraud.shadow.queue-capacity:64}") int queueCapacity) {
+        this.sampleRate = sampleRate;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), InferenceExecutor.daemonThreads("onnx-shadow-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.sampledOut = Counter.builder("fraud.shadow.skipped")
+                .tag("reason", "sampled_out")
+                .register(meterRegistry);
+        this.overloaded = Counter.builder("fraud.shadow.skipped")
+                .tag("reason", "overloaded")
+                .register(meterRegistry);
+        Gauge.builder("fraud.shadow.queue", executor, pool -> pool.getQueue().size()).register(meterRegistry);
+        log.info("Shadow inference: {} threads, queue {}, sample rate {}", threads, queueCapacity, sampleRate);
+    }
+
+    /**
+     * Schedules the run if it is sampled and there is room for it.
+     *
+     * @return whether the run was scheduled
+     */
+    public boolean offer(Runnable run) {
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            sampledOut.increment();
+            return false;
+        }
+        try {
+            executor.execute(run);
+            return true;
+        } catch (RejectedExecutionException e) {
+            overloaded.increment();
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        awaitShutdown();
+    }
+
+    /**
+     * Stops taking runs and waits up to {@code fraud.inference.shutdown-timeout}
+     * for the scheduled ones.
+     *
+     * @return whether they all finished
+     */
+    public boolean awaitShutdown() {
+        return InferenceExecutor.awaitShutdown(executor, shutdownTimeout);
+    }
+}
@@ -1,48 +1,78 @@
 package com.paymentgateway.fraud.service;
 
-import ai.onnxruntime.OnnxTensor;
 import ai.onnxruntime.OrtEnvironment;
 import ai.onnxruntime.OrtException;
 import ai.onnxruntime.OrtSession;
+import com.paymentgateway.common.exception.BusinessException;
 import com.paymentgateway.fraud.dto.DualInferenceResult;
 import com.paymentgateway.fraud.dto.FraudCheckRequest;
 import com.paymentgateway.fraud.dto.FraudResult;
+import com.paymentgateway.fraud.ml.FeatureScaler;
+import com.paymentgateway.fraud.ml.InferenceExecutor;
+import com.paymentgateway.fraud.ml.MicroBatcher;
+import com.paymentgateway.fraud.ml.OnnxBatchModel;
+import com.paymentgateway.fraud.ml.ScoringCascade;
+import com.paymentgateway.fraud.ml.ShadowInference;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
-import java.nio.FloatBuffer;
 import java.time.Duration;
-import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
+import java.util.OptionalDouble;
 
 @Service
 @Slf4j
 public class FraudDetectionService {
 
+    // Default safe score when a model is missing or fails
+    private static final double DEFAULT_SCORE = 0.05;
+    private static final int FEATURE_COUNT = 11;
+    private static final String CHAMPION = "Champion (Logistic Regression)";
+
     private final ReactiveStringRedisTemplate redisTemplate;
-    private final OrtEnvironment env;
-    private final OrtSession championSession;
-    private final OrtSession challengerSession;
+    private final OnnxBatchModel championModel;
+    private final OnnxBatchModel challengerModel;
     private final ShadowMetricsService shadowMetricsService;
+    private final InferenceExecutor inferenceExecutor;
+    private final ShadowInference shadowInference;
+    private final ScoringCascade scoringCascade;
+    private final FeatureScaler featureScaler;
+    private final MicroBatcher championBatcher;
+
+    // The shipped models are fitted to synthetic data; see fraud.model in application.yml
+    @Value("${fraud.model.enforce-decisions:false}")
+    private boolean enforceModelDecisions = false;
 
     public FraudDetectionService(
             ReactiveStringRedisTemplate redisTemplate,
             OrtEnvironment env,
             @Qualifier("championSession") @Autowired(required = false) OrtSession championSession,
             @Qualifier("challengerSession") @Autowired(required = false) OrtSession challengerSession,
-            @Autowired(required = false) ShadowMetricsService shadowMetricsService) {
+            @Autowired(required = false) ShadowMetricsService shadowMetricsService,
+            InferenceExecutor inferenceExecutor,
+            ShadowInference shadowInference,
+            ScoringCascade scoringCascade,
+            FeatureScaler featureScaler,
+            @Qualifier("championBatcher") @Autowired(required = false) MicroBatcher championBatcher) {
         this.redisTemplate = redisTemplate;
-        this.env = env;
-        this.championSession = championSession;
-        this.challengerSession = challengerSession;
+        this.championModel = championSession == null ? null
+                : new OnnxBatchModel(env, championSession, FEATURE_COUNT, 1);
+        this.challengerModel = challengerSession == null ? null
+                : new OnnxBatchModel(env, challengerSession, FEATURE_COUNT, 1);
         this.shadowMetricsService = shadowMetricsService;
+        this.inferenceExecutor = inferenceExecutor;
+        this.shadowInference = shadowInference;
+        this.scoringCascade = scoringCascade;
+        this.featureScaler = featureScaler;
+        this.championBatcher = championBatcher;
 
         log.info("FraudDetectionService initialized - Champion: {}, Challenger: {}, Shadow Metrics: {}",
                 championSession != null ? "✅" : "❌",
@@ -52,56 +82,107 @@ public class FraudDetectionService {
 
     public Mono<FraudResult> evaluateRisk(FraudCheckRequest request) {
         if (isColdStart(request)) {
+            scoringCascade.resolvedBy(ScoringCascade.Tier.RULES);
             return Mono.just(applyColdStartRules(request));
         }
 
         return fetchFeatures(request)
-                .flatMap(features -> runDualInference(request, features));
+                .flatMap(features -> {
+                    OptionalDouble fastScore = scoringCascade.tryFastPath(features);
+                    if (fastScore.isPresent()) {
+                        return Mono.just(buildDecision(request, fastScore.getAsDouble(), "Fast Linear Filter"));
+                    }
+                    return runDualInference(request, features);
+                });
     }
 
+    /**
+     * The champion decides on the shared inference pool. The challenger only
+     * shadows it, so it is handed to {@link ShadowInference} once the champion
+     * has scored and never delays the decision.
+     * <p>
+     * Both models were fitted to standardized features, so they score the
+     * scaled vector; the fast filter above works on raw ones.
+     */
     private Mono<FraudResult> runDualInference(FraudCheckRequest request, float[] features) {
-        return Mono.fromCallable(() -> {
-            // Run parallel inference using Virtual Threads
-            var executor = Executors.newVirtualThreadPerTaskExecutor();
-
-            var championFuture = CompletableFuture
-                    .supplyAsync(() -> runInferenceTimed(championSession, features, "Champion", 0.05), executor);
-
-            var challengerFuture = CompletableFuture
-                    .supplyAsync(() -> runInferenceTimed(challengerSession, features, "Challenger", 0.05), executor);
-
-            // Get results (blocking but on virtual thread)
-            InferenceResult champRes = championFuture.get();
-            InferenceResult challRes = challengerFuture.get();
-
-            FraudResult.FraudDecision champDecision = scoreToDecision(champRes.score);
-            FraudResult.FraudDecision challDecision = scoreToDecision(challRes.score);
-
-            // Log Disagreement Async
-            if (shadowMetricsService != null) {
-                shadowMetricsService.logDisagreement(request,
-                        DualInferenceResult.builder()
-                                .championScore(champRes.score)
-                                .challengerScore(challRes.score)
-                                .championDecision(champDecision)
-                                .challengerDecision(challDecision)
-                                .championInferenceTimeMs(champRes.timeMs)
-                                .challengerInferenceTimeMs(challRes.timeMs)
-                                .build());
-            }
-
-            return buildDecision(request, champRes.score, "Champion (Logistic Regression)");
+        float[] scaled = featureScaler.scale(features);
+        return inferChampion(scaled)
+                .doOnNext(champRes -> {
+                    scoringCascade.resolvedBy(ScoringCascade.Tier.ONNX);
+                    shadowChallenger(request, scaled, champRes);
+                })
+                .map(champRes -> championDecision(request, champRes.score));
+    }
+
+    private FraudResult championDecision(FraudCheckRequest request, double score) {
+        if (enforceModelDecisions) {
+            return buildDecision(request, score, CHAMPION);
+        }
+        // Report what the champion would have decided without acting on it
+        return FraudResult.builder()
+                .transactionId(request.getTransactionId())
+                .riskScore(DEFAULT_SCORE)
+                .decision(scoreToDecision(DEFAULT_SCORE))
+                .riskFactors(List.of("Source: " + CHAMPION,
+                        String.format(Locale.ROOT, "Model score %.4f (%s) not enforced", score,
+                                scoreToDecision(score))))
+                .build();
+    }
+
+    private void shadowChallenger(FraudCheckRequest request, float[] features, InferenceResult champRes) {
+        // Nothing would read the challenger's score
+        if (challengerModel == null || shadowMetricsService == null) {
+            return;
+        }
+        shadowInference.offer(() -> logDisagreement(request, champRes,
+                runInferenceTimed(challengerModel, features, "Challenger", DEFAULT_SCORE)));
+    }
+
+    private void logDisagreement(FraudCheckRequest request, InferenceResult champRes, InferenceResult challRes) {
+        shadowMetricsService.logDisagreement(request,
+                DualInferenceResult.builder()
+                        .championScore(champRes.score)
+                        .challengerScore(challRes.score)
+                        .championDecision(scoreToDecision(champRes.score))
+                        .challengerDecision(scoreToDecision(challRes.score))
+                        .championInferenceTimeMs(champRes.timeMs)
+                        .challengerInferenceTimeMs(challRes.timeMs)
+                        .build());
+    }
+
+    /**
+     * Concurrent champion runs share one batched model call when a batcher is
+     * configured; the time reported is the caller's wait, batching included.
+     */
+    private Mono<InferenceResult> inferChampion(float[] features) {
+        if (championBatcher == null) {
+            return infer(championModel, features, "Champion");
+        }
+        return Mono.defer(() -> {
+            long startTime = System.nanoTime();
+            return championBatcher.score(features)
+                    .map(score -> new InferenceResult(score, (System.nanoTime() - startTime) / 1_000_000));
+        }).onErrorResume(e -> !(e instanceof BusinessException), e -> {
+            log.error("Champion inference failed: {}", e.getMessage());
+            return Mono.just(new InferenceResult(DEFAULT_SCORE, 0));
         });
     }
 
+    private Mono<InferenceResult> infer(OnnxBatchModel model, float[] features, String modelName) {
+        if (model == null) {
+            return Mono.just(new InferenceResult(DEFAULT_SCORE, 0));
+        }
+        return inferenceExecutor.submit(() -> runInferenceTimed(model, features, modelName, DEFAULT_SCORE));
+    }
+
     private record InferenceResult(double score, long timeMs) {
     }
 
-    private InferenceResult runInferenceTimed(OrtSession session, float[] features, String modelName,
+    private InferenceResult runInferenceTimed(OnnxBatchModel model, float[] features, String modelName,
             double defaultScore) {
         long startTime = System.nanoTime();
         try {
-            double score = runInference(session, features, modelName);
+            double score = runInference(model, features, modelName);
             long timeMs = (System.nanoTime() - startTime) / 1_000_000;
             return new InferenceResult(score, timeMs);
         } catch (Exception e) {
@@ -110,22 +191,36 @@ public class FraudDetectionService {
         }
     }
 
-    private double runInference(OrtSession session, float[] features, String modelName) throws OrtException {
-        if (session == null) {
-            return 0.05; // Default safe score
+    private double runInference(OnnxBatchModel model, float[] features, String modelName) throws OrtException {
+        if (model == null) {
+            return DEFAULT_SCORE;
         }
 
         long startTime = System.nanoTime();
-        long[] shape = new long[] { 1, features.length };
-
-        try (OnnxTensor tensor = OnnxTensor.createTensor(env, FloatBuffer.wrap(features), shape)) {
-            try (OrtSession.Result result = session.run(Collections.singletonMap("input", tensor))) {
-                float[][] output = (float[][]) result.get(0).getValue();
-                double score = (double) output[0][0];
-                long time = (System.nanoTime() - startTime) / 1_000_000;
-                log.debug("{} score: {}, time: {}ms", modelName, score, time);
-                return score;
-            }
+        double score = model.scoreOne(features);
+        if (log.isDebugEnabled()) {
+            log.debug("{} score: {}, time: {}ms", modelName, score, (System.nanoTime() - startTime) / 1_000_000);
+        }
+        return score;
+    }
+
+    /**
+     * Destroyed before the pools it was given, so it stops them itself: the
+     * models' tensors are freed only once no run can still be using them.
+     */
+    @PreDestroy
+    public void close() {
+        boolean idle = shadowInference.awaitShutdown();
+        idle &= inferenceExecutor.awaitShutdown();
+        if (!idle) {
+            log.warn("Model runs still in flight at shutdown; leaving the models open");
+            return;
+        }
+        if (championModel != null) {
+            championModel.close();
+        }
+        if (challengerModel != null) {
+            challengerModel.close();
         }
     }
 
@@ -136,12 +231,13 @@ public class FraudDetectionService {
                 .doOnNext(count -> redisTemplate.expire(velocityKey, Objects.requireNonNull(Duration.ofHours(1)))
                         .subscribe())
                 .map(count -> {
-                    float[] features = new float[11];
+                    float[] features = new float[FEATURE_COUNT];
                     // Common Features [0-4]
-                    features[0] = request.getAmount().floatValue();
+                    double amount = request.getAmount().toDouble();
+                    features[0] = (float) amount;
                     features[1] = Objects.requireNonNull(count).floatValue();
                     features[2] = isNightTime() ? 1.0f : 0.0f;
-                    features[3] = (float) Math.abs(request.getAmount() - 1000.0f); // Avg deviation
+                    features[3] = (float) Math.abs(amount - 1000.0); // Avg deviation
                     features[4] = request.getDeviceFingerprint() == null ? 1.0f : 0.0f;
 
                     // Challenger-only Features [5-10] (Zero-filled for Champion if it ignores them,
@@ -163,7 +259,7 @@ public class FraudDetectionService {
     }
 
     private FraudResult applyColdStartRules(FraudCheckRequest request) {
-        if (request.getAmount() > 200.0) {
+        if (request.getAmount().toDouble() > 200.0) {
             return FraudResult.builder()
                     .transactionId(request.getTransactionId())
                     .riskScore(0.9)
@@ -39,7 +39,8 @@ lr.fit(X_scaled, y) # Train on SCALED data
 
 # Export LR to ONNX
 initial_type = [('input', FloatTensorType([None, 11]))]
-onnx_lr = convert_sklearn(lr, initial_types=initial_type)
+# Without ZipMap the probabilities are a [N, 2] float tensor, which the service reads in place
+onnx_lr = convert_sklearn(lr, initial_types=initial_type, options={id(lr): {"zipmap": False}})
 with open("models/logistic_regression.onnx", "wb") as f:
     f.write(onnx_lr.SerializeToString())
 print("Saved models/logistic_regression.onnx")
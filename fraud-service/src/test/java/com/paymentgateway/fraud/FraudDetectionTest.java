@@ -1,6 +1,7 @@
 package com.paymentgateway.fraud;
 
 import com.paymentgateway.common.dto.ApiResponse;
+import com.paymentgateway.common.money.Money;
 import com.paymentgateway.fraud.dto.FraudCheckRequest;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -44,7 +45,7 @@ public class FraudDetectionTest {
                 // Given
                 FraudCheckRequest request = new FraudCheckRequest();
                 request.setTransactionId(UUID.randomUUID().toString());
-                request.setAmount(500.00); // Double as per DTO
+                request.setAmount(Money.ofMajor(500, "USD"));
                 request.setMerchantId("MERCHANT-XYZ");
                 request.setIpAddress("192.168.1.1");
                 request.setUserId("USER-123");
@@ -3,11 +3,14 @@ package com.paymentgateway.fraud.config;
 import ai.onnxruntime.OrtEnvironment;
 import ai.onnxruntime.OrtException;
 import ai.onnxruntime.OrtSession;
+import com.paymentgateway.fraud.ml.InferenceExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -60,4 +63,13 @@ class OnnxConfigTest {
         OrtSession session = config.ortSession(env);
         assertThat(session).isEqualTo(mockSession);
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void championBatcher_WithoutChampion_ReturnsNull() throws Exception {
+        ObjectProvider<OrtSession> noChampion = mock(ObjectProvider.class);
+
+        assertThat(config.championBatcher(env, noChampion, mock(InferenceExecutor.class),
+                new SimpleMeterRegistry())).isNull();
+    }
 }
@@ -1,5 +1,6 @@
 package com.paymentgateway.fraud.controller;
 
+import com.paymentgateway.common.money.Money;
 import com.paymentgateway.fraud.dto.FraudCheckRequest;
 import com.paymentgateway.fraud.dto.FraudResult;
 import com.paymentgateway.fraud.service.FraudDetectionService;
@@ -47,8 +48,7 @@ public class FraudControllerDocsTest {
                                 .transactionId("TXN-123")
                                 .merchantId("MERCH-123")
                                 .userId("USER-456")
-                                .amount(300.0)
-                                .currency("USD")
+                                .amount(Money.ofMajor(300, "USD"))
                                 .email("fraud@test.com")
                                 .build();
 
@@ -74,9 +74,10 @@ public class FraudControllerDocsTest {
                                                                                 .description("The ID of the merchant"),
                                                                 fieldWithPath("userId")
                                                                                 .description("The ID of the user"),
-                                                                fieldWithPath("amount")
-                                                                                .description("The transaction amount"),
-                                                                fieldWithPath("currency").description("The currency"),
+                                                                fieldWithPath("amount.minorUnits").description(
+                                                                                "The transaction amount in minor units of the currency"),
+                                                                fieldWithPath("amount.currency")
+                                                                                .description("The ISO 4217 currency code"),
                                                                 fieldWithPath("email").description(
                                                                                 "The email of the customer"),
                                                                 fieldWithPath("ipAddress")
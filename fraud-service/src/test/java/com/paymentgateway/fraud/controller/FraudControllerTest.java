@@ -1,5 +1,6 @@
 package com.paymentgateway.fraud.controller;
 
+import com.paymentgateway.common.money.Money;
 import com.paymentgateway.fraud.dto.FraudCheckRequest;
 import com.paymentgateway.fraud.dto.FraudResult;
 import com.paymentgateway.fraud.service.FraudDetectionService;
@@ -12,6 +13,9 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.List;
+
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
@@ -38,7 +42,7 @@ public class FraudControllerTest {
                                 .transactionId("t1")
                                 .merchantId("m1")
                                 .userId("u1")
-                                .amount(100.0)
+                                .amount(Money.ofMajor(100, "USD"))
                                 .email("user@example.com")
                                 .build();
 
@@ -58,4 +62,28 @@ public class FraudControllerTest {
                                 .jsonPath("$.success").isEqualTo(true)
                                 .jsonPath("$.data.decision").isEqualTo("APPROVE");
         }
+
+        @Test
+        public void checkFraudBatch_ReturnsResultsInRequestOrder() {
+                FraudCheckRequest first = FraudCheckRequest.builder()
+                                .transactionId("t1").merchantId("m1").userId("u1").amount(Money.ofMajor(100, "USD")).build();
+                FraudCheckRequest second = FraudCheckRequest.builder()
+                                .transactionId("t2").merchantId("m1").userId("u2").amount(Money.ofMajor(9000, "USD")).build();
+
+                // The first check finishes last; the response must still start with it
+                when(fraudDetectionService.evaluateRisk(first)).thenReturn(Mono.just(FraudResult.builder()
+                                .transactionId("t1").decision(FraudResult.FraudDecision.APPROVE).build())
+                                .delayElement(Duration.ofMillis(50)));
+                when(fraudDetectionService.evaluateRisk(second)).thenReturn(Mono.just(FraudResult.builder()
+                                .transactionId("t2").decision(FraudResult.FraudDecision.BLOCK).build()));
+
+                webTestClient.post().uri("/api/v1/fraud/check/batch")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .bodyValue(List.of(first, second))
+                                .exchange()
+                                .expectStatus().isOk()
+                                .expectBody()
+                                .jsonPath("$.data[0].transactionId").isEqualTo("t1")
+                                .jsonPath("$.data[1].decision").isEqualTo("BLOCK");
+        }
 }
@@ -0,0 +1,98 @@
+package com.paymentgateway.fraud.ml;
+
+import com.paymentgateway.common.exception.BusinessException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InferenceExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private InferenceExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void submit_RunsOnInferenceThread() {
+        executor = new InferenceExecutor(meterRegistry, 2, 1, 4);
+
+        StepVerifier.create(executor.submit(() -> Thread.currentThread().getName()))
+                .expectNextMatches(name -> name.startsWith("onnx-inference-"))
+                .verifyComplete();
+    }
+
+    @Test
+    void submit_IsLazyUntilSubscribed() {
+        executor = new InferenceExecutor(meterRegistry, 1, 1, 1);
+        CountDownLatch ran = new CountDownLatch(1);
+
+        Mono<Long> pending = executor.submit(() -> {
+            ran.countDown();
+            return ran.getCount();
+        });
+
+        assertThat(ran.getCount()).isEqualTo(1);
+        StepVerifier.create(pending).expectNext(0L).verifyComplete();
+    }
+
+    @Test
+    void submit_QueueFull_RejectsWith503() throws InterruptedException {
+        executor = new InferenceExecutor(meterRegistry, 1, 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Mono<Boolean> running = executor.submit(() -> {
+            started.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+        });
+        running.subscribe();
+        started.await();
+        Mono<String> queued = executor.submit(() -> "queued");
+        queued.subscribe();
+
+        StepVerifier.create(executor.submit(() -> "refused"))
+                .expectErrorMatches(e -> e instanceof BusinessException be
+                        && be.getHttpStatus() == 503
+                        && "INFERENCE_OVERLOADED".equals(be.getErrorCode()))
+                .verify();
+        assertThat(meterRegistry.get("fraud.inference.rejected").counter().count()).isEqualTo(1.0);
+
+        release.countDown();
+    }
+
+    @Test
+    void awaitShutdown_FinishesQueuedRunsFirst() {
+        executor = new InferenceExecutor(meterRegistry, 1, 1, 4);
+        CompletableFuture<String> running = executor.submit(() -> {
+            Thread.sleep(100);
+            return "running";
+        }).toFuture();
+        CompletableFuture<String> queued = executor.submit(() -> "queued").toFuture();
+
+        assertThat(executor.awaitShutdown()).isTrue();
+        assertThat(running).isCompletedWithValue("running");
+        assertThat(queued).isCompletedWithValue("queued");
+        StepVerifier.create(executor.submit(() -> "late"))
+                .expectErrorMatches(e -> e instanceof BusinessException be && be.getHttpStatus() == 503)
+                .verify();
+    }
+
+    @Test
+    void constructor_SizesPoolFromIntraOpThreads() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        executor = new InferenceExecutor(meterRegistry, 0, cores * 2, 1);
+
+        assertThat(executor.poolSize()).isEqualTo(1);
+    }
+}
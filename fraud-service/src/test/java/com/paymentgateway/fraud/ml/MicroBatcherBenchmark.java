@@ -0,0 +1,122 @@
+package com.paymentgateway.fraud.ml;
+
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Champion scoring under 32 concurrent callers, with the shipped logistic
+ * regression model and one intra-op thread per run, as configured by default.
+ * <ul>
+ * <li>{@code unbatched}: one {@code [1, n]} run per request on the inference
+ * pool, as before micro-batching</li>
+ * <li>{@code batched}: requests go through {@link MicroBatcher}, for each
+ * {@code maxWaitMicros} x {@code maxBatch}</li>
+ * </ul>
+ * Throughput mode gives the requests per second; sample mode gives each
+ * caller's latency percentiles, batching wait included. Together they trace
+ * the throughput/latency curve across batch windows.
+ * <p>
+ * Run with {@code mvn -pl fraud-service test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.paymentgateway.fraud.ml.MicroBatcherBenchmark}.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class MicroBatcherBenchmark {
+
+    private static final int FEATURES = 11;
+
+    @State(Scope.Benchmark)
+    public static class Model {
+
+        OrtSession session;
+        OnnxBatchModel model;
+        InferenceExecutor executor;
+        float[] features;
+
+        @Setup(Level.Trial)
+        public void setUp() throws OrtException, IOException {
+            OrtEnvironment env = OrtEnvironment.getEnvironment();
+            OrtSession.SessionOptions options = new OrtSession.SessionOptions();
+            options.setIntraOpNumThreads(1);
+            options.setInterOpNumThreads(1);
+            session = env.createSession(
+                    new ClassPathResource("models/logistic_regression.onnx").getContentAsByteArray(), options);
+            model = new OnnxBatchModel(env, session, FEATURES, 32);
+            executor = new InferenceExecutor(new SimpleMeterRegistry(), 0, 1, 4096);
+            features = new float[] { 120.0f, 3.0f, 0.0f, 880.0f, 0.0f, 0, 0, 0, 0, 0, 0 };
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws OrtException {
+            executor.shutdown();
+            model.close();
+            session.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Batcher {
+
+        @Param({ "0", "50", "200", "500" })
+        long maxWaitMicros;
+
+        @Param({ "8", "32" })
+        int maxBatch;
+
+        MicroBatcher batcher;
+
+        @Setup(Level.Trial)
+        public void setUp(Model model) {
+            batcher = new MicroBatcher("champion", model.model, FEATURES, maxBatch, maxWaitMicros, 4096,
+                    model.executor, new SimpleMeterRegistry());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            batcher.close();
+        }
+    }
+
+    @Benchmark
+    public double[] unbatched(Model model) {
+        return model.executor.submit(() -> model.model.score(model.features, 1)).block();
+    }
+
+    @Benchmark
+    public Double batched(Model model, Batcher batcher) {
+        return batcher.batcher.score(model.features).block();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MicroBatcherBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
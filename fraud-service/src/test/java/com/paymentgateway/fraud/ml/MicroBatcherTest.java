@@ -0,0 +1,137 @@
+package com.paymentgateway.fraud.ml;
+
+import com.paymentgateway.common.exception.BusinessException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MicroBatcherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final InferenceExecutor executor = new InferenceExecutor(meterRegistry, 2, 1, 16);
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private MicroBatcher batcher;
+
+    @AfterEach
+    void tearDown() {
+        batcher.close();
+        executor.shutdown();
+    }
+
+    // Scores each row by its first feature
+    private double[] firstFeature(float[] rows, int batchSize) {
+        batchSizes.add(batchSize);
+        double[] scores = new double[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            scores[i] = rows[i * 2];
+        }
+        return scores;
+    }
+
+    @Test
+    void score_ConcurrentRequestsShareOneRunAndGetTheirOwnRows() {
+        batcher = new MicroBatcher("test", this::firstFeature, 2, 8, 50_000, 64, executor, meterRegistry);
+
+        List<Double> scores = Flux.range(0, 8)
+                .flatMap(i -> batcher.score(new float[] { i, 0.5f }))
+                .collectSortedList()
+                .block(Duration.ofSeconds(5));
+
+        assertThat(scores).containsExactly(0.0, 1.0, 2.0, 3.0, 4.0, 5.0, 6.0, 7.0);
+        assertThat(batchSizes).containsExactly(8);
+        assertThat(meterRegistry.get("fraud.inference.batch.size").summary().max()).isEqualTo(8.0);
+    }
+
+    @Test
+    void score_LoneRequestRunsAfterMaxWait() {
+        batcher = new MicroBatcher("test", this::firstFeature, 2, 8, 1_000, 64, executor, meterRegistry);
+
+        StepVerifier.create(batcher.score(new float[] { 3, 0 }))
+                .expectNext(3.0)
+                .verifyComplete();
+        assertThat(batchSizes).containsExactly(1);
+    }
+
+    @Test
+    void score_ModelFailure_FailsEveryCallerInTheBatch() {
+        batcher = new MicroBatcher("test", (rows, batchSize) -> {
+            throw new IllegalStateException("model broke");
+        }, 2, 8, 0, 64, executor, meterRegistry);
+
+        StepVerifier.create(batcher.score(new float[] { 1, 0 }))
+                .expectErrorMessage("model broke")
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void score_ExecutorFull_RejectsWith503() throws InterruptedException {
+        InferenceExecutor single = new InferenceExecutor(meterRegistry, 1, 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        batcher = new MicroBatcher("test", (rows, batchSize) -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new double[batchSize];
+        }, 2, 1, 0, 8, single, meterRegistry);
+
+        try {
+            batcher.score(new float[] { 1, 0 }).subscribe();
+            started.await();
+            // Batches of one: the second waits in the executor's queue, the third finds it full
+            batcher.score(new float[] { 2, 0 }).subscribe();
+
+            StepVerifier.create(batcher.score(new float[] { 3, 0 }))
+                    .expectErrorMatches(e -> e instanceof BusinessException be && be.getHttpStatus() == 503)
+                    .verify(Duration.ofSeconds(5));
+        } finally {
+            release.countDown();
+            single.shutdown();
+        }
+    }
+
+    @Test
+    void close_WaitsForRunningBatchBeforeClosingModel() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean closed = new AtomicBoolean();
+        class BlockingModel implements MicroBatcher.BatchModel, AutoCloseable {
+            @Override
+            public double[] score(float[] rows, int batchSize) throws InterruptedException {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return new double[] { closed.get() ? -1.0 : 1.0 };
+            }
+
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        }
+        batcher = new MicroBatcher("test", new BlockingModel(), 2, 1, 0, 8, executor, meterRegistry);
+        CompletableFuture<Double> score = batcher.score(new float[] { 1, 0 }).toFuture();
+        started.await();
+
+        Thread closer = new Thread(batcher::close);
+        closer.start();
+        closer.join(200);
+
+        assertThat(closer.isAlive()).isTrue();
+        assertThat(closed).isFalse();
+        release.countDown();
+        closer.join(5000);
+        assertThat(score.get(5, TimeUnit.SECONDS)).isEqualTo(1.0);
+        assertThat(closed).isTrue();
+    }
+}
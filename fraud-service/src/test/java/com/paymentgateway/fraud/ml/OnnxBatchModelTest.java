@@ -0,0 +1,51 @@
+package com.paymentgateway.fraud.ml;
+
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtSession;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class OnnxBatchModelTest {
+
+    private static final float[][] ROWS = {
+            { 0.2f, -1.1f, 0.0f, 1.4f, 0.0f, 0.3f, -0.7f, 0.1f, 2.0f, -0.4f, 0.9f },
+            { -1.5f, 0.8f, 1.0f, -0.2f, 1.0f, -1.3f, 0.5f, 1.7f, -0.6f, 0.0f, -1.2f },
+            { 2.3f, 0.1f, 0.0f, 0.6f, 0.0f, 1.1f, 1.9f, -0.8f, 0.4f, 1.5f, 0.2f }
+    };
+
+    @Test
+    void score_ZipMapOutput_BatchRowsMatchSingleRowScores() throws Exception {
+        // skl2onnx emits the champion's probabilities as one map per row
+        assertBatchMatchesSingleRows("logistic_regression");
+    }
+
+    @Test
+    void score_PinnedFloatOutput_BatchRowsMatchSingleRowScores() throws Exception {
+        // The challenger emits its probabilities as a [B, 2] float tensor
+        assertBatchMatchesSingleRows("xgboost_fraud");
+    }
+
+    private static void assertBatchMatchesSingleRows(String modelName) throws Exception {
+        OrtEnvironment env = OrtEnvironment.getEnvironment();
+        byte[] bytes = new ClassPathResource("models/" + modelName + ".onnx").getContentAsByteArray();
+        try (OrtSession session = env.createSession(bytes, new OrtSession.SessionOptions());
+                OnnxBatchModel model = new OnnxBatchModel(env, session, 11, 4)) {
+            float[] batch = new float[ROWS.length * 11];
+            for (int i = 0; i < ROWS.length; i++) {
+                System.arraycopy(ROWS[i], 0, batch, i * 11, 11);
+            }
+
+            double[] scores = model.score(batch, ROWS.length);
+
+            for (int i = 0; i < ROWS.length; i++) {
+                assertThat(scores[i]).isBetween(0.0, 1.0);
+                // Reuses the same thread's buffers, which must not leak the previous rows
+                assertThat(model.scoreOne(ROWS[i])).isCloseTo(scores[i], within(1e-6));
+            }
+            assertThat(OnnxBatchModel.batchableWidth(session)).isEqualTo(11);
+        }
+    }
+}
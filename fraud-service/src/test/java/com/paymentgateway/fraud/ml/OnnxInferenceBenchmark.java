@@ -0,0 +1,109 @@
+package com.paymentgateway.fraud.ml;
+
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One single-row score through each shipped model, on one thread.
+ * <ul>
+ * <li>{@code perCallTensor}: the former path, which wraps the features, creates
+ * a tensor and an input map per call and converts every output</li>
+ * <li>{@code preBound}: {@link OnnxBatchModel#scoreOne}, which copies into the
+ * thread's bound direct buffer and reads only the probability output, in
+ * place when it is a float tensor ({@code xgboost_fraud})</li>
+ * </ul>
+ * Sessions use the service's options: one intra-op thread, sequential
+ * execution, all graph optimizations, CPU arena and memory patterns.
+ * <p>
+ * Run with {@code mvn -pl fraud-service test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.paymentgateway.fraud.ml.OnnxInferenceBenchmark}. The GC
+ * profiler is on, so allocation per inference is {@code gc.alloc.rate.norm}
+ * next to the ns/op score. Native allocations inside the runtime are not
+ * counted there.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OnnxInferenceBenchmark {
+
+    private static final int FEATURES = 11;
+
+    @Param({ "logistic_regression", "xgboost_fraud" })
+    String modelName;
+
+    private OrtEnvironment env;
+    private OrtSession session;
+    private OnnxBatchModel model;
+    private float[] features;
+
+    @Setup(Level.Trial)
+    public void setUp() throws OrtException, IOException {
+        env = OrtEnvironment.getEnvironment();
+        OrtSession.SessionOptions options = new OrtSession.SessionOptions();
+        options.setIntraOpNumThreads(1);
+        options.setInterOpNumThreads(1);
+        options.setExecutionMode(OrtSession.SessionOptions.ExecutionMode.SEQUENTIAL);
+        options.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.ALL_OPT);
+        options.setCPUArenaAllocator(true);
+        options.setMemoryPatternOptimization(true);
+        session = env.createSession(
+                new ClassPathResource("models/" + modelName + ".onnx").getContentAsByteArray(), options);
+        model = new OnnxBatchModel(env, session, FEATURES, 1);
+        features = new float[] { 0.4f, -0.9f, 0.0f, 1.2f, 1.0f, 0.3f, -0.5f, 0.8f, -1.1f, 0.2f, 0.6f };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws OrtException {
+        model.close();
+        session.close();
+    }
+
+    @Benchmark
+    public double perCallTensor() throws OrtException {
+        long[] shape = new long[] { 1, features.length };
+        try (OnnxTensor tensor = OnnxTensor.createTensor(env, FloatBuffer.wrap(features), shape);
+                OrtSession.Result result = session.run(Collections.singletonMap("input", tensor))) {
+            return OnnxBatchModel.fraudProbabilities(result, 1)[0];
+        }
+    }
+
+    @Benchmark
+    public double preBound() throws OrtException {
+        return model.scoreOne(features);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OnnxInferenceBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
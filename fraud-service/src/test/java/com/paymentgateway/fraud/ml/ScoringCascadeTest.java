@@ -0,0 +1,62 @@
+package com.paymentgateway.fraud.ml;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.OptionalDouble;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ScoringCascadeTest {
+
+    // Average amount, known device, one payment this hour: a clear approval
+    private static final float[] LOW_RISK = { 1000.0f, 1.0f, 0.0f, 0.0f, 0.0f, 0, 0, 0, 0, 0, 0 };
+    // Sigmoid(0) sits in the middle of the gray zone
+    private static final float[] GRAY = { 0.0f, 0.0f, 0.0f, 225.0f, 0.0f, 0, 0, 0, 0, 0, 0 };
+    private static final float[] HIGH_RISK = { 100.0f, 12.0f, 1.0f, 900.0f, 1.0f, 0, 0, 0, 0, 0, 0 };
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final FastLinearFilter filter = new FastLinearFilter();
+
+    @Test
+    void tryFastPath_ResolvesOnlyOutsideTheGrayZone() {
+        ScoringCascade cascade = new ScoringCascade(filter, meterRegistry, true, 0.05, 0.95);
+
+        assertThat(cascade.tryFastPath(LOW_RISK)).hasValue(filter.predict(LOW_RISK));
+        assertThat(cascade.tryFastPath(HIGH_RISK)).hasValue(filter.predict(HIGH_RISK));
+        assertThat(cascade.tryFastPath(GRAY)).isEmpty();
+
+        assertThat(resolved("fast_filter")).isEqualTo(2.0);
+    }
+
+    @Test
+    void tryFastPath_Disabled_EscalatesEverything() {
+        ScoringCascade cascade = new ScoringCascade(filter, meterRegistry, false, 0.05, 0.95);
+
+        assertThat(cascade.tryFastPath(LOW_RISK)).isEqualTo(OptionalDouble.empty());
+        assertThat(resolved("fast_filter")).isZero();
+    }
+
+    @Test
+    void resolvedBy_CountsEachTier() {
+        ScoringCascade cascade = new ScoringCascade(filter, meterRegistry, true, 0.05, 0.95);
+
+        cascade.resolvedBy(ScoringCascade.Tier.RULES);
+        cascade.resolvedBy(ScoringCascade.Tier.ONNX);
+        cascade.resolvedBy(ScoringCascade.Tier.ONNX);
+
+        assertThat(resolved("rules")).isEqualTo(1.0);
+        assertThat(resolved("onnx")).isEqualTo(2.0);
+    }
+
+    @Test
+    void constructor_RejectsInvertedBands() {
+        assertThatThrownBy(() -> new ScoringCascade(filter, meterRegistry, true, 0.9, 0.1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private double resolved(String tier) {
+        return meterRegistry.get("fraud.cascade.resolved").tag("tier", tier).counter().count();
+    }
+}
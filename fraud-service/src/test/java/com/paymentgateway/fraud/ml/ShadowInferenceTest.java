@@ -0,0 +1,69 @@
+package com.paymentgateway.fraud.ml;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShadowInferenceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ShadowInference shadow;
+
+    @AfterEach
+    void tearDown() {
+        shadow.shutdown();
+    }
+
+    @Test
+    void offer_RunsOnShadowThread() throws Exception {
+        shadow = new ShadowInference(meterRegistry, 1.0, 1, 4);
+        CompletableFuture<String> thread = new CompletableFuture<>();
+
+        assertThat(shadow.offer(() -> thread.complete(Thread.currentThread().getName()))).isTrue();
+
+        assertThat(thread.get(5, TimeUnit.SECONDS)).startsWith("onnx-shadow-");
+    }
+
+    @Test
+    void offer_ZeroSampleRate_SkipsEveryRun() {
+        shadow = new ShadowInference(meterRegistry, 0.0, 1, 4);
+
+        assertThat(shadow.offer(() -> { })).isFalse();
+        assertThat(meterRegistry.get("fraud.shadow.skipped").tag("reason", "sampled_out").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void offer_QueueFull_DropsRun() throws InterruptedException {
+        shadow = new ShadowInference(meterRegistry, 1.0, 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        assertThat(shadow.offer(() -> {
+            started.countDown();
+            awaitQuietly(release);
+        })).isTrue();
+        started.await();
+        assertThat(shadow.offer(() -> { })).isTrue();
+
+        assertThat(shadow.offer(() -> { })).isFalse();
+        assertThat(meterRegistry.get("fraud.shadow.skipped").tag("reason", "overloaded").counter().count())
+                .isEqualTo(1.0);
+
+        release.countDown();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
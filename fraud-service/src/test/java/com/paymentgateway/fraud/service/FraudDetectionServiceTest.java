@@ -2,26 +2,47 @@ package com.paymentgateway.fraud.service;
 
 import ai.onnxruntime.OrtEnvironment;
 import ai.onnxruntime.OrtSession;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paymentgateway.common.exception.BusinessException;
+import com.paymentgateway.common.money.Money;
 import com.paymentgateway.fraud.config.OpenApiConfig;
 import com.paymentgateway.fraud.dto.FraudCheckRequest;
 import com.paymentgateway.fraud.dto.FraudResult;
+import com.paymentgateway.fraud.ml.FastLinearFilter;
+import com.paymentgateway.fraud.ml.FeatureScaler;
+import com.paymentgateway.fraud.ml.InferenceExecutor;
+import com.paymentgateway.fraud.ml.MicroBatcher;
+import com.paymentgateway.fraud.ml.ScoringCascade;
+import com.paymentgateway.fraud.ml.ShadowInference;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.time.LocalTime;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 public class FraudDetectionServiceTest {
@@ -44,6 +65,19 @@ public class FraudDetectionServiceTest {
         @Mock
         private ShadowMetricsService shadowMetricsService;
 
+        @Spy
+        private InferenceExecutor inferenceExecutor = new InferenceExecutor(new SimpleMeterRegistry(), 2, 1, 16);
+
+        @Spy
+        private ShadowInference shadowInference = new ShadowInference(new SimpleMeterRegistry(), 1.0, 1, 16);
+
+        @Spy
+        private ScoringCascade scoringCascade = new ScoringCascade(new FastLinearFilter(), new SimpleMeterRegistry(),
+                        false, 0.05, 0.95);
+
+        @Spy
+        private FeatureScaler featureScaler = shippedScaler();
+
         @InjectMocks
         private FraudDetectionService fraudDetectionService;
 
@@ -56,7 +90,7 @@ public class FraudDetectionServiceTest {
         public void evaluateRisk_DualInference_WithShadowMetrics_Executes() {
                 FraudCheckRequest request = FraudCheckRequest.builder()
                                 .userId("user_123")
-                                .amount(100.0)
+                                .amount(Money.ofMajor(100, "USD"))
                                 .transactionId("t3")
                                 .deviceFingerprint("fp1")
                                 .build();
@@ -69,7 +103,7 @@ public class FraudDetectionServiceTest {
                                 .expectNextMatches(result -> result.getDecision() == FraudResult.FraudDecision.APPROVE)
                                 .verifyComplete();
 
-                org.mockito.Mockito.verify(shadowMetricsService, org.mockito.Mockito.atLeastOnce())
+                org.mockito.Mockito.verify(shadowMetricsService, timeout(1000).atLeastOnce())
                                 .logDisagreement(any(), any());
         }
 
@@ -77,7 +111,7 @@ public class FraudDetectionServiceTest {
         public void evaluateRisk_ColdStart_NullUser_ReturnsBlocked() {
                 FraudCheckRequest request = FraudCheckRequest.builder()
                                 .userId(null)
-                                .amount(250.0)
+                                .amount(Money.ofMajor(250, "USD"))
                                 .transactionId("t1")
                                 .build();
 
@@ -90,7 +124,7 @@ public class FraudDetectionServiceTest {
         public void evaluateRisk_ColdStart_HighAmount_ReturnsBlocked() {
                 FraudCheckRequest request = FraudCheckRequest.builder()
                                 .userId("new_user_123")
-                                .amount(250.0)
+                                .amount(Money.ofMajor(250, "USD"))
                                 .transactionId("t1")
                                 .build();
 
@@ -103,7 +137,7 @@ public class FraudDetectionServiceTest {
         public void evaluateRisk_ColdStart_LowAmount_ReturnsApproved() {
                 FraudCheckRequest request = FraudCheckRequest.builder()
                                 .userId("new_user_123")
-                                .amount(50.0)
+                                .amount(Money.ofMajor(50, "USD"))
                                 .transactionId("t2")
                                 .build();
 
@@ -133,7 +167,7 @@ public class FraudDetectionServiceTest {
 
                         FraudCheckRequest request = FraudCheckRequest.builder()
                                         .userId("user_123")
-                                        .amount(100.0)
+                                        .amount(Money.ofMajor(100, "USD"))
                                         .build();
                         lenient().when(valueOperations.increment(anyString())).thenReturn(Mono.just(1L));
                         lenient().when(redisTemplate.expire(anyString(), any(java.time.Duration.class)))
@@ -149,11 +183,12 @@ public class FraudDetectionServiceTest {
         @Test
         public void evaluateRisk_NullSessions_ReturnsDefault() {
                 FraudDetectionService service = new FraudDetectionService(redisTemplate, env, null, null,
-                                shadowMetricsService);
+                                shadowMetricsService, inferenceExecutor, shadowInference, scoringCascade, featureScaler,
+                                null);
 
                 FraudCheckRequest request = FraudCheckRequest.builder()
                                 .userId("user_123")
-                                .amount(100.0)
+                                .amount(Money.ofMajor(100, "USD"))
                                 .build();
 
                 lenient().when(valueOperations.increment(anyString())).thenReturn(Mono.just(1L));
@@ -165,6 +200,173 @@ public class FraudDetectionServiceTest {
                                 .verifyComplete();
         }
 
+        @Test
+        public void evaluateRisk_DecidesBeforeChallengerRuns() {
+                ShadowInference deferred = mock(ShadowInference.class);
+                FraudDetectionService service = new FraudDetectionService(redisTemplate, env, championSession,
+                                challengerSession, shadowMetricsService, inferenceExecutor, deferred, scoringCascade,
+                                featureScaler, null);
+                stubVelocity();
+
+                StepVerifier.create(service.evaluateRisk(request()))
+                                .expectNextMatches(res -> res.getDecision() == FraudResult.FraudDecision.APPROVE)
+                                .verifyComplete();
+
+                ArgumentCaptor<Runnable> challenger = ArgumentCaptor.forClass(Runnable.class);
+                verify(deferred).offer(challenger.capture());
+                verify(shadowMetricsService, never()).logDisagreement(any(), any());
+
+                challenger.getValue().run();
+                verify(shadowMetricsService).logDisagreement(any(), any());
+        }
+
+        @Test
+        public void evaluateRisk_WithoutShadowMetrics_SkipsChallenger() {
+                FraudDetectionService service = new FraudDetectionService(redisTemplate, env, championSession,
+                                challengerSession, null, inferenceExecutor, shadowInference, scoringCascade, featureScaler,
+                                null);
+                stubVelocity();
+
+                StepVerifier.create(service.evaluateRisk(request()))
+                                .expectNextCount(1)
+                                .verifyComplete();
+
+                verify(shadowInference, never()).offer(any());
+        }
+
+        @Test
+        public void evaluateRisk_ChampionRejected_FailsWith503() {
+                InferenceExecutor saturated = mock(InferenceExecutor.class);
+                when(saturated.submit(any()))
+                                .thenReturn(Mono.error(new BusinessException("at capacity", "INFERENCE_OVERLOADED", 503)));
+                FraudDetectionService service = new FraudDetectionService(redisTemplate, env, championSession,
+                                challengerSession, shadowMetricsService, saturated, shadowInference, scoringCascade,
+                                featureScaler, null);
+                stubVelocity();
+
+                StepVerifier.create(service.evaluateRisk(request()))
+                                .expectErrorMatches(e -> e instanceof BusinessException be && be.getHttpStatus() == 503)
+                                .verify();
+        }
+
+        @Test
+        public void evaluateRisk_ClearFastFilterScore_SkipsOnnx() {
+                SimpleMeterRegistry registry = new SimpleMeterRegistry();
+                ScoringCascade cascade = new ScoringCascade(new FastLinearFilter(), registry, true, 0.05, 0.95);
+                InferenceExecutor onnx = mock(InferenceExecutor.class);
+                FraudDetectionService service = new FraudDetectionService(redisTemplate, env, championSession,
+                                challengerSession, shadowMetricsService, onnx, shadowInference, cascade, featureScaler,
+                                null);
+                stubVelocity();
+
+                // $100 is far from the average amount, which the fast filter scores as a clear block
+                StepVerifier.create(service.evaluateRisk(request()))
+                                .expectNextMatches(res -> res.getDecision() == FraudResult.FraudDecision.BLOCK
+                                                && res.getRiskFactors().contains("Source: Fast Linear Filter"))
+                                .verifyComplete();
+
+                verify(onnx, never()).submit(any());
+                assertThat(registry.get("fraud.cascade.resolved").tag("tier", "fast_filter").counter().count())
+                                .isEqualTo(1.0);
+        }
+
+        @Test
+        public void evaluateRisk_GrayZone_EscalatesToOnnx() {
+                SimpleMeterRegistry registry = new SimpleMeterRegistry();
+                ScoringCascade cascade = new ScoringCascade(new FastLinearFilter(), registry, true, 0.0, 1.0);
+                FraudDetectionService service = new FraudDetectionService(redisTemplate, env, championSession,
+                                challengerSession, shadowMetricsService, inferenceExecutor, shadowInference, cascade,
+                                featureScaler, null);
+                stubVelocity();
+
+                StepVerifier.create(service.evaluateRisk(request()))
+                                .expectNextMatches(res -> res.getRiskFactors()
+                                                .contains("Source: Champion (Logistic Regression)"))
+                                .verifyComplete();
+
+                assertThat(registry.get("fraud.cascade.resolved").tag("tier", "onnx").counter().count())
+                                .isEqualTo(1.0);
+                assertThat(registry.get("fraud.cascade.resolved").tag("tier", "fast_filter").counter().count())
+                                .isZero();
+        }
+
+        @Test
+        public void evaluateRisk_WithBatcher_ScoresScaledFeaturesThroughIt() {
+                AtomicReference<float[]> scored = new AtomicReference<>();
+                MicroBatcher batcher = new MicroBatcher("champion", (rows, batchSize) -> {
+                        scored.set(rows.clone());
+                        return new double[batchSize];
+                }, 11, 8, 0, 16, inferenceExecutor, new SimpleMeterRegistry());
+                FraudDetectionService service = new FraudDetectionService(redisTemplate, env, championSession,
+                                challengerSession, null, inferenceExecutor, shadowInference, scoringCascade,
+                                featureScaler, batcher);
+                ReflectionTestUtils.setField(service, "enforceModelDecisions", true);
+                stubVelocity();
+
+                try {
+                        StepVerifier.create(service.evaluateRisk(request()))
+                                        .expectNextMatches(res -> res.getRiskScore() == 0.0)
+                                        .verifyComplete();
+                } finally {
+                        batcher.close();
+                }
+
+                // The model sees standardized features, not the raw $100 and velocity 1
+                float[] expected = featureScaler.scale(new float[] { 100.0f, 1.0f, 0, 900.0f, 1.0f, 0, 0, 0, 0, 0, 0 });
+                for (int i : new int[] { 0, 1, 3, 4, 5 }) {
+                        assertThat(scored.get()[i]).isCloseTo(expected[i], within(1e-5f));
+                }
+        }
+
+        @Test
+        public void evaluateRisk_ShippedModelOnRawRequest_ApprovesWithoutEnforcing() throws Exception {
+                OrtEnvironment realEnv = OrtEnvironment.getEnvironment();
+                byte[] model = new ClassPathResource("models/logistic_regression.onnx").getContentAsByteArray();
+                try (OrtSession session = realEnv.createSession(model, new OrtSession.SessionOptions())) {
+                        FraudDetectionService service = new FraudDetectionService(redisTemplate, realEnv, session,
+                                        null, null, inferenceExecutor, shadowInference, scoringCascade,
+                                        featureScaler, null);
+                        stubVelocity();
+
+                        try {
+                                // An ordinary $100 purchase from a known device
+                                StepVerifier.create(service.evaluateRisk(FraudCheckRequest.builder()
+                                                .userId("user_123")
+                                                .amount(Money.ofMajor(100, "USD"))
+                                                .transactionId("t5")
+                                                .deviceFingerprint("fp1")
+                                                .build()))
+                                                .expectNextMatches(res -> res.getDecision()
+                                                                == FraudResult.FraudDecision.APPROVE
+                                                                && res.getRiskScore() == 0.05
+                                                                && res.getRiskFactors().get(1).startsWith("Model score"))
+                                                .verifyComplete();
+                        } finally {
+                                service.close();
+                        }
+                }
+        }
+
+        private static FeatureScaler shippedScaler() {
+                FeatureScaler scaler = new FeatureScaler(new ObjectMapper());
+                scaler.init();
+                return scaler;
+        }
+
+        private void stubVelocity() {
+                lenient().when(valueOperations.increment(anyString())).thenReturn(Mono.just(1L));
+                lenient().when(redisTemplate.expire(anyString(), any(java.time.Duration.class)))
+                                .thenReturn(Mono.just(true));
+        }
+
+        private static FraudCheckRequest request() {
+                return FraudCheckRequest.builder()
+                                .userId("user_123")
+                                .amount(Money.ofMajor(100, "USD"))
+                                .transactionId("t4")
+                                .build();
+        }
+
         @Test
         public void runInference_HandlesException() throws Exception {
                 // Mock session.run to throw exception - use lenient
@@ -173,7 +375,7 @@ public class FraudDetectionServiceTest {
 
                 FraudCheckRequest request = FraudCheckRequest.builder()
                                 .userId("user_123")
-                                .amount(100.0)
+                                .amount(Money.ofMajor(100, "USD"))
                                 .build();
 
                 lenient().when(valueOperations.increment(anyString())).thenReturn(Mono.just(1L));
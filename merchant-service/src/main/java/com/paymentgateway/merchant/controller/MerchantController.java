@@ -3,6 +3,7 @@ package com.paymentgateway.merchant.controller;
 import com.paymentgateway.common.dto.ApiResponse;
 import com.paymentgateway.common.dto.merchant.MerchantRequest;
 import com.paymentgateway.common.dto.merchant.MerchantResponse;
+import com.paymentgateway.merchant.entity.Merchant;
 import com.paymentgateway.merchant.service.MerchantService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -11,6 +12,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -35,4 +38,11 @@ public class MerchantController {
         log.info("Fetching merchant: {}", id);
         return ResponseEntity.ok(ApiResponse.success(merchantService.getMerchant(id)));
     }
+
+    @PatchMapping("/{id}/status")
+    public ResponseEntity<ApiResponse<MerchantResponse>> updateStatus(@PathVariable("id") String id,
+            @RequestParam("status") Merchant.MerchantStatus status) {
+        log.info("Updating merchant {} status to {}", id, status);
+        return ResponseEntity.ok(ApiResponse.success("Merchant status updated", merchantService.updateStatus(id, status)));
+    }
 }
@@ -0,0 +1,22 @@
+package com.paymentgateway.merchant.messaging;
+
+import com.paymentgateway.common.dto.merchant.MerchantStatusEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MerchantEventPublisher {
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    public void publishStatusChange(MerchantStatusEvent event) {
+        log.info("Publishing status change for merchant {}: {} -> {}",
+                event.getMerchantId(), event.getPreviousStatus(), event.getStatus());
+        // Keyed by merchant so consecutive changes for one merchant stay ordered
+        kafkaTemplate.send(MerchantStatusEvent.TOPIC, event.getMerchantId(), event);
+    }
+}
@@ -2,19 +2,24 @@ package com.paymentgateway.merchant.service;
 
 import com.paymentgateway.common.dto.merchant.MerchantRequest;
 import com.paymentgateway.common.dto.merchant.MerchantResponse;
+import com.paymentgateway.common.dto.merchant.MerchantStatusEvent;
 import com.paymentgateway.common.exception.BusinessException;
 import com.paymentgateway.common.validation.ValidationUtils;
 import com.paymentgateway.merchant.entity.Merchant;
+import com.paymentgateway.merchant.messaging.MerchantEventPublisher;
 import com.paymentgateway.merchant.repository.MerchantRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+
 @Service
 @RequiredArgsConstructor
 public class MerchantService {
 
     private final MerchantRepository merchantRepository;
     private final ApiKeyService apiKeyService;
+    private final MerchantEventPublisher eventPublisher;
 
     public MerchantResponse createMerchant(MerchantRequest request) {
         // Validate input
@@ -55,6 +60,32 @@ public class MerchantService {
         return response;
     }
 
+    /**
+     * Change a merchant's status and notify consumers holding cached snapshots
+     */
+    public MerchantResponse updateStatus(String id, Merchant.MerchantStatus status) {
+        ValidationUtils.requireNonNull(status, "Merchant status");
+        Merchant merchant = merchantRepository.findById(ValidationUtils.requireNonEmpty(id, "Merchant ID"))
+                .orElseThrow(() -> new BusinessException("Merchant not found", "MERCHANT_NOT_FOUND", 404));
+
+        Merchant.MerchantStatus previous = merchant.getStatus();
+        merchant.setStatus(status);
+        Merchant saved = merchantRepository.save(merchant);
+
+        if (previous != status) {
+            eventPublisher.publishStatusChange(MerchantStatusEvent.builder()
+                    .merchantId(saved.getId())
+                    .previousStatus(previous != null ? previous.name() : null)
+                    .status(status.name())
+                    .changedAt(LocalDateTime.now())
+                    .build());
+        }
+
+        MerchantResponse response = mapToResponse(saved);
+        response.setApiKey("pk_****");
+        return response;
+    }
+
     /**
      * Validate API key - for authentication purposes
      */
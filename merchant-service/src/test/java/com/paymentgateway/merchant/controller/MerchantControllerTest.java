@@ -3,6 +3,7 @@ package com.paymentgateway.merchant.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.paymentgateway.common.dto.merchant.MerchantRequest;
 import com.paymentgateway.common.dto.merchant.MerchantResponse;
+import com.paymentgateway.merchant.entity.Merchant;
 import com.paymentgateway.merchant.service.MerchantService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,6 +18,7 @@ import org.springframework.web.context.WebApplicationContext;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -75,4 +77,18 @@ public class MerchantControllerTest {
                                 .andExpect(status().isOk())
                                 .andExpect(jsonPath("$.data.name").value("Test Merchant"));
         }
+
+        @Test
+        public void updateStatus_ReturnsMerchant() throws Exception {
+                MerchantResponse response = MerchantResponse.builder()
+                                .id("m1")
+                                .status("SUSPENDED")
+                                .build();
+
+                when(merchantService.updateStatus("m1", Merchant.MerchantStatus.SUSPENDED)).thenReturn(response);
+
+                mockMvc.perform(patch("/merchants/m1/status").param("status", "SUSPENDED"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.data.status").value("SUSPENDED"));
+        }
 }
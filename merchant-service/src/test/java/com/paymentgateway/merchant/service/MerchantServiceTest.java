@@ -3,7 +3,9 @@ package com.paymentgateway.merchant.service;
 import com.paymentgateway.common.dto.merchant.MerchantRequest;
 import com.paymentgateway.common.dto.merchant.MerchantResponse;
 import com.paymentgateway.common.exception.BusinessException;
+import com.paymentgateway.common.dto.merchant.MerchantStatusEvent;
 import com.paymentgateway.merchant.entity.Merchant;
+import com.paymentgateway.merchant.messaging.MerchantEventPublisher;
 import com.paymentgateway.merchant.repository.MerchantRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -28,6 +30,9 @@ public class MerchantServiceTest {
         @Mock
         private ApiKeyService apiKeyService;
 
+        @Mock
+        private MerchantEventPublisher eventPublisher;
+
         @InjectMocks
         private MerchantService merchantService;
 
@@ -124,4 +129,38 @@ public class MerchantServiceTest {
 
                 assertThrows(BusinessException.class, () -> merchantService.validateMerchantApiKey("m1", "plain"));
         }
+
+        @Test
+        public void updateStatus_Changed_PublishesEvent() {
+                Merchant merchant = Merchant.builder()
+                                .id("m1")
+                                .status(Merchant.MerchantStatus.ACTIVE)
+                                .build();
+
+                when(merchantRepository.findById("m1")).thenReturn(Optional.of(merchant));
+                when(merchantRepository.save(any(Merchant.class))).thenAnswer(i -> i.getArgument(0));
+
+                MerchantResponse response = merchantService.updateStatus("m1", Merchant.MerchantStatus.SUSPENDED);
+
+                assertEquals("SUSPENDED", response.getStatus());
+                verify(eventPublisher).publishStatusChange(argThat((MerchantStatusEvent event) ->
+                                "m1".equals(event.getMerchantId())
+                                                && "ACTIVE".equals(event.getPreviousStatus())
+                                                && "SUSPENDED".equals(event.getStatus())));
+        }
+
+        @Test
+        public void updateStatus_Unchanged_DoesNotPublish() {
+                Merchant merchant = Merchant.builder()
+                                .id("m1")
+                                .status(Merchant.MerchantStatus.ACTIVE)
+                                .build();
+
+                when(merchantRepository.findById("m1")).thenReturn(Optional.of(merchant));
+                when(merchantRepository.save(any(Merchant.class))).thenAnswer(i -> i.getArgument(0));
+
+                merchantService.updateStatus("m1", Merchant.MerchantStatus.ACTIVE);
+
+                verify(eventPublisher, never()).publishStatusChange(any());
+        }
 }
@@ -0,0 +1,41 @@
+package com.paymentgateway.notification.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paymentgateway.common.event.PaymentEventCodec;
+import com.paymentgateway.common.model.Transaction;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.JacksonUtils;
+
+import java.io.IOException;
+
+/**
+ * Decodes {@code payment-events} records written by payment-service with
+ * {@link PaymentEventCodec}. Records from before the codec (JSON from
+ * spring-kafka's JsonSerializer) are still read until they age out of the
+ * topic.
+ * <p>
+ * Anything else throws. It is configured behind spring-kafka's
+ * ErrorHandlingDeserializer, so such a record is logged and skipped by the
+ * listener container instead of failing every poll.
+ */
+public class PaymentEventDeserializer implements Deserializer<Transaction> {
+
+    // The same mapper JsonSerializer wrote the legacy records with
+    private static final ObjectMapper LEGACY_JSON = JacksonUtils.enhancedObjectMapper();
+
+    @Override
+    public Transaction deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (data.length > 0 && data[0] == '{') {
+            try {
+                return LEGACY_JSON.readValue(data, Transaction.class);
+            } catch (IOException e) {
+                throw new SerializationException("Unreadable legacy JSON payment event", e);
+            }
+        }
+        return PaymentEventCodec.decode(data);
+    }
+}
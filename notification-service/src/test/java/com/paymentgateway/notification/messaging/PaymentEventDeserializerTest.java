@@ -0,0 +1,62 @@
+package com.paymentgateway.notification.messaging;
+
+import com.paymentgateway.common.event.PaymentEventCodec;
+import com.paymentgateway.common.model.Transaction;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PaymentEventDeserializerTest {
+
+    private final PaymentEventDeserializer deserializer = new PaymentEventDeserializer();
+
+    @Test
+    public void deserialize_DecodesPaymentEvent() {
+        Transaction transaction = Transaction.builder()
+                .id("tx-1")
+                .merchantId("m-1")
+                .amount(new BigDecimal("25.00"))
+                .currency("USD")
+                .status(Transaction.TransactionStatus.CAPTURED)
+                .build();
+
+        Transaction decoded = deserializer.deserialize("payment-events", PaymentEventCodec.encode(transaction));
+
+        assertThat(decoded.getId()).isEqualTo("tx-1");
+        assertThat(decoded.getAmount()).isEqualByComparingTo("25.00");
+        assertThat(decoded.getStatus()).isEqualTo(Transaction.TransactionStatus.CAPTURED);
+    }
+
+    @Test
+    public void deserialize_ReadsLegacyJsonEvent() {
+        byte[] json = """
+                {"id":"tx-legacy","merchantId":"m-1","amount":25.00,"currency":"USD","status":"SETTLED",
+                 "paymentMethod":"UPI","createdAt":"2025-01-15T10:00:00","new":false}
+                """.getBytes(StandardCharsets.UTF_8);
+
+        Transaction decoded = deserializer.deserialize("payment-events", json);
+
+        assertThat(decoded.getId()).isEqualTo("tx-legacy");
+        assertThat(decoded.getStatus()).isEqualTo(Transaction.TransactionStatus.SETTLED);
+        assertThat(decoded.getCreatedAt()).isEqualTo(LocalDateTime.of(2025, 1, 15, 10, 0));
+    }
+
+    @Test
+    public void deserialize_RejectsUnreadableRecord() {
+        assertThatThrownBy(() -> deserializer.deserialize("payment-events", "{not json".getBytes()))
+                .isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> deserializer.deserialize("payment-events", new byte[] { 'X', 1 }))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void deserialize_NullTombstone() {
+        assertThat(deserializer.deserialize("payment-events", null)).isNull();
+    }
+}
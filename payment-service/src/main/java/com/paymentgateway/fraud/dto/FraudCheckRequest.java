@@ -1,5 +1,6 @@
 package com.paymentgateway.fraud.dto;
 
+import com.paymentgateway.common.money.Money;
 import lombok.Builder;
 import lombok.Data;
 
@@ -9,8 +10,7 @@ public class FraudCheckRequest {
     private String transactionId;
     private String merchantId;
     private String userId;
-    private Double amount;
-    private String currency;
+    private Money amount;
     private String ipAddress;
     private String deviceFingerprint;
     private String email;
@@ -4,9 +4,11 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = "com.paymentgateway")
 @EntityScan(basePackages = "com.paymentgateway")
+@EnableScheduling
 public class PaymentServiceApplication {
 
     public static void main(String[] args) {
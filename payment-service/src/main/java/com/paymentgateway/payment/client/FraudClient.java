@@ -3,8 +3,8 @@ package com.paymentgateway.payment.client;
 import com.paymentgateway.common.dto.ApiResponse;
 import com.paymentgateway.fraud.dto.FraudCheckRequest;
 import com.paymentgateway.fraud.dto.FraudResult;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
@@ -13,9 +13,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.List;
+
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class FraudClient {
 
     private final RestTemplate restTemplate;
@@ -23,6 +24,10 @@ public class FraudClient {
     @Value("${fraud.service.url:http://fraud-service:8086}")
     private String fraudServiceUrl;
 
+    public FraudClient(@Qualifier("fraudRestTemplate") RestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
+    }
+
     public FraudResult checkFraud(FraudCheckRequest request) {
         String url = fraudServiceUrl + "/api/v1/fraud/check";
         try {
@@ -45,4 +50,36 @@ public class FraudClient {
                     .build();
         }
     }
+
+    /**
+     * Score several payments in one round trip; results come back in request
+     * order. Falls back to Manual Review for the whole batch, like
+     * {@link #checkFraud}.
+     */
+    public List<FraudResult> checkFraudAll(List<FraudCheckRequest> requests) {
+        String url = fraudServiceUrl + "/api/v1/fraud/check/batch";
+        try {
+            ResponseEntity<ApiResponse<List<FraudResult>>> response = restTemplate.exchange(
+                    url,
+                    HttpMethod.POST,
+                    new HttpEntity<>(requests),
+                    new ParameterizedTypeReference<ApiResponse<List<FraudResult>>>() {
+                    });
+            List<FraudResult> results = response.getBody().getData();
+            if (results == null || results.size() != requests.size()) {
+                throw new IllegalStateException("Fraud Service answered " + (results == null ? 0 : results.size())
+                        + " of " + requests.size() + " checks");
+            }
+            return results;
+        } catch (Exception e) {
+            log.error("Failed to call Fraud Service for a batch of {}", requests.size(), e);
+            return requests.stream()
+                    .map(request -> FraudResult.builder()
+                            .decision(FraudResult.FraudDecision.MANUAL_REVIEW)
+                            .riskScore(0.5)
+                            .transactionId(request.getTransactionId())
+                            .build())
+                    .toList();
+        }
+    }
 }
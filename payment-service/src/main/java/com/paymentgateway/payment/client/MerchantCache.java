@@ -0,0 +1,55 @@
+package com.paymentgateway.payment.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.paymentgateway.common.dto.merchant.MerchantResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process snapshot of merchants looked up by the payment hot path.
+ * <p>
+ * Entries expire after {@code services.merchant.cache.ttl} and are evicted by
+ * size; status changes published by merchant-service invalidate them early, so
+ * a suspended merchant is blocked within seconds. Hit/miss/eviction counts are
+ * exported as {@code cache.*{cache="merchant-snapshots"}}.
+ */
+@Slf4j
+@Component
+public class MerchantCache {
+
+    static final String CACHE_NAME = "merchant-snapshots";
+
+    private final Cache<String, MerchantResponse> cache;
+
+    public MerchantCache(
+            @Value("${services.merchant.cache.maximum-size:10000}") long maximumSize,
+            @Value("${services.merchant.cache.ttl:5m}") Duration ttl,
+            MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public MerchantResponse get(String merchantId, Function<String, MerchantResponse> loader) {
+        return cache.get(merchantId, loader);
+    }
+
+    public void invalidate(String merchantId) {
+        log.info("Invalidating cached merchant snapshot: {}", merchantId);
+        cache.invalidate(merchantId);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
@@ -2,7 +2,7 @@ package com.paymentgateway.payment.client;
 
 import com.paymentgateway.common.dto.ApiResponse;
 import com.paymentgateway.common.dto.merchant.MerchantResponse;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpMethod;
@@ -11,15 +11,27 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
 @Service
-@RequiredArgsConstructor
 public class MerchantClient {
 
     private final RestTemplate restTemplate;
+    private final MerchantCache merchantCache;
 
     @Value("${services.merchant.url}")
     private String merchantUrl;
 
+    public MerchantClient(@Qualifier("merchantRestTemplate") RestTemplate restTemplate, MerchantCache merchantCache) {
+        this.restTemplate = restTemplate;
+        this.merchantCache = merchantCache;
+    }
+
+    /**
+     * Serve from the local merchant snapshot, falling back to merchant-service on a miss
+     */
     public MerchantResponse getMerchant(String id) {
+        return merchantCache.get(id, this::fetchMerchant);
+    }
+
+    private MerchantResponse fetchMerchant(String id) {
         ResponseEntity<ApiResponse<MerchantResponse>> response = restTemplate.exchange(
                 merchantUrl + "/merchants/" + id,
                 HttpMethod.GET,
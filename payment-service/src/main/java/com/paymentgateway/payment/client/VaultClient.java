@@ -4,7 +4,8 @@ import com.paymentgateway.common.dto.ApiResponse;
 import com.paymentgateway.common.dto.vault.CardDataResponse;
 import com.paymentgateway.common.dto.vault.TokenizeRequest;
 import com.paymentgateway.common.dto.vault.TokenizeResponse;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
@@ -13,8 +14,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.List;
+
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class VaultClient {
 
     private final RestTemplate restTemplate;
@@ -22,9 +25,13 @@ public class VaultClient {
     @Value("${services.vault.url}")
     private String vaultUrl;
 
+    public VaultClient(@Qualifier("vaultRestTemplate") RestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
+    }
+
     public TokenizeResponse tokenize(TokenizeRequest request) {
         String url = vaultUrl + "/vault/tokenize";
-        System.out.println("DEBUG: VaultClient calling URL: " + url);
+        log.debug("Calling Vault Service at: {}", url);
         ResponseEntity<ApiResponse<TokenizeResponse>> response = restTemplate.exchange(
                 url,
                 HttpMethod.POST,
@@ -34,6 +41,20 @@ public class VaultClient {
         return response.getBody().getData();
     }
 
+    /**
+     * Tokenize several cards in one round trip; responses come back in request
+     * order, with {@code error} set for any card the vault rejected.
+     */
+    public List<TokenizeResponse> tokenizeAll(List<TokenizeRequest> requests) {
+        ResponseEntity<ApiResponse<List<TokenizeResponse>>> response = restTemplate.exchange(
+                vaultUrl + "/vault/tokenize/batch",
+                HttpMethod.POST,
+                new HttpEntity<>(requests),
+                new ParameterizedTypeReference<ApiResponse<List<TokenizeResponse>>>() {
+                });
+        return response.getBody().getData();
+    }
+
     public CardDataResponse detokenize(String token) {
         ResponseEntity<ApiResponse<CardDataResponse>> response = restTemplate.exchange(
                 vaultUrl + "/vault/detokenize/" + token,
@@ -0,0 +1,93 @@
+package com.paymentgateway.payment.client.http;
+
+import com.paymentgateway.payment.config.HttpClientProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Read timeout for one downstream derived from its recent latency.
+ * <p>
+ * Installed as the innermost RestTemplate interceptor, so it times every call
+ * that reaches the network whether or not the downstream has a circuit
+ * breaker, and leaves out time spent waiting on the bulkhead. Successful
+ * (non-5xx) call latencies go into a ring of the last {@code window} samples;
+ * every tenth of a window the p99 is recomputed and the timeout becomes
+ * {@code p99 * multiplier}, clamped to {@code [min, read-timeout]}. Until enough
+ * samples exist (or when disabled) the configured read timeout applies. The
+ * current value is exported as {@code http.client.adaptive.timeout{client}}.
+ */
+public class AdaptiveTimeout implements ClientHttpRequestInterceptor {
+
+    private static final double PERCENTILE = 0.99;
+    private static final int MIN_SAMPLES = 100;
+
+    private final boolean enabled;
+    private final double multiplier;
+    private final long minNanos;
+    private final long maxNanos;
+    private final int recomputeEvery;
+    private final AtomicLongArray samples;
+    private final AtomicLong recorded = new AtomicLong();
+    private volatile long currentNanos;
+
+    public AdaptiveTimeout(String name, Duration readTimeout, HttpClientProperties.AdaptiveTimeoutSettings settings,
+            MeterRegistry meterRegistry) {
+        this.enabled = settings.isEnabled();
+        this.multiplier = settings.getMultiplier();
+        this.minNanos = Math.min(settings.getMin().toNanos(), readTimeout.toNanos());
+        this.maxNanos = readTimeout.toNanos();
+        this.samples = new AtomicLongArray(Math.max(settings.getWindow(), MIN_SAMPLES));
+        this.recomputeEvery = Math.max(samples.length() / 10, 1);
+        this.currentNanos = maxNanos;
+        TimeGauge.builder("http.client.adaptive.timeout", this, TimeUnit.NANOSECONDS, t -> t.currentNanos)
+                .tag("client", name)
+                .register(meterRegistry);
+    }
+
+    public Duration current() {
+        return Duration.ofNanos(currentNanos);
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        long start = System.nanoTime();
+        ClientHttpResponse response = execution.execute(request, body);
+        if (!response.getStatusCode().is5xxServerError()) {
+            record(System.nanoTime() - start);
+        }
+        return response;
+    }
+
+    void record(long latencyNanos) {
+        if (!enabled) {
+            return;
+        }
+        long count = recorded.incrementAndGet();
+        samples.set((int) ((count - 1) % samples.length()), latencyNanos);
+        if (count >= MIN_SAMPLES && count % recomputeEvery == 0) {
+            recompute((int) Math.min(count, samples.length()));
+        }
+    }
+
+    private void recompute(int count) {
+        long[] sorted = new long[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        long p99 = sorted[(int) Math.ceil(PERCENTILE * count) - 1];
+        currentNanos = Math.max(minNanos, Math.min(maxNanos, (long) (p99 * multiplier)));
+    }
+}
@@ -0,0 +1,81 @@
+package com.paymentgateway.payment.client.http;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrency bulkhead for one downstream, applied as a RestTemplate interceptor.
+ * <p>
+ * Callers wait at most {@code maxWait} for a permit and are rejected with
+ * {@link BulkheadFullException} after that. Queue wait, rejections and calls in
+ * flight are exported under {@code http.client.bulkhead.*{client}}.
+ */
+public class Bulkhead implements ClientHttpRequestInterceptor {
+
+    private final String name;
+    private final int maxConcurrentCalls;
+    private final Duration maxWait;
+    private final Semaphore permits;
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    public Bulkhead(String name, int maxConcurrentCalls, Duration maxWait, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxWait = maxWait;
+        this.permits = new Semaphore(maxConcurrentCalls, true);
+        this.waitTimer = Timer.builder("http.client.bulkhead.wait")
+                .tag("client", name)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("http.client.bulkhead.rejected")
+                .tag("client", name)
+                .register(meterRegistry);
+        Gauge.builder("http.client.bulkhead.in_flight", this, Bulkhead::inFlight)
+                .tag("client", name)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        acquire();
+        try {
+            return execution.execute(request, body);
+        } finally {
+            permits.release();
+        }
+    }
+
+    void acquire() throws InterruptedIOException {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for " + name + " bulkhead");
+        } finally {
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (!acquired) {
+            rejected.increment();
+            throw new BulkheadFullException(name);
+        }
+    }
+
+    int inFlight() {
+        return maxConcurrentCalls - permits.availablePermits();
+    }
+}
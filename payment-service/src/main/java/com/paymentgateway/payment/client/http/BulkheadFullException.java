@@ -0,0 +1,11 @@
+package com.paymentgateway.payment.client.http;
+
+/**
+ * Thrown when a downstream's concurrency bulkhead has no permit within its max wait
+ */
+public class BulkheadFullException extends DownstreamUnavailableException {
+
+    public BulkheadFullException(String downstream) {
+        super("Downstream " + downstream + " is saturated", "DOWNSTREAM_SATURATED");
+    }
+}
@@ -0,0 +1,239 @@
+package com.paymentgateway.payment.client.http;
+
+import com.paymentgateway.payment.config.HttpClientProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Circuit breaker for one downstream, applied as the outermost RestTemplate interceptor.
+ * <p>
+ * CLOSED: outcomes go into a count-based sliding window; once it holds
+ * {@code minimum-calls} and the failure or slow-call rate crosses its threshold the
+ * breaker opens. OPEN: calls are rejected with {@link CircuitOpenException} without
+ * touching the network until {@code wait-in-open} has passed. HALF_OPEN: only
+ * {@code half-open-probes} calls go through and their rates decide between CLOSED
+ * and OPEN. I/O errors and 5xx responses count as failures; calls shed by the
+ * bulkhead are not counted.
+ * <p>
+ * Exported as {@code http.client.circuit.state{client,state}} (1 for the current
+ * state), {@code http.client.circuit.failure_rate}, {@code http.client.circuit.slow_call_rate}
+ * and {@code http.client.circuit.calls{client,outcome}}.
+ */
+@Slf4j
+public class CircuitBreaker implements ClientHttpRequestInterceptor {
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    private final String name;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final int slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long waitInOpenNanos;
+    private final int halfOpenProbes;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger probePermits = new AtomicInteger();
+    private volatile long openedAt;
+
+    // Sliding window and probe tallies, guarded by this
+    private final byte[] window;
+    private int windowNext;
+    private int windowCalls;
+    private int windowFailures;
+    private int windowSlowCalls;
+    private int probeCalls;
+    private int probeFailures;
+    private int probeSlowCalls;
+
+    private final Counter successes;
+    private final Counter failures;
+    private final Counter slowCalls;
+    private final Counter rejections;
+
+    public CircuitBreaker(String name, HttpClientProperties.CircuitBreakerSettings settings,
+            MeterRegistry meterRegistry) {
+        this.name = name;
+        this.window = new byte[settings.getSlidingWindowSize()];
+        this.minimumCalls = Math.min(settings.getMinimumCalls(), settings.getSlidingWindowSize());
+        this.failureRateThreshold = settings.getFailureRateThreshold();
+        this.slowCallRateThreshold = settings.getSlowCallRateThreshold();
+        this.slowCallNanos = settings.getSlowCallDuration().toNanos();
+        this.waitInOpenNanos = settings.getWaitInOpen().toNanos();
+        this.halfOpenProbes = settings.getHalfOpenProbes();
+
+        for (State s : State.values()) {
+            Gauge.builder("http.client.circuit.state", state, current -> current.get() == s ? 1 : 0)
+                    .tag("client", name)
+                    .tag("state", s.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+        Gauge.builder("http.client.circuit.failure_rate", this, CircuitBreaker::failureRate)
+                .tag("client", name)
+                .register(meterRegistry);
+        Gauge.builder("http.client.circuit.slow_call_rate", this, CircuitBreaker::slowCallRate)
+                .tag("client", name)
+                .register(meterRegistry);
+        this.successes = callCounter(meterRegistry, "success");
+        this.failures = callCounter(meterRegistry, "failure");
+        this.slowCalls = callCounter(meterRegistry, "slow");
+        this.rejections = callCounter(meterRegistry, "rejected");
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        if (!tryAcquirePermission()) {
+            rejections.increment();
+            throw new CircuitOpenException(name);
+        }
+        long start = System.nanoTime();
+        ClientHttpResponse response;
+        try {
+            response = execution.execute(request, body);
+        } catch (DownstreamUnavailableException e) {
+            releasePermission();
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            onResult(System.nanoTime() - start, true);
+            throw e;
+        }
+        onResult(System.nanoTime() - start, response.getStatusCode().is5xxServerError());
+        return response;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    boolean tryAcquirePermission() {
+        switch (state.get()) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - openedAt < waitInOpenNanos) {
+                    return false;
+                }
+                transitionToHalfOpen();
+                return tryAcquirePermission();
+            case HALF_OPEN:
+                return probePermits.getAndUpdate(p -> p > 0 ? p - 1 : p) > 0;
+            default:
+                return false;
+        }
+    }
+
+    synchronized void onResult(long elapsedNanos, boolean failed) {
+        boolean slow = elapsedNanos >= slowCallNanos;
+        if (failed) {
+            failures.increment();
+        } else if (slow) {
+            slowCalls.increment();
+        } else {
+            successes.increment();
+        }
+
+        State current = state.get();
+        if (current == State.CLOSED) {
+            record(failed, slow);
+            if (windowCalls >= minimumCalls && exceedsThresholds(windowCalls, windowFailures, windowSlowCalls)) {
+                transitionToOpen();
+            }
+        } else if (current == State.HALF_OPEN) {
+            probeCalls++;
+            probeFailures += failed ? 1 : 0;
+            probeSlowCalls += slow ? 1 : 0;
+            if (probeCalls >= halfOpenProbes) {
+                if (exceedsThresholds(probeCalls, probeFailures, probeSlowCalls)) {
+                    transitionToOpen();
+                } else {
+                    transitionToClosed();
+                }
+            }
+        }
+        // OPEN: the call started before the breaker tripped, nothing to decide
+    }
+
+    private void releasePermission() {
+        if (state.get() == State.HALF_OPEN) {
+            probePermits.incrementAndGet();
+        }
+    }
+
+    private void record(boolean failed, boolean slow) {
+        if (windowCalls == window.length) {
+            byte evicted = window[windowNext];
+            windowFailures -= (evicted & FAILED) != 0 ? 1 : 0;
+            windowSlowCalls -= (evicted & SLOW) != 0 ? 1 : 0;
+        } else {
+            windowCalls++;
+        }
+        window[windowNext] = (byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0));
+        windowNext = (windowNext + 1) % window.length;
+        windowFailures += failed ? 1 : 0;
+        windowSlowCalls += slow ? 1 : 0;
+    }
+
+    private boolean exceedsThresholds(int calls, int failed, int slow) {
+        return failed * 100 >= failureRateThreshold * calls || slow * 100 >= slowCallRateThreshold * calls;
+    }
+
+    private synchronized void transitionToOpen() {
+        log.warn("Circuit for {} opened (failure rate {}%, slow-call rate {}%)", name, failureRate(), slowCallRate());
+        openedAt = System.nanoTime();
+        state.set(State.OPEN);
+    }
+
+    private synchronized void transitionToHalfOpen() {
+        if (state.get() != State.OPEN || System.nanoTime() - openedAt < waitInOpenNanos) {
+            return;
+        }
+        log.info("Circuit for {} half-open, allowing {} probe calls", name, halfOpenProbes);
+        probeCalls = 0;
+        probeFailures = 0;
+        probeSlowCalls = 0;
+        probePermits.set(halfOpenProbes);
+        state.set(State.HALF_OPEN);
+    }
+
+    private synchronized void transitionToClosed() {
+        log.info("Circuit for {} closed", name);
+        windowNext = 0;
+        windowCalls = 0;
+        windowFailures = 0;
+        windowSlowCalls = 0;
+        state.set(State.CLOSED);
+    }
+
+    private synchronized double failureRate() {
+        return windowCalls == 0 ? 0.0 : windowFailures * 100.0 / windowCalls;
+    }
+
+    private synchronized double slowCallRate() {
+        return windowCalls == 0 ? 0.0 : windowSlowCalls * 100.0 / windowCalls;
+    }
+
+    private Counter callCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("http.client.circuit.calls")
+                .tag("client", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+}
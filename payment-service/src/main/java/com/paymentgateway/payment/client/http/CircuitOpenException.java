@@ -0,0 +1,11 @@
+package com.paymentgateway.payment.client.http;
+
+/**
+ * Thrown when a downstream's circuit breaker is open and the call is rejected outright
+ */
+public class CircuitOpenException extends DownstreamUnavailableException {
+
+    public CircuitOpenException(String downstream) {
+        super("Downstream " + downstream + " circuit is open", "DOWNSTREAM_UNAVAILABLE");
+    }
+}
@@ -0,0 +1,163 @@
+package com.paymentgateway.payment.client.http;
+
+import com.paymentgateway.payment.config.HttpClientProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpClient;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Builds one isolated transport per downstream from {@link HttpClientProperties}.
+ * <p>
+ * HTTP/1.1 downstreams get an Apache HttpClient 5 keep-alive pool bounded by
+ * {@code max-connections}; its state is exported under
+ * {@code httpcomponents.httpclient.pool.*} plus a {@code http.client.pool.saturation}
+ * gauge (leased / max). HTTP/2 downstreams share one multiplexed connection through
+ * the JDK client, so they have no pool to bound and rely on the bulkhead alone.
+ * Either way the per-request read timeout comes from the downstream's
+ * {@link AdaptiveTimeout}.
+ */
+@Slf4j
+@Component
+public class DownstreamHttpClientFactory {
+
+    private final MeterRegistry meterRegistry;
+    private final List<PoolingHttpClientConnectionManager> pools = new CopyOnWriteArrayList<>();
+    private final List<AutoCloseable> clients = new CopyOnWriteArrayList<>();
+
+    public DownstreamHttpClientFactory(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Transport for one downstream; every request reads its timeout from {@code timeout}.
+     */
+    public ClientHttpRequestFactory requestFactory(String name, HttpClientProperties.Downstream settings,
+            AdaptiveTimeout timeout) {
+        log.info("Configuring {} client: {} pool={} bulkhead={}", name, settings.getHttpVersion(),
+                settings.getMaxConnections(), settings.getMaxConcurrentCalls());
+        if (settings.getHttpVersion() == HttpClientProperties.HttpVersion.HTTP_2) {
+            return http2(settings, timeout);
+        }
+        return pooled(name, settings, timeout);
+    }
+
+    public AdaptiveTimeout adaptiveTimeout(String name, HttpClientProperties.Downstream settings) {
+        return new AdaptiveTimeout(name, settings.getReadTimeout(), settings.getAdaptiveTimeout(), meterRegistry);
+    }
+
+    /**
+     * Interceptors in call order: circuit breaker first so an open circuit sheds
+     * load before queueing on the bulkhead, and the adaptive timeout last so it
+     * samples every call that reaches the downstream.
+     */
+    public List<ClientHttpRequestInterceptor> interceptors(String name, HttpClientProperties.Downstream settings,
+            AdaptiveTimeout timeout) {
+        Bulkhead bulkhead = new Bulkhead(name, settings.getMaxConcurrentCalls(), settings.getMaxWait(), meterRegistry);
+        if (!settings.getCircuitBreaker().isEnabled()) {
+            return List.of(bulkhead, timeout);
+        }
+        return List.of(new CircuitBreaker(name, settings.getCircuitBreaker(), meterRegistry), bulkhead, timeout);
+    }
+
+    private ClientHttpRequestFactory pooled(String name, HttpClientProperties.Downstream settings,
+            AdaptiveTimeout timeout) {
+        PoolingHttpClientConnectionManager pool = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(settings.getMaxConnections())
+                .setMaxConnPerRoute(settings.getMaxConnections())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(settings.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(settings.getReadTimeout()))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+
+        TimeValue keepAlive = TimeValue.of(settings.getKeepAlive());
+        RequestConfig requestConfig = RequestConfig.custom()
+                // Time spent queueing for a pooled connection counts against max-wait too
+                .setConnectionRequestTimeout(Timeout.of(settings.getMaxWait()))
+                .setResponseTimeout(Timeout.of(settings.getReadTimeout()))
+                .build();
+        CloseableHttpClient client = HttpClients.custom()
+                .setConnectionManager(pool)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy((response, context) -> keepAlive)
+                .evictIdleConnections(keepAlive)
+                .evictExpiredConnections()
+                .build();
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(pool, name).bindTo(meterRegistry);
+        Gauge.builder("http.client.pool.saturation", pool, DownstreamHttpClientFactory::saturation)
+                .tag("client", name)
+                .register(meterRegistry);
+
+        pools.add(pool);
+        clients.add(client);
+        HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(client);
+        factory.setHttpContextFactory((method, uri) -> {
+            HttpClientContext context = HttpClientContext.create();
+            context.setRequestConfig(RequestConfig.copy(requestConfig)
+                    .setResponseTimeout(Timeout.of(timeout.current()))
+                    .build());
+            return context;
+        });
+        return factory;
+    }
+
+    private ClientHttpRequestFactory http2(HttpClientProperties.Downstream settings, AdaptiveTimeout timeout) {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(settings.getConnectTimeout())
+                .build();
+        clients.add(client);
+        // The JDK factory only takes a fixed read timeout, so build a lightweight one per request
+        return (uri, method) -> {
+            JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(client);
+            factory.setReadTimeout(timeout.current());
+            return factory.createRequest(uri, method);
+        };
+    }
+
+    /**
+     * Drop every idle pooled connection; the pools reconnect lazily on the next call.
+     */
+    public void evictIdleConnections() {
+        pools.forEach(pool -> pool.closeIdle(TimeValue.ZERO_MILLISECONDS));
+    }
+
+    @PreDestroy
+    public void close() {
+        for (AutoCloseable client : clients) {
+            try {
+                client.close();
+            } catch (Exception e) {
+                log.warn("Failed to close HTTP client", e);
+            }
+        }
+    }
+
+    private static double saturation(PoolingHttpClientConnectionManager pool) {
+        PoolStats stats = pool.getTotalStats();
+        return stats.getMax() == 0 ? 0.0 : (double) stats.getLeased() / stats.getMax();
+    }
+}
@@ -0,0 +1,13 @@
+package com.paymentgateway.payment.client.http;
+
+import com.paymentgateway.common.exception.BusinessException;
+
+/**
+ * A downstream call was shed locally, without touching the network
+ */
+public class DownstreamUnavailableException extends BusinessException {
+
+    public DownstreamUnavailableException(String message, String errorCode) {
+        super(message, errorCode, 503);
+    }
+}
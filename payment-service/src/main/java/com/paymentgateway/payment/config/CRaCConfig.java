@@ -1,5 +1,13 @@
 package com.paymentgateway.payment.config;
 
+import com.paymentgateway.common.datasource.ReplicaPoolDataSource;
+import com.paymentgateway.payment.client.http.DownstreamHttpClientFactory;
+import com.paymentgateway.payment.controller.RestoreLatencyFilter;
+import com.paymentgateway.payment.service.PaymentWarmup;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.crac.Context;
@@ -7,17 +15,75 @@ import org.crac.Core;
 import org.crac.Resource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.stereotype.Component;
 
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
 /**
  * CRaC (Coordinated Restore at Checkpoint) Configuration
- * Implements checkpoint/restore hooks for instant JVM warmup
+ * <p>
+ * Before the checkpoint the JIT is warmed with {@link PaymentWarmup}, so the
+ * image holds compiled payment code, and then every open socket is released:
+ * Kafka listeners stop, the Kafka producer is closed, Hikari pools are
+ * suspended and drained, and idle pooled HTTP connections are dropped. After
+ * restore the same resources reopen lazily (pools resume and refill, the
+ * producer is recreated on the next send) and {@link RestoreLatencyFilter}
+ * starts timing the way back to p99 latency.
  */
 @Component
 public class CRaCConfig implements Resource {
 
+    static final String TIME_TO_FIRST_P99 = "payment.crac.restore.time_to_first_p99";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(CRaCConfig.class);
 
+    private final ObjectProvider<DataSource> dataSources;
+    private final ObjectProvider<ProducerFactory<?, ?>> producerFactories;
+    private final ObjectProvider<KafkaListenerEndpointRegistry> listenerRegistry;
+    private final ObjectProvider<DownstreamHttpClientFactory> httpClientFactory;
+    private final ObjectProvider<PaymentWarmup> warmup;
+    private final ObjectProvider<RestoreLatencyFilter> restoreLatency;
+    private final Timer restoreDuration;
+    private final Timer timeToFirstP99;
+
+    @Value("${payment.crac.drain-timeout:10s}")
+    private Duration drainTimeout = Duration.ofSeconds(10);
+
+    // The checkpoint already holds the compiled code; a second pass only helps if the host CPU changed
+    @Value("${payment.crac.warmup.after-restore:false}")
+    private boolean warmupAfterRestore;
+
+    public CRaCConfig(ObjectProvider<DataSource> dataSources,
+            ObjectProvider<ProducerFactory<?, ?>> producerFactories,
+            ObjectProvider<KafkaListenerEndpointRegistry> listenerRegistry,
+            ObjectProvider<DownstreamHttpClientFactory> httpClientFactory,
+            ObjectProvider<PaymentWarmup> warmup,
+            ObjectProvider<RestoreLatencyFilter> restoreLatency,
+            MeterRegistry meterRegistry) {
+        this.dataSources = dataSources;
+        this.producerFactories = producerFactories;
+        this.listenerRegistry = listenerRegistry;
+        this.httpClientFactory = httpClientFactory;
+        this.warmup = warmup;
+        this.restoreLatency = restoreLatency;
+        this.restoreDuration = Timer.builder("payment.crac.restore.duration")
+                .description("Time spent reopening resources after a CRaC restore")
+                .register(meterRegistry);
+        this.timeToFirstP99 = Timer.builder(TIME_TO_FIRST_P99)
+                .description("Time from CRaC restore to the first request served within the p99 target")
+                .register(meterRegistry);
+    }
+
     @PostConstruct
     public void init() {
         // Register this resource with CRaC
@@ -27,63 +93,106 @@ public class CRaCConfig implements Resource {
 
     /**
      * Called before checkpoint is created
-     * Close connections, flush caches, prepare for serialization
+     * Warm the JIT, then release every connection so no socket is captured in the image
      */
     @Override
     public void beforeCheckpoint(Context<? extends Resource> context) throws Exception {
         LOGGER.info("CRaC beforeCheckpoint: Preparing application state for checkpoint");
 
-        // Close network connections
-        LOGGER.info("Closing network connections...");
+        // Warm up first: the replay never leaves the JVM, so the pools below stay untouched
+        warmup.ifAvailable(PaymentWarmup::run);
 
-        // Flush caches
-        LOGGER.info("Flushing caches...");
+        listenerRegistry.ifAvailable(KafkaListenerEndpointRegistry::stop);
+        producerFactories.orderedStream().forEach(ProducerFactory::reset);
+        LOGGER.info("Kafka listeners stopped and producers closed");
 
-        // Prepare database connections for checkpoint
-        LOGGER.info("Preparing database connections for checkpoint...");
+        for (HikariDataSource pool : hikariPools()) {
+            drain(pool);
+        }
 
+        httpClientFactory.ifAvailable(DownstreamHttpClientFactory::evictIdleConnections);
         LOGGER.info("Application state prepared for checkpoint");
     }
 
     /**
      * Called after restore from checkpoint
-     * Reconnect to databases, reinitialize connection pools, warmup JIT
+     * Resume the pools and listeners; producers and HTTP connections reopen on first use
      */
     @Override
     public void afterRestore(Context<? extends Resource> context) throws Exception {
         LOGGER.info("CRaC afterRestore: Restoring application state from checkpoint");
+        restoreLatency.ifAvailable(filter -> filter.markRestored(timeToFirstP99::record));
+        long start = System.nanoTime();
 
-        // Reconnect to databases
-        LOGGER.info("Reconnecting to databases...");
-
-        // Reinitialize connection pools
-        LOGGER.info("Reinitializing connection pools...");
-
-        // Warmup critical code paths
-        LOGGER.info("Warming up critical code paths...");
-        performWarmup();
+        for (HikariDataSource pool : hikariPools()) {
+            resume(pool);
+        }
+        listenerRegistry.ifAvailable(KafkaListenerEndpointRegistry::start);
 
+        if (warmupAfterRestore) {
+            warmup.ifAvailable(PaymentWarmup::run);
+        }
+        restoreDuration.record(Duration.ofNanos(System.nanoTime() - start));
         LOGGER.info("Application state restored from checkpoint - ready to serve requests");
     }
 
     /**
-     * Warmup critical code paths to prime JIT compiler
+     * Every Hikari pool in the context, including the per-replica pools
+     * behind {@link ReplicaPoolDataSource}.
      */
-    private void performWarmup() {
-        try {
-            // Execute critical code paths to trigger JIT compilation
-            LOGGER.info("Executing warmup routines...");
-
-            // Simulate payment processing warmup
-            for (int i = 0; i < 100; i++) {
-                // Warmup database queries
-                // Warmup Kafka producers
-                // Warmup HTTP clients
+    List<HikariDataSource> hikariPools() {
+        Set<HikariDataSource> pools = Collections.newSetFromMap(new IdentityHashMap<>());
+        dataSources.orderedStream().forEach(dataSource -> {
+            if (dataSource instanceof HikariDataSource hikari) {
+                pools.add(hikari);
+            } else if (dataSource instanceof ReplicaPoolDataSource replicas) {
+                replicas.getReplicaDataSources().values().stream()
+                        .filter(HikariDataSource.class::isInstance)
+                        .map(HikariDataSource.class::cast)
+                        .forEach(pools::add);
             }
+        });
+        return new ArrayList<>(pools);
+    }
 
-            LOGGER.info("Warmup complete - JIT compiler primed");
-        } catch (Exception e) {
-            LOGGER.error("Error during warmup", e);
+    /**
+     * Stop handing out connections, close the idle ones and wait for the
+     * borrowed ones to come back (Hikari closes them on return). A pool that
+     * cannot be emptied fails the checkpoint rather than capture a socket.
+     */
+    private void drain(HikariDataSource pool) throws InterruptedException {
+        HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+        if (bean == null) {
+            // Never started, so it holds no connections
+            return;
+        }
+        if (pool.isAllowPoolSuspension()) {
+            bean.suspendPool();
+        } else {
+            LOGGER.warn("Pool {} does not allow suspension; new connections may open during checkpoint",
+                    pool.getPoolName());
+        }
+        bean.softEvictConnections();
+        long deadline = System.nanoTime() + drainTimeout.toNanos();
+        while (bean.getTotalConnections() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        if (bean.getTotalConnections() > 0) {
+            throw new IllegalStateException("Pool " + pool.getPoolName() + " still holds "
+                    + bean.getTotalConnections() + " connections after " + drainTimeout);
+        }
+        LOGGER.info("Pool {} drained for checkpoint", pool.getPoolName());
+    }
+
+    private static void resume(HikariDataSource pool) {
+        HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+        if (bean == null) {
+            return;
+        }
+        // Anything the pool opened after the drain is as stale as the rest
+        bean.softEvictConnections();
+        if (pool.isAllowPoolSuspension()) {
+            bean.resumePool();
         }
     }
 
@@ -1,13 +1,49 @@
 package com.paymentgateway.payment.config;
 
+import com.paymentgateway.payment.client.http.AdaptiveTimeout;
+import com.paymentgateway.payment.client.http.DownstreamHttpClientFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
 
+/**
+ * One RestTemplate per downstream, each with its own pool, adaptive timeout,
+ * circuit breaker and bulkhead.
+ */
 @Configuration
+@EnableConfigurationProperties(HttpClientProperties.class)
 public class ClientConfig {
+
+    public static final String MERCHANT = "merchant";
+    public static final String VAULT = "vault";
+    public static final String FRAUD = "fraud";
+
+    @Bean
+    public RestTemplate merchantRestTemplate(RestTemplateBuilder builder, HttpClientProperties properties,
+            DownstreamHttpClientFactory factory) {
+        return build(builder, factory, MERCHANT, properties.getMerchant());
+    }
+
     @Bean
-    public RestTemplate restTemplate(org.springframework.boot.web.client.RestTemplateBuilder builder) {
-        return builder.build();
+    public RestTemplate vaultRestTemplate(RestTemplateBuilder builder, HttpClientProperties properties,
+            DownstreamHttpClientFactory factory) {
+        return build(builder, factory, VAULT, properties.getVault());
+    }
+
+    @Bean
+    public RestTemplate fraudRestTemplate(RestTemplateBuilder builder, HttpClientProperties properties,
+            DownstreamHttpClientFactory factory) {
+        return build(builder, factory, FRAUD, properties.getFraud());
+    }
+
+    private RestTemplate build(RestTemplateBuilder builder, DownstreamHttpClientFactory factory, String name,
+            HttpClientProperties.Downstream settings) {
+        AdaptiveTimeout timeout = factory.adaptiveTimeout(name, settings);
+        return builder
+                .requestFactory(() -> factory.requestFactory(name, settings, timeout))
+                .additionalInterceptors(factory.interceptors(name, settings, timeout))
+                .build();
     }
 }
@@ -0,0 +1,64 @@
+package com.paymentgateway.payment.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Per-downstream HTTP client settings ({@code services.clients.*}).
+ * Each downstream gets its own connection pool and bulkhead so a slow
+ * dependency cannot starve the others.
+ */
+@Data
+@ConfigurationProperties(prefix = "services.clients")
+public class HttpClientProperties {
+
+    private Downstream merchant = new Downstream();
+    private Downstream vault = new Downstream();
+    private Downstream fraud = new Downstream();
+
+    @Data
+    public static class Downstream {
+        private HttpVersion httpVersion = HttpVersion.HTTP_1_1;
+        private Duration connectTimeout = Duration.ofMillis(500);
+        private Duration readTimeout = Duration.ofSeconds(2);
+        private Duration keepAlive = Duration.ofSeconds(30);
+        private int maxConnections = 50;
+        private int maxConcurrentCalls = 50;
+        private Duration maxWait = Duration.ofMillis(100);
+        private CircuitBreakerSettings circuitBreaker = new CircuitBreakerSettings();
+        private AdaptiveTimeoutSettings adaptiveTimeout = new AdaptiveTimeoutSettings();
+    }
+
+    /**
+     * Count-based sliding window; the breaker opens once either rate crosses its threshold.
+     */
+    @Data
+    public static class CircuitBreakerSettings {
+        private boolean enabled = true;
+        private int slidingWindowSize = 50;
+        private int minimumCalls = 20;
+        private int failureRateThreshold = 50;
+        private int slowCallRateThreshold = 80;
+        private Duration slowCallDuration = Duration.ofSeconds(1);
+        private Duration waitInOpen = Duration.ofSeconds(10);
+        private int halfOpenProbes = 5;
+    }
+
+    /**
+     * Read timeout tracks observed p99 latency times a multiplier, clamped to [min, read-timeout].
+     */
+    @Data
+    public static class AdaptiveTimeoutSettings {
+        private boolean enabled = true;
+        private double multiplier = 2.0;
+        private Duration min = Duration.ofMillis(100);
+        private int window = 1000;
+    }
+
+    public enum HttpVersion {
+        HTTP_1_1, // Apache HttpClient 5 with a bounded keep-alive pool
+        HTTP_2 // JDK HttpClient, multiplexed over a single connection
+    }
+}
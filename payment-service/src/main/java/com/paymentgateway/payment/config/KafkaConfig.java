@@ -1,6 +1,7 @@
 package com.paymentgateway.payment.config;
 
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -8,8 +9,8 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -19,17 +20,59 @@ public class KafkaConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    @Value("${payment.kafka.producer.profile:THROUGHPUT}")
+    private ProducerProfile profile = ProducerProfile.THROUGHPUT;
+
+    @Value("${payment.kafka.producer.compression:lz4}")
+    private String compression = "lz4";
+
+    @Value("${payment.kafka.producer.delivery-timeout:5s}")
+    private Duration deliveryTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Idempotent producer (acks=all, at most 5 in flight) so broker-side retries
+     * never duplicate or reorder events within a partition; events are keyed by
+     * transaction id, so that means per-transaction ordering. Delivery timeout is
+     * kept short because {@code KafkaProducer} retries on top of it. Values are
+     * pre-encoded by {@code PaymentEventCodec}, so they go out as raw bytes.
+     */
     @Bean
-    public ProducerFactory<String, Object> producerFactory() {
+    public ProducerFactory<String, byte[]> producerFactory() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compression);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, profile.lingerMs);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, profile.batchSize);
+        int deliveryTimeoutMs = (int) deliveryTimeout.toMillis();
+        configProps.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, deliveryTimeoutMs);
+        // delivery.timeout.ms must cover linger.ms + request.timeout.ms
+        configProps.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, deliveryTimeoutMs - profile.lingerMs);
         return new DefaultKafkaProducerFactory<>(configProps);
     }
 
     @Bean
-    public KafkaTemplate<String, Object> kafkaTemplate() {
+    public KafkaTemplate<String, byte[]> kafkaTemplate() {
         return new KafkaTemplate<>(producerFactory());
     }
+
+    /**
+     * Linger/batch presets ({@code payment.kafka.producer.profile}).
+     */
+    public enum ProducerProfile {
+        LATENCY(1, 16 * 1024), // send almost immediately, small batches
+        THROUGHPUT(20, 256 * 1024); // wait up to 20ms to fill large compressed batches
+
+        private final int lingerMs;
+        private final int batchSize;
+
+        ProducerProfile(int lingerMs, int batchSize) {
+            this.lingerMs = lingerMs;
+            this.batchSize = batchSize;
+        }
+    }
 }
@@ -0,0 +1,28 @@
+package com.paymentgateway.payment.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas ({@code spring.datasource.replicas[*]}). Each entry takes the
+ * usual Hikari pool settings plus a name and a load-balancing weight.
+ */
+@Data
+@ConfigurationProperties(prefix = "spring.datasource")
+public class ReplicaDataSourceProperties {
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Replica extends HikariConfig {
+        private String name;
+        private int weight = 1;
+    }
+}
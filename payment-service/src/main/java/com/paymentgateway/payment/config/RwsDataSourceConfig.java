@@ -1,12 +1,21 @@
 package com.paymentgateway.payment.config;
 
+import com.paymentgateway.common.datasource.CommittedWriteRecorder;
 import com.paymentgateway.common.datasource.DataSourceType;
+import com.paymentgateway.common.datasource.ReplicaLagMonitor;
+import com.paymentgateway.common.datasource.ReplicaPoolDataSource;
 import com.paymentgateway.common.datasource.RoutingDataSource;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 import jakarta.persistence.EntityManagerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -20,11 +29,16 @@ import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.PlatformTransactionManager;
 
 import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+@Slf4j
 @Configuration
-@ConditionalOnProperty(prefix = "spring.datasource.secondary", name = "url")
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+@ConditionalOnProperty(prefix = "payment.read-routing", name = "enabled", havingValue = "true", matchIfMissing = true)
 @EnableJpaRepositories(basePackages = "com.paymentgateway.payment.repository", entityManagerFactoryRef = "entityManagerFactory", transactionManagerRef = "transactionManager")
 public class RwsDataSourceConfig {
 
@@ -34,18 +48,69 @@ public class RwsDataSourceConfig {
         return DataSourceBuilder.create().type(HikariDataSource.class).build();
     }
 
+    /**
+     * One Hikari pool per configured replica (pool name {@code replica-<name>},
+     * so {@code hikaricp.connections.*} shows the read distribution), balanced
+     * by {@code payment.read-routing.balancer}. Reads fall back to the primary
+     * when no replica is configured or eligible.
+     */
     @Bean(name = "secondaryDataSource")
-    @ConfigurationProperties(prefix = "spring.datasource.secondary")
-    public DataSource secondaryDataSource() {
-        return DataSourceBuilder.create().type(HikariDataSource.class).build();
+    public ReplicaPoolDataSource secondaryDataSource(
+            ReplicaDataSourceProperties properties,
+            @Qualifier("primaryDataSource") DataSource primaryDataSource,
+            @Value("${payment.read-routing.balancer:LEAST_OUTSTANDING}") ReplicaPoolDataSource.Balancer balancer,
+            @Value("${payment.read-routing.ejection-time:10s}") Duration ejectionTime,
+            MeterRegistry meterRegistry) {
+        List<ReplicaPoolDataSource.Replica> replicas = new ArrayList<>();
+        for (ReplicaDataSourceProperties.Replica settings : properties.getReplicas()) {
+            HikariDataSource pool = new HikariDataSource();
+            settings.copyStateTo(pool);
+            pool.setPoolName("replica-" + settings.getName());
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            // Lets CRaCConfig drain the pool before a checkpoint
+            pool.setAllowPoolSuspension(true);
+            replicas.add(new ReplicaPoolDataSource.Replica(settings.getName(), pool, settings.getWeight(),
+                    () -> outstanding(pool)));
+        }
+        if (replicas.isEmpty()) {
+            log.info("No spring.datasource.replicas configured; all reads go to the primary");
+        }
+        return new ReplicaPoolDataSource(replicas, balancer, primaryDataSource, ejectionTime, meterRegistry);
+    }
+
+    private static int outstanding(HikariDataSource pool) {
+        // The pool starts lazily, on its first connection
+        HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+        return bean == null ? 0 : bean.getActiveConnections() + bean.getThreadsAwaitingConnection();
+    }
+
+    /**
+     * Probes replica lag in the background so read-only transactions only
+     * reach the replica while it is fresh enough to serve them.
+     */
+    @Bean(name = "replicaLagMonitor", destroyMethod = "close")
+    public ReplicaLagMonitor replicaLagMonitor(
+            @Qualifier("primaryDataSource") DataSource primaryDataSource,
+            @Qualifier("secondaryDataSource") ReplicaPoolDataSource secondaryDataSource,
+            @Value("${payment.read-routing.max-lag-bytes:16777216}") long maxLagBytes,
+            @Value("${payment.read-routing.probe-interval:200ms}") Duration probeInterval,
+            @Value("${payment.read-routing.max-staleness:2s}") Duration maxStaleness,
+            MeterRegistry meterRegistry) {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(primaryDataSource,
+                secondaryDataSource.getReplicaDataSources(), maxLagBytes, maxStaleness, meterRegistry);
+        monitor.start(probeInterval);
+        return monitor;
     }
 
     @Bean(name = "routingDataSource")
     public DataSource routingDataSource(
             @Qualifier("primaryDataSource") DataSource primaryDataSource,
-            @Qualifier("secondaryDataSource") DataSource secondaryDataSource) {
+            @Qualifier("secondaryDataSource") ReplicaPoolDataSource secondaryDataSource,
+            @Qualifier("replicaLagMonitor") ReplicaLagMonitor replicaLagMonitor) {
 
+        secondaryDataSource.setReplicaLagMonitor(replicaLagMonitor);
         RoutingDataSource routingDataSource = new RoutingDataSource();
+        routingDataSource.setReplicaLagMonitor(replicaLagMonitor);
         Map<Object, Object> targetDataSources = new HashMap<>();
         targetDataSources.put(DataSourceType.PRIMARY, primaryDataSource);
         targetDataSources.put(DataSourceType.SECONDARY, secondaryDataSource);
@@ -71,7 +136,8 @@ public class RwsDataSourceConfig {
 
     @Bean(name = "entityManagerFactory")
     public LocalContainerEntityManagerFactoryBean entityManagerFactory(
-            @Qualifier("dataSource") DataSource dataSource) {
+            @Qualifier("dataSource") DataSource dataSource,
+            @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int jdbcBatchSize) {
 
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
         em.setDataSource(dataSource);
@@ -81,8 +147,16 @@ public class RwsDataSourceConfig {
         em.setJpaVendorAdapter(vendorAdapter);
 
         Map<String, Object> properties = new HashMap<>();
-        properties.put("hibernate.hbm2ddl.auto", "update");
+        properties.put("hibernate.hbm2ddl.auto", "validate");
+        properties.put("hibernate.hbm2ddl.extra_physical_table_types", "PARTITIONED TABLE");
         properties.put("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
+        // This factory replaces Boot's, so spring.jpa.properties has to be carried over by hand
+        properties.put("hibernate.jdbc.batch_size", jdbcBatchSize);
+        properties.put("hibernate.jdbc.batch_versioned_data", true);
+        properties.put("hibernate.order_inserts", true);
+        properties.put("hibernate.order_updates", true);
+        // Flags the read-your-writes scope after commits that flushed a write
+        properties.put("hibernate.session_factory.statement_inspector", new CommittedWriteRecorder());
         em.setJpaPropertyMap(properties);
 
         return em;
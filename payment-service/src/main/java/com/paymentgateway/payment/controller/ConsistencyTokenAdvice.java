@@ -0,0 +1,45 @@
+package com.paymentgateway.payment.controller;
+
+import com.paymentgateway.common.datasource.ReplicaLagMonitor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Hands the request's read-your-writes position back to the client as
+ * {@value ReadYourWritesFilter#CONSISTENCY_TOKEN_HEADER}, just before the body
+ * is written. By then the write transaction has committed and released its
+ * connection, so resolving its WAL position here borrows just one.
+ */
+@RestControllerAdvice
+@ConditionalOnProperty(prefix = "payment.read-routing", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ConsistencyTokenAdvice implements ResponseBodyAdvice<Object> {
+
+    private final ReplicaLagMonitor replicaLagMonitor;
+
+    public ConsistencyTokenAdvice(@Qualifier("replicaLagMonitor") ReplicaLagMonitor replicaLagMonitor) {
+        this.replicaLagMonitor = replicaLagMonitor;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+            Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+            ServerHttpResponse response) {
+        Long lsn = replicaLagMonitor.requiredLsn();
+        if (lsn != null && lsn != Long.MAX_VALUE) {
+            response.getHeaders().set(ReadYourWritesFilter.CONSISTENCY_TOKEN_HEADER, ReplicaLagMonitor.formatLsn(lsn));
+        }
+        return body;
+    }
+}
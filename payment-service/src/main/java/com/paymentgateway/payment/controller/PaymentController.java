@@ -1,12 +1,20 @@
 package com.paymentgateway.payment.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.paymentgateway.common.dto.ApiResponse;
 import com.paymentgateway.common.model.Transaction;
+import com.paymentgateway.payment.dto.BatchPaymentResult;
 import com.paymentgateway.payment.dto.PaymentRequest;
+import com.paymentgateway.payment.dto.TransactionPage;
+import com.paymentgateway.payment.dto.TransactionQuery;
+import com.paymentgateway.payment.service.BatchPaymentService;
 import com.paymentgateway.payment.service.PaymentService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -14,7 +22,12 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -26,7 +39,11 @@ import java.util.List;
 @RequiredArgsConstructor
 public class PaymentController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final PaymentService paymentService;
+    private final BatchPaymentService batchPaymentService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/process")
     public ResponseEntity<ApiResponse<Transaction>> processPayment(
@@ -36,6 +53,31 @@ public class PaymentController {
         return ResponseEntity.ok(ApiResponse.success("Payment processed successfully", transaction));
     }
 
+    /**
+     * Processes up to {@code payment.batch.max-items} payments and streams one
+     * {@link BatchPaymentResult} per item as newline-delimited JSON, each
+     * chunk as soon as it has committed. Items are validated one by one, so a
+     * bad item is rejected in its result rather than failing the batch.
+     */
+    @PostMapping(value = "/batch", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> processBatch(@RequestBody List<PaymentRequest> requests) {
+        batchPaymentService.checkBatch(requests);
+        log.info("Received batch of {} payments", requests.size());
+        StreamingResponseBody body = out -> {
+            try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+                batchPaymentService.processBatch(requests, result -> {
+                    try {
+                        writer.write(result);
+                        writer.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
     @GetMapping("/{transactionId}")
     public ResponseEntity<ApiResponse<Transaction>> getTransaction(
             @PathVariable("transactionId") String transactionId) {
@@ -43,11 +85,45 @@ public class PaymentController {
         return ResponseEntity.ok(ApiResponse.success(transaction));
     }
 
+    /**
+     * Keyset-paginated listing, newest first; pass {@code nextCursor} back as
+     * {@code cursor} to continue.
+     */
     @GetMapping("/merchant/{merchantId}")
-    public ResponseEntity<ApiResponse<List<Transaction>>> getMerchantTransactions(
-            @PathVariable("merchantId") String merchantId) {
-        List<Transaction> transactions = paymentService.getMerchantTransactions(merchantId);
-        return ResponseEntity.ok(ApiResponse.success(transactions));
+    public ResponseEntity<ApiResponse<TransactionPage>> getMerchantTransactions(
+            @PathVariable("merchantId") String merchantId,
+            @RequestParam(name = "status", required = false) Transaction.TransactionStatus status,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", defaultValue = "50") int limit) {
+        TransactionPage page = paymentService.getMerchantTransactions(
+                new TransactionQuery(merchantId, status, from, to), cursor, limit);
+        return ResponseEntity.ok(ApiResponse.success(page));
+    }
+
+    /**
+     * Streams every matching transaction as newline-delimited JSON.
+     */
+    @GetMapping(value = "/merchant/{merchantId}/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportMerchantTransactions(
+            @PathVariable("merchantId") String merchantId,
+            @RequestParam(name = "status", required = false) Transaction.TransactionStatus status,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        TransactionQuery query = new TransactionQuery(merchantId, status, from, to);
+        StreamingResponseBody body = out -> {
+            try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+                paymentService.exportMerchantTransactions(query, transaction -> {
+                    try {
+                        writer.write(transaction);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
     }
 
     @PostMapping("/{transactionId}/capture")
@@ -0,0 +1,52 @@
+package com.paymentgateway.payment.controller;
+
+import com.paymentgateway.common.datasource.ReadYourWritesContext;
+import com.paymentgateway.common.datasource.ReplicaLagMonitor;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Opens a read-your-writes scope for each request. A client that wants to see
+ * its own earlier write sends back the {@value #CONSISTENCY_TOKEN_HEADER}
+ * header it received with that write; reads then go to the replica only once
+ * it has replayed that far.
+ */
+@Component
+@ConditionalOnProperty(prefix = "payment.read-routing", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String CONSISTENCY_TOKEN_HEADER = "X-Consistency-Token";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ReadYourWritesContext.begin(parseToken(request.getHeader(CONSISTENCY_TOKEN_HEADER)));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadYourWritesContext.end();
+        }
+    }
+
+    /**
+     * An unreadable token cannot be checked against the replica, so it pins
+     * the request to the primary rather than risk a stale read.
+     */
+    static Long parseToken(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            return ReplicaLagMonitor.parseLsn(token.trim());
+        } catch (IllegalArgumentException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.paymentgateway.payment.controller;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Measures how long a restored instance takes to serve at steady-state speed:
+ * the time from {@link #markRestored} to the end of the first request that
+ * completes within the p99 target ({@code payment.crac.p99-target}). Only the
+ * first such request after each restore is reported; otherwise the filter
+ * costs one volatile read.
+ */
+@Component
+public class RestoreLatencyFilter extends OncePerRequestFilter {
+
+    private final AtomicReference<Armed> armed = new AtomicReference<>();
+
+    @Value("${payment.crac.p99-target:250ms}")
+    private Duration p99Target = Duration.ofMillis(250);
+
+    /**
+     * Start measuring from now; {@code report} receives the time to the first
+     * request within the target.
+     */
+    public void markRestored(Consumer<Duration> report) {
+        armed.set(new Armed(System.nanoTime(), report));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Armed current = armed.get();
+        if (current == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long end = System.nanoTime();
+            if (end - start <= p99Target.toNanos() && armed.compareAndSet(current, null)) {
+                current.report().accept(Duration.ofNanos(end - current.restoredAt()));
+            }
+        }
+    }
+
+    private record Armed(long restoredAt, Consumer<Duration> report) {
+    }
+}
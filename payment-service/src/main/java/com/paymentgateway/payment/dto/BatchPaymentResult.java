@@ -0,0 +1,33 @@
+package com.paymentgateway.payment.dto;
+
+import com.paymentgateway.common.model.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The outcome of one item of a batch submission. {@code index} is the item's
+ * position in the submitted list; results may arrive out of that order.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchPaymentResult {
+
+    public enum Outcome {
+        /** Processed now; {@code transaction} holds its final state (which may be FAILED) */
+        PROCESSED,
+        /** Already processed under the same idempotency key; {@code transaction} is the earlier result */
+        REPLAYED,
+        /** Not processed; nothing was written */
+        REJECTED
+    }
+
+    private int index;
+    private Outcome outcome;
+    private Transaction transaction;
+    private String errorCode;
+    private String message;
+}
@@ -1,5 +1,7 @@
 package com.paymentgateway.payment.dto;
 
+import com.paymentgateway.common.model.Transaction;
+import com.paymentgateway.common.money.Money;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -46,4 +48,16 @@ public class PaymentRequest {
     private String description;
 
     private String idempotencyKey;
+
+    /**
+     * The amount in minor units of {@link #getCurrency() currency}; throws
+     * {@link IllegalArgumentException} for an unsupported currency, one the
+     * transactions table cannot store exactly, or an amount with more decimal
+     * places than the currency has.
+     */
+    public Money toMoney() {
+        Money money = Money.of(amount, currency);
+        Transaction.requireStorable(money.currency());
+        return money;
+    }
 }
@@ -0,0 +1,21 @@
+package com.paymentgateway.payment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a merchant listing, newest first. {@code nextCursor} is null on
+ * the last page.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionPage {
+    private List<TransactionSummary> items;
+    private String nextCursor;
+}
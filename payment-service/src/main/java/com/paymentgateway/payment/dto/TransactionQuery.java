@@ -0,0 +1,16 @@
+package com.paymentgateway.payment.dto;
+
+import com.paymentgateway.common.model.Transaction;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filters for listing a merchant's transactions. {@code from} is inclusive and
+ * {@code to} exclusive; any filter left null is not applied.
+ */
+public record TransactionQuery(
+        String merchantId,
+        Transaction.TransactionStatus status,
+        LocalDateTime from,
+        LocalDateTime to) {
+}
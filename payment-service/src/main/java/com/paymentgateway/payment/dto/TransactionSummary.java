@@ -0,0 +1,25 @@
+package com.paymentgateway.payment.dto;
+
+import com.paymentgateway.common.model.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only row for transaction listings, selected column by column so list
+ * queries never hydrate (or dirty-check) full {@link Transaction} entities.
+ * The card token and customer details stay out of listings.
+ */
+public record TransactionSummary(
+        String id,
+        String merchantId,
+        BigDecimal amount,
+        String currency,
+        Transaction.TransactionStatus status,
+        Transaction.PaymentMethod paymentMethod,
+        String authorizationCode,
+        String referenceNumber,
+        String failureReason,
+        LocalDateTime createdAt,
+        LocalDateTime settledAt) {
+}
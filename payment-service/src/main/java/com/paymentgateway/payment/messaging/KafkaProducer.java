@@ -1,20 +1,148 @@
 package com.paymentgateway.payment.messaging;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.errors.RetriableException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publishes encoded payment events ({@link com.paymentgateway.common.event.PaymentEventCodec})
+ * keyed by transaction id, and settlement batches
+ * ({@link com.paymentgateway.common.event.SettlementBatchEvent}) keyed by merchant id.
+ * <p>
+ * Sends are asynchronous; completion callbacks record
+ * {@code payment.events.send.latency{outcome}} and final failures. A send that
+ * fails with a retriable broker error is parked in a bounded in-memory retry
+ * buffer ({@code payment.kafka.producer.retry.*}) and re-sent with linear
+ * backoff; once the buffer is full or attempts run out the returned future
+ * fails and the outbox redelivers later. Sends for the same key are chained
+ * so a retried event is never overtaken by a later one for that transaction.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class KafkaProducer {
 
-    private final KafkaTemplate<String, Object> kafkaTemplate;
     private static final String TOPIC = "payment-events";
+    private static final String SETTLEMENT_TOPIC = "payment-settlements";
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Counter failures;
+    private final Counter retries;
+    private final AtomicInteger buffered = new AtomicInteger();
+    private final ConcurrentMap<String, CompletableFuture<SendResult<String, byte[]>>> pendingByKey =
+            new ConcurrentHashMap<>();
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "payment-event-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${payment.kafka.producer.retry.buffer-capacity:10000}")
+    private int retryBufferCapacity = 10000;
+
+    @Value("${payment.kafka.producer.retry.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    @Value("${payment.kafka.producer.retry.backoff:200ms}")
+    private Duration retryBackoff = Duration.ofMillis(200);
+
+    public KafkaProducer(KafkaTemplate<String, byte[]> kafkaTemplate, MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.meterRegistry = meterRegistry;
+        this.failures = Counter.builder("payment.events.send.failures").register(meterRegistry);
+        this.retries = Counter.builder("payment.events.send.retries").register(meterRegistry);
+        Gauge.builder("payment.events.retry.buffered", buffered, AtomicInteger::get).register(meterRegistry);
+    }
+
+    public CompletableFuture<SendResult<String, byte[]>> sendPaymentEvent(String key, byte[] event) {
+        return send(TOPIC, key, event);
+    }
+
+    public CompletableFuture<SendResult<String, byte[]>> sendSettlementEvent(String merchantId, byte[] event) {
+        return send(SETTLEMENT_TOPIC, merchantId, event);
+    }
+
+    private CompletableFuture<SendResult<String, byte[]>> send(String topic, String key, byte[] event) {
+        log.debug("Sending event to Kafka: topic={}, key={}", topic, key);
+        String chain = topic + '/' + key;
+        CompletableFuture<SendResult<String, byte[]>> result = new CompletableFuture<>();
+        CompletableFuture<SendResult<String, byte[]>> previous = pendingByKey.put(chain, result);
+        if (previous == null) {
+            attempt(topic, key, event, 1, result);
+        } else {
+            // Off the producer I/O thread: sending from its callback can deadlock when the buffer is full
+            previous.whenCompleteAsync((r, e) -> attempt(topic, key, event, 1, result), retryScheduler);
+        }
+        result.whenComplete((r, e) -> pendingByKey.remove(chain, result));
+        return result;
+    }
+
+    private void attempt(String topic, String key, byte[] event, int attempt,
+            CompletableFuture<SendResult<String, byte[]>> result) {
+        long start = System.nanoTime();
+        CompletableFuture<SendResult<String, byte[]>> send;
+        try {
+            send = kafkaTemplate.send(topic, key, event);
+        } catch (RuntimeException e) {
+            send = CompletableFuture.failedFuture(e);
+        }
+        send.whenComplete((sendResult, ex) -> {
+            latency(ex == null ? "success" : "failure").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (ex == null) {
+                result.complete(sendResult);
+            } else if (attempt < maxAttempts && isRetriable(ex) && reserveRetrySlot()) {
+                retries.increment();
+                log.warn("Retrying {} event {} (attempt {}): {}", topic, key, attempt + 1, ex.getMessage());
+                retryScheduler.schedule(() -> {
+                    buffered.decrementAndGet();
+                    attempt(topic, key, event, attempt + 1, result);
+                }, retryBackoff.toMillis() * attempt, TimeUnit.MILLISECONDS);
+            } else {
+                failures.increment();
+                log.error("Failed to publish {} event {} after {} attempt(s)", topic, key, attempt, ex);
+                result.completeExceptionally(ex);
+            }
+        });
+    }
+
+    private boolean reserveRetrySlot() {
+        return buffered.getAndUpdate(n -> n < retryBufferCapacity ? n + 1 : n) < retryBufferCapacity;
+    }
+
+    private static boolean isRetriable(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RetriableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Timer latency(String outcome) {
+        return Timer.builder("payment.events.send.latency")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
 
-    public void sendPaymentEvent(Object event) {
-        log.info("Sending payment event to Kafka: {}", event);
-        kafkaTemplate.send(TOPIC, event);
+    @PreDestroy
+    public void shutdown() {
+        retryScheduler.shutdownNow();
     }
 }
@@ -0,0 +1,31 @@
+package com.paymentgateway.payment.messaging;
+
+import com.paymentgateway.common.dto.merchant.MerchantStatusEvent;
+import com.paymentgateway.payment.client.MerchantCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Drops cached merchant snapshots when merchant-service reports a status change.
+ * <p>
+ * Every payment-service instance holds its own cache, so each one consumes the
+ * topic under a unique group id and starts from the latest offset.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MerchantStatusListener {
+
+    private final MerchantCache merchantCache;
+
+    @KafkaListener(topics = MerchantStatusEvent.TOPIC,
+            groupId = "payment-service-merchant-cache-${random.uuid}",
+            properties = "auto.offset.reset=latest")
+    public void onStatusChange(MerchantStatusEvent event) {
+        log.info("Merchant {} status changed: {} -> {}",
+                event.getMerchantId(), event.getPreviousStatus(), event.getStatus());
+        merchantCache.invalidate(event.getMerchantId());
+    }
+}
@@ -0,0 +1,160 @@
+package com.paymentgateway.payment.messaging;
+
+import com.paymentgateway.payment.model.OutboxEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the payment outbox to the {@code payment-events} topic (settlement
+ * batches to {@code payment-settlements}).
+ * <p>
+ * One instance relays at a time: a pass runs only while it holds a PostgreSQL
+ * advisory lock, so events are published in outbox order no matter how many
+ * instances run. Every {@code payment.outbox.linger-ms} the leader reads up to
+ * {@code payment.outbox.batch-size} of the oldest events, sends them all, waits
+ * for the broker to acknowledge the batch and then deletes exactly those rows.
+ * Full batches are drained back to back. Each read and delete is a statement
+ * of its own: no transaction stays open while the broker is awaited, although
+ * the lock's connection is held for the pass. A failed send leaves the batch in
+ * place for the next pass: delivery is at-least-once.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private static final long ADVISORY_LOCK = 0x6f7574626f78L;
+
+    private static final String OLDEST = """
+            SELECT id, aggregate_id, event_type, payload, created_at FROM payment_outbox
+            ORDER BY id
+            LIMIT ?
+            """;
+
+    private static final String DELETE = "DELETE FROM payment_outbox WHERE id = ANY(?)";
+
+    private final DataSource dataSource;
+    private final KafkaProducer kafkaProducer;
+    private final Counter relayed;
+    private final Timer lag;
+
+    @Value("${payment.outbox.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${payment.outbox.send-timeout:30s}")
+    private Duration sendTimeout = Duration.ofSeconds(30);
+
+    public OutboxRelay(DataSource dataSource, KafkaProducer kafkaProducer, MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.kafkaProducer = kafkaProducer;
+        this.relayed = Counter.builder("payment.outbox.relayed").register(meterRegistry);
+        this.lag = Timer.builder("payment.outbox.lag")
+                .description("Time from outbox insert to broker acknowledgement")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${payment.outbox.linger-ms:50}")
+    public void relay() {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            if (!tryLock(connection)) {
+                log.trace("Outbox relayed by another instance");
+                return;
+            }
+            try {
+                int drained;
+                do {
+                    drained = drainBatch(connection);
+                } while (drained == batchSize);
+            } finally {
+                unlock(connection);
+            }
+        } catch (SQLException | RuntimeException e) {
+            log.error("Outbox relay failed, batch will be retried", e);
+        }
+    }
+
+    int drainBatch(Connection connection) throws SQLException {
+        List<OutboxEvent> batch = oldest(connection);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        CompletableFuture<?>[] acks = batch.stream()
+                .map(this::send)
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(acks).orTimeout(sendTimeout.toMillis(), TimeUnit.MILLISECONDS).join();
+
+        delete(connection, batch);
+        LocalDateTime now = LocalDateTime.now();
+        batch.forEach(event -> lag.record(Duration.between(event.getCreatedAt(), now)));
+        relayed.increment(batch.size());
+        return batch.size();
+    }
+
+    private List<OutboxEvent> oldest(Connection connection) throws SQLException {
+        List<OutboxEvent> batch = new ArrayList<>(batchSize);
+        try (PreparedStatement statement = connection.prepareStatement(OLDEST)) {
+            statement.setInt(1, batchSize);
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    batch.add(OutboxEvent.builder()
+                            .id(rows.getLong(1))
+                            .aggregateId(rows.getString(2))
+                            .eventType(rows.getString(3))
+                            .payload(rows.getBytes(4))
+                            .createdAt(rows.getTimestamp(5).toLocalDateTime())
+                            .build());
+                }
+            }
+        }
+        return batch;
+    }
+
+    private static void delete(Connection connection, List<OutboxEvent> batch) throws SQLException {
+        Array ids = connection.createArrayOf("bigint", batch.stream().map(OutboxEvent::getId).toArray());
+        try (PreparedStatement statement = connection.prepareStatement(DELETE)) {
+            statement.setArray(1, ids);
+            statement.executeUpdate();
+        } finally {
+            ids.free();
+        }
+    }
+
+    private CompletableFuture<?> send(OutboxEvent event) {
+        if (PaymentOutbox.SETTLEMENT_BATCH.equals(event.getEventType())) {
+            return kafkaProducer.sendSettlementEvent(event.getAggregateId(), event.getPayload());
+        }
+        return kafkaProducer.sendPaymentEvent(event.getAggregateId(), event.getPayload());
+    }
+
+    private static boolean tryLock(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet rows = statement.executeQuery("SELECT pg_try_advisory_lock(" + ADVISORY_LOCK + ")")) {
+            return rows.next() && rows.getBoolean(1);
+        }
+    }
+
+    private static void unlock(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SELECT pg_advisory_unlock(" + ADVISORY_LOCK + ")");
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.paymentgateway.payment.messaging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paymentgateway.common.event.PaymentEventCodec;
+import com.paymentgateway.common.event.SettlementBatchEvent;
+import com.paymentgateway.common.model.Transaction;
+import com.paymentgateway.payment.model.OutboxEvent;
+import com.paymentgateway.payment.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Records payment events in the outbox table. Must run inside the transaction
+ * that writes the state change, so the event commits (or rolls back) with it;
+ * {@link OutboxRelay} publishes it afterwards. The event is stored already
+ * encoded, so the relay never touches the entity again.
+ */
+@Component
+@RequiredArgsConstructor
+public class PaymentOutbox {
+
+    /**
+     * Event type of {@link SettlementBatchEvent}s; every other type is a
+     * transaction status.
+     */
+    public static final String SETTLEMENT_BATCH = "SETTLEMENT_BATCH";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(Transaction transaction) {
+        outboxEventRepository.save(OutboxEvent.builder()
+                .aggregateId(transaction.getId())
+                .eventType(transaction.getStatus().name())
+                .payload(PaymentEventCodec.encode(transaction))
+                .build());
+    }
+
+    /**
+     * Record a settlement batch, keyed by merchant so a merchant's batches stay
+     * in order.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendSettlement(SettlementBatchEvent event) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot encode settlement batch " + event.getBatchId(), e);
+        }
+        outboxEventRepository.save(OutboxEvent.builder()
+                .aggregateId(event.getMerchantId())
+                .eventType(SETTLEMENT_BATCH)
+                .payload(payload)
+                .build());
+    }
+}
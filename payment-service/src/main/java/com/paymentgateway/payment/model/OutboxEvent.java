@@ -0,0 +1,51 @@
+package com.paymentgateway.payment.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A payment event waiting to be relayed to Kafka. Written in the same
+ * transaction as the state change it describes and deleted once the broker
+ * has acknowledged it.
+ */
+@Entity
+@Table(name = "payment_outbox")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, name = "aggregate_id")
+    private String aggregateId;
+
+    @Column(nullable = false, name = "event_type", length = 32)
+    private String eventType;
+
+    /**
+     * {@link com.paymentgateway.common.event.PaymentEventCodec} encoding, sent to Kafka as-is
+     */
+    @Column(nullable = false)
+    private byte[] payload;
+
+    @CreationTimestamp
+    @Column(updatable = false, name = "created_at")
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,13 @@
+package com.paymentgateway.payment.repository;
+
+import com.paymentgateway.payment.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Writes outbox events; {@link com.paymentgateway.payment.messaging.OutboxRelay}
+ * reads and deletes them over JDBC.
+ */
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+}
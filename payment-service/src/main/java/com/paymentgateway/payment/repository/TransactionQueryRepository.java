@@ -0,0 +1,27 @@
+package com.paymentgateway.payment.repository;
+
+import com.paymentgateway.payment.dto.TransactionCursor;
+import com.paymentgateway.payment.dto.TransactionQuery;
+import com.paymentgateway.payment.dto.TransactionSummary;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Keyset reads over {@code (created_at, id)}, newest first, so the cost of a
+ * page does not depend on how deep into the listing it is.
+ */
+public interface TransactionQueryRepository {
+
+    /**
+     * Up to {@code limit} rows strictly after {@code after} (or from the start
+     * when null).
+     */
+    List<TransactionSummary> findPage(TransactionQuery query, TransactionCursor after, int limit);
+
+    /**
+     * Every matching row, read through a server-side cursor. Must be consumed
+     * and closed inside a transaction.
+     */
+    Stream<TransactionSummary> streamAll(TransactionQuery query);
+}
@@ -0,0 +1,90 @@
+package com.paymentgateway.payment.repository;
+
+import com.paymentgateway.common.model.Transaction;
+import com.paymentgateway.payment.dto.TransactionCursor;
+import com.paymentgateway.payment.dto.TransactionQuery;
+import com.paymentgateway.payment.dto.TransactionSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+class TransactionQueryRepositoryImpl implements TransactionQueryRepository {
+
+    /**
+     * Rows per round trip while exporting; the PostgreSQL driver only streams
+     * (instead of buffering the whole result) when this is set inside a transaction.
+     */
+    static final int EXPORT_FETCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<TransactionSummary> findPage(TransactionQuery query, TransactionCursor after, int limit) {
+        return select(query, after)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Stream<TransactionSummary> streamAll(TransactionQuery query) {
+        return select(query, null)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, EXPORT_FETCH_SIZE)
+                .getResultStream();
+    }
+
+    private TypedQuery<TransactionSummary> select(TransactionQuery query, TransactionCursor after) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TransactionSummary> cq = cb.createQuery(TransactionSummary.class);
+        Root<Transaction> transaction = cq.from(Transaction.class);
+        Path<LocalDateTime> createdAt = transaction.get("createdAt");
+        Path<String> id = transaction.get("id");
+
+        List<Predicate> where = new ArrayList<>();
+        where.add(cb.equal(transaction.get("merchantId"), query.merchantId()));
+        if (query.status() != null) {
+            where.add(cb.equal(transaction.get("status"), query.status()));
+        }
+        if (query.from() != null) {
+            where.add(cb.greaterThanOrEqualTo(createdAt, query.from()));
+        }
+        if (query.to() != null) {
+            where.add(cb.lessThan(createdAt, query.to()));
+        }
+        if (after != null) {
+            // (created_at, id) < (:createdAt, :id), with the leading bound spelled out for the index range scan
+            where.add(cb.lessThanOrEqualTo(createdAt, after.createdAt()));
+            where.add(cb.or(
+                    cb.lessThan(createdAt, after.createdAt()),
+                    cb.and(cb.equal(createdAt, after.createdAt()), cb.lessThan(id, after.id()))));
+        }
+
+        // Constructor projection: plain DTOs, nothing enters the persistence context
+        cq.select(cb.construct(TransactionSummary.class,
+                        id,
+                        transaction.get("merchantId"),
+                        transaction.get("amount"),
+                        transaction.get("currency"),
+                        transaction.get("status"),
+                        transaction.get("paymentMethod"),
+                        transaction.get("authorizationCode"),
+                        transaction.get("referenceNumber"),
+                        transaction.get("failureReason"),
+                        createdAt,
+                        transaction.get("settledAt")))
+                .where(where.toArray(Predicate[]::new))
+                .orderBy(cb.desc(createdAt), cb.desc(id));
+        return entityManager.createQuery(cq);
+    }
+}
@@ -1,19 +1,89 @@
 package com.paymentgateway.payment.repository;
 
+import com.paymentgateway.common.model.TimeOrderedIds;
 import com.paymentgateway.common.model.Transaction;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, String> {
+public interface TransactionRepository extends JpaRepository<Transaction, String>, TransactionQueryRepository {
 
-    List<Transaction> findByMerchantId(String merchantId);
+    /**
+     * How far {@code created_at} may sit from the timestamp in a time-ordered
+     * id: clock steps, DST shifts and the time between minting the id and
+     * inserting the row. Narrow enough to leave one or two monthly partitions.
+     */
+    Duration CREATED_AT_MARGIN = Duration.ofDays(1);
 
     List<Transaction> findByStatus(Transaction.TransactionStatus status);
 
-    List<Transaction> findByMerchantIdAndStatus(String merchantId, Transaction.TransactionStatus status);
+    /**
+     * Resolved through the unpartitioned claim table, so only the partition
+     * holding the row is probed.
+     */
+    @Query(value = """
+            SELECT t.* FROM transactions t
+            JOIN transaction_idempotency_keys k ON k.transaction_id = t.id AND k.created_at = t.created_at
+            WHERE k.idempotency_key = :idempotencyKey
+            """, nativeQuery = true)
+    Optional<Transaction> findByIdempotencyKey(@Param("idempotencyKey") String idempotencyKey);
 
-    java.util.Optional<Transaction> findByIdempotencyKey(String idempotencyKey);
+    /**
+     * {@link #findById} bounded by the time encoded in the id, so only the
+     * partition holding the row is probed. Ids that are not time-ordered
+     * (rows that predate them) are looked up in every partition.
+     */
+    default Optional<Transaction> findPrunedById(String id) {
+        Optional<Instant> minted = TimeOrderedIds.timestampOf(id);
+        if (minted.isEmpty()) {
+            return findById(id);
+        }
+        return findByIdCreatedBetween(id, createdAtFrom(minted.get()), createdAtTo(minted.get()));
+    }
+
+    /**
+     * Row-locked read for state changes, so they serialize with each other and
+     * with the settlement engine (which skips rows locked here). Pruned to
+     * the id's partition like {@link #findPrunedById}.
+     */
+    default Optional<Transaction> findByIdForUpdate(String id) {
+        Optional<Instant> minted = TimeOrderedIds.timestampOf(id);
+        if (minted.isEmpty()) {
+            return findAnyByIdForUpdate(id);
+        }
+        return findByIdCreatedBetweenForUpdate(id, createdAtFrom(minted.get()), createdAtTo(minted.get()));
+    }
+
+    @Query("SELECT t FROM Transaction t WHERE t.id = :id AND t.createdAt >= :from AND t.createdAt < :to")
+    Optional<Transaction> findByIdCreatedBetween(@Param("id") String id, @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Transaction t WHERE t.id = :id AND t.createdAt >= :from AND t.createdAt < :to")
+    Optional<Transaction> findByIdCreatedBetweenForUpdate(@Param("id") String id,
+            @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Transaction t WHERE t.id = :id")
+    Optional<Transaction> findAnyByIdForUpdate(@Param("id") String id);
+
+    // created_at is stamped from the JVM's local clock
+    private static LocalDateTime createdAtFrom(Instant minted) {
+        return LocalDateTime.ofInstant(minted.minus(CREATED_AT_MARGIN), ZoneId.systemDefault());
+    }
+
+    private static LocalDateTime createdAtTo(Instant minted) {
+        return LocalDateTime.ofInstant(minted.plus(CREATED_AT_MARGIN), ZoneId.systemDefault());
+    }
 }
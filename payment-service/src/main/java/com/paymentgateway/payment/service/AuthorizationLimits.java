@@ -0,0 +1,549 @@
+package com.paymentgateway.payment.service;
+
+import com.paymentgateway.common.model.Transaction;
+import com.paymentgateway.common.money.CurrencyUnits;
+import com.paymentgateway.common.money.Money;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Authorization limits: a cap per transaction and a cap on the volume one
+ * merchant authorizes in one currency over a rolling 24 hours, each narrowed by
+ * merchant, currency and payment method. Every matching limit applies.
+ * <p>
+ * {@code payment.max-transaction-amount} caps every payment. The
+ * {@code authorization_limits} table adds to it and is re-read every
+ * {@code payment.limits.refresh-interval-ms}, so a new or changed row takes
+ * effect without a restart; a failed reload keeps the previous limits.
+ * <p>
+ * A check reads in-memory state only. Daily volume lives in hourly buckets
+ * covering the last 24 hours. Each instance adds what it authorizes and holds
+ * it in flight until the payment is written: an authorization made inside a
+ * database transaction is given back if that transaction rolls back, and one
+ * made outside is settled by the caller with {@link #confirm} or
+ * {@link #release}. Every {@code payment.limits.reconcile-interval-ms} the
+ * buckets are corrected to the authorized, captured and settled rows of
+ * {@code transactions} plus what this instance still has in flight. That picks
+ * up volume authorized by other instances. Between reconciliations an instance
+ * only sees its own authorizations, so a merchant can exceed a volume limit by
+ * what the other instances authorized in that interval.
+ */
+@Slf4j
+@Component
+public class AuthorizationLimits {
+
+    private static final String LOAD = """
+            SELECT id, merchant_id, currency, payment_method, max_transaction_amount, max_daily_volume
+            FROM authorization_limits
+            """;
+
+    /**
+     * Served by idx_transactions_status_created. created_at is local wall-clock
+     * time, and hours are counted on that same clock.
+     */
+    private static final String VOLUME = """
+            SELECT merchant_id, currency, payment_method,
+                   floor(extract(epoch FROM created_at) / 3600)::bigint AS hour, sum(amount)
+            FROM transactions
+            WHERE status IN ('AUTHORIZED', 'CAPTURED', 'SETTLED') AND created_at >= ?
+            GROUP BY 1, 2, 3, 4
+            """;
+
+    static final int WINDOW_HOURS = 24;
+    private static final long UNLIMITED = Long.MAX_VALUE;
+    // Limit amounts are NUMERIC(19, 2) and kept as hundredths of a major unit
+    private static final int LIMIT_SCALE = 2;
+    private static final long HUNDREDTHS = 100;
+    private static final long DEFAULT_LIMIT_ID = 0;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Limit defaultLimit;
+    private final Map<VolumeKey, VolumeWindow> windows = new ConcurrentHashMap<>();
+    // Approved payments not yet written, by transaction id
+    private final Map<String, Reservation> inFlight = new ConcurrentHashMap<>();
+    private final Counter transactionDeclines;
+    private final Counter volumeDeclines;
+    private final Counter failures;
+    private volatile Snapshot snapshot;
+    private Clock clock = Clock.systemDefaultZone();
+
+    @Autowired
+    public AuthorizationLimits(DataSource dataSource, MeterRegistry meterRegistry,
+            @Value("${payment.max-transaction-amount:10000}") BigDecimal maxTransactionAmount) {
+        this(new JdbcTemplate(dataSource), meterRegistry, maxTransactionAmount);
+    }
+
+    /**
+     * Only {@code maxTransactionAmount}, with volume counters that never see
+     * the database.
+     */
+    AuthorizationLimits(MeterRegistry meterRegistry, BigDecimal maxTransactionAmount) {
+        this((JdbcTemplate) null, meterRegistry, maxTransactionAmount);
+    }
+
+    private AuthorizationLimits(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+            BigDecimal maxTransactionAmount) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.defaultLimit = new Limit(DEFAULT_LIMIT_ID, null, null, null, hundredths(maxTransactionAmount),
+                UNLIMITED);
+        this.snapshot = Snapshot.of(defaultLimit, List.of());
+        this.transactionDeclines = Counter.builder("payment.limits.declined").tag("limit", "transaction")
+                .register(meterRegistry);
+        this.volumeDeclines = Counter.builder("payment.limits.declined").tag("limit", "daily_volume")
+                .register(meterRegistry);
+        this.failures = Counter.builder("payment.limits.failures")
+                .description("Limit reloads and volume reconciliations that failed; the previous state is kept")
+                .register(meterRegistry);
+        Gauge.builder("payment.limits.active", this, limits -> limits.snapshot.size()).register(meterRegistry);
+    }
+
+    /**
+     * Checks the payment against every matching limit and, when it fits, counts
+     * it toward the daily volumes it is subject to. Inside a database
+     * transaction the volume is given back should it roll back.
+     */
+    public Decision authorize(Transaction transaction) {
+        Money amount = transaction.getMoney();
+        Snapshot current = snapshot;
+        List<Limit> merchantLimits = current.forMerchant(transaction.getMerchantId());
+        if (exceedsTransactionCap(merchantLimits, transaction, amount)
+                || exceedsTransactionCap(current.anyMerchant(), transaction, amount)) {
+            transactionDeclines.increment();
+            return Decision.TRANSACTION_LIMIT;
+        }
+        if (current.limitsVolume()) {
+            Reservation reservation = reserveVolume(current, merchantLimits, transaction, amount);
+            if (reservation == null) {
+                volumeDeclines.increment();
+                return Decision.DAILY_VOLUME;
+            }
+            hold(transaction.getId(), reservation);
+        }
+        return Decision.APPROVED;
+    }
+
+    /**
+     * The payment was written; its volume is read back from
+     * {@code transactions} from now on. Only needed for authorizations made
+     * outside a database transaction.
+     */
+    public void confirm(Transaction transaction) {
+        Reservation reservation = transaction.getId() == null ? null : inFlight.remove(transaction.getId());
+        if (reservation != null) {
+            written(reservation);
+        }
+    }
+
+    /**
+     * The approved payment will not be written after all; gives back the volume
+     * it reserved. Only needed for authorizations made outside a database
+     * transaction.
+     */
+    public void release(Transaction transaction) {
+        Reservation reservation = transaction.getId() == null ? null : inFlight.remove(transaction.getId());
+        if (reservation != null) {
+            giveBack(reservation);
+        }
+    }
+
+    private void hold(String transactionId, Reservation reservation) {
+        if (reservation.keys().isEmpty()) {
+            return;
+        }
+        if (transactionId != null) {
+            inFlight.put(transactionId, reservation);
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                // Not when released already, or dropped by a reconciliation of a later hour
+                boolean held = transactionId == null || inFlight.remove(transactionId, reservation);
+                if (held && status == STATUS_COMMITTED) {
+                    written(reservation);
+                } else if (held) {
+                    giveBack(reservation);
+                }
+            }
+        });
+    }
+
+    private void giveBack(Reservation reservation) {
+        for (VolumeKey key : reservation.keys()) {
+            VolumeWindow window = windows.get(key);
+            if (window != null) {
+                window.subtract(reservation.minorUnits(), reservation.hour());
+            }
+        }
+    }
+
+    private void written(Reservation reservation) {
+        for (VolumeKey key : reservation.keys()) {
+            VolumeWindow window = windows.get(key);
+            if (window != null) {
+                window.written(reservation.minorUnits(), reservation.hour());
+            }
+        }
+    }
+
+    private static boolean exceedsTransactionCap(List<Limit> limits, Transaction transaction, Money amount) {
+        for (Limit limit : limits) {
+            if (limit.matches(amount.currency(), transaction.getPaymentMethod())
+                    && amount.minorUnits() > limit.maxTransaction(amount.currency())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the payment to every volume it is subject to, or to none when one
+     * of them would overflow; returns null in that case.
+     */
+    private Reservation reserveVolume(Snapshot current, List<Limit> merchantLimits, Transaction transaction,
+            Money amount) {
+        long hour = currentHour();
+        List<VolumeKey> reserved = new ArrayList<>(2);
+        for (List<Limit> limits : List.of(merchantLimits, current.anyMerchant())) {
+            for (Limit limit : limits) {
+                if (!limit.limitsVolume() || !limit.matches(amount.currency(), transaction.getPaymentMethod())) {
+                    continue;
+                }
+                VolumeKey key = new VolumeKey(limit.id(), transaction.getMerchantId(), amount.currency());
+                long maxDailyVolume = limit.maxDailyVolume(amount.currency());
+                boolean[] added = new boolean[1];
+                // Inside compute, so a reconciliation cannot drop the window between lookup and add
+                windows.compute(key, (k, existing) -> {
+                    VolumeWindow window = existing == null ? new VolumeWindow() : existing;
+                    added[0] = window.tryAdd(amount.minorUnits(), maxDailyVolume, hour);
+                    return window;
+                });
+                if (!added[0]) {
+                    giveBack(new Reservation(reserved, amount.minorUnits(), hour));
+                    return null;
+                }
+                reserved.add(key);
+            }
+        }
+        return new Reservation(List.copyOf(reserved), amount.minorUnits(), hour);
+    }
+
+    @Scheduled(fixedDelayString = "${payment.limits.refresh-interval-ms:10000}")
+    public void refresh() {
+        if (jdbcTemplate == null) {
+            return;
+        }
+        try {
+            List<Limit> loaded = new ArrayList<>();
+            jdbcTemplate.query(LOAD, row -> {
+                Limit limit = limit(row);
+                if (limit != null) {
+                    loaded.add(limit);
+                }
+            });
+            snapshot = Snapshot.of(defaultLimit, loaded);
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Reloading authorization limits failed; keeping the previous {} limits", snapshot.size(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${payment.limits.reconcile-interval-ms:60000}",
+            initialDelayString = "${payment.limits.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        if (jdbcTemplate == null) {
+            return;
+        }
+        try {
+            reconcileVolumes();
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Reconciling daily volumes failed; in-memory volumes are kept until the next pass", e);
+        }
+    }
+
+    /**
+     * Corrects every volume counter to the committed rows of the last
+     * {@value #WINDOW_HOURS} hours. Each window adds back, under its own lock,
+     * this instance's authorizations of the current hour still in flight and
+     * those written since the pass began, which the query may have missed;
+     * earlier in-flight ones are forgotten, having been written or abandoned by
+     * now. A payment written while the query starts counts twice until the
+     * next pass rather than not at all. Only windows left empty are dropped.
+     */
+    void reconcileVolumes() {
+        Snapshot current = snapshot;
+        if (!current.limitsVolume()) {
+            windows.clear();
+            inFlight.clear();
+            return;
+        }
+        long hour = currentHour();
+        long firstHour = hour - WINDOW_HOURS + 1;
+        inFlight.values().removeIf(reservation -> reservation.hour() != hour);
+        windows.values().forEach(VolumeWindow::mark);
+        Map<VolumeKey, long[]> volumes = new HashMap<>();
+        jdbcTemplate.query(VOLUME, row -> {
+            String merchantId = row.getString(1);
+            String currency = row.getString(2);
+            long rowHour = row.getLong(4);
+            if (rowHour < firstHour || rowHour > hour || !CurrencyUnits.isSupported(currency)) {
+                return;
+            }
+            Transaction.PaymentMethod paymentMethod = Transaction.PaymentMethod.valueOf(row.getString(3));
+            long minorUnits = Money.of(row.getBigDecimal(5)
+                    .setScale(CurrencyUnits.exponent(currency), RoundingMode.HALF_UP), currency).minorUnits();
+            for (List<Limit> limits : List.of(current.forMerchant(merchantId), current.anyMerchant())) {
+                for (Limit limit : limits) {
+                    if (limit.limitsVolume() && limit.matches(currency, paymentMethod)) {
+                        volumes.computeIfAbsent(new VolumeKey(limit.id(), merchantId, currency),
+                                key -> new long[WINDOW_HOURS])[(int) (rowHour - firstHour)] += minorUnits;
+                    }
+                }
+            }
+        }, Timestamp.valueOf(LocalDateTime.ofEpochSecond(firstHour * 3600, 0, ZoneOffset.UTC)));
+
+        volumes.forEach((key, hourly) ->
+                windows.computeIfAbsent(key, k -> new VolumeWindow()).reconcile(hourly, hour));
+        long[] none = new long[WINDOW_HOURS];
+        for (VolumeKey key : windows.keySet()) {
+            if (!volumes.containsKey(key)) {
+                windows.computeIfPresent(key, (k, window) -> window.reconcile(none, hour) == 0 ? null : window);
+            }
+        }
+    }
+
+    /**
+     * What the merchant has authorized in the currency over the last 24 hours,
+     * as counted toward the given limit; in minor units.
+     */
+    long dailyVolume(long limitId, String merchantId, String currency) {
+        VolumeWindow window = windows.get(new VolumeKey(limitId, merchantId, currency));
+        return window == null ? 0 : window.total(currentHour());
+    }
+
+    void setLimits(List<Limit> limits) {
+        snapshot = Snapshot.of(defaultLimit, limits);
+    }
+
+    private long currentHour() {
+        return LocalDateTime.now(clock).toEpochSecond(ZoneOffset.UTC) / 3600;
+    }
+
+    private static Limit limit(ResultSet row) throws SQLException {
+        String currency = row.getString(3);
+        String paymentMethod = row.getString(4);
+        if (currency != null && !CurrencyUnits.isSupported(currency)) {
+            log.warn("Ignoring authorization limit {}: unsupported currency {}", row.getLong(1), currency);
+            return null;
+        }
+        Transaction.PaymentMethod method;
+        try {
+            method = paymentMethod == null ? null : Transaction.PaymentMethod.valueOf(paymentMethod);
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring authorization limit {}: unknown payment method {}", row.getLong(1), paymentMethod);
+            return null;
+        }
+        return new Limit(row.getLong(1), row.getString(2), currency, method,
+                hundredths(row.getBigDecimal(5)), hundredths(row.getBigDecimal(6)));
+    }
+
+    private static long hundredths(BigDecimal amount) {
+        if (amount == null) {
+            return UNLIMITED;
+        }
+        BigDecimal scaled = amount.setScale(LIMIT_SCALE, RoundingMode.DOWN);
+        return scaled.unscaledValue().bitLength() < Long.SIZE ? scaled.unscaledValue().longValue() : UNLIMITED;
+    }
+
+    public enum Decision {
+        APPROVED(null),
+        TRANSACTION_LIMIT("Business logic limit exceeded"),
+        DAILY_VOLUME("Daily volume limit exceeded");
+
+        private final String failureReason;
+
+        Decision(String failureReason) {
+            this.failureReason = failureReason;
+        }
+
+        public String failureReason() {
+            return failureReason;
+        }
+    }
+
+    /**
+     * One limit. A null merchant, currency or payment method matches any; the
+     * amounts are hundredths of a major unit of the limit's currency, or of the
+     * payment's currency when the limit has none.
+     */
+    record Limit(long id, String merchantId, String currency, Transaction.PaymentMethod paymentMethod,
+            long maxTransactionHundredths, long maxDailyVolumeHundredths) {
+
+        boolean matches(String paymentCurrency, Transaction.PaymentMethod method) {
+            return (currency == null || currency.equals(paymentCurrency))
+                    && (paymentMethod == null || paymentMethod == method);
+        }
+
+        boolean limitsVolume() {
+            return maxDailyVolumeHundredths != UNLIMITED;
+        }
+
+        long maxTransaction(String paymentCurrency) {
+            return minorUnits(maxTransactionHundredths, paymentCurrency);
+        }
+
+        long maxDailyVolume(String paymentCurrency) {
+            return minorUnits(maxDailyVolumeHundredths, paymentCurrency);
+        }
+
+        private static long minorUnits(long hundredths, String currency) {
+            long scale = CurrencyUnits.scale(currency);
+            return hundredths > UNLIMITED / scale ? UNLIMITED : hundredths * scale / HUNDREDTHS;
+        }
+    }
+
+    private record Snapshot(Map<String, List<Limit>> byMerchant, List<Limit> anyMerchant, boolean limitsVolume,
+            int size) {
+
+        static Snapshot of(Limit defaultLimit, List<Limit> limits) {
+            Map<String, List<Limit>> byMerchant = new HashMap<>();
+            List<Limit> anyMerchant = new ArrayList<>();
+            anyMerchant.add(defaultLimit);
+            for (Limit limit : limits) {
+                if (limit.merchantId() == null) {
+                    anyMerchant.add(limit);
+                } else {
+                    byMerchant.computeIfAbsent(limit.merchantId(), merchant -> new ArrayList<>()).add(limit);
+                }
+            }
+            return new Snapshot(byMerchant, anyMerchant, limits.stream().anyMatch(Limit::limitsVolume),
+                    limits.size() + 1);
+        }
+
+        List<Limit> forMerchant(String merchantId) {
+            return byMerchant.getOrDefault(merchantId, List.of());
+        }
+    }
+
+    private record VolumeKey(long limitId, String merchantId, String currency) {
+    }
+
+    /**
+     * What one approved payment added: {@code minorUnits} to the bucket of
+     * {@code hour} in each of the {@code keys} windows.
+     */
+    private record Reservation(List<VolumeKey> keys, long minorUnits, long hour) {
+    }
+
+    /**
+     * Minor units authorized per hour, in a ring of {@value #WINDOW_HOURS}
+     * hourly buckets, each stamped with the hour it counts. Per bucket it also
+     * keeps how much of that this instance has in flight, and how much it has
+     * written since the last {@link #mark}.
+     */
+    private static final class VolumeWindow {
+        private final long[] hours = new long[WINDOW_HOURS];
+        private final long[] amounts = new long[WINDOW_HOURS];
+        private final long[] inFlight = new long[WINDOW_HOURS];
+        private final long[] written = new long[WINDOW_HOURS];
+
+        synchronized boolean tryAdd(long minorUnits, long limit, long hour) {
+            if (minorUnits > limit - total(hour)) {
+                return false;
+            }
+            int slot = slot(hour);
+            if (hours[slot] != hour) {
+                hours[slot] = hour;
+                amounts[slot] = 0;
+                inFlight[slot] = 0;
+                written[slot] = 0;
+            }
+            amounts[slot] += minorUnits;
+            inFlight[slot] += minorUnits;
+            return true;
+        }
+
+        synchronized void subtract(long minorUnits, long hour) {
+            int slot = slot(hour);
+            if (hours[slot] == hour) {
+                amounts[slot] = Math.max(0, amounts[slot] - minorUnits);
+                inFlight[slot] = Math.max(0, inFlight[slot] - minorUnits);
+            }
+        }
+
+        synchronized void written(long minorUnits, long hour) {
+            int slot = slot(hour);
+            if (hours[slot] == hour) {
+                inFlight[slot] = Math.max(0, inFlight[slot] - minorUnits);
+                written[slot] += minorUnits;
+            }
+        }
+
+        /**
+         * Taken before the committed rows are read: anything written from
+         * here on may be missing from them.
+         */
+        synchronized void mark() {
+            Arrays.fill(written, 0);
+        }
+
+        synchronized long total(long hour) {
+            long total = 0;
+            for (int slot = 0; slot < WINDOW_HOURS; slot++) {
+                if (hours[slot] > hour - WINDOW_HOURS && hours[slot] <= hour) {
+                    total += amounts[slot];
+                }
+            }
+            return total;
+        }
+
+        /**
+         * {@code volumes[i]} is the committed volume of hour
+         * {@code hour - WINDOW_HOURS + 1 + i}; returns the new total.
+         */
+        synchronized long reconcile(long[] volumes, long hour) {
+            for (int i = 0; i < WINDOW_HOURS; i++) {
+                long bucketHour = hour - WINDOW_HOURS + 1 + i;
+                int slot = slot(bucketHour);
+                boolean current = hours[slot] == bucketHour;
+                inFlight[slot] = current && bucketHour == hour ? inFlight[slot] : 0;
+                written[slot] = current ? written[slot] : 0;
+                amounts[slot] = volumes[i] + inFlight[slot] + written[slot];
+                hours[slot] = bucketHour;
+            }
+            return total(hour);
+        }
+
+        private static int slot(long hour) {
+            return (int) Math.floorMod(hour, (long) WINDOW_HOURS);
+        }
+    }
+}
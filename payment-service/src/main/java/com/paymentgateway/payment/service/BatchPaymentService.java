@@ -0,0 +1,399 @@
+package com.paymentgateway.payment.service;
+
+import com.paymentgateway.common.dto.vault.TokenizeRequest;
+import com.paymentgateway.common.dto.vault.TokenizeResponse;
+import com.paymentgateway.common.exception.BusinessException;
+import com.paymentgateway.common.exception.ValidationException;
+import com.paymentgateway.common.model.Transaction;
+import com.paymentgateway.fraud.dto.FraudCheckRequest;
+import com.paymentgateway.fraud.dto.FraudResult;
+import com.paymentgateway.payment.client.FraudClient;
+import com.paymentgateway.payment.client.VaultClient;
+import com.paymentgateway.payment.dto.BatchPaymentResult;
+import com.paymentgateway.payment.dto.PaymentRequest;
+import com.paymentgateway.payment.service.PaymentStageExecutor.ExecutionMode;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk payment submission. Each chunk of {@code payment.batch.chunk-size}
+ * items goes through the same stages as a single payment, but stage by stage
+ * for the whole chunk: bean validation, one lookup per distinct merchant, one
+ * vault call for every card that needs tokenizing, one fraud call, and one
+ * database transaction for every transaction and outbox row.
+ * <p>
+ * The chunks are pipelined: while one chunk is written and its results
+ * streamed, the downstream calls of the next one are already running. A
+ * failing item is rejected on its own and never fails its chunk.
+ * <p>
+ * Items are approved outside any database transaction, so the daily volume an
+ * approved item holds is confirmed once it is written and given back when it
+ * is not.
+ */
+@Slf4j
+@Service
+public class BatchPaymentService {
+
+    // A chunk's stages run one after another
+    private static final ExecutionMode MODE = ExecutionMode.SEQUENTIAL;
+
+    private final PaymentService paymentService;
+    private final PaymentSteps steps;
+    private final VaultClient vaultClient;
+    private final FraudClient fraudClient;
+    private final IdempotencyStore idempotencyStore;
+    private final Validator validator;
+    private final ExecutorService pipeline = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${payment.batch.max-items:1000}")
+    private int maxItems = 1000;
+
+    @Value("${payment.batch.chunk-size:100}")
+    private int chunkSize = 100;
+
+    public BatchPaymentService(PaymentService paymentService, PaymentSteps steps, VaultClient vaultClient,
+            FraudClient fraudClient, IdempotencyStore idempotencyStore, Validator validator) {
+        this.paymentService = paymentService;
+        this.steps = steps;
+        this.vaultClient = vaultClient;
+        this.fraudClient = fraudClient;
+        this.idempotencyStore = idempotencyStore;
+        this.validator = validator;
+    }
+
+    /**
+     * Reject a submission that cannot be processed at all, before any result
+     * is streamed.
+     */
+    public void checkBatch(List<PaymentRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new ValidationException("A batch needs at least one payment");
+        }
+        if (requests.size() > maxItems) {
+            throw new ValidationException("A batch holds at most " + maxItems + " payments");
+        }
+    }
+
+    /**
+     * Process every item and hand each result to {@code sink} as soon as its
+     * chunk has committed. Runs on the calling thread; only the downstream
+     * calls of the next chunk run ahead.
+     */
+    public void processBatch(List<PaymentRequest> requests, Consumer<BatchPaymentResult> sink) {
+        checkBatch(requests);
+        List<Item> items = new ArrayList<>(requests.size());
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            PaymentRequest request = requests.get(i);
+            String key = request.getIdempotencyKey();
+            // A second item under the same key would wait on the first one forever
+            boolean duplicate = key != null && !keys.add(key);
+            items.add(new Item(i, request, duplicate));
+        }
+
+        List<List<Item>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += chunkSize) {
+            chunks.add(items.subList(from, Math.min(from + chunkSize, items.size())));
+        }
+
+        Future<Prepared> next = pipeline.submit(() -> prepare(chunks.get(0)));
+        for (int c = 0; c < chunks.size(); c++) {
+            Prepared current = await(next);
+            List<Item> following = c + 1 < chunks.size() ? chunks.get(c + 1) : null;
+            next = following == null ? null : pipeline.submit(() -> prepare(following));
+            try {
+                write(current).forEach(sink);
+            } catch (RuntimeException e) {
+                // The caller went away (or the sink failed); give back the keys the next chunk holds
+                if (next != null) {
+                    abandon(await(next));
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Everything up to the final state of each transaction: validation,
+     * idempotency, merchants, tokenization and fraud scoring. Nothing is
+     * written yet. Should anything unexpected fail, the idempotency keys
+     * claimed so far are given back.
+     */
+    private Prepared prepare(List<Item> chunk) {
+        Prepared prepared = new Prepared();
+        List<Pending> pending = new ArrayList<>();
+        try {
+            claim(chunk, prepared, pending);
+            pending = resolveMerchants(pending, prepared);
+            pending = tokenize(pending, prepared);
+            score(pending);
+        } catch (RuntimeException e) {
+            pending.forEach(this::abandon);
+            throw e;
+        }
+        prepared.pending.addAll(pending);
+        return prepared;
+    }
+
+    private void claim(List<Item> chunk, Prepared prepared, List<Pending> pending) {
+        for (Item item : chunk) {
+            try {
+                validate(item);
+            } catch (BusinessException e) {
+                prepared.reject(item, e);
+                continue;
+            }
+            String key = item.request().getIdempotencyKey();
+            if (key != null) {
+                Optional<Transaction> existing;
+                try {
+                    existing = idempotencyStore.acquire(key);
+                } catch (BusinessException e) {
+                    prepared.reject(item, e);
+                    continue;
+                }
+                if (existing.isPresent()) {
+                    prepared.results.add(BatchPaymentResult.builder()
+                            .index(item.index())
+                            .outcome(BatchPaymentResult.Outcome.REPLAYED)
+                            .transaction(existing.get())
+                            .build());
+                    continue;
+                }
+            }
+            try {
+                pending.add(new Pending(item, PaymentSteps.newTransaction(item.request(),
+                        item.request().getCardToken())));
+            } catch (IllegalArgumentException e) {
+                prepared.reject(item, new ValidationException("Unsupported payment method: "
+                        + item.request().getPaymentMethod()));
+                release(item);
+            }
+        }
+    }
+
+    private void validate(Item item) {
+        if (item.duplicate()) {
+            throw new ValidationException("Idempotency key repeats an earlier item of this batch",
+                    "DUPLICATE_IDEMPOTENCY_KEY");
+        }
+        Set<ConstraintViolation<PaymentRequest>> violations = validator.validate(item.request());
+        if (!violations.isEmpty()) {
+            throw new ValidationException(violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+        steps.validateRequest(item.request());
+    }
+
+    private List<Pending> resolveMerchants(List<Pending> pending, Prepared prepared) {
+        Map<String, BusinessException> failures = new HashMap<>();
+        pending.stream().map(p -> p.item().request().getMerchantId()).distinct().forEach(merchantId -> {
+            try {
+                steps.validateMerchant(merchantId, MODE);
+            } catch (BusinessException e) {
+                failures.put(merchantId, e);
+            }
+        });
+        if (failures.isEmpty()) {
+            return pending;
+        }
+        List<Pending> remaining = new ArrayList<>(pending.size());
+        for (Pending p : pending) {
+            BusinessException failure = failures.get(p.item().request().getMerchantId());
+            if (failure == null) {
+                remaining.add(p);
+            } else {
+                prepared.reject(p.item(), failure);
+                release(p.item());
+            }
+        }
+        return remaining;
+    }
+
+    private List<Pending> tokenize(List<Pending> pending, Prepared prepared) {
+        List<Pending> cards = pending.stream().filter(p -> PaymentSteps.needsTokenization(p.item().request()))
+                .toList();
+        if (cards.isEmpty()) {
+            return pending;
+        }
+        List<TokenizeRequest> requests = cards.stream()
+                .map(p -> PaymentSteps.tokenizeRequest(p.item().request()))
+                .toList();
+        List<TokenizeResponse> tokens;
+        BusinessException failure = null;
+        try {
+            tokens = vaultClient.tokenizeAll(requests);
+            if (tokens == null || tokens.size() != requests.size()) {
+                throw new IllegalStateException("Vault answered " + (tokens == null ? 0 : tokens.size())
+                        + " of " + requests.size() + " cards");
+            }
+        } catch (BusinessException e) {
+            log.warn("Vault batch tokenization shed: {}", e.getMessage());
+            tokens = null;
+            failure = e;
+        } catch (Exception e) {
+            log.error("Vault batch tokenization failed", e);
+            tokens = null;
+            failure = new BusinessException("Secure tokenization failed", "VAULT_ERROR", 500);
+        }
+
+        Set<Pending> rejected = new HashSet<>();
+        for (int i = 0; i < cards.size(); i++) {
+            Pending p = cards.get(i);
+            TokenizeResponse token = tokens == null ? null : tokens.get(i);
+            if (token != null && token.getToken() != null) {
+                p.transaction().setCardToken(token.getToken());
+                continue;
+            }
+            prepared.reject(p.item(), failure != null ? failure
+                    : new BusinessException("Secure tokenization failed: "
+                            + (token == null ? "no response" : token.getError()), "VAULT_ERROR", 500));
+            release(p.item());
+            rejected.add(p);
+        }
+        return rejected.isEmpty() ? pending : pending.stream().filter(p -> !rejected.contains(p)).toList();
+    }
+
+    private void score(List<Pending> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<FraudCheckRequest> requests = pending.stream()
+                .map(p -> PaymentSteps.fraudRequest(p.item().request(), p.transaction()))
+                .toList();
+        List<FraudResult> results;
+        try {
+            results = fraudClient.checkFraudAll(requests);
+        } catch (RuntimeException e) {
+            pending.forEach(p -> steps.decide(p.transaction(), null, e, MODE));
+            return;
+        }
+        for (int i = 0; i < pending.size(); i++) {
+            steps.decide(pending.get(i).transaction(), results.get(i), null, MODE);
+        }
+    }
+
+    /**
+     * One database transaction for the whole chunk. Should it fail (say, an
+     * idempotency key already used by another request), the chunk is retried
+     * item by item so only the offending items are rejected.
+     */
+    private List<BatchPaymentResult> write(Prepared prepared) {
+        List<BatchPaymentResult> results = prepared.results;
+        if (prepared.pending.isEmpty()) {
+            return results;
+        }
+        List<Transaction> transactions = prepared.pending.stream().map(Pending::transaction).toList();
+        try {
+            paymentService.persistAll(transactions);
+            prepared.pending.forEach(p -> processed(p, results));
+        } catch (RuntimeException batchFailure) {
+            log.warn("Batch write of {} payments failed, retrying one by one: {}", transactions.size(),
+                    batchFailure.getMessage());
+            for (Pending p : prepared.pending) {
+                try {
+                    paymentService.persistAll(List.of(p.transaction()));
+                    processed(p, results);
+                } catch (RuntimeException e) {
+                    results.add(rejected(p.item(), new BusinessException("Payment could not be recorded",
+                            e, "PERSISTENCE_ERROR", 500)));
+                    abandon(p);
+                }
+            }
+        }
+        return results;
+    }
+
+    private void processed(Pending p, List<BatchPaymentResult> results) {
+        steps.written(p.transaction());
+        String key = p.item().request().getIdempotencyKey();
+        if (key != null) {
+            idempotencyStore.complete(key, p.transaction());
+        }
+        results.add(BatchPaymentResult.builder()
+                .index(p.item().index())
+                .outcome(BatchPaymentResult.Outcome.PROCESSED)
+                .transaction(p.transaction())
+                .build());
+    }
+
+    private void abandon(Prepared prepared) {
+        prepared.pending.forEach(this::abandon);
+    }
+
+    /**
+     * An item that got as far as a transaction but will not be written.
+     */
+    private void abandon(Pending p) {
+        steps.abandoned(p.transaction());
+        release(p.item());
+    }
+
+    private void release(Item item) {
+        String key = item.request().getIdempotencyKey();
+        if (key != null) {
+            idempotencyStore.release(key);
+        }
+    }
+
+    private static Prepared await(Future<Prepared> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("Payment processing interrupted", "PAYMENT_INTERRUPTED", 503);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e);
+        }
+    }
+
+    private static BatchPaymentResult rejected(Item item, BusinessException e) {
+        return BatchPaymentResult.builder()
+                .index(item.index())
+                .outcome(BatchPaymentResult.Outcome.REJECTED)
+                .errorCode(e.getErrorCode())
+                .message(e.getMessage())
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pipeline.shutdownNow();
+    }
+
+    private record Item(int index, PaymentRequest request, boolean duplicate) {
+    }
+
+    private record Pending(Item item, Transaction transaction) {
+    }
+
+    private static final class Prepared {
+
+        private final List<BatchPaymentResult> results = new ArrayList<>();
+        private final List<Pending> pending = new ArrayList<>();
+
+        private void reject(Item item, BusinessException e) {
+            results.add(rejected(item, e));
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.paymentgateway.payment.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.paymentgateway.common.exception.BusinessException;
+import com.paymentgateway.common.model.Transaction;
+import com.paymentgateway.payment.repository.TransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Tiered idempotency for {@link PaymentService#processPayment}: a bounded local
+ * cache, then Redis, then the unique {@code idempotency_key} index.
+ * <p>
+ * Replays are answered from the first two tiers without touching PostgreSQL.
+ * The first request for a key claims it, locally with a future and across
+ * instances with a Redis lock, so concurrent duplicates wait for its result
+ * instead of racing to insert. Results are published only once the payment
+ * commits; a Redis outage degrades to the database tier. Lookups are counted
+ * as {@code payment.idempotency.lookups{tier}}.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+    static final String CACHE_NAME = "idempotency";
+    static final String LOOKUP_COUNTER = "payment.idempotency.lookups";
+    static final String RESULT_PREFIX = "payment:idempotency:";
+    static final String LOCK_PREFIX = "payment:idempotency:lock:";
+    private static final long POLL_INTERVAL_MILLIS = 25;
+    private static final RedisScript<Long> RELEASE_LOCK = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final Cache<String, Transaction> local;
+    private final ConcurrentMap<String, CompletableFuture<Transaction>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> lockTokens = new ConcurrentHashMap<>();
+    private final StringRedisTemplate redisTemplate;
+    private final TransactionRepository transactionRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${payment.idempotency.redis-ttl:24h}")
+    private Duration redisTtl = Duration.ofHours(24);
+
+    @Value("${payment.idempotency.lock-ttl:30s}")
+    private Duration lockTtl = Duration.ofSeconds(30);
+
+    @Value("${payment.idempotency.lock-wait:10s}")
+    private Duration lockWait = Duration.ofSeconds(10);
+
+    public IdempotencyStore(
+            StringRedisTemplate redisTemplate,
+            TransactionRepository transactionRepository,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${payment.idempotency.local.maximum-size:100000}") long maximumSize,
+            @Value("${payment.idempotency.local.ttl:30s}") Duration localTtl) {
+        this.redisTemplate = redisTemplate;
+        this.transactionRepository = transactionRepository;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, CACHE_NAME);
+    }
+
+    /**
+     * The recorded result for {@code key}, waiting out a concurrent first
+     * attempt. Empty means the caller now owns the key and must end with
+     * {@link #complete} or {@link #release}.
+     */
+    public Optional<Transaction> acquire(String key) {
+        long deadline = System.nanoTime() + lockWait.toNanos();
+        while (true) {
+            Transaction cached = local.getIfPresent(key);
+            if (cached != null) {
+                count("local");
+                return Optional.of(cached);
+            }
+            CompletableFuture<Transaction> claim = new CompletableFuture<>();
+            CompletableFuture<Transaction> leader = inFlight.putIfAbsent(key, claim);
+            if (leader == null) {
+                return claimShared(key, deadline);
+            }
+            Transaction result = await(key, leader, deadline);
+            if (result != null) {
+                count("in_flight");
+                return Optional.of(result);
+            }
+            // The first attempt failed without a result; try to claim the key ourselves
+        }
+    }
+
+    /**
+     * Record the result of an owned key once the surrounding transaction
+     * commits, and hand it to any waiting duplicates.
+     */
+    public void complete(String key, Transaction result) {
+        afterCompletion(committed -> finish(key, committed ? result : null));
+    }
+
+    /**
+     * Give up an owned key without a result (the payment failed or rolled back).
+     */
+    public void release(String key) {
+        afterCompletion(committed -> finish(key, null));
+    }
+
+    /**
+     * Refresh the recorded result after a later state change of the payment.
+     */
+    public void remember(Transaction transaction) {
+        afterCompletion(committed -> {
+            if (committed) {
+                local.put(transaction.getIdempotencyKey(), transaction);
+                writeShared(transaction.getIdempotencyKey(), transaction);
+            }
+        });
+    }
+
+    private Optional<Transaction> claimShared(String key, long deadline) {
+        try {
+            Optional<Transaction> found = lookupShared(key, deadline);
+            found.ifPresent(result -> finish(key, result));
+            return found;
+        } catch (RuntimeException e) {
+            finish(key, null);
+            throw e;
+        }
+    }
+
+    private Optional<Transaction> lookupShared(String key, long deadline) {
+        while (true) {
+            Transaction stored = readShared(key);
+            if (stored != null) {
+                count("redis");
+                return Optional.of(stored);
+            }
+            if (tryLockShared(key)) {
+                Optional<Transaction> row = transactionRepository.findByIdempotencyKey(key);
+                count(row.isPresent() ? "database" : "miss");
+                return row;
+            }
+            if (System.nanoTime() >= deadline) {
+                throw inProgress();
+            }
+            pause();
+        }
+    }
+
+    private void finish(String key, Transaction result) {
+        if (result != null) {
+            local.put(key, result);
+            writeShared(key, result);
+        }
+        unlockShared(key);
+        CompletableFuture<Transaction> claim = inFlight.remove(key);
+        if (claim != null) {
+            claim.complete(result);
+        }
+    }
+
+    private Transaction await(String key, CompletableFuture<Transaction> leader, long deadline) {
+        try {
+            return leader.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Timed out waiting for in-flight payment with idempotency key {}", key);
+            throw inProgress();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw inProgress();
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw inProgress();
+        }
+    }
+
+    private Transaction readShared(String key) {
+        try {
+            String json = redisTemplate.opsForValue().get(RESULT_PREFIX + key);
+            return json == null ? null : objectMapper.readValue(json, Transaction.class);
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.warn("Idempotency lookup in Redis failed, falling back to the database: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeShared(String key, Transaction result) {
+        try {
+            redisTemplate.opsForValue().set(RESULT_PREFIX + key, objectMapper.writeValueAsString(result), redisTtl);
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.warn("Failed to record idempotency result in Redis: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * False only while another instance holds the key; without Redis the
+     * unique index is the remaining guard.
+     */
+    private boolean tryLockShared(String key) {
+        String token = UUID.randomUUID().toString();
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(LOCK_PREFIX + key, token, lockTtl))) {
+                lockTokens.put(key, token);
+                return true;
+            }
+            return false;
+        } catch (DataAccessException e) {
+            log.warn("Idempotency lock in Redis unavailable: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    private void unlockShared(String key) {
+        String token = lockTokens.remove(key);
+        if (token == null) {
+            return;
+        }
+        try {
+            redisTemplate.execute(RELEASE_LOCK, List.of(LOCK_PREFIX + key), token);
+        } catch (DataAccessException e) {
+            log.warn("Failed to release idempotency lock in Redis, it expires in {}: {}", lockTtl, e.getMessage());
+        }
+    }
+
+    private void afterCompletion(Consumer<Boolean> action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    private void count(String tier) {
+        meterRegistry.counter(LOOKUP_COUNTER, "tier", tier).increment();
+    }
+
+    private static BusinessException inProgress() {
+        return new BusinessException("A payment with this idempotency key is already in progress",
+                "IDEMPOTENCY_IN_PROGRESS", 409);
+    }
+}
@@ -1,180 +1,258 @@
 package com.paymentgateway.payment.service;
 
-import com.paymentgateway.common.dto.vault.TokenizeRequest;
 import com.paymentgateway.common.dto.vault.TokenizeResponse;
 import com.paymentgateway.common.exception.BusinessException;
 import com.paymentgateway.common.exception.ValidationException;
 import com.paymentgateway.common.model.Transaction;
-import com.paymentgateway.payment.client.MerchantClient;
+import com.paymentgateway.fraud.dto.FraudResult;
+import com.paymentgateway.payment.client.FraudClient;
 import com.paymentgateway.payment.client.VaultClient;
+import com.paymentgateway.payment.client.http.DownstreamUnavailableException;
 import com.paymentgateway.payment.dto.PaymentRequest;
-import com.paymentgateway.payment.messaging.KafkaProducer;
+import com.paymentgateway.payment.dto.TransactionCursor;
+import com.paymentgateway.payment.dto.TransactionPage;
+import com.paymentgateway.payment.dto.TransactionQuery;
+import com.paymentgateway.payment.dto.TransactionSummary;
+import com.paymentgateway.payment.messaging.PaymentOutbox;
 import com.paymentgateway.payment.repository.TransactionRepository;
+import com.paymentgateway.payment.service.PaymentStageExecutor.ExecutionMode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class PaymentService {
 
+    private static final String STAGE_TOKENIZE = "tokenize";
+    private static final String STAGE_PERSIST = "persist";
+    private static final String STAGE_FRAUD = "fraud";
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final TransactionRepository transactionRepository;
     private final VaultClient vaultClient;
-    private final MerchantClient merchantClient;
-    private final KafkaProducer kafkaProducer;
-    private final com.paymentgateway.payment.client.FraudClient fraudClient;
+    private final PaymentOutbox paymentOutbox;
+    private final FraudClient fraudClient;
+    private final PaymentStageExecutor stageExecutor;
+    private final IdempotencyStore idempotencyStore;
+    private final PaymentSteps steps;
+
+    @Value("${payment.execution.mode:SEQUENTIAL}")
+    private ExecutionMode executionMode = ExecutionMode.SEQUENTIAL;
+
+    void setExecutionMode(ExecutionMode executionMode) {
+        this.executionMode = executionMode;
+    }
 
     @Transactional
     public Transaction processPayment(PaymentRequest request) {
         log.info("Processing payment for merchant: {}", request.getMerchantId());
 
-        // 0. Idempotency Check
-        if (request.getIdempotencyKey() != null) {
-            var existingTx = transactionRepository.findByIdempotencyKey(request.getIdempotencyKey());
+        // 0. Idempotency Check (concurrent duplicates wait here for the first result)
+        String idempotencyKey = request.getIdempotencyKey();
+        if (idempotencyKey != null) {
+            Optional<Transaction> existingTx = idempotencyStore.acquire(idempotencyKey);
             if (existingTx.isPresent()) {
-                log.info("Idempotency hit for key: {}", request.getIdempotencyKey());
+                log.info("Idempotency hit for key: {}", idempotencyKey);
                 return existingTx.get();
             }
         }
 
-        // 1. Validation
-        validateRequest(request);
-
-        // 2. Validate Merchant (Circuit Breaker pattern - simplified)
         try {
-            merchantClient.getMerchant(request.getMerchantId());
-        } catch (Exception e) {
-            log.error("Merchant validation failed for merchant: {}", request.getMerchantId(), e);
-            throw new BusinessException("Invalid merchant or service unavailable", "MERCHANT_NOT_FOUND", 404);
-        }
+            // 1. Validation
+            steps.validateRequest(request);
 
-        // 3. Tokenize Card
-        String cardToken = request.getCardToken();
-        if (cardToken == null && request.getCardNumber() != null) {
-            TokenizeRequest tokenizeRequest = TokenizeRequest.builder()
-                    .pan(request.getCardNumber())
-                    .expiryDate(request.getExpiryMonth() + "/" + request.getExpiryYear())
-                    .cardHolderName(request.getCardHolderName())
-                    .cvv(request.getCvv())
-                    .build();
-            try {
-                TokenizeResponse tokenizeResponse = vaultClient.tokenize(tokenizeRequest);
-                cardToken = tokenizeResponse.getToken();
-            } catch (Exception e) {
-                log.error("Vault tokenization failed", e);
-                throw new BusinessException("Secure tokenization failed", "VAULT_ERROR", 500);
+            Transaction result = executionMode == ExecutionMode.PARALLEL
+                    ? processParallel(request)
+                    : processSequential(request);
+            if (idempotencyKey != null) {
+                idempotencyStore.complete(idempotencyKey, result);
+            }
+            return result;
+        } catch (RuntimeException e) {
+            if (idempotencyKey != null) {
+                idempotencyStore.release(idempotencyKey);
             }
+            throw e;
         }
+    }
 
-        // 4. Create Local Transaction record
-        Transaction transaction = Transaction.builder()
-                .merchantId(request.getMerchantId())
-                .amount(request.getAmount())
-                .currency(request.getCurrency())
-                .status(Transaction.TransactionStatus.INITIATED)
-                .paymentMethod(Transaction.PaymentMethod.valueOf(request.getPaymentMethod().toUpperCase()))
-                .cardToken(cardToken)
-                .customerEmail(request.getCustomerEmail())
-                .description(request.getDescription())
-                .idempotencyKey(request.getIdempotencyKey())
-                .build();
-
-        log.info("Saving Transaction: merchantId={}, amount={}, cardToken={}",
-                transaction.getMerchantId(), transaction.getAmount(), transaction.getCardToken());
+    private Transaction processSequential(PaymentRequest request) {
+        // 2. Validate Merchant (sheds fast while the merchant circuit is open)
+        validateMerchant(request);
 
-        transaction = transactionRepository.save(transaction);
+        // 3. Tokenize Card
+        String cardToken = tokenizeCard(request);
 
-        // 5. Fraud Detection Check
-        try {
-            com.paymentgateway.fraud.dto.FraudCheckRequest fraudRequest = com.paymentgateway.fraud.dto.FraudCheckRequest
-                    .builder()
-                    .transactionId(transaction.getId())
-                    .merchantId(request.getMerchantId())
-                    .userId(request.getCustomerEmail()) // Using email as userId for now
-                    .amount(request.getAmount().doubleValue())
-                    .currency(request.getCurrency())
-                    .build();
-
-            com.paymentgateway.fraud.dto.FraudResult fraudResult = fraudClient.checkFraud(fraudRequest);
-
-            if (fraudResult != null
-                    && com.paymentgateway.fraud.dto.FraudResult.FraudDecision.BLOCK.equals(fraudResult.getDecision())) {
-                log.warn("Transaction blocked by Fraud Service. Risk Score: {}", fraudResult.getRiskScore());
-                transaction.setStatus(Transaction.TransactionStatus.FAILED);
-                transaction.setFailureReason("High Risk Fraud Detected");
-                transactionRepository.save(transaction);
-                kafkaProducer.sendPaymentEvent(transaction);
-                return transaction;
-            } else if (fraudResult
-                    .getDecision() == com.paymentgateway.fraud.dto.FraudResult.FraudDecision.MANUAL_REVIEW) {
-                log.info("Transaction flagged for Manual Review (Gray Path). Risk Score: {}",
-                        fraudResult.getRiskScore());
-                transaction.setDescription(transaction.getDescription() + " [REVIEW REQUIRED]");
+        // 4. Build the Transaction (written once, in its final state)
+        Transaction transaction = PaymentSteps.newTransaction(request, cardToken);
+
+        // 5. Fraud Detection Check + 6. Process Path
+        return completePayment(transaction, scoreFraud(request, transaction));
+    }
+
+    /**
+     * Structured fan-out: the transaction id is assigned up front, so merchant
+     * lookup, tokenization and fraud scoring all start together on virtual
+     * threads. Nothing touches the database until the final state is known. A
+     * merchant or vault failure cancels the sibling calls and fails the payment
+     * exactly like the sequential path.
+     */
+    private Transaction processParallel(PaymentRequest request) {
+        Transaction transaction = PaymentSteps.newTransaction(request, request.getCardToken());
+        try (StageScope scope = stageExecutor.openScope()) {
+            scope.fork(() -> {
+                validateMerchant(request);
+                return null;
+            });
+            Future<String> tokenized = PaymentSteps.needsTokenization(request)
+                    ? scope.fork(() -> tokenizeCard(request))
+                    : null;
+            Future<FraudOutcome> fraud = scope.fork(() -> scoreFraud(request, transaction));
+
+            scope.join();
+            Optional<Exception> failure = scope.failure();
+            if (failure.isPresent()) {
+                throw failure.get() instanceof RuntimeException runtime
+                        ? runtime
+                        : new IllegalStateException(failure.get());
             }
 
-        } catch (Exception e) {
-            log.error("Fraud check failed, failing closed", e);
-            transaction.setStatus(Transaction.TransactionStatus.FAILED);
-            transaction.setFailureReason("Fraud Check System Error");
-            transactionRepository.save(transaction);
-            kafkaProducer.sendPaymentEvent(transaction);
-            return transaction;
+            if (tokenized != null) {
+                transaction.setCardToken(tokenized.resultNow());
+            }
+            return completePayment(transaction, fraud.resultNow());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("Payment processing interrupted", "PAYMENT_INTERRUPTED", 503);
         }
+    }
 
-        // 6. Process Path
-        Transaction modernResult = processModernPath(transaction);
-
-        return modernResult;
+    private void validateMerchant(PaymentRequest request) {
+        steps.validateMerchant(request.getMerchantId(), executionMode);
     }
 
-    private void validateRequest(PaymentRequest request) {
-        if (request.getAmount() == null || request.getAmount().doubleValue() <= 0) {
-            throw new ValidationException("Amount must be greater than 0");
-        }
-        if (request.getCurrency() == null || request.getCurrency().length() != 3) {
-            throw new ValidationException("Invalid currency format (requires 3 letters ISO code)");
+    private String tokenizeCard(PaymentRequest request) {
+        if (!PaymentSteps.needsTokenization(request)) {
+            return request.getCardToken();
         }
-        if ("CARD".equalsIgnoreCase(request.getPaymentMethod())) {
-            if ((request.getCardToken() == null || request.getCardToken().isBlank()) &&
-                    (request.getCardNumber() == null || request.getCardNumber().isBlank())) {
-                throw new ValidationException("Card details (number or token) are required for CARD payment");
-            }
+        try {
+            TokenizeResponse tokenizeResponse = stageExecutor.time(STAGE_TOKENIZE, executionMode,
+                    () -> vaultClient.tokenize(PaymentSteps.tokenizeRequest(request)));
+            return tokenizeResponse.getToken();
+        } catch (DownstreamUnavailableException e) {
+            log.warn("Vault tokenization shed: {}", e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            log.error("Vault tokenization failed", e);
+            throw new BusinessException("Secure tokenization failed", "VAULT_ERROR", 500);
         }
     }
 
-    private Transaction processModernPath(Transaction transaction) {
-        log.info("[MODERN-CORE] Executing modern authorization logic");
-        if (transaction.getAmount().doubleValue() < 10000.0) {
-            transaction.setStatus(Transaction.TransactionStatus.AUTHORIZED);
-            transaction.setAuthorizationCode("AUTH_" + UUID.randomUUID().toString().substring(0, 8));
-            transaction.setReferenceNumber("REF_" + System.currentTimeMillis());
-        } else {
-            transaction.setStatus(Transaction.TransactionStatus.FAILED);
-            transaction.setFailureReason("Business logic limit exceeded");
+    /**
+     * The single write of a payment: the row in its final state plus its outbox
+     * event, committed together.
+     */
+    private Transaction persist(Transaction transaction) {
+        log.info("Saving Transaction: id={}, merchantId={}, amount={}, status={}", transaction.getId(),
+                transaction.getMerchantId(), transaction.getAmount(), transaction.getStatus());
+        return stageExecutor.time(STAGE_PERSIST, executionMode, () -> {
+            Transaction saved = transactionRepository.save(transaction);
+            paymentOutbox.append(saved);
+            return saved;
+        });
+    }
+
+    /**
+     * Write a batch of finished payments and their outbox events in one
+     * transaction, so the inserts can share JDBC batches.
+     */
+    @Transactional
+    public List<Transaction> persistAll(List<Transaction> transactions) {
+        return stageExecutor.time(STAGE_PERSIST, executionMode, () -> {
+            List<Transaction> saved = transactionRepository.saveAll(transactions);
+            saved.forEach(paymentOutbox::append);
+            return saved;
+        });
+    }
+
+    private FraudOutcome scoreFraud(PaymentRequest request, Transaction transaction) {
+        try {
+            return new FraudOutcome(stageExecutor.time(STAGE_FRAUD, executionMode,
+                    () -> fraudClient.checkFraud(PaymentSteps.fraudRequest(request, transaction))), null);
+        } catch (Exception e) {
+            return new FraudOutcome(null, e);
         }
-        transaction = transactionRepository.save(transaction);
-        kafkaProducer.sendPaymentEvent(transaction);
-        return transaction;
     }
 
+    private Transaction completePayment(Transaction transaction, FraudOutcome fraud) {
+        return persist(steps.decide(transaction, fraud.result(), fraud.error(), executionMode));
+    }
+
+    private record FraudOutcome(FraudResult result, Exception error) {
+    }
+
+    /**
+     * Served by the replica once it has caught up with the caller's
+     * consistency token, otherwise by the primary.
+     */
+    @Transactional(readOnly = true)
     public Transaction getTransaction(String transactionId) {
-        return transactionRepository.findById(transactionId)
+        return transactionRepository.findPrunedById(transactionId)
                 .orElseThrow(() -> new BusinessException("Transaction not found", "NOT_FOUND", 404));
     }
 
-    public List<Transaction> getMerchantTransactions(String merchantId) {
-        return transactionRepository.findByMerchantId(merchantId);
+    /**
+     * One keyset page of a merchant's transactions, newest first, read from
+     * the replica.
+     */
+    @Transactional(readOnly = true)
+    public TransactionPage getMerchantTransactions(TransactionQuery query, String cursor, int limit) {
+        validateQuery(query);
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        TransactionCursor after = cursor == null || cursor.isBlank() ? null : TransactionCursor.decode(cursor);
+
+        // One extra row tells us whether there is a next page without a count query
+        List<TransactionSummary> rows = transactionRepository.findPage(query, after, pageSize + 1);
+        if (rows.size() <= pageSize) {
+            return new TransactionPage(rows, null);
+        }
+        List<TransactionSummary> items = rows.subList(0, pageSize);
+        return new TransactionPage(items, TransactionCursor.of(items.get(pageSize - 1)).encode());
+    }
+
+    /**
+     * Feed every matching transaction to {@code sink} from a replica cursor,
+     * holding one fetch window in memory regardless of the merchant's size.
+     */
+    @Transactional(readOnly = true)
+    public void exportMerchantTransactions(TransactionQuery query, Consumer<TransactionSummary> sink) {
+        validateQuery(query);
+        try (Stream<TransactionSummary> rows = transactionRepository.streamAll(query)) {
+            rows.forEach(sink);
+        }
+    }
+
+    private void validateQuery(TransactionQuery query) {
+        if (query.from() != null && query.to() != null && !query.from().isBefore(query.to())) {
+            throw new ValidationException("'from' must be before 'to'");
+        }
     }
 
     @Transactional
     public Transaction capturePayment(String transactionId) {
-        Transaction transaction = getTransaction(transactionId);
+        Transaction transaction = transactionRepository.findByIdForUpdate(transactionId)
+                .orElseThrow(() -> new BusinessException("Transaction not found", "NOT_FOUND", 404));
         if (transaction.getStatus() != Transaction.TransactionStatus.AUTHORIZED) {
             throw new BusinessException("Cannot capture transaction with status: " + transaction.getStatus(),
                     "INVALID_STATUS");
@@ -183,8 +261,10 @@ public class PaymentService {
         transaction.setStatus(Transaction.TransactionStatus.CAPTURED);
         transaction.setSettledAt(LocalDateTime.now());
         transaction = transactionRepository.save(transaction);
-
-        kafkaProducer.sendPaymentEvent(transaction);
+        paymentOutbox.append(transaction);
+        if (transaction.getIdempotencyKey() != null) {
+            idempotencyStore.remember(transaction);
+        }
         return transaction;
     }
 }
@@ -0,0 +1,67 @@
+package com.paymentgateway.payment.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Runs the downstream stages of a payment and records a latency timer per
+ * stage ({@code payment.stage.latency}) so the critical path is visible.
+ * <p>
+ * Parallel fan-out shares one virtual-thread executor; each payment gets its
+ * own {@link StageScope} on top of it.
+ */
+@Component
+public class PaymentStageExecutor {
+
+    static final String STAGE_TIMER = "payment.stage.latency";
+
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public PaymentStageExecutor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    StageScope openScope() {
+        return new StageScope(executor);
+    }
+
+    /**
+     * Execute one stage and record its latency, tagged with the outcome.
+     */
+    public <T> T time(String stage, ExecutionMode mode, Supplier<T> work) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            return work.get();
+        } catch (RuntimeException e) {
+            outcome = "failure";
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(STAGE_TIMER)
+                    .tag("stage", stage)
+                    .tag("mode", mode.name().toLowerCase())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * How {@link PaymentService} schedules the merchant, vault and fraud calls.
+     */
+    public enum ExecutionMode {
+        SEQUENTIAL,
+        PARALLEL
+    }
+}
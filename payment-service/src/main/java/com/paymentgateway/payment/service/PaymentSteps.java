@@ -0,0 +1,179 @@
+package com.paymentgateway.payment.service;
+
+import com.paymentgateway.common.dto.merchant.MerchantResponse;
+import com.paymentgateway.common.dto.vault.TokenizeRequest;
+import com.paymentgateway.common.exception.BusinessException;
+import com.paymentgateway.common.exception.ValidationException;
+import com.paymentgateway.common.model.TimeOrderedIds;
+import com.paymentgateway.common.model.Transaction;
+import com.paymentgateway.fraud.dto.FraudCheckRequest;
+import com.paymentgateway.fraud.dto.FraudResult;
+import com.paymentgateway.payment.client.MerchantClient;
+import com.paymentgateway.payment.client.http.DownstreamUnavailableException;
+import com.paymentgateway.payment.dto.PaymentRequest;
+import com.paymentgateway.payment.service.PaymentStageExecutor.ExecutionMode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * The stages {@link PaymentService} and {@link BatchPaymentService} share:
+ * request validation, the merchant check, building the transaction and
+ * settling its final state. None of them writes anything, so none needs a
+ * database transaction.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+class PaymentSteps {
+
+    private static final String STAGE_MERCHANT = "merchant";
+    private static final String STAGE_AUTHORIZE = "authorize";
+    private static final String MERCHANT_ACTIVE = "ACTIVE";
+
+    private final MerchantClient merchantClient;
+    private final PaymentStageExecutor stageExecutor;
+    private final AuthorizationLimits authorizationLimits;
+
+    void validateRequest(PaymentRequest request) {
+        if (request.getAmount() == null || request.getAmount().signum() <= 0) {
+            throw new ValidationException("Amount must be greater than 0");
+        }
+        if (request.getCurrency() == null || request.getCurrency().length() != 3) {
+            throw new ValidationException("Invalid currency format (requires 3 letters ISO code)");
+        }
+        try {
+            request.toMoney();
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException(e.getMessage());
+        }
+        if ("CARD".equalsIgnoreCase(request.getPaymentMethod())) {
+            if ((request.getCardToken() == null || request.getCardToken().isBlank()) &&
+                    (request.getCardNumber() == null || request.getCardNumber().isBlank())) {
+                throw new ValidationException("Card details (number or token) are required for CARD payment");
+            }
+        }
+    }
+
+    void validateMerchant(String merchantId, ExecutionMode mode) {
+        MerchantResponse merchant;
+        try {
+            merchant = stageExecutor.time(STAGE_MERCHANT, mode, () -> merchantClient.getMerchant(merchantId));
+        } catch (DownstreamUnavailableException e) {
+            log.warn("Merchant lookup shed for merchant {}: {}", merchantId, e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            log.error("Merchant validation failed for merchant: {}", merchantId, e);
+            throw new BusinessException("Invalid merchant or service unavailable", "MERCHANT_NOT_FOUND", 404);
+        }
+        if (merchant != null && merchant.getStatus() != null && !MERCHANT_ACTIVE.equals(merchant.getStatus())) {
+            log.warn("Rejecting payment for merchant {} with status {}", merchantId, merchant.getStatus());
+            throw new BusinessException("Merchant account is not active", "MERCHANT_INACTIVE", 403);
+        }
+    }
+
+    static boolean needsTokenization(PaymentRequest request) {
+        return request.getCardToken() == null && request.getCardNumber() != null;
+    }
+
+    static TokenizeRequest tokenizeRequest(PaymentRequest request) {
+        return TokenizeRequest.builder()
+                .pan(request.getCardNumber())
+                .expiryDate(request.getExpiryMonth() + "/" + request.getExpiryYear())
+                .cardHolderName(request.getCardHolderName())
+                .cvv(request.getCvv())
+                .build();
+    }
+
+    static Transaction newTransaction(PaymentRequest request, String cardToken) {
+        return Transaction.builder()
+                .id(TimeOrderedIds.next())
+                .merchantId(request.getMerchantId())
+                .amount(request.getAmount())
+                .currency(request.getCurrency())
+                .status(Transaction.TransactionStatus.INITIATED)
+                .paymentMethod(Transaction.PaymentMethod.valueOf(request.getPaymentMethod().toUpperCase()))
+                .cardToken(cardToken)
+                .customerEmail(request.getCustomerEmail())
+                .description(request.getDescription())
+                .idempotencyKey(request.getIdempotencyKey())
+                .build();
+    }
+
+    static FraudCheckRequest fraudRequest(PaymentRequest request, Transaction transaction) {
+        return FraudCheckRequest.builder()
+                .transactionId(transaction.getId())
+                .merchantId(request.getMerchantId())
+                .userId(request.getCustomerEmail()) // Using email as userId for now
+                .amount(transaction.getMoney())
+                .build();
+    }
+
+    /**
+     * Settle the final state from the fraud verdict (failing closed when
+     * scoring failed) and the authorization rules, without writing anything.
+     * An approved payment holds its share of the daily volume until it is
+     * written or released; see {@link AuthorizationLimits}.
+     */
+    Transaction decide(Transaction transaction, FraudResult fraudResult, Exception fraudError, ExecutionMode mode) {
+        if (fraudError != null) {
+            return failClosed(transaction, fraudError);
+        }
+        try {
+            if (fraudResult != null && FraudResult.FraudDecision.BLOCK.equals(fraudResult.getDecision())) {
+                log.warn("Transaction blocked by Fraud Service. Risk Score: {}", fraudResult.getRiskScore());
+                transaction.setStatus(Transaction.TransactionStatus.FAILED);
+                transaction.setFailureReason("High Risk Fraud Detected");
+                return transaction;
+            } else if (fraudResult.getDecision() == FraudResult.FraudDecision.MANUAL_REVIEW) {
+                log.info("Transaction flagged for Manual Review (Gray Path). Risk Score: {}",
+                        fraudResult.getRiskScore());
+                transaction.setDescription(transaction.getDescription() + " [REVIEW REQUIRED]");
+            }
+        } catch (Exception e) {
+            return failClosed(transaction, e);
+        }
+
+        // 6. Process Path
+        return stageExecutor.time(STAGE_AUTHORIZE, mode, () -> processModernPath(transaction));
+    }
+
+    private Transaction failClosed(Transaction transaction, Exception cause) {
+        log.error("Fraud check failed, failing closed", cause);
+        transaction.setStatus(Transaction.TransactionStatus.FAILED);
+        transaction.setFailureReason("Fraud Check System Error");
+        return transaction;
+    }
+
+    private Transaction processModernPath(Transaction transaction) {
+        log.info("[MODERN-CORE] Executing modern authorization logic");
+        AuthorizationLimits.Decision decision = authorizationLimits.authorize(transaction);
+        if (decision == AuthorizationLimits.Decision.APPROVED) {
+            transaction.setStatus(Transaction.TransactionStatus.AUTHORIZED);
+            transaction.setAuthorizationCode("AUTH_" + UUID.randomUUID().toString().substring(0, 8));
+            transaction.setReferenceNumber("REF_" + System.currentTimeMillis());
+        } else {
+            transaction.setStatus(Transaction.TransactionStatus.FAILED);
+            transaction.setFailureReason(decision.failureReason());
+        }
+        return transaction;
+    }
+
+    /**
+     * For payments decided outside a database transaction: it was written, so
+     * its volume is read back from {@code transactions} from now on.
+     */
+    void written(Transaction transaction) {
+        authorizationLimits.confirm(transaction);
+    }
+
+    /**
+     * For payments decided outside a database transaction: it will not be
+     * written, so an approval gives back its volume.
+     */
+    void abandoned(Transaction transaction) {
+        authorizationLimits.release(transaction);
+    }
+}
@@ -0,0 +1,350 @@
+package com.paymentgateway.payment.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paymentgateway.common.dto.ApiResponse;
+import com.paymentgateway.common.dto.merchant.MerchantResponse;
+import com.paymentgateway.common.dto.vault.TokenizeResponse;
+import com.paymentgateway.common.money.Money;
+import com.paymentgateway.fraud.dto.FraudResult;
+import com.paymentgateway.payment.client.FraudClient;
+import com.paymentgateway.payment.client.MerchantCache;
+import com.paymentgateway.payment.client.MerchantClient;
+import com.paymentgateway.payment.client.VaultClient;
+import com.paymentgateway.payment.dto.PaymentRequest;
+import com.paymentgateway.payment.messaging.PaymentOutbox;
+import com.paymentgateway.payment.repository.OutboxEventRepository;
+import com.paymentgateway.payment.repository.TransactionRepository;
+import com.paymentgateway.payment.service.PaymentStageExecutor.ExecutionMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggerConfiguration;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Deterministic JIT warmup for checkpoint/restore: replays a recorded set of
+ * synthetic payments ({@code payment.crac.warmup.payments}) through a private
+ * {@link PaymentService} wired to in-process stubs. The real merchant, vault
+ * and fraud clients run on {@link RestTemplate}s whose interceptor answers
+ * locally, and the repositories keep nothing, so no downstream, database or
+ * broker is touched.
+ * <p>
+ * The JVM does not say when a particular method reaches C2, so the replay
+ * runs at least {@code min-payments} payments (past the tier-4 invocation
+ * thresholds of the hot methods) and then until the JIT goes quiet: three
+ * rounds in a row that add no more than {@code quiet-compile-time} of total
+ * compilation time. {@code max-duration} bounds the whole run.
+ */
+@Slf4j
+@Component
+public class PaymentWarmup {
+
+    private static final int QUIET_ROUNDS = 3;
+    private static final String STUB_BASE_URL = "http://warmup.local";
+    private static final List<String> WARMUP_LOGGERS = List.of(PaymentService.class.getPackageName(),
+            MerchantClient.class.getPackageName(), PaymentOutbox.class.getPackageName());
+
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<LoggingSystem> loggingSystem;
+
+    @Value("${payment.crac.warmup.payments:classpath:warmup/synthetic-payments.json}")
+    private Resource payments;
+
+    @Value("${payment.crac.warmup.min-payments:12000}")
+    private int minPayments = 12000;
+
+    @Value("${payment.crac.warmup.max-duration:20s}")
+    private Duration maxDuration = Duration.ofSeconds(20);
+
+    @Value("${payment.crac.warmup.quiet-compile-time:5ms}")
+    private Duration quietCompileTime = Duration.ofMillis(5);
+
+    @Value("${payment.execution.mode:SEQUENTIAL}")
+    private ExecutionMode executionMode = ExecutionMode.SEQUENTIAL;
+
+    @Value("${payment.max-transaction-amount:10000}")
+    private BigDecimal maxTransactionAmount = BigDecimal.valueOf(10000);
+
+    public PaymentWarmup(ObjectMapper objectMapper, ObjectProvider<LoggingSystem> loggingSystem) {
+        this.objectMapper = objectMapper;
+        this.loggingSystem = loggingSystem;
+    }
+
+    public Result run() {
+        List<PaymentRequest> recorded = recordedPayments();
+        CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+        boolean canWatchJit = jit != null && jit.isCompilationTimeMonitoringSupported();
+        long compileStart = canWatchJit ? jit.getTotalCompilationTime() : 0;
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+        int replayed = 0;
+        int quietRounds = 0;
+
+        SimpleMeterRegistry stubRegistry = new SimpleMeterRegistry();
+        PaymentStageExecutor stageExecutor = new PaymentStageExecutor(stubRegistry);
+        PaymentService service = stubService(stageExecutor, stubRegistry);
+        // The replay would otherwise log every synthetic payment
+        LoggingSystem logging = loggingSystem.getIfAvailable();
+        Map<String, LogLevel> previousLevels = quiet(logging);
+        try {
+            long lastCompileTime = compileStart;
+            while (System.nanoTime() < deadline) {
+                for (PaymentRequest request : recorded) {
+                    replay(service, request);
+                }
+                replayed += recorded.size();
+                if (canWatchJit) {
+                    long compileTime = jit.getTotalCompilationTime();
+                    quietRounds = compileTime - lastCompileTime <= quietCompileTime.toMillis() ? quietRounds + 1 : 0;
+                    lastCompileTime = compileTime;
+                }
+                if (replayed >= minPayments && (!canWatchJit || quietRounds >= QUIET_ROUNDS)) {
+                    break;
+                }
+            }
+        } finally {
+            restore(logging, previousLevels);
+            stageExecutor.shutdown();
+        }
+        Result result = new Result(replayed, Duration.ofNanos(System.nanoTime() - start),
+                Duration.ofMillis(canWatchJit ? jit.getTotalCompilationTime() - compileStart : 0),
+                quietRounds >= QUIET_ROUNDS);
+        log.info("JIT warmup replayed {} payments in {} ms ({} ms compiling, settled={})", result.payments(),
+                result.elapsed().toMillis(), result.compileTime().toMillis(), result.settled());
+        return result;
+    }
+
+    private static void replay(PaymentService service, PaymentRequest request) {
+        try {
+            service.processPayment(request);
+        } catch (RuntimeException expected) {
+            // Rejections are part of the recorded mix
+        }
+    }
+
+    private List<PaymentRequest> recordedPayments() {
+        try (InputStream in = payments.getInputStream()) {
+            List<PaymentRequest> recorded = objectMapper.readValue(in, new TypeReference<List<PaymentRequest>>() {
+            });
+            if (recorded.isEmpty()) {
+                throw new IllegalStateException("No recorded warmup payments in " + payments);
+            }
+            return recorded;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read warmup payments from " + payments, e);
+        }
+    }
+
+    /**
+     * A PaymentService over the real clients, outbox and stage executor, with
+     * every boundary (HTTP, JPA) answered in-process. Its authorization limits
+     * are the configured cap alone, so replayed payments never count toward a
+     * merchant's real daily volume.
+     */
+    PaymentService stubService(PaymentStageExecutor stageExecutor, SimpleMeterRegistry stubRegistry) {
+        MerchantClient merchantClient = new MerchantClient(stubRestTemplate(),
+                new MerchantCache(1000, Duration.ofMinutes(5), stubRegistry));
+        VaultClient vaultClient = new VaultClient(stubRestTemplate());
+        FraudClient fraudClient = new FraudClient(stubRestTemplate());
+        setBaseUrl(merchantClient, "merchantUrl");
+        setBaseUrl(vaultClient, "vaultUrl");
+        setBaseUrl(fraudClient, "fraudServiceUrl");
+
+        PaymentOutbox outbox = new PaymentOutbox(repository(OutboxEventRepository.class), objectMapper);
+        PaymentService service = new PaymentService(repository(TransactionRepository.class), vaultClient, outbox,
+                fraudClient, stageExecutor, null, new PaymentSteps(merchantClient, stageExecutor,
+                        new AuthorizationLimits(stubRegistry, maxTransactionAmount)));
+        service.setExecutionMode(executionMode);
+        return service;
+    }
+
+    private RestTemplate stubRestTemplate() {
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.getInterceptors().add(new StubDownstreams(objectMapper));
+        return restTemplate;
+    }
+
+    private static void setBaseUrl(Object client, String name) {
+        // The clients take their base URLs by field injection only
+        Field field = ReflectionUtils.findField(client.getClass(), name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, client, STUB_BASE_URL);
+    }
+
+    /**
+     * A repository that accepts every write and finds nothing.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T repository(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "save":
+                    return args[0];
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "warmup " + type.getSimpleName();
+                default:
+                    break;
+            }
+            Class<?> returns = method.getReturnType();
+            if (returns == Optional.class) {
+                return Optional.empty();
+            }
+            if (returns == List.class || returns == Iterable.class) {
+                return List.of();
+            }
+            if (returns == boolean.class) {
+                return false;
+            }
+            if (returns == long.class) {
+                return 0L;
+            }
+            if (returns == int.class) {
+                return 0;
+            }
+            return null;
+        });
+    }
+
+    private static Map<String, LogLevel> quiet(LoggingSystem logging) {
+        Map<String, LogLevel> previous = new HashMap<>();
+        if (logging == null) {
+            return previous;
+        }
+        for (String name : WARMUP_LOGGERS) {
+            LoggerConfiguration configuration = logging.getLoggerConfiguration(name);
+            previous.put(name, configuration == null ? null : configuration.getConfiguredLevel());
+            logging.setLogLevel(name, LogLevel.WARN);
+        }
+        return previous;
+    }
+
+    private static void restore(LoggingSystem logging, Map<String, LogLevel> previous) {
+        if (logging != null) {
+            previous.forEach(logging::setLogLevel);
+        }
+    }
+
+    /**
+     * Outcome of one warmup run; {@code settled} is false when max-duration
+     * cut it short before the JIT went quiet.
+     */
+    public record Result(int payments, Duration elapsed, Duration compileTime, boolean settled) {
+    }
+
+    /**
+     * Answers the merchant, vault and fraud endpoints in-process. Fraud
+     * decisions follow the amount so every branch of the payment flow runs.
+     */
+    static final class StubDownstreams implements ClientHttpRequestInterceptor {
+
+        private final ObjectMapper objectMapper;
+
+        StubDownstreams(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+                throws IOException {
+            String path = request.getURI().getPath();
+            Object data;
+            if (path.startsWith("/merchants/")) {
+                String id = path.substring("/merchants/".length());
+                data = MerchantResponse.builder()
+                        .id(id)
+                        .name("Warmup merchant")
+                        .status(id.endsWith("suspended") ? "SUSPENDED" : "ACTIVE")
+                        .build();
+            } else if (path.endsWith("/vault/tokenize")) {
+                data = TokenizeResponse.builder().token("tok_warmup").lastFour("1111").build();
+            } else if (path.endsWith("/fraud/check")) {
+                JsonNode check = objectMapper.readTree(body);
+                double amount = objectMapper.treeToValue(check.path("amount"), Money.class).toDouble();
+                FraudResult.FraudDecision decision = amount >= 7000 && amount < 10000 ? FraudResult.FraudDecision.BLOCK
+                        : amount >= 1000 && amount < 7000 ? FraudResult.FraudDecision.MANUAL_REVIEW
+                        : FraudResult.FraudDecision.APPROVE;
+                data = FraudResult.builder()
+                        .transactionId(check.path("transactionId").asText())
+                        .riskScore(decision == FraudResult.FraudDecision.APPROVE ? 0.1 : 0.8)
+                        .decision(decision)
+                        .build();
+            } else {
+                return new StubResponse(HttpStatus.NOT_FOUND, new byte[0]);
+            }
+            return new StubResponse(HttpStatus.OK, objectMapper.writeValueAsBytes(ApiResponse.success(data)));
+        }
+    }
+
+    private static final class StubResponse implements ClientHttpResponse {
+
+        private final HttpStatus status;
+        private final byte[] body;
+        private final HttpHeaders headers = new HttpHeaders();
+
+        private StubResponse(HttpStatus status, byte[] body) {
+            this.status = status;
+            this.body = body;
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.setContentLength(body.length);
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return status;
+        }
+
+        @Override
+        public String getStatusText() {
+            return status.getReasonPhrase();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.paymentgateway.payment.service;
+
+import com.paymentgateway.common.event.SettlementBatchEvent;
+import com.paymentgateway.common.model.TimeOrderedIds;
+import com.paymentgateway.payment.messaging.PaymentOutbox;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Settles AUTHORIZED and CAPTURED transactions once they are
+ * {@code payment.settlement-delay-minutes} old.
+ * <p>
+ * Each pass streams the due rows through a server-side cursor
+ * ({@code payment.settlement.fetch-size} rows per round trip) and groups them
+ * per merchant and currency. A group is settled as soon as it holds
+ * {@code payment.settlement.batch-size} rows, and whatever is left once the
+ * cursor is exhausted is settled at the end. Settling a batch is one database
+ * transaction: one UPDATE of every row of the batch and one
+ * {@link SettlementBatchEvent} in the outbox.
+ * <p>
+ * The UPDATE locks its rows with {@code FOR UPDATE SKIP LOCKED} and re-checks
+ * their status, so instances running at the same time never settle a row
+ * twice. Rows locked by another instance, or by a capture in progress, are
+ * skipped and picked up on a later pass.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "payment.settlement", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SettlementEngine {
+
+    /**
+     * Served by idx_transactions_status_created; takes no locks.
+     */
+    private static final String DUE = """
+            SELECT id, created_at, merchant_id, currency FROM transactions
+            WHERE status IN ('AUTHORIZED', 'CAPTURED') AND created_at < ?
+            """;
+
+    private static final String SETTLE = """
+            WITH due AS (
+                SELECT t.id, t.created_at FROM transactions t
+                JOIN unnest(?::varchar[], ?::timestamp[]) AS batch(id, created_at)
+                  ON t.id = batch.id AND t.created_at = batch.created_at
+                WHERE t.status IN ('AUTHORIZED', 'CAPTURED')
+                FOR UPDATE OF t SKIP LOCKED
+            )
+            UPDATE transactions t SET status = 'SETTLED', settled_at = ?, updated_at = ?
+            FROM due
+            WHERE t.id = due.id AND t.created_at = due.created_at
+            RETURNING t.id, t.amount
+            """;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PaymentOutbox paymentOutbox;
+    private final MeterRegistry meterRegistry;
+    private final Counter settled;
+    private final Counter skipped;
+    private final Timer batchTimer;
+    private Clock clock = Clock.systemDefaultZone();
+
+    @Value("${payment.settlement-delay-minutes:30}")
+    private long settlementDelayMinutes = 30;
+
+    @Value("${payment.settlement.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${payment.settlement.fetch-size:1000}")
+    private int fetchSize = 1000;
+
+    public SettlementEngine(DataSource dataSource, TransactionTemplate transactionTemplate,
+            PaymentOutbox paymentOutbox, MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = transactionTemplate;
+        this.paymentOutbox = paymentOutbox;
+        this.meterRegistry = meterRegistry;
+        this.settled = Counter.builder("payment.settlement.settled").register(meterRegistry);
+        this.skipped = Counter.builder("payment.settlement.skipped")
+                .description("Due rows left for a later pass: locked elsewhere or no longer unsettled")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("payment.settlement.batch").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${payment.settlement.interval-ms:60000}",
+            initialDelayString = "${payment.settlement.interval-ms:60000}")
+    public void run() {
+        try {
+            int count = settleDue();
+            if (count > 0) {
+                log.info("Settled {} transactions", count);
+            }
+        } catch (SQLException | RuntimeException e) {
+            meterRegistry.counter("payment.settlement.failures").increment();
+            log.error("Settlement pass failed; unsettled transactions are retried on the next pass", e);
+        }
+    }
+
+    /**
+     * One pass over everything due now; returns how many transactions this
+     * instance settled.
+     */
+    int settleDue() throws SQLException {
+        LocalDateTime now = LocalDateTime.now(clock);
+        Map<Group, List<Candidate>> open = new HashMap<>();
+        int count = 0;
+        try (Connection connection = dataSource.getConnection()) {
+            // The driver only streams with autocommit off; the read itself locks nothing
+            connection.setAutoCommit(false);
+            try (PreparedStatement due = connection.prepareStatement(DUE)) {
+                due.setFetchSize(fetchSize);
+                due.setTimestamp(1, Timestamp.valueOf(now.minusMinutes(settlementDelayMinutes)));
+                try (ResultSet rows = due.executeQuery()) {
+                    while (rows.next()) {
+                        Group group = new Group(rows.getString(3), rows.getString(4));
+                        List<Candidate> batch = open.computeIfAbsent(group, g -> new ArrayList<>());
+                        batch.add(new Candidate(rows.getString(1), rows.getTimestamp(2)));
+                        if (batch.size() >= batchSize) {
+                            count += settle(group, open.remove(group), now);
+                        }
+                    }
+                }
+            } finally {
+                connection.rollback();
+            }
+        }
+        for (Map.Entry<Group, List<Candidate>> batch : open.entrySet()) {
+            count += settle(batch.getKey(), batch.getValue(), now);
+        }
+        return count;
+    }
+
+    private int settle(Group group, List<Candidate> batch, LocalDateTime settledAt) {
+        Integer count = batchTimer.record(() -> transactionTemplate.execute(status -> {
+            List<Settled> rows = jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(SETTLE);
+                statement.setArray(1, connection.createArrayOf("varchar",
+                        batch.stream().map(Candidate::id).toArray()));
+                statement.setArray(2, connection.createArrayOf("timestamp",
+                        batch.stream().map(Candidate::createdAt).toArray()));
+                statement.setTimestamp(3, Timestamp.valueOf(settledAt));
+                statement.setTimestamp(4, Timestamp.valueOf(settledAt));
+                return statement;
+            }, (row, i) -> new Settled(row.getString(1), row.getBigDecimal(2)));
+            if (!rows.isEmpty()) {
+                paymentOutbox.appendSettlement(SettlementBatchEvent.builder()
+                        .batchId(TimeOrderedIds.next())
+                        .merchantId(group.merchantId())
+                        .currency(group.currency())
+                        .transactionCount(rows.size())
+                        .totalAmount(rows.stream().map(Settled::amount).reduce(BigDecimal.ZERO, BigDecimal::add))
+                        .transactionIds(rows.stream().map(Settled::id).toList())
+                        .settledAt(settledAt)
+                        .build());
+            }
+            return rows.size();
+        }));
+        int settledRows = count == null ? 0 : count;
+        settled.increment(settledRows);
+        skipped.increment(batch.size() - settledRows);
+        return settledRows;
+    }
+
+    private record Group(String merchantId, String currency) {
+    }
+
+    private record Candidate(String id, Timestamp createdAt) {
+    }
+
+    private record Settled(String id, BigDecimal amount) {
+    }
+}
@@ -0,0 +1,78 @@
+package com.paymentgateway.payment.service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Structured fan-out for a single payment.
+ * <p>
+ * Every subtask forked here is owned by the scope: the first failure cancels
+ * all siblings still in flight, and {@link #close()} guarantees nothing
+ * outlives the request. This is the contract of
+ * {@code StructuredTaskScope.ShutdownOnFailure}, which is still a preview API
+ * on Java 21.
+ */
+final class StageScope implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final List<Future<?>> subtasks = new CopyOnWriteArrayList<>();
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+    StageScope(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    <T> Future<T> fork(Callable<T> task) {
+        Future<T> subtask = executor.submit(() -> {
+            try {
+                return task.call();
+            } catch (Exception e) {
+                if (failure.compareAndSet(null, e)) {
+                    cancelAll();
+                }
+                throw e;
+            }
+        });
+        subtasks.add(subtask);
+        if (failure.get() != null) {
+            subtask.cancel(true);
+        }
+        return subtask;
+    }
+
+    /**
+     * Wait for every forked subtask to finish or be cancelled.
+     */
+    void join() throws InterruptedException {
+        for (Future<?> subtask : subtasks) {
+            try {
+                subtask.get();
+            } catch (ExecutionException | CancellationException e) {
+                // Surfaced through failure()
+            }
+        }
+    }
+
+    /**
+     * The exception of the first subtask that failed, if any.
+     */
+    Optional<Exception> failure() {
+        return Optional.ofNullable(failure.get());
+    }
+
+    @Override
+    public void close() {
+        cancelAll();
+    }
+
+    private void cancelAll() {
+        subtasks.forEach(subtask -> subtask.cancel(true));
+    }
+}
@@ -0,0 +1,276 @@
+package com.paymentgateway.payment.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the monthly {@code transactions} partitions rolling: creates the
+ * upcoming months ahead of time and moves partitions that have aged out of the
+ * hot window to the cold store (a gzipped CSV per partition under
+ * {@code payment.partitions.archive-dir}) before dropping them.
+ * <p>
+ * Runs at startup and then daily. A PostgreSQL advisory lock makes sure only
+ * one instance does the work. A partition is exported before it is detached,
+ * so an interrupted run simply repeats on the next pass; a concurrent detach
+ * cut short leaves the partition pending, and the next pass finalizes it.
+ * <p>
+ * Dropping a partition destroys the only other copy of its rows, so it happens
+ * only once the archive is known to survive the pod: the archive directory
+ * must be a mounted volume (unless {@code require-mounted-archive} is off),
+ * the file and its directory are fsynced, the file reads back intact and
+ * holds exactly as many rows as the detached partition.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "payment.partitions", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TransactionPartitionManager {
+
+    static final String PARENT = "transactions";
+    private static final long ADVISORY_LOCK = 0x7061727469746eL;
+    private static final Pattern BOUNDS = Pattern.compile("FROM \\((.+)\\) TO \\((.+)\\)");
+    private static final Pattern SAFE_NAME = Pattern.compile("[a-z0-9_]+");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+    private Clock clock = Clock.systemDefaultZone();
+
+    @Value("${payment.partitions.months-ahead:3}")
+    private int monthsAhead = 3;
+
+    @Value("${payment.partitions.hot-months:13}")
+    private int hotMonths = 13;
+
+    @Value("${payment.partitions.archive-dir:/var/lib/payment-service/archive}")
+    private Path archiveDir = Path.of("/var/lib/payment-service/archive");
+
+    @Value("${payment.partitions.require-mounted-archive:true}")
+    private boolean requireMountedArchive = true;
+
+    public TransactionPartitionManager(DataSource dataSource, MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${payment.partitions.cron:0 15 3 * * *}")
+    public void maintain() {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            if (!tryLock(connection)) {
+                log.debug("Partition maintenance already running on another instance");
+                return;
+            }
+            try {
+                YearMonth current = YearMonth.now(clock);
+                createUpcoming(connection, current);
+                archiveCold(connection, current.minusMonths(hotMonths).atDay(1).atStartOfDay());
+            } finally {
+                unlock(connection);
+            }
+        } catch (SQLException | IOException e) {
+            meterRegistry.counter("payment.partitions.failures").increment();
+            log.error("Transaction partition maintenance failed", e);
+        }
+    }
+
+    private void createUpcoming(Connection connection, YearMonth current) throws SQLException {
+        List<Partition> partitions = partitions(connection);
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            LocalDateTime from = month.atDay(1).atStartOfDay();
+            if (partitions.stream().anyMatch(partition -> partition.covers(from))) {
+                continue;
+            }
+            String name = PARENT + "_p" + month.format(SUFFIX);
+            execute(connection, "CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF " + PARENT
+                    + " FOR VALUES FROM ('" + from + "') TO ('" + from.plusMonths(1) + "')");
+            meterRegistry.counter("payment.partitions.created").increment();
+            log.info("Created transaction partition {}", name);
+        }
+    }
+
+    private void archiveCold(Connection connection, LocalDateTime hotFrom) throws SQLException, IOException {
+        for (Partition partition : partitions(connection)) {
+            if (partition.to().isAfter(hotFrom)) {
+                continue;
+            }
+            requireDurableArchiveDir();
+            Archive archive = export(connection, partition.name());
+            execute(connection, "ALTER TABLE " + PARENT + " DETACH PARTITION " + partition.name()
+                    + (partition.detachPending() ? " FINALIZE" : " CONCURRENTLY"));
+            if (count(connection, partition.name()) != archive.rows()) {
+                // Written to between export and detach; detached, it can no longer change
+                archive = export(connection, partition.name());
+            }
+            execute(connection, "DROP TABLE " + partition.name());
+            execute(connection, "DELETE FROM transaction_idempotency_keys WHERE created_at < '" + partition.to() + "'");
+            meterRegistry.counter("payment.partitions.archived").increment();
+            log.info("Archived transaction partition {} ({} rows) to {}", partition.name(), archive.rows(),
+                    archive.file());
+        }
+    }
+
+    /**
+     * A directory on the container's own filesystem vanishes with the pod, so
+     * the archive must live on a separately mounted volume.
+     */
+    private void requireDurableArchiveDir() throws IOException {
+        Files.createDirectories(archiveDir);
+        if (requireMountedArchive
+                && Files.getFileStore(archiveDir).equals(Files.getFileStore(archiveDir.getRoot()))) {
+            throw new IOException("Archive directory " + archiveDir
+                    + " is not on a mounted volume; refusing to drop cold partitions");
+        }
+    }
+
+    /**
+     * Stream the partition through COPY into a gzipped CSV, published with an
+     * atomic rename so a half-written archive is never mistaken for a complete
+     * one. The row count is taken in the same snapshot as the COPY, and the
+     * file is fsynced and read back before it is trusted.
+     */
+    private Archive export(Connection connection, String table) throws SQLException, IOException {
+        Path target = archiveDir.resolve(table + ".csv.gz");
+        Path partial = archiveDir.resolve(table + ".csv.gz.partial");
+        long expected;
+        long copied;
+        connection.setAutoCommit(false);
+        connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        try {
+            expected = count(connection, table);
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(partial))) {
+                copied = connection.unwrap(PGConnection.class).getCopyAPI()
+                        .copyOut("COPY " + table + " TO STDOUT (FORMAT csv, HEADER)", out);
+            }
+            connection.commit();
+        } catch (SQLException | IOException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+            connection.setAutoCommit(true);
+        }
+        if (copied != expected) {
+            throw new IOException("Exported " + copied + " rows from " + table + " but it holds " + expected);
+        }
+        fsync(partial, StandardOpenOption.WRITE);
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        fsync(archiveDir, StandardOpenOption.READ);
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(target))) {
+            // A truncated or corrupt file fails the gzip trailer check
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return new Archive(target, copied);
+    }
+
+    private static void fsync(Path path, StandardOpenOption mode) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, mode)) {
+            channel.force(true);
+        }
+    }
+
+    private static long count(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet rows = statement.executeQuery("SELECT count(*) FROM " + table)) {
+            rows.next();
+            return rows.getLong(1);
+        }
+    }
+
+    List<Partition> partitions(Connection connection) throws SQLException {
+        List<Partition> partitions = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+                ResultSet rows = statement.executeQuery("""
+                        SELECT c.relname, pg_get_expr(c.relpartbound, c.oid), i.inhdetachpending
+                        FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+                        WHERE i.inhparent = 'transactions'::regclass
+                        """)) {
+            while (rows.next()) {
+                partitions.add(Partition.parse(rows.getString(1), rows.getString(2), rows.getBoolean(3)));
+            }
+        }
+        return partitions;
+    }
+
+    private boolean tryLock(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet rows = statement.executeQuery("SELECT pg_try_advisory_lock(" + ADVISORY_LOCK + ")")) {
+            return rows.next() && rows.getBoolean(1);
+        }
+    }
+
+    private void unlock(Connection connection) throws SQLException {
+        execute(connection, "SELECT pg_advisory_unlock(" + ADVISORY_LOCK + ")");
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private record Archive(Path file, long rows) {
+    }
+
+    /**
+     * One attached partition and its range; {@code from} is null for MINVALUE.
+     * {@code detachPending} marks a {@code DETACH ... CONCURRENTLY} that was
+     * interrupted and can now only be finalized.
+     */
+    record Partition(String name, LocalDateTime from, LocalDateTime to, boolean detachPending) {
+
+        static Partition parse(String name, String bound, boolean detachPending) {
+            Matcher matcher = BOUNDS.matcher(bound);
+            if (!SAFE_NAME.matcher(name).matches() || !matcher.find()) {
+                throw new IllegalStateException("Unexpected partition " + name + ": " + bound);
+            }
+            return new Partition(name, timestamp(matcher.group(1)), timestamp(matcher.group(2)), detachPending);
+        }
+
+        boolean covers(LocalDateTime instant) {
+            return (from == null || !from.isAfter(instant)) && instant.isBefore(to);
+        }
+
+        private static LocalDateTime timestamp(String literal) {
+            if ("MINVALUE".equals(literal)) {
+                return null;
+            }
+            if ("MAXVALUE".equals(literal)) {
+                return LocalDateTime.MAX;
+            }
+            return LocalDateTime.parse(literal.replace("'", "").replace(' ', 'T'));
+        }
+    }
+}
@@ -0,0 +1,21 @@
+-- Baseline of the schema previously created by hbm2ddl; existing databases are
+-- baselined at this version and start from V2.
+CREATE TABLE IF NOT EXISTS transactions (
+    id                 VARCHAR(255)   PRIMARY KEY,
+    merchant_id        VARCHAR(255)   NOT NULL,
+    amount             NUMERIC(19, 2) NOT NULL,
+    currency           VARCHAR(3)     NOT NULL,
+    status             VARCHAR(255)   NOT NULL,
+    payment_method     VARCHAR(255)   NOT NULL,
+    card_token         VARCHAR(255),
+    authorization_code VARCHAR(255),
+    reference_number   VARCHAR(255),
+    description        VARCHAR(500),
+    customer_email     VARCHAR(255),
+    failure_reason     VARCHAR(255),
+    idempotency_key    VARCHAR(255),
+    created_at         TIMESTAMP(6),
+    updated_at         TIMESTAMP(6),
+    settled_at         TIMESTAMP(6),
+    CONSTRAINT uk_transactions_idempotency_key UNIQUE (idempotency_key)
+);
@@ -0,0 +1,10 @@
+-- V3 attaches this table as the first partition of a table whose primary key
+-- is (id, created_at). Built here CONCURRENTLY, so a live table keeps taking
+-- writes; V3 then only swaps it in as the primary key instead of building it
+-- while holding ACCESS EXCLUSIVE. Flyway runs this statement outside a
+-- transaction.
+--
+-- An interrupted build leaves an INVALID index behind, which V3 refuses; drop
+-- it and migrate again.
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS transactions_id_created_at_key
+    ON transactions (id, created_at);
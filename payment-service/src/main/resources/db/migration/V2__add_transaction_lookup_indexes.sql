@@ -0,0 +1,14 @@
+-- Built CONCURRENTLY so a live table keeps taking writes; Flyway runs these
+-- statements outside a transaction.
+
+-- Merchant listing (keyset on created_at, id) and findByMerchantId
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_merchant_created
+    ON transactions (merchant_id, created_at DESC, id DESC);
+
+-- Merchant listing filtered by status and findByMerchantIdAndStatus
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_merchant_status_created
+    ON transactions (merchant_id, status, created_at DESC, id DESC);
+
+-- findByStatus (settlement and back-office sweeps), oldest first
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_status_created
+    ON transactions (status, created_at);
@@ -0,0 +1,78 @@
+-- Range-partition transactions by created_at (one partition per month).
+--
+-- The existing table is kept as-is and attached as the partition for
+-- everything before next month, so no rows are copied. New rows go to monthly
+-- partitions maintained by TransactionPartitionManager.
+--
+-- The whole script holds ACCESS EXCLUSIVE on transactions. Its primary key
+-- index was built beforehand (V2_1), but the script still scans the table
+-- three times: backfilling created_at, SET NOT NULL and the range check that
+-- lets ATTACH skip its own scan. On a large table run it in a maintenance
+-- window; expect roughly one sequential read of the table per pass.
+
+ALTER TABLE transactions RENAME TO transactions_legacy;
+ALTER INDEX idx_transactions_merchant_created RENAME TO transactions_legacy_merchant_created;
+ALTER INDEX idx_transactions_merchant_status_created RENAME TO transactions_legacy_merchant_status_created;
+ALTER INDEX idx_transactions_status_created RENAME TO transactions_legacy_status_created;
+
+UPDATE transactions_legacy SET created_at = COALESCE(updated_at, now()) WHERE created_at IS NULL;
+ALTER TABLE transactions_legacy ALTER COLUMN created_at SET NOT NULL;
+
+-- ATTACH reuses a matching primary key instead of building one
+ALTER TABLE transactions_legacy
+    DROP CONSTRAINT transactions_pkey,
+    ADD CONSTRAINT transactions_legacy_pkey PRIMARY KEY USING INDEX transactions_id_created_at_key;
+
+-- The partition key has to be part of every unique constraint
+CREATE TABLE transactions (
+    LIKE transactions_legacy INCLUDING DEFAULTS,
+    CONSTRAINT pk_transactions PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX idx_transactions_merchant_created ON transactions (merchant_id, created_at DESC, id DESC);
+CREATE INDEX idx_transactions_merchant_status_created ON transactions (merchant_id, status, created_at DESC, id DESC);
+CREATE INDEX idx_transactions_status_created ON transactions (status, created_at);
+
+-- A unique index on a partitioned table must include created_at, so global
+-- idempotency-key uniqueness moves to a small unpartitioned claim table.
+CREATE TABLE transaction_idempotency_keys (
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    transaction_id  VARCHAR(255) NOT NULL,
+    created_at      TIMESTAMP(6) NOT NULL
+);
+
+INSERT INTO transaction_idempotency_keys (idempotency_key, transaction_id, created_at)
+SELECT idempotency_key, id, created_at FROM transactions_legacy WHERE idempotency_key IS NOT NULL;
+
+CREATE FUNCTION claim_transaction_idempotency_key() RETURNS trigger AS $$
+BEGIN
+    IF NEW.idempotency_key IS NOT NULL THEN
+        INSERT INTO transaction_idempotency_keys (idempotency_key, transaction_id, created_at)
+        VALUES (NEW.idempotency_key, NEW.id, NEW.created_at);
+    END IF;
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_transactions_idempotency_key
+    BEFORE INSERT ON transactions
+    FOR EACH ROW EXECUTE FUNCTION claim_transaction_idempotency_key();
+
+DO $$
+DECLARE
+    cutover TIMESTAMP := date_trunc('month', now()) + INTERVAL '1 month';
+    month_start TIMESTAMP;
+BEGIN
+    -- Validating the range up front lets ATTACH skip its own full-table scan
+    EXECUTE format('ALTER TABLE transactions_legacy ADD CONSTRAINT transactions_legacy_range CHECK (created_at < %L)', cutover);
+    EXECUTE format('ALTER TABLE transactions ATTACH PARTITION transactions_legacy FOR VALUES FROM (MINVALUE) TO (%L)', cutover);
+    ALTER TABLE transactions_legacy DROP CONSTRAINT transactions_legacy_range;
+
+    FOR i IN 0..2 LOOP
+        month_start := cutover + make_interval(months => i);
+        EXECUTE format('CREATE TABLE %I PARTITION OF transactions FOR VALUES FROM (%L) TO (%L)',
+                'transactions_p' || to_char(month_start, 'YYYYMM'),
+                month_start, month_start + INTERVAL '1 month');
+    END LOOP;
+END
+$$;
@@ -0,0 +1,16 @@
+-- Authorization limits, reloaded by the service every payment.limits.refresh-interval-ms.
+-- A NULL merchant_id, currency or payment_method matches every value; every matching
+-- row applies. Amounts are in major units of the row's currency, or of the payment's
+-- currency when currency is NULL. max_daily_volume caps what one merchant authorizes
+-- in one currency over the last 24 hours, across the payments the row matches.
+CREATE TABLE IF NOT EXISTS authorization_limits (
+    id                     BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    merchant_id            VARCHAR(255),
+    currency               VARCHAR(3),
+    payment_method         VARCHAR(32),
+    max_transaction_amount NUMERIC(19, 2),
+    max_daily_volume       NUMERIC(19, 2),
+    created_at             TIMESTAMP(6) NOT NULL DEFAULT now(),
+    CONSTRAINT ck_authorization_limits_amount
+        CHECK (max_transaction_amount IS NOT NULL OR max_daily_volume IS NOT NULL)
+);
@@ -0,0 +1,10 @@
+-- Events the payment service publishes to Kafka, written in the same transaction
+-- as the payment and relayed by OutboxRelay. Databases that had hbm2ddl create it
+-- before Flyway already have it.
+CREATE TABLE IF NOT EXISTS payment_outbox (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    aggregate_id VARCHAR(255) NOT NULL,
+    event_type   VARCHAR(32)  NOT NULL,
+    payload      BYTEA        NOT NULL,
+    created_at   TIMESTAMP(6)
+);
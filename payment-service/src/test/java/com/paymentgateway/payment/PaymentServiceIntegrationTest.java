@@ -27,6 +27,9 @@ import static org.assertj.core.api.Assertions.assertThat;
                 "spring.datasource.username=sa",
                 "spring.datasource.password=",
                 "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.flyway.enabled=false",
+                "payment.partitions.enabled=false",
+                "payment.read-routing.enabled=false",
                 "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
                 "spring.kafka.bootstrap-servers=localhost:9092"
 })
@@ -75,6 +78,10 @@ public class PaymentServiceIntegrationTest {
                                                 .token("mock-token-" + java.util.UUID.randomUUID())
                                                 .build());
 
+                // Outbox relay publishes through the mocked producer
+                Mockito.when(kafkaProducer.sendPaymentEvent(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                                .thenReturn(java.util.concurrent.CompletableFuture.completedFuture(null));
+
                 // Mock FraudClient
                 Mockito.when(fraudClient.checkFraud(ArgumentMatchers.any()))
                                 .thenReturn(FraudResult.builder()
@@ -7,11 +7,13 @@ import com.paymentgateway.common.dto.vault.TokenizeRequest;
 import com.paymentgateway.common.dto.vault.TokenizeResponse;
 import com.paymentgateway.fraud.dto.FraudCheckRequest;
 import com.paymentgateway.fraud.dto.FraudResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
@@ -24,6 +26,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,6 +36,10 @@ public class ClientTest {
     @Mock
     private RestTemplate restTemplate;
 
+    @Spy
+    private MerchantCache merchantCache = new MerchantCache(100, java.time.Duration.ofMinutes(5),
+            new SimpleMeterRegistry());
+
     @InjectMocks
     private FraudClient fraudClient;
 
@@ -85,6 +93,24 @@ public class ClientTest {
         assertThat(actual.getId()).isEqualTo("m-1");
     }
 
+    @Test
+    void merchantClient_getMerchant_ServedFromCacheUntilInvalidated() {
+        ApiResponse<MerchantResponse> apiResponse = ApiResponse.success(MerchantResponse.builder().id("m-2").build());
+        when(restTemplate.exchange(eq("http://merchant/merchants/m-2"), eq(HttpMethod.GET), any(),
+                any(ParameterizedTypeReference.class)))
+                .thenReturn(ResponseEntity.ok(apiResponse));
+
+        merchantClient.getMerchant("m-2");
+        merchantClient.getMerchant("m-2");
+        verify(restTemplate, times(1)).exchange(eq("http://merchant/merchants/m-2"), eq(HttpMethod.GET), any(),
+                any(ParameterizedTypeReference.class));
+
+        merchantCache.invalidate("m-2");
+        merchantClient.getMerchant("m-2");
+        verify(restTemplate, times(2)).exchange(eq("http://merchant/merchants/m-2"), eq(HttpMethod.GET), any(),
+                any(ParameterizedTypeReference.class));
+    }
+
     @Test
     void vaultClient_tokenize_ReturnsResult() {
         TokenizeRequest request = TokenizeRequest.builder().pan("1234").build();
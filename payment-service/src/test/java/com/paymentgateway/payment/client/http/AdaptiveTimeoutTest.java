@@ -0,0 +1,105 @@
+package com.paymentgateway.payment.client.http;
+
+import com.paymentgateway.payment.config.HttpClientProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AdaptiveTimeoutTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HttpClientProperties.AdaptiveTimeoutSettings settings = new HttpClientProperties.AdaptiveTimeoutSettings();
+
+    @Test
+    void usesReadTimeoutUntilEnoughSamples() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout("fraud", Duration.ofSeconds(2), settings, meterRegistry);
+
+        for (int i = 0; i < 50; i++) {
+            timeout.record(Duration.ofMillis(20).toNanos());
+        }
+
+        assertThat(timeout.current()).isEqualTo(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void tracksP99TimesMultiplier() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout("fraud", Duration.ofSeconds(2), settings, meterRegistry);
+
+        for (int i = 1; i <= 1000; i++) {
+            timeout.record(Duration.ofMillis(i % 100 == 0 ? 300 : 80).toNanos());
+        }
+
+        // Only 1% of calls take 300ms, so p99 sits on the 80ms tier: 80ms * 2.0
+        assertThat(timeout.current()).isEqualTo(Duration.ofMillis(160));
+        assertThat(meterRegistry.get("http.client.adaptive.timeout").tag("client", "fraud").timeGauge()
+                .value(TimeUnit.MILLISECONDS)).isEqualTo(160.0);
+    }
+
+    @Test
+    void clampsToReadTimeout() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout("fraud", Duration.ofSeconds(2), settings, meterRegistry);
+
+        for (int i = 0; i < 1000; i++) {
+            timeout.record(Duration.ofMillis(1500).toNanos());
+        }
+
+        assertThat(timeout.current()).isEqualTo(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void staysFixedWhenDisabled() {
+        settings.setEnabled(false);
+        AdaptiveTimeout timeout = new AdaptiveTimeout("fraud", Duration.ofSeconds(2), settings, meterRegistry);
+
+        for (int i = 0; i < 1000; i++) {
+            timeout.record(Duration.ofMillis(10).toNanos());
+        }
+
+        assertThat(timeout.current()).isEqualTo(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void intercept_SamplesSuccessfulCalls() throws IOException {
+        AdaptiveTimeout timeout = new AdaptiveTimeout("merchant", Duration.ofSeconds(2), settings, meterRegistry);
+        ClientHttpRequestExecution execution = respondingWith(HttpStatus.OK);
+
+        for (int i = 0; i < 100; i++) {
+            timeout.intercept(mock(HttpRequest.class), new byte[0], execution);
+        }
+
+        // Calls that return at once pull the timeout down to its floor
+        assertThat(timeout.current()).isEqualTo(settings.getMin());
+    }
+
+    @Test
+    void intercept_IgnoresServerErrors() throws IOException {
+        AdaptiveTimeout timeout = new AdaptiveTimeout("merchant", Duration.ofSeconds(2), settings, meterRegistry);
+        ClientHttpRequestExecution execution = respondingWith(HttpStatus.SERVICE_UNAVAILABLE);
+
+        for (int i = 0; i < 100; i++) {
+            timeout.intercept(mock(HttpRequest.class), new byte[0], execution);
+        }
+
+        assertThat(timeout.current()).isEqualTo(Duration.ofSeconds(2));
+    }
+
+    private static ClientHttpRequestExecution respondingWith(HttpStatus status) throws IOException {
+        ClientHttpResponse response = mock(ClientHttpResponse.class);
+        when(response.getStatusCode()).thenReturn(status);
+        ClientHttpRequestExecution execution = mock(ClientHttpRequestExecution.class);
+        when(execution.execute(any(), any())).thenReturn(response);
+        return execution;
+    }
+}
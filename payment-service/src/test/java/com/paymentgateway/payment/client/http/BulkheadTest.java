@@ -0,0 +1,65 @@
+package com.paymentgateway.payment.client.http;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BulkheadTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HttpRequest request = mock(HttpRequest.class);
+    private final ClientHttpRequestExecution execution = mock(ClientHttpRequestExecution.class);
+
+    @Test
+    void intercept_ReleasesPermitAfterCall() throws IOException {
+        Bulkhead bulkhead = new Bulkhead("vault", 1, Duration.ofMillis(10), meterRegistry);
+        ClientHttpResponse response = mock(ClientHttpResponse.class);
+        when(execution.execute(any(), any())).thenReturn(response);
+
+        assertThat(bulkhead.intercept(request, new byte[0], execution)).isSameAs(response);
+        assertThat(bulkhead.intercept(request, new byte[0], execution)).isSameAs(response);
+
+        assertThat(bulkhead.inFlight()).isZero();
+        assertThat(meterRegistry.get("http.client.bulkhead.wait").tag("client", "vault").timer().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void intercept_ReleasesPermitWhenCallFails() throws IOException {
+        Bulkhead bulkhead = new Bulkhead("vault", 1, Duration.ofMillis(10), meterRegistry);
+        when(execution.execute(any(), any())).thenThrow(new IOException("connection reset"));
+
+        assertThatThrownBy(() -> bulkhead.intercept(request, new byte[0], execution))
+                .isInstanceOf(IOException.class);
+
+        assertThat(bulkhead.inFlight()).isZero();
+    }
+
+    @Test
+    void intercept_RejectsWhenSaturated() throws IOException {
+        Bulkhead bulkhead = new Bulkhead("merchant", 1, Duration.ofMillis(10), meterRegistry);
+        bulkhead.acquire();
+
+        assertThatThrownBy(() -> bulkhead.intercept(request, new byte[0], execution))
+                .isInstanceOf(BulkheadFullException.class)
+                .hasMessageContaining("merchant");
+
+        verify(execution, never()).execute(any(), any());
+        assertThat(bulkhead.inFlight()).isEqualTo(1);
+        assertThat(meterRegistry.get("http.client.bulkhead.rejected").tag("client", "merchant").counter().count())
+                .isEqualTo(1.0);
+    }
+}
@@ -0,0 +1,147 @@
+package com.paymentgateway.payment.client.http;
+
+import com.paymentgateway.payment.config.HttpClientProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CircuitBreakerTest {
+
+    private static final long FAST = Duration.ofMillis(5).toNanos();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HttpRequest request = mock(HttpRequest.class);
+    private final ClientHttpRequestExecution execution = mock(ClientHttpRequestExecution.class);
+    private HttpClientProperties.CircuitBreakerSettings settings;
+
+    @BeforeEach
+    void setUp() {
+        settings = new HttpClientProperties.CircuitBreakerSettings();
+        settings.setSlidingWindowSize(10);
+        settings.setMinimumCalls(4);
+        settings.setFailureRateThreshold(50);
+        settings.setSlowCallRateThreshold(80);
+        settings.setSlowCallDuration(Duration.ofMillis(100));
+        settings.setHalfOpenProbes(2);
+    }
+
+    @Test
+    void opensOnceFailureRateCrossesThreshold() {
+        CircuitBreaker breaker = new CircuitBreaker("vault", settings, meterRegistry);
+
+        breaker.onResult(FAST, false);
+        breaker.onResult(FAST, true);
+        breaker.onResult(FAST, false);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        breaker.onResult(FAST, true);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(meterRegistry.get("http.client.circuit.state").tag("client", "vault").tag("state", "open")
+                .gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    void opensOnSlowCalls() {
+        CircuitBreaker breaker = new CircuitBreaker("vault", settings, meterRegistry);
+
+        for (int i = 0; i < 4; i++) {
+            breaker.onResult(Duration.ofMillis(150).toNanos(), false);
+        }
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void openCircuit_RejectsWithoutCallingDownstream() throws IOException {
+        CircuitBreaker breaker = new CircuitBreaker("vault", settings, meterRegistry);
+        when(execution.execute(any(), any())).thenThrow(new SocketTimeoutException("Read timed out"));
+
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> breaker.intercept(request, new byte[0], execution))
+                    .isInstanceOf(SocketTimeoutException.class);
+        }
+        assertThatThrownBy(() -> breaker.intercept(request, new byte[0], execution))
+                .isInstanceOf(CircuitOpenException.class);
+
+        verify(execution, times(4)).execute(any(), any());
+        assertThat(meterRegistry.get("http.client.circuit.calls").tag("outcome", "rejected").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void halfOpen_ClosesAfterHealthyProbes() {
+        settings.setWaitInOpen(Duration.ZERO);
+        CircuitBreaker breaker = new CircuitBreaker("vault", settings, meterRegistry);
+        for (int i = 0; i < 4; i++) {
+            breaker.onResult(FAST, true);
+        }
+
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+
+        breaker.onResult(FAST, false);
+        breaker.onResult(FAST, false);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void halfOpen_ReopensWhenProbesFail() {
+        settings.setWaitInOpen(Duration.ZERO);
+        CircuitBreaker breaker = new CircuitBreaker("vault", settings, meterRegistry);
+        for (int i = 0; i < 4; i++) {
+            breaker.onResult(FAST, true);
+        }
+        breaker.tryAcquirePermission();
+        breaker.tryAcquirePermission();
+
+        breaker.onResult(FAST, true);
+        breaker.onResult(FAST, false);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void serverErrorsCountAsFailures() throws IOException {
+        CircuitBreaker breaker = new CircuitBreaker("vault", settings, meterRegistry);
+        ClientHttpResponse response = mock(ClientHttpResponse.class);
+        when(response.getStatusCode()).thenReturn(HttpStatus.SERVICE_UNAVAILABLE);
+        when(execution.execute(any(), any())).thenReturn(response);
+
+        for (int i = 0; i < 4; i++) {
+            breaker.intercept(request, new byte[0], execution);
+        }
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void bulkheadRejectionsAreNotCounted() throws IOException {
+        CircuitBreaker breaker = new CircuitBreaker("vault", settings, meterRegistry);
+        when(execution.execute(any(), any())).thenThrow(new BulkheadFullException("vault"));
+
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> breaker.intercept(request, new byte[0], execution))
+                    .isInstanceOf(BulkheadFullException.class);
+        }
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+}
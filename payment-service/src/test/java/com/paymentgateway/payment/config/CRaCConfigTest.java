@@ -1,13 +1,55 @@
 package com.paymentgateway.payment.config;
 
+import com.paymentgateway.common.datasource.ReplicaPoolDataSource;
+import com.paymentgateway.payment.client.http.DownstreamHttpClientFactory;
+import com.paymentgateway.payment.controller.RestoreLatencyFilter;
+import com.paymentgateway.payment.service.PaymentWarmup;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.core.ResolvableType;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 public class CRaCConfigTest {
 
+    private final DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HikariDataSource pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:h2:mem:crac;DB_CLOSE_DELAY=-1");
+        pool.setPoolName("crac-test");
+        pool.setMinimumIdle(2);
+        pool.setAllowPoolSuspension(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
     @Test
     void cracLifecycle_Works() {
-        CRaCConfig config = new CRaCConfig();
+        CRaCConfig config = config();
 
         // We can't easily register with Core.getGlobalContext() in unit test
         // without complex mocking of static methods if it hits native code,
@@ -19,4 +61,61 @@ public class CRaCConfigTest {
             config.cleanup();
         }).doesNotThrowAnyException();
     }
+
+    @Test
+    void beforeCheckpoint_DrainsPoolsAndClosesProducers() throws Exception {
+        ProducerFactory<?, ?> producerFactory = mock(ProducerFactory.class);
+        beans.registerSingleton("producerFactory", producerFactory);
+        beans.registerSingleton("primaryDataSource", pool);
+        try (Connection connection = pool.getConnection()) {
+            assertThat(connection.isValid(1)).isTrue();
+        }
+
+        config().beforeCheckpoint(null);
+
+        assertThat(pool.getHikariPoolMXBean().getTotalConnections()).isZero();
+        verify(producerFactory).reset();
+    }
+
+    @Test
+    void afterRestore_ResumesPoolsAndArmsLatencyFilter() throws Exception {
+        RestoreLatencyFilter filter = new RestoreLatencyFilter();
+        beans.registerSingleton("restoreLatencyFilter", filter);
+        beans.registerSingleton("primaryDataSource", pool);
+        pool.getConnection().close();
+        CRaCConfig config = config();
+        config.beforeCheckpoint(null);
+
+        config.afterRestore(null);
+
+        try (Connection connection = pool.getConnection()) {
+            assertThat(connection.isValid(1)).isTrue();
+        }
+        assertThat(meterRegistry.get("payment.crac.restore.duration").timer().count()).isEqualTo(1);
+        filter.doFilter(new MockHttpServletRequest("GET", "/payments/tx-1"), new MockHttpServletResponse(),
+                new MockFilterChain());
+        assertThat(meterRegistry.get(CRaCConfig.TIME_TO_FIRST_P99).timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void hikariPools_IncludeReplicaPools() {
+        ReplicaPoolDataSource replicas = new ReplicaPoolDataSource(
+                List.of(new ReplicaPoolDataSource.Replica("replica-1", pool, 1, () -> 0)),
+                ReplicaPoolDataSource.Balancer.LEAST_OUTSTANDING, mock(DataSource.class), Duration.ofSeconds(10),
+                meterRegistry);
+        beans.registerSingleton("primaryDataSource", pool);
+        beans.registerSingleton("secondaryDataSource", replicas);
+
+        assertThat(config().hikariPools()).containsExactly(pool);
+    }
+
+    private CRaCConfig config() {
+        return new CRaCConfig(beans.getBeanProvider(DataSource.class),
+                beans.getBeanProvider(ResolvableType.forClass(ProducerFactory.class)),
+                beans.getBeanProvider(KafkaListenerEndpointRegistry.class),
+                beans.getBeanProvider(DownstreamHttpClientFactory.class),
+                beans.getBeanProvider(PaymentWarmup.class),
+                beans.getBeanProvider(RestoreLatencyFilter.class),
+                meterRegistry);
+    }
 }
@@ -1,6 +1,16 @@
 package com.paymentgateway.payment.config;
 
+import com.paymentgateway.common.datasource.CommittedWriteRecorder;
+import com.paymentgateway.common.datasource.ReplicaLagMonitor;
+import com.paymentgateway.common.datasource.ReplicaPoolDataSource;
+import com.paymentgateway.payment.client.http.AdaptiveTimeout;
+import com.paymentgateway.payment.client.http.Bulkhead;
+import com.paymentgateway.payment.client.http.CircuitBreaker;
+import com.paymentgateway.payment.client.http.DownstreamHttpClientFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerConfig;
 import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -9,7 +19,7 @@ import org.springframework.web.client.RestTemplate;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.verify;
 
 public class ConfigTest {
 
@@ -18,10 +28,15 @@ public class ConfigTest {
         KafkaConfig config = new KafkaConfig();
         ReflectionTestUtils.setField(config, "bootstrapServers", "localhost:9092");
 
-        ProducerFactory<String, Object> factory = config.producerFactory();
+        ProducerFactory<String, byte[]> factory = config.producerFactory();
         assertThat(factory).isNotNull();
+        assertThat(factory.getConfigurationProperties())
+                .containsEntry(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true)
+                .containsEntry(ProducerConfig.ACKS_CONFIG, "all")
+                .containsEntry(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4")
+                .containsEntry(ProducerConfig.LINGER_MS_CONFIG, 20);
 
-        KafkaTemplate<String, Object> template = config.kafkaTemplate();
+        KafkaTemplate<String, byte[]> template = config.kafkaTemplate();
         assertThat(template).isNotNull();
     }
 
@@ -33,14 +48,30 @@ public class ConfigTest {
     }
 
     @Test
-    void clientConfig_ReturnsRestTemplate() {
+    void clientConfig_ReturnsGuardedRestTemplatePerDownstream() {
         ClientConfig config = new ClientConfig();
-        org.springframework.boot.web.client.RestTemplateBuilder builder = mock(
-                org.springframework.boot.web.client.RestTemplateBuilder.class);
-        when(builder.build()).thenReturn(new RestTemplate());
-
-        RestTemplate restTemplate = config.restTemplate(builder);
-        assertThat(restTemplate).isNotNull();
+        HttpClientProperties properties = new HttpClientProperties();
+        properties.getFraud().setHttpVersion(HttpClientProperties.HttpVersion.HTTP_2);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        DownstreamHttpClientFactory factory = new DownstreamHttpClientFactory(meterRegistry);
+
+        RestTemplate merchant = config.merchantRestTemplate(new RestTemplateBuilder(), properties, factory);
+        RestTemplate vault = config.vaultRestTemplate(new RestTemplateBuilder(), properties, factory);
+        RestTemplate fraud = config.fraudRestTemplate(new RestTemplateBuilder(), properties, factory);
+
+        assertThat(merchant).isNotSameAs(vault);
+        assertThat(merchant.getInterceptors())
+                .hasExactlyElementsOfTypes(CircuitBreaker.class, Bulkhead.class, AdaptiveTimeout.class);
+        assertThat(fraud.getInterceptors())
+                .hasExactlyElementsOfTypes(CircuitBreaker.class, Bulkhead.class, AdaptiveTimeout.class);
+        assertThat(meterRegistry.find("http.client.pool.saturation").tag("client", "merchant").gauge()).isNotNull();
+        assertThat(meterRegistry.find("http.client.pool.saturation").tag("client", "vault").gauge()).isNotNull();
+        // HTTP/2 multiplexes one connection, so there is no pool to meter
+        assertThat(meterRegistry.find("http.client.pool.saturation").tag("client", "fraud").gauge()).isNull();
+        assertThat(meterRegistry.find("http.client.bulkhead.in_flight").tag("client", "fraud").gauge()).isNotNull();
+        assertThat(meterRegistry.find("http.client.adaptive.timeout").tag("client", "fraud").timeGauge()).isNotNull();
+
+        factory.close();
     }
 
     @Test
@@ -49,15 +80,40 @@ public class ConfigTest {
         assertThat(config).isNotNull();
     }
 
+    @Test
+    void rwsDataSourceConfig_BuildsOneMeteredPoolPerReplica() throws Exception {
+        RwsDataSourceConfig config = new RwsDataSourceConfig();
+        ReplicaDataSourceProperties properties = new ReplicaDataSourceProperties();
+        for (String name : new String[] { "a", "b" }) {
+            ReplicaDataSourceProperties.Replica replica = new ReplicaDataSourceProperties.Replica();
+            replica.setName(name);
+            replica.setJdbcUrl("jdbc:postgresql://replica-" + name + ":5432/payment_db");
+            properties.getReplicas().add(replica);
+        }
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        ReplicaPoolDataSource pool = config.secondaryDataSource(properties, mock(javax.sql.DataSource.class),
+                ReplicaPoolDataSource.Balancer.WEIGHTED_ROUND_ROBIN, java.time.Duration.ofSeconds(10), meterRegistry);
+
+        assertThat(pool.getReplicaDataSources()).containsOnlyKeys("a", "b");
+        assertThat(pool.getReplicaDataSources().get("a"))
+                .extracting("poolName").isEqualTo("replica-a");
+        assertThat(meterRegistry.find("datasource.replica.admitted").tag("replica", "b").gauge()).isNotNull();
+        pool.close();
+    }
+
     @Test
     void rwsDataSourceConfig_ReturnsBeans() {
         RwsDataSourceConfig config = new RwsDataSourceConfig();
 
         javax.sql.DataSource primary = mock(javax.sql.DataSource.class);
-        javax.sql.DataSource secondary = mock(javax.sql.DataSource.class);
+        ReplicaPoolDataSource secondary = mock(ReplicaPoolDataSource.class);
+
+        ReplicaLagMonitor monitor = mock(ReplicaLagMonitor.class);
 
-        javax.sql.DataSource routing = config.routingDataSource(primary, secondary);
+        javax.sql.DataSource routing = config.routingDataSource(primary, secondary, monitor);
         assertThat(routing).isNotNull();
+        verify(secondary).setReplicaLagMonitor(monitor);
 
         javax.sql.DataSource lazy = config.dataSource(routing);
         assertThat(lazy).isNotNull();
@@ -67,7 +123,11 @@ public class ConfigTest {
 
         // entityManagerFactory() requires a lot of setup, but let's try a light call
         try {
-            config.entityManagerFactory(lazy);
+            assertThat(config.entityManagerFactory(lazy, 50).getJpaPropertyMap())
+                    .containsEntry("hibernate.jdbc.batch_size", 50)
+                    .containsEntry("hibernate.order_inserts", true)
+                    .hasEntrySatisfying("hibernate.session_factory.statement_inspector",
+                            inspector -> assertThat(inspector).isInstanceOf(CommittedWriteRecorder.class));
         } catch (Exception e) {
             // ignore
         }
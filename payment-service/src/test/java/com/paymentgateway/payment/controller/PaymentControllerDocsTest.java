@@ -1,7 +1,9 @@
 package com.paymentgateway.payment.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paymentgateway.common.datasource.ReplicaLagMonitor;
 import com.paymentgateway.payment.dto.PaymentRequest;
+import com.paymentgateway.payment.service.BatchPaymentService;
 import com.paymentgateway.payment.service.PaymentService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -35,6 +37,12 @@ public class PaymentControllerDocsTest {
         @MockitoBean
         private PaymentService paymentService;
 
+        @MockitoBean
+        private BatchPaymentService batchPaymentService;
+
+        @MockitoBean(name = "replicaLagMonitor")
+        private ReplicaLagMonitor replicaLagMonitor;
+
         private final ObjectMapper objectMapper = new ObjectMapper();
 
         @BeforeEach
@@ -1,8 +1,14 @@
 package com.paymentgateway.payment.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.paymentgateway.common.dto.ApiResponse;
 import com.paymentgateway.common.model.Transaction;
+import com.paymentgateway.payment.dto.BatchPaymentResult;
 import com.paymentgateway.payment.dto.PaymentRequest;
+import com.paymentgateway.payment.dto.TransactionPage;
+import com.paymentgateway.payment.dto.TransactionQuery;
+import com.paymentgateway.payment.dto.TransactionSummary;
+import com.paymentgateway.payment.service.BatchPaymentService;
 import com.paymentgateway.payment.service.PaymentService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,11 +17,20 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,6 +39,9 @@ public class PaymentControllerTest {
     @Mock
     private PaymentService paymentService;
 
+    @Mock
+    private BatchPaymentService batchPaymentService;
+
     @InjectMocks
     private PaymentController paymentController;
 
@@ -57,13 +75,73 @@ public class PaymentControllerTest {
 
     @Test
     void getMerchantTransactions_ReturnsSuccess() {
-        List<Transaction> transactions = List.of(new Transaction());
-        when(paymentService.getMerchantTransactions("m-1")).thenReturn(transactions);
+        TransactionPage page = new TransactionPage(List.of(summary("tx-1")), "next");
+        when(paymentService.getMerchantTransactions(new TransactionQuery("m-1", null, null, null), null, 50))
+                .thenReturn(page);
 
-        ResponseEntity<ApiResponse<List<Transaction>>> response = paymentController.getMerchantTransactions("m-1");
+        ResponseEntity<ApiResponse<TransactionPage>> response = paymentController.getMerchantTransactions(
+                "m-1", null, null, null, null, 50);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
-        assertThat(response.getBody().getData()).hasSize(1);
+        assertThat(response.getBody().getData().getItems()).hasSize(1);
+        assertThat(response.getBody().getData().getNextCursor()).isEqualTo("next");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void exportMerchantTransactions_WritesOneJsonObjectPerLine() throws Exception {
+        PaymentController controller = new PaymentController(paymentService, batchPaymentService,
+                new ObjectMapper().findAndRegisterModules());
+        doAnswer(invocation -> {
+            Consumer<TransactionSummary> sink = invocation.getArgument(1);
+            sink.accept(summary("tx-1"));
+            sink.accept(summary("tx-2"));
+            return null;
+        }).when(paymentService).exportMerchantTransactions(any(TransactionQuery.class), any(Consumer.class));
+
+        ResponseEntity<StreamingResponseBody> response = controller.exportMerchantTransactions("m-1", null, null, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertThat(response.getHeaders().getContentType()).hasToString("application/x-ndjson");
+        assertThat(out.toString(StandardCharsets.UTF_8).lines())
+                .hasSize(2)
+                .allMatch(line -> line.startsWith("{") && line.contains("\"id\":\"tx-"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void processBatch_StreamsOneResultPerItem() throws Exception {
+        PaymentController controller = new PaymentController(paymentService, batchPaymentService,
+                new ObjectMapper().findAndRegisterModules());
+        List<PaymentRequest> requests = List.of(new PaymentRequest(), new PaymentRequest());
+        Transaction transaction = new Transaction();
+        transaction.setId("tx-1");
+        doAnswer(invocation -> {
+            Consumer<BatchPaymentResult> sink = invocation.getArgument(1);
+            sink.accept(BatchPaymentResult.builder()
+                    .index(0)
+                    .outcome(BatchPaymentResult.Outcome.PROCESSED)
+                    .transaction(transaction)
+                    .build());
+            sink.accept(BatchPaymentResult.builder()
+                    .index(1)
+                    .outcome(BatchPaymentResult.Outcome.REJECTED)
+                    .errorCode("VALIDATION_ERROR")
+                    .build());
+            return null;
+        }).when(batchPaymentService).processBatch(eq(requests), any(Consumer.class));
+
+        ResponseEntity<StreamingResponseBody> response = controller.processBatch(requests);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        verify(batchPaymentService).checkBatch(requests);
+        assertThat(response.getHeaders().getContentType()).hasToString("application/x-ndjson");
+        assertThat(out.toString(StandardCharsets.UTF_8).lines())
+                .hasSize(2)
+                .anyMatch(line -> line.contains("\"outcome\":\"PROCESSED\"") && line.contains("\"id\":\"tx-1\""))
+                .anyMatch(line -> line.contains("\"errorCode\":\"VALIDATION_ERROR\""));
     }
 
     @Test
@@ -78,4 +156,10 @@ public class PaymentControllerTest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody().getData()).isEqualTo(transaction);
     }
+
+    private static TransactionSummary summary(String id) {
+        return new TransactionSummary(id, "m-1", new BigDecimal("10.00"), "USD",
+                Transaction.TransactionStatus.AUTHORIZED, Transaction.PaymentMethod.CARD, null, null, null,
+                LocalDateTime.now(), null);
+    }
 }
@@ -0,0 +1,61 @@
+package com.paymentgateway.payment.controller;
+
+import com.paymentgateway.common.datasource.ReadYourWritesContext;
+import com.paymentgateway.common.datasource.ReplicaLagMonitor;
+import jakarta.servlet.http.HttpServlet;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReadYourWritesFilterTest {
+
+    private final ReadYourWritesFilter filter = new ReadYourWritesFilter();
+
+    @Test
+    void doFilter_ScopesTheClientTokenToTheRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/payments/tx-1");
+        request.addHeader(ReadYourWritesFilter.CONSISTENCY_TOKEN_HEADER, "0/16B3748");
+        AtomicReference<Long> seen = new AtomicReference<>();
+
+        filter.doFilter(request, new MockHttpServletResponse(),
+                new MockFilterChain(new HttpServlet() {
+                }, (req, res, chain) -> seen.set(ReadYourWritesContext.requiredLsn())));
+
+        assertThat(seen.get()).isEqualTo(0x16B3748L);
+        assertThat(ReadYourWritesContext.isActive()).isFalse();
+    }
+
+    @Test
+    void parseToken_UnreadableTokenPinsToPrimary() {
+        assertThat(ReadYourWritesFilter.parseToken(null)).isNull();
+        assertThat(ReadYourWritesFilter.parseToken(" ")).isNull();
+        assertThat(ReadYourWritesFilter.parseToken("not-an-lsn")).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void advice_ReturnsWritePositionAsToken() throws Exception {
+        ReplicaLagMonitor monitor = mock(ReplicaLagMonitor.class);
+        when(monitor.requiredLsn()).thenReturn(0x1A0000028L);
+        ConsistencyTokenAdvice advice = new ConsistencyTokenAdvice(monitor);
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+        ServletServerHttpResponse response = new ServletServerHttpResponse(servletResponse);
+        MethodParameter returnType = new MethodParameter(Object.class.getMethod("toString"), -1);
+
+        advice.beforeBodyWrite("body", returnType, MediaType.APPLICATION_JSON, null,
+                new ServletServerHttpRequest(new MockHttpServletRequest()), response);
+        response.flush();
+
+        assertThat(servletResponse.getHeader(ReadYourWritesFilter.CONSISTENCY_TOKEN_HEADER)).isEqualTo("1/A0000028");
+    }
+}
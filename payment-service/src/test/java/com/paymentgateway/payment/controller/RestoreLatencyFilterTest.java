@@ -0,0 +1,51 @@
+package com.paymentgateway.payment.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RestoreLatencyFilterTest {
+
+    private final RestoreLatencyFilter filter = new RestoreLatencyFilter();
+    private final List<Duration> reported = new ArrayList<>();
+
+    @Test
+    void doFilter_ReportsOnlyTheFirstFastRequestAfterRestore() throws Exception {
+        serve();
+        assertThat(reported).isEmpty();
+
+        filter.markRestored(reported::add);
+        serve();
+        serve();
+
+        assertThat(reported).hasSize(1);
+        assertThat(reported.get(0)).isPositive();
+    }
+
+    @Test
+    void doFilter_SlowRequestsKeepTheMeasurementArmed() throws Exception {
+        // No request can finish within a negative target
+        ReflectionTestUtils.setField(filter, "p99Target", Duration.ofNanos(-1));
+        filter.markRestored(reported::add);
+        serve();
+        assertThat(reported).isEmpty();
+
+        ReflectionTestUtils.setField(filter, "p99Target", Duration.ofSeconds(1));
+        serve();
+
+        assertThat(reported).hasSize(1);
+    }
+
+    private void serve() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/payments/tx-1"), new MockHttpServletResponse(),
+                new MockFilterChain());
+    }
+}
@@ -1,29 +1,131 @@
 package com.paymentgateway.payment.messaging;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 public class KafkaProducerTest {
 
     @Mock
-    private KafkaTemplate<String, Object> kafkaTemplate;
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
 
-    @InjectMocks
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
     private KafkaProducer kafkaProducer;
 
+    @BeforeEach
+    void setUp() {
+        kafkaProducer = new KafkaProducer(kafkaTemplate, meterRegistry);
+        ReflectionTestUtils.setField(kafkaProducer, "retryBackoff", Duration.ZERO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        kafkaProducer.shutdown();
+    }
+
+    @Test
+    void sendPaymentEvent_KeysByTransactionId() throws Exception {
+        byte[] event = {1, 2, 3};
+        when(kafkaTemplate.send("payment-events", "tx-1", event))
+                .thenReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+
+        kafkaProducer.sendPaymentEvent("tx-1", event).get(1, TimeUnit.SECONDS);
+
+        verify(kafkaTemplate).send(eq("payment-events"), eq("tx-1"), eq(event));
+        assertThat(meterRegistry.get("payment.events.send.latency").tag("outcome", "success").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void sendSettlementEvent_KeysByMerchantOnItsOwnTopic() throws Exception {
+        byte[] event = {'{', '}'};
+        when(kafkaTemplate.send("payment-settlements", "m-1", event))
+                .thenReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+
+        kafkaProducer.sendSettlementEvent("m-1", event).get(1, TimeUnit.SECONDS);
+
+        verify(kafkaTemplate).send("payment-settlements", "m-1", event);
+    }
+
     @Test
-    void sendPaymentEvent_CallsKafkaTemplate() {
-        String event = "payment-event";
-        kafkaProducer.sendPaymentEvent(event);
+    void sendPaymentEvent_RetriesRetriableFailures() throws Exception {
+        byte[] event = {1, 2, 3};
+        when(kafkaTemplate.send("payment-events", "tx-1", event))
+                .thenReturn(CompletableFuture.failedFuture(new TimeoutException("broker unavailable")))
+                .thenReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+
+        kafkaProducer.sendPaymentEvent("tx-1", event).get(1, TimeUnit.SECONDS);
+
+        verify(kafkaTemplate, times(2)).send("payment-events", "tx-1", event);
+        assertThat(meterRegistry.get("payment.events.send.retries").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("payment.events.retry.buffered").gauge().value()).isZero();
+    }
+
+    @Test
+    void sendPaymentEvent_FailsFastOnNonRetriableError() {
+        byte[] event = {1, 2, 3};
+        when(kafkaTemplate.send("payment-events", "tx-1", event))
+                .thenReturn(CompletableFuture.failedFuture(new RecordTooLargeException("too large")));
+
+        CompletableFuture<SendResult<String, byte[]>> result = kafkaProducer.sendPaymentEvent("tx-1", event);
+
+        assertThatThrownBy(() -> result.get(1, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(RecordTooLargeException.class);
+        verify(kafkaTemplate, times(1)).send("payment-events", "tx-1", event);
+        assertThat(meterRegistry.get("payment.events.send.failures").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void sendPaymentEvent_GivesUpWhenRetryBufferIsFull() {
+        ReflectionTestUtils.setField(kafkaProducer, "retryBufferCapacity", 0);
+        byte[] event = {1, 2, 3};
+        when(kafkaTemplate.send("payment-events", "tx-1", event))
+                .thenReturn(CompletableFuture.failedFuture(new TimeoutException("broker unavailable")));
+
+        CompletableFuture<SendResult<String, byte[]>> result = kafkaProducer.sendPaymentEvent("tx-1", event);
+
+        assertThatThrownBy(() -> result.get(1, TimeUnit.SECONDS)).hasCauseInstanceOf(TimeoutException.class);
+        verify(kafkaTemplate, times(1)).send("payment-events", "tx-1", event);
+    }
+
+    @Test
+    void sendPaymentEvent_SameKeyWaitsForPreviousSend() throws Exception {
+        byte[] authorized = {1};
+        byte[] captured = {2};
+        CompletableFuture<SendResult<String, byte[]>> firstAck = new CompletableFuture<>();
+        when(kafkaTemplate.send("payment-events", "tx-1", authorized)).thenReturn(firstAck);
+        when(kafkaTemplate.send("payment-events", "tx-1", captured))
+                .thenReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+
+        kafkaProducer.sendPaymentEvent("tx-1", authorized);
+        CompletableFuture<SendResult<String, byte[]>> second = kafkaProducer.sendPaymentEvent("tx-1", captured);
 
-        verify(kafkaTemplate).send(eq("payment-events"), eq(event));
+        verify(kafkaTemplate, times(0)).send("payment-events", "tx-1", captured);
+        firstAck.complete(new SendResult<>(null, null));
+        second.get(1, TimeUnit.SECONDS);
+        verify(kafkaTemplate).send("payment-events", "tx-1", captured);
     }
 }
@@ -0,0 +1,32 @@
+package com.paymentgateway.payment.messaging;
+
+import com.paymentgateway.common.dto.merchant.MerchantStatusEvent;
+import com.paymentgateway.payment.client.MerchantCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class MerchantStatusListenerTest {
+
+    @Mock
+    private MerchantCache merchantCache;
+
+    @InjectMocks
+    private MerchantStatusListener listener;
+
+    @Test
+    void onStatusChange_InvalidatesSnapshot() {
+        listener.onStatusChange(MerchantStatusEvent.builder()
+                .merchantId("m-1")
+                .previousStatus("ACTIVE")
+                .status("SUSPENDED")
+                .build());
+
+        verify(merchantCache).invalidate("m-1");
+    }
+}
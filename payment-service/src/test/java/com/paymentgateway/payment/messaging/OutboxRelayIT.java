@@ -0,0 +1,159 @@
+package com.paymentgateway.payment.messaging;
+
+import com.paymentgateway.common.event.PaymentEventCodec;
+import com.paymentgateway.common.model.Transaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@Testcontainers(disabledWithoutDocker = true)
+class OutboxRelayIT {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Mock
+    private KafkaProducer kafkaProducer;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PGSimpleDataSource dataSource;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new PGSimpleDataSource();
+        dataSource.setUrl(POSTGRES.getJdbcUrl());
+        dataSource.setUser(POSTGRES.getUsername());
+        dataSource.setPassword(POSTGRES.getPassword());
+        Flyway.configure().dataSource(dataSource).cleanDisabled(false).load().clean();
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        relay = new OutboxRelay(dataSource, kafkaProducer, meterRegistry);
+        ReflectionTestUtils.setField(relay, "batchSize", 2);
+    }
+
+    @Test
+    void relay_PublishesInOrderAndDeletes() throws SQLException {
+        insert("tx-1", "AUTHORIZED", payment("tx-1"));
+        insert("tx-2", "AUTHORIZED", payment("tx-2"));
+        insert("tx-3", "AUTHORIZED", payment("tx-3"));
+        when(kafkaProducer.sendPaymentEvent(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        relay.relay();
+
+        // A full batch is followed immediately by the rest
+        ArgumentCaptor<byte[]> sent = ArgumentCaptor.forClass(byte[].class);
+        verify(kafkaProducer, times(3)).sendPaymentEvent(any(), sent.capture());
+        assertThat(sent.getAllValues()).extracting(e -> PaymentEventCodec.decode(e).getId())
+                .containsExactly("tx-1", "tx-2", "tx-3");
+        assertThat(pending()).isEmpty();
+        assertThat(meterRegistry.get("payment.outbox.relayed").counter().count()).isEqualTo(3.0);
+    }
+
+    @Test
+    void relay_KeepsBatchWhenSendFails() throws SQLException {
+        insert("tx-1", "AUTHORIZED", payment("tx-1"));
+        when(kafkaProducer.sendPaymentEvent(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        relay.relay();
+
+        assertThat(pending()).containsExactly("tx-1");
+        assertThat(meterRegistry.get("payment.outbox.relayed").counter().count()).isZero();
+    }
+
+    @Test
+    void relay_SendsSettlementBatchesToTheirTopic() throws SQLException {
+        byte[] payload = {'{', '}'};
+        insert("m-1", PaymentOutbox.SETTLEMENT_BATCH, payload);
+        when(kafkaProducer.sendSettlementEvent(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        relay.relay();
+
+        verify(kafkaProducer).sendSettlementEvent("m-1", payload);
+        verify(kafkaProducer, never()).sendPaymentEvent(any(), any());
+        assertThat(pending()).isEmpty();
+    }
+
+    @Test
+    void relay_NothingPending() {
+        relay.relay();
+
+        verifyNoInteractions(kafkaProducer);
+    }
+
+    @Test
+    void relay_SkipsWhileAnotherInstanceLeads() throws SQLException {
+        insert("tx-1", "AUTHORIZED", payment("tx-1"));
+
+        try (Connection leader = dataSource.getConnection();
+                Statement statement = leader.createStatement()) {
+            statement.execute("SELECT pg_advisory_lock(" + ReflectionTestUtils.getField(relay, "ADVISORY_LOCK") + ")");
+
+            relay.relay();
+        }
+
+        verifyNoInteractions(kafkaProducer);
+        assertThat(pending()).containsExactly("tx-1");
+    }
+
+    private void insert(String aggregateId, String eventType, byte[] payload) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement("""
+                        INSERT INTO payment_outbox (aggregate_id, event_type, payload, created_at)
+                        VALUES (?, ?, ?, now())
+                        """)) {
+            statement.setString(1, aggregateId);
+            statement.setString(2, eventType);
+            statement.setBytes(3, payload);
+            statement.executeUpdate();
+        }
+    }
+
+    private List<String> pending() throws SQLException {
+        List<String> aggregates = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT aggregate_id FROM payment_outbox ORDER BY id")) {
+            while (rs.next()) {
+                aggregates.add(rs.getString(1));
+            }
+        }
+        return aggregates;
+    }
+
+    private static byte[] payment(String transactionId) {
+        return PaymentEventCodec.encode(Transaction.builder()
+                .id(transactionId)
+                .status(Transaction.TransactionStatus.AUTHORIZED)
+                .build());
+    }
+}
@@ -0,0 +1,82 @@
+package com.paymentgateway.payment.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paymentgateway.common.event.PaymentEventCodec;
+import com.paymentgateway.common.event.SettlementBatchEvent;
+import com.paymentgateway.common.model.Transaction;
+import com.paymentgateway.payment.model.OutboxEvent;
+import com.paymentgateway.payment.repository.OutboxEventRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentOutboxTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @InjectMocks
+    private PaymentOutbox paymentOutbox;
+
+    @Test
+    void append_StoresEncodedTransaction() {
+        Transaction transaction = Transaction.builder()
+                .id("tx-1")
+                .merchantId("m-1")
+                .amount(new BigDecimal("25.00"))
+                .currency("USD")
+                .status(Transaction.TransactionStatus.AUTHORIZED)
+                .cardToken("tok_123")
+                .build();
+
+        paymentOutbox.append(transaction);
+
+        ArgumentCaptor<OutboxEvent> saved = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxEventRepository).save(saved.capture());
+        assertThat(saved.getValue().getAggregateId()).isEqualTo("tx-1");
+        assertThat(saved.getValue().getEventType()).isEqualTo("AUTHORIZED");
+        assertThat(PaymentEventCodec.schemaVersion(saved.getValue().getPayload()))
+                .isEqualTo(PaymentEventCodec.SCHEMA_VERSION);
+        Transaction payload = PaymentEventCodec.decode(saved.getValue().getPayload());
+        assertThat(payload.getId()).isEqualTo("tx-1");
+        assertThat(payload.getAmount()).isEqualByComparingTo("25.00");
+        assertThat(payload.getCardToken()).isNull();
+    }
+
+    @Test
+    void appendSettlement_StoresJsonKeyedByMerchant() throws Exception {
+        SettlementBatchEvent event = SettlementBatchEvent.builder()
+                .batchId("batch-1")
+                .merchantId("m-1")
+                .currency("EUR")
+                .transactionCount(2)
+                .totalAmount(new BigDecimal("35.50"))
+                .transactionIds(List.of("tx-1", "tx-2"))
+                .settledAt(LocalDateTime.of(2026, 1, 2, 3, 4))
+                .build();
+
+        paymentOutbox.appendSettlement(event);
+
+        ArgumentCaptor<OutboxEvent> saved = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxEventRepository).save(saved.capture());
+        assertThat(saved.getValue().getAggregateId()).isEqualTo("m-1");
+        assertThat(saved.getValue().getEventType()).isEqualTo(PaymentOutbox.SETTLEMENT_BATCH);
+        assertThat(objectMapper.readValue(saved.getValue().getPayload(), SettlementBatchEvent.class))
+                .isEqualTo(event);
+    }
+}
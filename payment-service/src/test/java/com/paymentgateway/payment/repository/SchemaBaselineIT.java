@@ -0,0 +1,83 @@
+package com.paymentgateway.payment.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.springframework.core.io.ClassPathResource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A database hbm2ddl created before Flyway is baselined at V1 and must still
+ * get every table added since.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class SchemaBaselineIT {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private PGSimpleDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new PGSimpleDataSource();
+        dataSource.setUrl(POSTGRES.getJdbcUrl());
+        dataSource.setUser(POSTGRES.getUsername());
+        dataSource.setPassword(POSTGRES.getPassword());
+        Flyway.configure().dataSource(dataSource).cleanDisabled(false).load().clean();
+    }
+
+    @Test
+    void migrate_BaselinedPreFlywaySchema_CreatesLaterTables() throws SQLException, IOException {
+        // The pre-Flyway schema is exactly V1
+        execute(new ClassPathResource("db/migration/V1__create_payment_schema.sql")
+                .getContentAsString(StandardCharsets.UTF_8));
+
+        Flyway.configure().dataSource(dataSource).baselineOnMigrate(true).load().migrate();
+
+        assertThat(tableExists("payment_outbox")).isTrue();
+        assertThat(tableExists("authorization_limits")).isTrue();
+        // The legacy table is attached using the key V2_1 built concurrently
+        assertThat(query("""
+                SELECT pg_get_constraintdef(oid) FROM pg_constraint
+                WHERE conrelid = 'transactions_legacy'::regclass AND contype = 'p'
+                """)).isEqualTo("PRIMARY KEY (id, created_at)");
+    }
+
+    private String query(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    private boolean tableExists(String table) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT to_regclass('" + table + "') IS NOT NULL")) {
+            rs.next();
+            return rs.getBoolean(1);
+        }
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
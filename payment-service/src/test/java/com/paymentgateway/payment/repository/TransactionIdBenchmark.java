@@ -0,0 +1,171 @@
+package com.paymentgateway.payment.repository;
+
+import com.paymentgateway.common.model.TimeOrderedIds;
+import org.flywaydb.core.Flyway;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Bulk-loads the real Flyway schema of {@code transactions} with each id and
+ * write scheme and reports insert throughput and index bloat:
+ * <ul>
+ * <li>{@code RANDOM_SINGLE}: the former scheme, random (version 4) ids and one
+ * round trip per row</li>
+ * <li>{@code RANDOM_BATCHED}: random ids, JDBC batches rewritten to multi-row
+ * INSERTs</li>
+ * <li>{@code TIME_ORDERED_BATCHED}: the current scheme, {@link TimeOrderedIds}
+ * and the same batches</li>
+ * </ul>
+ * Each scheme gets its own schema, so runs do not share buffers or indexes.
+ * Rows commit every {@code batch} rows in every scheme, like a chunk of the
+ * batch payment API. Bloat is the size of the primary key (and of the merchant
+ * index, whose last column is the id) over its size after a REINDEX.
+ * <p>
+ * Needs a scratch PostgreSQL database; run with {@code mvn -pl payment-service
+ * test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.paymentgateway.payment.repository.TransactionIdBenchmark
+ * -Dexec.args="jdbc:postgresql://localhost:5432/bench postgres postgres 10000000 50"}.
+ */
+public class TransactionIdBenchmark {
+
+    private static final String INSERT = """
+            INSERT INTO transactions (id, merchant_id, amount, currency, status, payment_method,
+                                      idempotency_key, created_at, updated_at)
+            VALUES (?, ?, ?, 'USD', 'AUTHORIZED', 'CARD', ?, ?, ?)
+            """;
+    private static final int MERCHANTS = 1000;
+    private static final int REPORT_EVERY = 1_000_000;
+
+    enum Scheme {
+        RANDOM_SINGLE(() -> UUID.randomUUID().toString(), false),
+        RANDOM_BATCHED(() -> UUID.randomUUID().toString(), true),
+        TIME_ORDERED_BATCHED(TimeOrderedIds::next, true);
+
+        private final Supplier<String> ids;
+        private final boolean batched;
+
+        Scheme(Supplier<String> ids, boolean batched) {
+            this.ids = ids;
+            this.batched = batched;
+        }
+    }
+
+    public static void main(String[] args) throws SQLException {
+        if (args.length < 3) {
+            System.err.println("Usage: TransactionIdBenchmark <jdbc-url> <user> <password> [rows] [batch]");
+            System.exit(2);
+        }
+        String url = args[0];
+        long rows = args.length > 3 ? Long.parseLong(args[3]) : 10_000_000L;
+        int batch = args.length > 4 ? Integer.parseInt(args[4]) : 50;
+
+        System.out.printf("%-22s %12s %10s %14s %8s %18s %8s%n", "scheme", "rows", "rows/s",
+                "pk (MB)", "pk bloat", "merchant idx (MB)", "bloat");
+        for (Scheme scheme : Scheme.values()) {
+            String schema = "bench_" + scheme.name().toLowerCase();
+            Flyway.configure()
+                    .dataSource(url, args[1], args[2])
+                    .schemas(schema)
+                    .cleanDisabled(false)
+                    .load()
+                    .clean();
+            Flyway.configure()
+                    .dataSource(url, args[1], args[2])
+                    .schemas(schema)
+                    .load()
+                    .migrate();
+
+            Properties properties = new Properties();
+            properties.setProperty("user", args[1]);
+            properties.setProperty("password", args[2]);
+            properties.setProperty("currentSchema", schema);
+            properties.setProperty("reWriteBatchedInserts", "true");
+            try (Connection connection = DriverManager.getConnection(url, properties)) {
+                double rate = load(connection, scheme, rows, batch);
+                long pk = indexBytes(connection, "pk_transactions");
+                long merchant = indexBytes(connection, "idx_transactions_merchant_created");
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("REINDEX TABLE transactions");
+                }
+                long pkCompact = indexBytes(connection, "pk_transactions");
+                long merchantCompact = indexBytes(connection, "idx_transactions_merchant_created");
+                System.out.printf("%-22s %12d %10.0f %14.1f %7.0f%% %18.1f %7.0f%%%n", scheme, rows, rate,
+                        megabytes(pk), bloat(pk, pkCompact), megabytes(merchant), bloat(merchant, merchantCompact));
+            }
+        }
+    }
+
+    private static double load(Connection connection, Scheme scheme, long rows, int batch) throws SQLException {
+        connection.setAutoCommit(false);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long start = System.nanoTime();
+        long intervalStart = start;
+        try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+            for (long row = 1; row <= rows; row++) {
+                Timestamp now = new Timestamp(System.currentTimeMillis());
+                insert.setString(1, scheme.ids.get());
+                insert.setString(2, "m-" + random.nextInt(MERCHANTS));
+                insert.setBigDecimal(3, BigDecimal.valueOf(random.nextLong(100, 1_000_000), 2));
+                insert.setString(4, "key-" + row);
+                insert.setTimestamp(5, now);
+                insert.setTimestamp(6, now);
+                if (scheme.batched) {
+                    insert.addBatch();
+                } else {
+                    insert.executeUpdate();
+                }
+                if (row % batch == 0 || row == rows) {
+                    if (scheme.batched) {
+                        insert.executeBatch();
+                    }
+                    connection.commit();
+                }
+                if (row % REPORT_EVERY == 0) {
+                    long end = System.nanoTime();
+                    // Random keys slow down once the index no longer fits in shared buffers
+                    System.out.printf("  %s: %,d rows, %,.0f rows/s over the last %,d%n", scheme, row,
+                            REPORT_EVERY / ((end - intervalStart) / 1e9), REPORT_EVERY);
+                    intervalStart = end;
+                }
+            }
+        }
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("VACUUM ANALYZE transactions");
+        }
+        return rows / ((System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * A partitioned index has no storage of its own; sum its partitions.
+     */
+    private static long indexBytes(Connection connection, String index) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT coalesce(sum(pg_relation_size(relid)), 0) FROM pg_partition_tree(?::regclass)")) {
+            statement.setString(1, index);
+            try (ResultSet result = statement.executeQuery()) {
+                result.next();
+                return result.getLong(1);
+            }
+        }
+    }
+
+    private static double megabytes(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+
+    private static double bloat(long bytes, long compactBytes) {
+        return compactBytes == 0 ? 0 : 100.0 * (bytes - compactBytes) / compactBytes;
+    }
+}
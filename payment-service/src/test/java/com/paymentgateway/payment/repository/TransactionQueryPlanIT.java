@@ -0,0 +1,143 @@
+package com.paymentgateway.payment.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards the access paths of {@link TransactionRepository} against the real
+ * Flyway schema: each hot lookup must be served by its index, time-bounded
+ * queries must prune partitions, and keyset pages must come out of the index
+ * already ordered (no Sort node). The seeded rows land in the legacy partition.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class TransactionQueryPlanIT {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static Connection connection;
+
+    @BeforeAll
+    static void migrateAndSeed() throws SQLException {
+        Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .load()
+                .migrate();
+        connection = DriverManager.getConnection(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(),
+                POSTGRES.getPassword());
+        try (Statement statement = connection.createStatement()) {
+            // 200 merchants x 250 rows; INITIATED is rare, like payments stuck mid-flight
+            statement.execute("""
+                    INSERT INTO transactions (id, merchant_id, amount, currency, status, payment_method,
+                                              idempotency_key, created_at)
+                    SELECT 'tx-' || g, 'm-' || (g % 200), 10.00, 'USD',
+                           CASE WHEN g % 1000 = 0 THEN 'INITIATED'
+                                ELSE (ARRAY['AUTHORIZED', 'CAPTURED', 'SETTLED', 'FAILED'])[1 + g % 4] END,
+                           'CARD', 'key-' || g, TIMESTAMP '2025-01-01' + make_interval(secs => g)
+                    FROM generate_series(1, 50000) g
+                    """);
+            statement.execute("ANALYZE transactions");
+        }
+    }
+
+    @AfterAll
+    static void close() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void findByStatus_UsesStatusIndex() throws SQLException {
+        String plan = explain("SELECT * FROM transactions WHERE status = 'INITIATED'");
+
+        assertThat(plan).contains("transactions_legacy_status_created").doesNotContain("Seq Scan on transactions_legacy");
+    }
+
+    @Test
+    void findByIdempotencyKey_UsesUniqueIndex() throws SQLException {
+        String plan = explain("""
+                SELECT t.* FROM transactions t
+                JOIN transaction_idempotency_keys k ON k.transaction_id = t.id AND k.created_at = t.created_at
+                WHERE k.idempotency_key = 'key-42'
+                """);
+
+        assertThat(plan).contains("transaction_idempotency_keys_pkey").doesNotContain("Seq Scan");
+    }
+
+    @Test
+    void findPrunedById_ProbesOnlyThePartitionOfTheId() throws SQLException {
+        String plan = explain("""
+                SELECT * FROM transactions
+                WHERE id = 'tx-42'
+                  AND created_at >= TIMESTAMP '2024-12-31' AND created_at < TIMESTAMP '2025-01-02'
+                """);
+
+        assertThat(plan).contains("transactions_legacy").doesNotContain("transactions_p2");
+    }
+
+    @Test
+    void keysetPage_ReadsIndexInOrder() throws SQLException {
+        String plan = explain("""
+                SELECT id, created_at FROM transactions
+                WHERE merchant_id = 'm-7'
+                  AND created_at <= TIMESTAMP '2025-01-01 06:00:00'
+                  AND (created_at < TIMESTAMP '2025-01-01 06:00:00'
+                       OR (created_at = TIMESTAMP '2025-01-01 06:00:00' AND id < 'tx-21600'))
+                ORDER BY created_at DESC, id DESC
+                LIMIT 51
+                """);
+
+        assertThat(plan).contains("transactions_legacy_merchant_created")
+                .doesNotContain("Sort")
+                .doesNotContain("transactions_p2");
+    }
+
+    @Test
+    void keysetPageWithStatus_ReadsIndexInOrder() throws SQLException {
+        String plan = explain("""
+                SELECT id, created_at FROM transactions
+                WHERE merchant_id = 'm-7' AND status = 'CAPTURED'
+                  AND created_at >= TIMESTAMP '2025-01-01' AND created_at < TIMESTAMP '2025-01-02'
+                ORDER BY created_at DESC, id DESC
+                LIMIT 51
+                """);
+
+        assertThat(plan).contains("transactions_legacy_merchant_status_created")
+                .doesNotContain("Sort")
+                .doesNotContain("transactions_p2");
+    }
+
+    @Test
+    void recentRange_PrunesOlderPartitions() throws SQLException {
+        // The legacy partition ends where the monthly ones begin
+        String plan = explain("""
+                SELECT * FROM transactions
+                WHERE merchant_id = 'm-7' AND created_at >= date_trunc('month', now()) + INTERVAL '1 month'
+                """);
+
+        assertThat(plan).doesNotContain("transactions_legacy");
+    }
+
+    private static String explain(String sql) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (Statement statement = connection.createStatement();
+                ResultSet rows = statement.executeQuery("EXPLAIN " + sql)) {
+            while (rows.next()) {
+                plan.append(rows.getString(1)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+}
@@ -0,0 +1,111 @@
+package com.paymentgateway.payment.service;
+
+import com.paymentgateway.common.model.TimeOrderedIds;
+import com.paymentgateway.common.model.Transaction;
+import com.paymentgateway.payment.service.AuthorizationLimits.Decision;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Testcontainers(disabledWithoutDocker = true)
+class AuthorizationLimitsIT {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PGSimpleDataSource dataSource;
+    private AuthorizationLimits limits;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = new PGSimpleDataSource();
+        dataSource.setUrl(POSTGRES.getJdbcUrl());
+        dataSource.setUser(POSTGRES.getUsername());
+        dataSource.setPassword(POSTGRES.getPassword());
+        Flyway.configure().dataSource(dataSource).cleanDisabled(false).load().clean();
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        limits = new AuthorizationLimits(dataSource, meterRegistry, new BigDecimal("10000"));
+        execute("""
+                INSERT INTO authorization_limits (id, merchant_id, currency, payment_method,
+                                                  max_transaction_amount, max_daily_volume)
+                VALUES (1, 'm-1', NULL, 'CARD', 500.00, NULL),
+                       (2, 'm-1', 'USD', NULL, NULL, 1000.00),
+                       (3, NULL, 'XAU', NULL, 1.00, NULL)
+                """);
+    }
+
+    @Test
+    void refresh_LoadsLimitsWithoutRestart() throws SQLException {
+        assertThat(limits.authorize(payment("600.00"))).isEqualTo(Decision.APPROVED);
+
+        limits.refresh();
+        assertThat(limits.authorize(payment("600.00"))).isEqualTo(Decision.TRANSACTION_LIMIT);
+        // The row with an unsupported currency is skipped
+        assertThat(meterRegistry.get("payment.limits.active").gauge().value()).isEqualTo(3.0);
+
+        execute("UPDATE authorization_limits SET max_transaction_amount = 700.00 WHERE id = 1");
+        limits.refresh();
+        assertThat(limits.authorize(payment("600.00"))).isEqualTo(Decision.APPROVED);
+    }
+
+    @Test
+    void reconcileVolumes_CountsCommittedPaymentsOfTheLast24Hours() throws SQLException {
+        limits.refresh();
+        execute("""
+                INSERT INTO transactions (id, merchant_id, amount, currency, status, payment_method, created_at)
+                VALUES ('tx-1', 'm-1', 300.00, 'USD', 'AUTHORIZED', 'CARD', now() - INTERVAL '2 hours'),
+                       ('tx-2', 'm-1', 200.00, 'USD', 'SETTLED', 'UPI', now() - INTERVAL '20 hours'),
+                       ('tx-3', 'm-1', 400.00, 'USD', 'FAILED', 'CARD', now() - INTERVAL '1 hour'),
+                       ('tx-4', 'm-1', 100.00, 'USD', 'CAPTURED', 'CARD', now() - INTERVAL '30 hours'),
+                       ('tx-5', 'm-1', 900.00, 'EUR', 'AUTHORIZED', 'CARD', now() - INTERVAL '1 hour'),
+                       ('tx-6', 'm-2', 900.00, 'USD', 'AUTHORIZED', 'CARD', now() - INTERVAL '1 hour')
+                """);
+
+        limits.reconcileVolumes();
+
+        assertThat(limits.dailyVolume(2, "m-1", "USD")).isEqualTo(50_000);
+        Transaction inFlight = payment("450.00");
+        assertThat(limits.authorize(inFlight)).isEqualTo(Decision.APPROVED);
+        assertThat(limits.authorize(payment("100.00"))).isEqualTo(Decision.DAILY_VOLUME);
+
+        // Authorized here and still in flight: counted on top of the committed rows
+        limits.reconcileVolumes();
+        assertThat(limits.dailyVolume(2, "m-1", "USD")).isEqualTo(95_000);
+
+        // Never written after all
+        limits.release(inFlight);
+        limits.reconcileVolumes();
+        assertThat(limits.dailyVolume(2, "m-1", "USD")).isEqualTo(50_000);
+    }
+
+    private static Transaction payment(String amount) {
+        return Transaction.builder()
+                .id(TimeOrderedIds.next())
+                .merchantId("m-1")
+                .amount(new BigDecimal(amount))
+                .currency("USD")
+                .paymentMethod(Transaction.PaymentMethod.CARD)
+                .build();
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.paymentgateway.payment.service;
+
+import com.paymentgateway.common.model.TimeOrderedIds;
+import com.paymentgateway.common.model.Transaction;
+import com.paymentgateway.payment.service.AuthorizationLimits.Decision;
+import com.paymentgateway.payment.service.AuthorizationLimits.Limit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class AuthorizationLimitsTest {
+
+    private static final long NONE = Long.MAX_VALUE;
+    private static final Instant NOW = Instant.parse("2026-03-01T12:30:00Z");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AuthorizationLimits limits;
+
+    @BeforeEach
+    void setUp() {
+        limits = new AuthorizationLimits(meterRegistry, new BigDecimal("10000"));
+        at(NOW);
+    }
+
+    @Test
+    void authorize_DefaultCapIsInclusiveInTheMajorUnitsOfEachCurrency() {
+        assertThat(limits.authorize(payment("m-1", "10000.00", "USD", Transaction.PaymentMethod.CARD)))
+                .isEqualTo(Decision.APPROVED);
+        assertThat(limits.authorize(payment("m-1", "10000.01", "USD", Transaction.PaymentMethod.CARD)))
+                .isEqualTo(Decision.TRANSACTION_LIMIT);
+        assertThat(limits.authorize(payment("m-1", "10000", "JPY", Transaction.PaymentMethod.CARD)))
+                .isEqualTo(Decision.APPROVED);
+        assertThat(limits.authorize(payment("m-1", "10001", "JPY", Transaction.PaymentMethod.CARD)))
+                .isEqualTo(Decision.TRANSACTION_LIMIT);
+        assertThat(meterRegistry.get("payment.limits.declined").tag("limit", "transaction").counter().count())
+                .isEqualTo(2.0);
+    }
+
+    @Test
+    void authorize_AppliesOnlyMatchingCaps() {
+        limits.setLimits(List.of(new Limit(1, "m-1", "USD", Transaction.PaymentMethod.CARD, 50_000, NONE)));
+
+        assertThat(limits.authorize(payment("m-1", "600.00", "USD", Transaction.PaymentMethod.CARD)))
+                .isEqualTo(Decision.TRANSACTION_LIMIT);
+        assertThat(limits.authorize(payment("m-1", "600.00", "USD", Transaction.PaymentMethod.UPI)))
+                .isEqualTo(Decision.APPROVED);
+        assertThat(limits.authorize(payment("m-1", "600.00", "EUR", Transaction.PaymentMethod.CARD)))
+                .isEqualTo(Decision.APPROVED);
+        assertThat(limits.authorize(payment("m-2", "600.00", "USD", Transaction.PaymentMethod.CARD)))
+                .isEqualTo(Decision.APPROVED);
+    }
+
+    @Test
+    void authorize_CapsRollingDailyVolume() {
+        limits.setLimits(List.of(new Limit(2, "m-1", "USD", null, NONE, 100_000)));
+
+        assertThat(limits.authorize(payment("m-1", "400.00", "USD", Transaction.PaymentMethod.CARD)))
+                .isEqualTo(Decision.APPROVED);
+        at(NOW.plus(Duration.ofHours(5)));
+        assertThat(limits.authorize(payment("m-1", "400.00", "USD", Transaction.PaymentMethod.UPI)))
+                .isEqualTo(Decision.APPROVED);
+        assertThat(limits.authorize(payment("m-1", "400.00", "USD", Transaction.PaymentMethod.CARD)))
+                .isEqualTo(Decision.DAILY_VOLUME);
+        assertThat(limits.dailyVolume(2, "m-1", "USD")).isEqualTo(80_000);
+
+        // Other merchants and currencies have volumes of their own
+        assertThat(limits.authorize(payment("m-2", "400.00", "USD", Transaction.PaymentMethod.CARD)))
+                .isEqualTo(Decision.APPROVED);
+        assertThat(limits.authorize(payment("m-1", "900.00", "EUR", Transaction.PaymentMethod.CARD)))
+                .isEqualTo(Decision.APPROVED);
+
+        // The first payment leaves the window 24 hours after its hour
+        at(NOW.plus(Duration.ofHours(24)));
+        assertThat(limits.dailyVolume(2, "m-1", "USD")).isEqualTo(40_000);
+        assertThat(limits.authorize(payment("m-1", "400.00", "USD", Transaction.PaymentMethod.CARD)))
+                .isEqualTo(Decision.APPROVED);
+    }
+
+    @Test
+    void authorize_DeclinedPaymentCountsTowardNoVolume() {
+        limits.setLimits(List.of(
+                new Limit(3, "m-1", null, null, NONE, 100_000),
+                new Limit(4, null, "USD", Transaction.PaymentMethod.CARD, NONE, 50_000)));
+
+        assertThat(limits.authorize(payment("m-1", "600.00", "USD", Transaction.PaymentMethod.CARD)))
+                .isEqualTo(Decision.DAILY_VOLUME);
+
+        assertThat(limits.dailyVolume(3, "m-1", "USD")).isZero();
+        assertThat(limits.dailyVolume(4, "m-1", "USD")).isZero();
+        assertThat(meterRegistry.get("payment.limits.declined").tag("limit", "daily_volume").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void authorize_RolledBackTransaction_GivesBackItsVolume() {
+        limits.setLimits(List.of(new Limit(2, "m-1", "USD", null, NONE, 100_000)));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertThat(limits.authorize(payment("m-1", "400.00", "USD", Transaction.PaymentMethod.CARD)))
+                    .isEqualTo(Decision.APPROVED);
+            assertThat(limits.dailyVolume(2, "m-1", "USD")).isEqualTo(40_000);
+            complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(limits.dailyVolume(2, "m-1", "USD")).isZero();
+    }
+
+    @Test
+    void authorize_CommittedTransaction_KeepsItsVolume() {
+        limits.setLimits(List.of(new Limit(2, "m-1", "USD", null, NONE, 100_000)));
+        Transaction payment = payment("m-1", "400.00", "USD", Transaction.PaymentMethod.CARD);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertThat(limits.authorize(payment)).isEqualTo(Decision.APPROVED);
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        // Written, so there is nothing left to give back
+        limits.release(payment);
+
+        assertThat(limits.dailyVolume(2, "m-1", "USD")).isEqualTo(40_000);
+    }
+
+    @Test
+    void release_GivesBackAnAuthorizationMadeOutsideATransaction() {
+        limits.setLimits(List.of(new Limit(2, "m-1", "USD", null, NONE, 100_000)));
+        Transaction abandoned = payment("m-1", "400.00", "USD", Transaction.PaymentMethod.CARD);
+        Transaction written = payment("m-1", "300.00", "USD", Transaction.PaymentMethod.CARD);
+        assertThat(limits.authorize(abandoned)).isEqualTo(Decision.APPROVED);
+        assertThat(limits.authorize(written)).isEqualTo(Decision.APPROVED);
+
+        limits.release(abandoned);
+        limits.release(abandoned);
+        limits.confirm(written);
+        limits.release(written);
+
+        assertThat(limits.dailyVolume(2, "m-1", "USD")).isEqualTo(30_000);
+    }
+
+    @Test
+    void reconcileVolumes_KeepsWhatHappensWhileQuerying() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        ReflectionTestUtils.setField(limits, "jdbcTemplate", jdbcTemplate);
+        limits.setLimits(List.of(new Limit(2, "m-1", "USD", null, NONE, 100_000)));
+        Transaction written = payment("m-1", "300.00", "USD", Transaction.PaymentMethod.CARD);
+        Transaction concurrent = payment("m-1", "400.00", "USD", Transaction.PaymentMethod.CARD);
+        assertThat(limits.authorize(written)).isEqualTo(Decision.APPROVED);
+        doAnswer(invocation -> {
+            // Neither is in the committed rows the query returns
+            limits.confirm(written);
+            assertThat(limits.authorize(concurrent)).isEqualTo(Decision.APPROVED);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any());
+
+        limits.reconcileVolumes();
+
+        assertThat(limits.dailyVolume(2, "m-1", "USD")).isEqualTo(70_000);
+        limits.release(concurrent);
+        assertThat(limits.dailyVolume(2, "m-1", "USD")).isEqualTo(30_000);
+    }
+
+    @Test
+    void reconcileVolumes_DropsOnlyEmptyWindows() {
+        ReflectionTestUtils.setField(limits, "jdbcTemplate", mock(JdbcTemplate.class));
+        limits.setLimits(List.of(new Limit(2, null, "USD", null, NONE, 100_000)));
+        Transaction held = payment("m-1", "300.00", "USD", Transaction.PaymentMethod.CARD);
+        Transaction abandoned = payment("m-2", "300.00", "USD", Transaction.PaymentMethod.CARD);
+        assertThat(limits.authorize(held)).isEqualTo(Decision.APPROVED);
+        assertThat(limits.authorize(abandoned)).isEqualTo(Decision.APPROVED);
+        limits.release(abandoned);
+
+        limits.reconcileVolumes();
+
+        assertThat((Map<?, ?>) ReflectionTestUtils.getField(limits, "windows")).hasSize(1);
+        assertThat(limits.dailyVolume(2, "m-1", "USD")).isEqualTo(30_000);
+    }
+
+    @Test
+    void setLimits_ReplacesEveryLimitButTheDefault() {
+        limits.setLimits(List.of(new Limit(1, "m-1", null, null, 1_000, NONE)));
+        assertThat(limits.authorize(payment("m-1", "20.00", "USD", Transaction.PaymentMethod.CARD)))
+                .isEqualTo(Decision.TRANSACTION_LIMIT);
+
+        limits.setLimits(List.of());
+
+        assertThat(limits.authorize(payment("m-1", "20.00", "USD", Transaction.PaymentMethod.CARD)))
+                .isEqualTo(Decision.APPROVED);
+        assertThat(limits.authorize(payment("m-1", "20000.00", "USD", Transaction.PaymentMethod.CARD)))
+                .isEqualTo(Decision.TRANSACTION_LIMIT);
+        assertThat(meterRegistry.get("payment.limits.active").gauge().value()).isEqualTo(1.0);
+    }
+
+    private static void complete(int status) {
+        TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.afterCompletion(status));
+    }
+
+    private void at(Instant instant) {
+        ReflectionTestUtils.setField(limits, "clock", Clock.fixed(instant, ZoneOffset.UTC));
+    }
+
+    private static Transaction payment(String merchantId, String amount, String currency,
+            Transaction.PaymentMethod paymentMethod) {
+        return Transaction.builder()
+                .id(TimeOrderedIds.next())
+                .merchantId(merchantId)
+                .amount(new BigDecimal(amount))
+                .currency(currency)
+                .paymentMethod(paymentMethod)
+                .build();
+    }
+}
@@ -0,0 +1,249 @@
+package com.paymentgateway.payment.service;
+
+import com.paymentgateway.common.dto.merchant.MerchantResponse;
+import com.paymentgateway.common.dto.vault.TokenizeResponse;
+import com.paymentgateway.common.exception.ValidationException;
+import com.paymentgateway.common.model.Transaction;
+import com.paymentgateway.fraud.dto.FraudCheckRequest;
+import com.paymentgateway.fraud.dto.FraudResult;
+import com.paymentgateway.payment.client.FraudClient;
+import com.paymentgateway.payment.client.MerchantClient;
+import com.paymentgateway.payment.client.VaultClient;
+import com.paymentgateway.payment.dto.BatchPaymentResult;
+import com.paymentgateway.payment.dto.PaymentRequest;
+import com.paymentgateway.payment.messaging.PaymentOutbox;
+import com.paymentgateway.payment.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BatchPaymentServiceTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private VaultClient vaultClient;
+
+    @Mock
+    private MerchantClient merchantClient;
+
+    @Mock
+    private PaymentOutbox paymentOutbox;
+
+    @Mock
+    private FraudClient fraudClient;
+
+    @Mock
+    private IdempotencyStore idempotencyStore;
+
+    private final PaymentStageExecutor stageExecutor = new PaymentStageExecutor(new SimpleMeterRegistry());
+    private final AuthorizationLimits authorizationLimits =
+            new AuthorizationLimits(new SimpleMeterRegistry(), new BigDecimal("10000"));
+    private BatchPaymentService batchPaymentService;
+
+    @BeforeEach
+    void setUp() {
+        PaymentSteps steps = new PaymentSteps(merchantClient, stageExecutor, authorizationLimits);
+        PaymentService paymentService = new PaymentService(transactionRepository, vaultClient, paymentOutbox,
+                fraudClient, stageExecutor, idempotencyStore, steps);
+        batchPaymentService = new BatchPaymentService(paymentService, steps, vaultClient, fraudClient,
+                idempotencyStore, Validation.buildDefaultValidatorFactory().getValidator());
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchPaymentService.shutdown();
+        stageExecutor.shutdown();
+    }
+
+    @Test
+    void processBatch_CallsEachDownstreamOncePerChunk() {
+        when(merchantClient.getMerchant(anyString())).thenReturn(merchant("ACTIVE"));
+        when(vaultClient.tokenizeAll(anyList()))
+                .thenReturn(List.of(TokenizeResponse.builder().token("tok-new").lastFour("4444").build()));
+        when(fraudClient.checkFraudAll(anyList())).thenAnswer(invocation -> approveAll(invocation.getArgument(0)));
+        when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        PaymentRequest newCard = request("m-1", "10.00");
+        newCard.setCardToken(null);
+        newCard.setCardNumber("4111222233334444");
+        List<BatchPaymentResult> results = process(List.of(
+                request("m-1", "10.00"), newCard, request("m-2", "30.00")));
+
+        assertThat(results).extracting(BatchPaymentResult::getOutcome)
+                .containsOnly(BatchPaymentResult.Outcome.PROCESSED);
+        assertThat(results.get(1).getTransaction().getCardToken()).isEqualTo("tok-new");
+        assertThat(results).extracting(result -> result.getTransaction().getStatus())
+                .containsOnly(Transaction.TransactionStatus.AUTHORIZED);
+        verify(merchantClient).getMerchant("m-1");
+        verify(merchantClient).getMerchant("m-2");
+        verify(vaultClient).tokenizeAll(anyList());
+        verify(fraudClient).checkFraudAll(anyList());
+        verify(transactionRepository).saveAll(anyList());
+        verify(paymentOutbox, times(3)).append(any(Transaction.class));
+    }
+
+    @Test
+    void processBatch_RejectsBadItemsWithoutFailingTheRest() {
+        when(merchantClient.getMerchant("m-1")).thenReturn(merchant("ACTIVE"));
+        when(merchantClient.getMerchant("m-suspended")).thenReturn(merchant("SUSPENDED"));
+        when(idempotencyStore.acquire("key-1")).thenReturn(Optional.empty());
+        when(fraudClient.checkFraudAll(anyList())).thenAnswer(invocation -> approveAll(invocation.getArgument(0)));
+        when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        PaymentRequest badCurrency = request("m-1", "10.00");
+        badCurrency.setCurrency("US");
+        PaymentRequest first = request("m-1", "10.00");
+        first.setIdempotencyKey("key-1");
+        PaymentRequest repeated = request("m-1", "10.00");
+        repeated.setIdempotencyKey("key-1");
+
+        List<BatchPaymentResult> results = process(List.of(
+                badCurrency, request("m-suspended", "10.00"), first, repeated));
+
+        assertThat(results).extracting(BatchPaymentResult::getOutcome).containsExactly(
+                BatchPaymentResult.Outcome.REJECTED, BatchPaymentResult.Outcome.REJECTED,
+                BatchPaymentResult.Outcome.PROCESSED, BatchPaymentResult.Outcome.REJECTED);
+        assertThat(results).extracting(BatchPaymentResult::getErrorCode).containsExactly(
+                "VALIDATION_ERROR", "MERCHANT_INACTIVE", null, "DUPLICATE_IDEMPOTENCY_KEY");
+        verify(idempotencyStore).complete("key-1", results.get(2).getTransaction());
+    }
+
+    @Test
+    void processBatch_ReplaysEarlierResults() {
+        Transaction earlier = Transaction.builder().id("tx-earlier").build();
+        when(idempotencyStore.acquire("key-1")).thenReturn(Optional.of(earlier));
+        PaymentRequest replay = request("m-1", "10.00");
+        replay.setIdempotencyKey("key-1");
+
+        List<BatchPaymentResult> results = process(List.of(replay));
+
+        assertThat(results).singleElement().satisfies(result -> {
+            assertThat(result.getOutcome()).isEqualTo(BatchPaymentResult.Outcome.REPLAYED);
+            assertThat(result.getTransaction()).isSameAs(earlier);
+        });
+        verify(transactionRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void processBatch_RetriesOneByOneWhenTheChunkWriteFails() {
+        when(merchantClient.getMerchant(anyString())).thenReturn(merchant("ACTIVE"));
+        when(fraudClient.checkFraudAll(anyList())).thenAnswer(invocation -> approveAll(invocation.getArgument(0)));
+        when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Transaction> batch = invocation.getArgument(0);
+            if (batch.size() > 1 || batch.get(0).getAmount().compareTo(new BigDecimal("20.00")) == 0) {
+                throw new DataIntegrityViolationException("duplicate key");
+            }
+            return batch;
+        });
+
+        List<BatchPaymentResult> results = process(List.of(request("m-1", "10.00"), request("m-1", "20.00")));
+
+        assertThat(results).extracting(BatchPaymentResult::getOutcome).containsExactly(
+                BatchPaymentResult.Outcome.PROCESSED, BatchPaymentResult.Outcome.REJECTED);
+        assertThat(results.get(1).getErrorCode()).isEqualTo("PERSISTENCE_ERROR");
+    }
+
+    @Test
+    void processBatch_GivesBackTheDailyVolumeOfItemsItCannotWrite() {
+        authorizationLimits.setLimits(List.of(
+                new AuthorizationLimits.Limit(1, "m-1", "USD", null, Long.MAX_VALUE, 100_000)));
+        when(merchantClient.getMerchant(anyString())).thenReturn(merchant("ACTIVE"));
+        when(fraudClient.checkFraudAll(anyList())).thenAnswer(invocation -> approveAll(invocation.getArgument(0)));
+        when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Transaction> batch = invocation.getArgument(0);
+            if (batch.size() > 1 || batch.get(0).getAmount().compareTo(new BigDecimal("200.00")) == 0) {
+                throw new DataIntegrityViolationException("duplicate key");
+            }
+            return batch;
+        });
+
+        List<BatchPaymentResult> results = process(List.of(request("m-1", "100.00"), request("m-1", "200.00")));
+
+        assertThat(results).extracting(BatchPaymentResult::getOutcome).containsExactly(
+                BatchPaymentResult.Outcome.PROCESSED, BatchPaymentResult.Outcome.REJECTED);
+        assertThat(authorizationLimits.dailyVolume(1, "m-1", "USD")).isEqualTo(10_000);
+    }
+
+    @Test
+    void processBatch_PipelinesChunks() {
+        ReflectionTestUtils.setField(batchPaymentService, "chunkSize", 2);
+        when(merchantClient.getMerchant(anyString())).thenReturn(merchant("ACTIVE"));
+        when(fraudClient.checkFraudAll(anyList())).thenAnswer(invocation -> approveAll(invocation.getArgument(0)));
+        when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<BatchPaymentResult> results = process(List.of(request("m-1", "1.00"), request("m-1", "2.00"),
+                request("m-1", "3.00"), request("m-1", "4.00"), request("m-1", "5.00")));
+
+        assertThat(results).extracting(BatchPaymentResult::getIndex).containsExactly(0, 1, 2, 3, 4);
+        verify(transactionRepository, times(3)).saveAll(anyList());
+        verify(fraudClient, times(3)).checkFraudAll(anyList());
+    }
+
+    @Test
+    void checkBatch_RejectsEmptyAndOversizedBatches() {
+        ReflectionTestUtils.setField(batchPaymentService, "maxItems", 2);
+
+        assertThatThrownBy(() -> batchPaymentService.checkBatch(List.of()))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> batchPaymentService.checkBatch(List.of(request("m-1", "1.00"),
+                request("m-1", "2.00"), request("m-1", "3.00"))))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    private List<BatchPaymentResult> process(List<PaymentRequest> requests) {
+        List<BatchPaymentResult> results = new ArrayList<>();
+        batchPaymentService.processBatch(requests, results::add);
+        results.sort(Comparator.comparingInt(BatchPaymentResult::getIndex));
+        return results;
+    }
+
+    private static List<FraudResult> approveAll(List<FraudCheckRequest> requests) {
+        return requests.stream()
+                .map(request -> FraudResult.builder()
+                        .transactionId(request.getTransactionId())
+                        .decision(FraudResult.FraudDecision.APPROVE)
+                        .build())
+                .toList();
+    }
+
+    private static MerchantResponse merchant(String status) {
+        return MerchantResponse.builder().status(status).build();
+    }
+
+    private static PaymentRequest request(String merchantId, String amount) {
+        PaymentRequest request = new PaymentRequest();
+        request.setMerchantId(merchantId);
+        request.setAmount(new BigDecimal(amount));
+        request.setCurrency("USD");
+        request.setPaymentMethod("CARD");
+        request.setCardToken("tok-existing");
+        request.setCustomerEmail("buyer@example.com");
+        return request;
+    }
+}
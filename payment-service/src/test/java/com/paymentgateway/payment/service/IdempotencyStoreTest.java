@@ -0,0 +1,162 @@
+package com.paymentgateway.payment.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paymentgateway.common.exception.BusinessException;
+import com.paymentgateway.common.model.Transaction;
+import com.paymentgateway.payment.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyStoreTest {
+
+    private static final String KEY = "key-1";
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private IdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        store = new IdempotencyStore(redisTemplate, transactionRepository, objectMapper, meterRegistry,
+                100, Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(store, "lockWait", Duration.ofMillis(200));
+    }
+
+    @Test
+    void acquire_ReplayServedLocallyAfterComplete() {
+        Transaction result = transaction();
+        store.complete(KEY, result);
+
+        assertThat(store.acquire(KEY)).containsSame(result);
+
+        verify(valueOperations).set(eq(IdempotencyStore.RESULT_PREFIX + KEY), anyString(), any(Duration.class));
+        verify(valueOperations, never()).get(anyString());
+        assertThat(lookups("local")).isEqualTo(1.0);
+    }
+
+    @Test
+    void acquire_ReplayServedFromRedis() throws Exception {
+        when(valueOperations.get(IdempotencyStore.RESULT_PREFIX + KEY))
+                .thenReturn(objectMapper.writeValueAsString(transaction()));
+
+        Optional<Transaction> replay = store.acquire(KEY);
+
+        assertThat(replay).get().extracting(Transaction::getId).isEqualTo("tx-1");
+        verify(transactionRepository, never()).findByIdempotencyKey(any());
+        assertThat(lookups("redis")).isEqualTo(1.0);
+        // Promoted to the local tier
+        assertThat(store.acquire(KEY)).isPresent();
+        assertThat(lookups("local")).isEqualTo(1.0);
+    }
+
+    @Test
+    void acquire_NewKeyClaimsRedisLock() {
+        when(valueOperations.setIfAbsent(eq(IdempotencyStore.LOCK_PREFIX + KEY), anyString(), any(Duration.class)))
+                .thenReturn(true);
+        when(transactionRepository.findByIdempotencyKey(KEY)).thenReturn(Optional.empty());
+
+        assertThat(store.acquire(KEY)).isEmpty();
+
+        assertThat(lookups("miss")).isEqualTo(1.0);
+        store.release(KEY);
+        verify(redisTemplate).execute(any(), anyList(), anyString());
+    }
+
+    @Test
+    void acquire_FallsBackToDatabaseWhenRedisIsDown() {
+        when(valueOperations.get(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        when(transactionRepository.findByIdempotencyKey(KEY)).thenReturn(Optional.of(transaction()));
+
+        assertThat(store.acquire(KEY)).get().extracting(Transaction::getId).isEqualTo("tx-1");
+        assertThat(lookups("database")).isEqualTo(1.0);
+    }
+
+    @Test
+    void acquire_ConcurrentDuplicateWaitsForFirstResult() throws Exception {
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        when(transactionRepository.findByIdempotencyKey(KEY)).thenReturn(Optional.empty());
+        assertThat(store.acquire(KEY)).isEmpty();
+
+        CompletableFuture<Optional<Transaction>> duplicate = CompletableFuture.supplyAsync(() -> store.acquire(KEY));
+        Transaction result = transaction();
+        store.complete(KEY, result);
+
+        assertThat(duplicate.get(1, TimeUnit.SECONDS)).isPresent();
+        verify(transactionRepository).findByIdempotencyKey(KEY);
+    }
+
+    @Test
+    void acquire_GivesUpWhileAnotherInstanceHoldsTheKey() {
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+
+        assertThatThrownBy(() -> store.acquire(KEY))
+                .isInstanceOf(BusinessException.class)
+                .extracting("httpStatus").isEqualTo(409);
+        verify(transactionRepository, never()).findByIdempotencyKey(any());
+    }
+
+    @Test
+    void release_LetsTheNextDuplicateClaimTheKey() {
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        when(transactionRepository.findByIdempotencyKey(KEY)).thenReturn(Optional.empty());
+        assertThat(store.acquire(KEY)).isEmpty();
+
+        store.release(KEY);
+
+        assertThat(store.acquire(KEY)).isEmpty();
+        assertThat(lookups("miss")).isEqualTo(2.0);
+    }
+
+    private double lookups(String tier) {
+        return meterRegistry.get(IdempotencyStore.LOOKUP_COUNTER).tag("tier", tier).counter().count();
+    }
+
+    private static Transaction transaction() {
+        return Transaction.builder()
+                .id("tx-1")
+                .merchantId("m-1")
+                .amount(new BigDecimal("25.00"))
+                .currency("USD")
+                .status(Transaction.TransactionStatus.AUTHORIZED)
+                .idempotencyKey(KEY)
+                .build();
+    }
+}
@@ -4,27 +4,43 @@ import com.paymentgateway.common.dto.merchant.MerchantResponse;
 import com.paymentgateway.common.exception.BusinessException;
 import com.paymentgateway.common.exception.ValidationException;
 import com.paymentgateway.common.model.Transaction;
+import com.paymentgateway.common.money.Money;
+import com.paymentgateway.fraud.dto.FraudCheckRequest;
 import com.paymentgateway.payment.client.FraudClient;
 import com.paymentgateway.payment.client.MerchantClient;
 import com.paymentgateway.payment.client.VaultClient;
+import com.paymentgateway.payment.client.http.CircuitOpenException;
 import com.paymentgateway.payment.dto.PaymentRequest;
-import com.paymentgateway.payment.messaging.KafkaProducer;
+import com.paymentgateway.payment.dto.TransactionCursor;
+import com.paymentgateway.payment.dto.TransactionPage;
+import com.paymentgateway.payment.dto.TransactionQuery;
+import com.paymentgateway.payment.dto.TransactionSummary;
+import com.paymentgateway.payment.messaging.PaymentOutbox;
 import com.paymentgateway.payment.repository.TransactionRepository;
+import com.paymentgateway.payment.service.PaymentStageExecutor.ExecutionMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -40,24 +56,38 @@ class PaymentServiceTest {
     private MerchantClient merchantClient;
 
     @Mock
-    private KafkaProducer kafkaProducer;
+    private PaymentOutbox paymentOutbox;
 
     @Mock
     private FraudClient fraudClient;
 
-    @InjectMocks
+    @Mock
+    private IdempotencyStore idempotencyStore;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private PaymentStageExecutor stageExecutor = new PaymentStageExecutor(meterRegistry);
+
+    @Spy
+    private AuthorizationLimits authorizationLimits = new AuthorizationLimits(meterRegistry, new BigDecimal("10000"));
+
+    private PaymentSteps steps;
     private PaymentService paymentService;
 
+    @BeforeEach
+    void setUp() {
+        steps = new PaymentSteps(merchantClient, stageExecutor, authorizationLimits);
+        paymentService = new PaymentService(transactionRepository, vaultClient, paymentOutbox, fraudClient,
+                stageExecutor, idempotencyStore, steps);
+    }
+
     @Test
     void processPayment_Success() {
         // Arrange
         PaymentRequest request = createValidRequest();
         when(merchantClient.getMerchant(any())).thenReturn(new MerchantResponse());
-        when(transactionRepository.save(any(Transaction.class))).thenAnswer(i -> {
-            Transaction t = i.getArgument(0);
-            t.setId(UUID.randomUUID().toString());
-            return t;
-        });
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(i -> i.getArgument(0));
         when(fraudClient.checkFraud(any())).thenReturn(com.paymentgateway.fraud.dto.FraudResult.builder()
                 .decision(com.paymentgateway.fraud.dto.FraudResult.FraudDecision.APPROVE)
                 .build());
@@ -67,9 +97,15 @@ class PaymentServiceTest {
 
         // Assert
         assertNotNull(result.getId());
+        assertEquals(7, UUID.fromString(result.getId()).version());
         assertEquals(Transaction.TransactionStatus.AUTHORIZED, result.getStatus());
-        verify(kafkaProducer).sendPaymentEvent(any());
-        verify(transactionRepository, atLeast(2)).save(any());
+        ArgumentCaptor<FraudCheckRequest> fraudRequest = ArgumentCaptor.forClass(FraudCheckRequest.class);
+        verify(fraudClient).checkFraud(fraudRequest.capture());
+        assertEquals(result.getId(), fraudRequest.getValue().getTransactionId());
+        assertEquals(Money.ofMinor(10_000, "USD"), fraudRequest.getValue().getAmount());
+        // One write, in the final state, with its outbox event
+        verify(transactionRepository).save(any());
+        verify(paymentOutbox).append(result);
     }
 
     @Test
@@ -85,7 +121,7 @@ class PaymentServiceTest {
                 .status(Transaction.TransactionStatus.AUTHORIZED)
                 .build();
 
-        when(transactionRepository.findByIdempotencyKey(idempotencyKey)).thenReturn(Optional.of(existing));
+        when(idempotencyStore.acquire(idempotencyKey)).thenReturn(Optional.of(existing));
 
         // Act
         Transaction result = paymentService.processPayment(request);
@@ -93,6 +129,38 @@ class PaymentServiceTest {
         // Assert
         assertEquals("existing-id", result.getId());
         verify(transactionRepository, never()).save(any());
+        verify(transactionRepository, never()).findByIdempotencyKey(any());
+        verifyNoInteractions(merchantClient, fraudClient);
+    }
+
+    @Test
+    void processPayment_NewIdempotencyKey_RecordsResult() {
+        PaymentRequest request = createValidRequest();
+        request.setIdempotencyKey("key-456");
+        when(idempotencyStore.acquire("key-456")).thenReturn(Optional.empty());
+        when(merchantClient.getMerchant(any())).thenReturn(new MerchantResponse());
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(i -> i.getArgument(0));
+        when(fraudClient.checkFraud(any())).thenReturn(com.paymentgateway.fraud.dto.FraudResult.builder()
+                .decision(com.paymentgateway.fraud.dto.FraudResult.FraudDecision.APPROVE)
+                .build());
+
+        Transaction result = paymentService.processPayment(request);
+
+        verify(idempotencyStore).complete("key-456", result);
+        verify(idempotencyStore, never()).release(any());
+    }
+
+    @Test
+    void processPayment_NewIdempotencyKey_ReleasesOnFailure() {
+        PaymentRequest request = createValidRequest();
+        request.setIdempotencyKey("key-789");
+        request.setAmount(BigDecimal.ZERO);
+        when(idempotencyStore.acquire("key-789")).thenReturn(Optional.empty());
+
+        assertThrows(ValidationException.class, () -> paymentService.processPayment(request));
+
+        verify(idempotencyStore).release("key-789");
+        verify(idempotencyStore, never()).complete(any(), any());
     }
 
     @Test
@@ -168,6 +236,35 @@ class PaymentServiceTest {
         assertThrows(ValidationException.class, () -> paymentService.processPayment(request));
     }
 
+    @Test
+    void validateRequest_RejectsAmountsFinerThanTheCurrency() {
+        PaymentRequest request = createValidRequest();
+        request.setCurrency("JPY");
+        request.setAmount(new BigDecimal("100.50"));
+
+        assertThrows(ValidationException.class, () -> steps.validateRequest(request));
+
+        request.setAmount(new BigDecimal("100.00"));
+        assertDoesNotThrow(() -> steps.validateRequest(request));
+    }
+
+    @Test
+    void validateRequest_RejectsThreeDecimalCurrencies() {
+        PaymentRequest request = createValidRequest();
+        request.setCurrency("KWD");
+        request.setAmount(new BigDecimal("1.234"));
+
+        assertThrows(ValidationException.class, () -> steps.validateRequest(request));
+    }
+
+    @Test
+    void validateRequest_RejectsUnknownCurrency() {
+        PaymentRequest request = createValidRequest();
+        request.setCurrency("ABC");
+
+        assertThrows(ValidationException.class, () -> steps.validateRequest(request));
+    }
+
     @Test
     void processPayment_MerchantNotFound() {
         // Arrange
@@ -180,6 +277,17 @@ class PaymentServiceTest {
         assertEquals(404, ex.getHttpStatus());
     }
 
+    @Test
+    void processPayment_SuspendedMerchant_Rejected() {
+        PaymentRequest request = createValidRequest();
+        when(merchantClient.getMerchant(any())).thenReturn(MerchantResponse.builder().status("SUSPENDED").build());
+
+        BusinessException ex = assertThrows(BusinessException.class, () -> paymentService.processPayment(request));
+        assertEquals("MERCHANT_INACTIVE", ex.getErrorCode());
+        assertEquals(403, ex.getHttpStatus());
+        verify(transactionRepository, never()).save(any());
+    }
+
     @Test
     void processPayment_VaultFailure() {
         // Arrange
@@ -198,38 +306,153 @@ class PaymentServiceTest {
         assertEquals(500, ex.getHttpStatus());
     }
 
+    @Test
+    void processPayment_Parallel_Success() {
+        ReflectionTestUtils.setField(paymentService, "executionMode", ExecutionMode.PARALLEL);
+        PaymentRequest request = createValidRequest();
+        request.setCardToken(null);
+        request.setCardNumber("4111111111111111");
+        when(merchantClient.getMerchant(any())).thenReturn(new MerchantResponse());
+        when(vaultClient.tokenize(any())).thenReturn(
+                com.paymentgateway.common.dto.vault.TokenizeResponse.builder().token("tok_parallel").build());
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(i -> {
+            Transaction t = i.getArgument(0);
+            t.setId(UUID.randomUUID().toString());
+            return t;
+        });
+        when(fraudClient.checkFraud(any())).thenReturn(com.paymentgateway.fraud.dto.FraudResult.builder()
+                .decision(com.paymentgateway.fraud.dto.FraudResult.FraudDecision.APPROVE)
+                .build());
+
+        Transaction result = paymentService.processPayment(request);
+
+        assertThat(result.getStatus()).isEqualTo(Transaction.TransactionStatus.AUTHORIZED);
+        assertThat(result.getCardToken()).isEqualTo("tok_parallel");
+        assertThat(meterRegistry.find(PaymentStageExecutor.STAGE_TIMER).tag("stage", "fraud").timer())
+                .isNotNull();
+    }
+
+    @Test
+    void processPayment_MerchantCircuitOpen_ShedsWith503() {
+        PaymentRequest request = createValidRequest();
+        when(merchantClient.getMerchant(any())).thenThrow(new CircuitOpenException("merchant"));
+
+        BusinessException ex = assertThrows(BusinessException.class, () -> paymentService.processPayment(request));
+        assertEquals("DOWNSTREAM_UNAVAILABLE", ex.getErrorCode());
+        assertEquals(503, ex.getHttpStatus());
+        verifyNoInteractions(vaultClient, fraudClient, paymentOutbox);
+    }
+
+    @Test
+    void processPayment_Parallel_MerchantFailure_FailsPayment() {
+        ReflectionTestUtils.setField(paymentService, "executionMode", ExecutionMode.PARALLEL);
+        PaymentRequest request = createValidRequest();
+        when(merchantClient.getMerchant(any())).thenThrow(new RuntimeException("Service Down"));
+
+        BusinessException ex = assertThrows(BusinessException.class, () -> paymentService.processPayment(request));
+        assertEquals("MERCHANT_NOT_FOUND", ex.getErrorCode());
+        verify(transactionRepository, never()).save(any());
+        verify(paymentOutbox, never()).append(any());
+    }
+
+    @Test
+    void processPayment_Parallel_FraudSystemError_FailClosed() {
+        ReflectionTestUtils.setField(paymentService, "executionMode", ExecutionMode.PARALLEL);
+        PaymentRequest request = createValidRequest();
+        when(merchantClient.getMerchant(any())).thenReturn(new MerchantResponse());
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(i -> i.getArgument(0));
+        when(fraudClient.checkFraud(any())).thenThrow(new RuntimeException("Fraud Down"));
+
+        Transaction result = paymentService.processPayment(request);
+
+        assertThat(result.getStatus()).isEqualTo(Transaction.TransactionStatus.FAILED);
+        assertThat(result.getFailureReason()).isEqualTo("Fraud Check System Error");
+    }
+
     @Test
     void getTransaction_NotFound() {
-        when(transactionRepository.findById("any")).thenReturn(Optional.empty());
+        when(transactionRepository.findPrunedById("any")).thenReturn(Optional.empty());
         assertThrows(BusinessException.class, () -> paymentService.getTransaction("any"));
     }
 
     @Test
-    void getMerchantTransactions_ReturnsList() {
-        when(transactionRepository.findByMerchantId("m-1")).thenReturn(Collections.emptyList());
-        List<Transaction> result = paymentService.getMerchantTransactions("m-1");
-        assertThat(result).isEmpty();
+    void getMerchantTransactions_LastPageHasNoCursor() {
+        TransactionQuery query = new TransactionQuery("m-1", null, null, null);
+        when(transactionRepository.findPage(query, null, 51)).thenReturn(Collections.emptyList());
+
+        TransactionPage page = paymentService.getMerchantTransactions(query, null, 50);
+
+        assertThat(page.getItems()).isEmpty();
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void getMerchantTransactions_FullPageContinuesAfterLastRow() {
+        TransactionQuery query = new TransactionQuery("m-1", Transaction.TransactionStatus.AUTHORIZED, null, null);
+        LocalDateTime now = LocalDateTime.now();
+        List<TransactionSummary> rows = List.of(summary("tx-3", now), summary("tx-2", now.minusSeconds(1)),
+                summary("tx-1", now.minusSeconds(2)));
+        when(transactionRepository.findPage(query, null, 3)).thenReturn(rows);
+
+        TransactionPage page = paymentService.getMerchantTransactions(query, "", 2);
+
+        assertThat(page.getItems()).extracting(TransactionSummary::id).containsExactly("tx-3", "tx-2");
+        TransactionCursor next = TransactionCursor.decode(page.getNextCursor());
+        assertThat(next).isEqualTo(new TransactionCursor(now.minusSeconds(1), "tx-2"));
+
+        TransactionQuery sameQuery = new TransactionQuery("m-1", Transaction.TransactionStatus.AUTHORIZED, null, null);
+        when(transactionRepository.findPage(sameQuery, next, 3)).thenReturn(List.of(rows.get(2)));
+        assertThat(paymentService.getMerchantTransactions(sameQuery, page.getNextCursor(), 2).getNextCursor()).isNull();
+    }
+
+    @Test
+    void getMerchantTransactions_RejectsInvalidCursorAndRange() {
+        LocalDateTime now = LocalDateTime.now();
+        assertThrows(ValidationException.class, () -> paymentService.getMerchantTransactions(
+                new TransactionQuery("m-1", null, null, null), "not-a-cursor", 50));
+        assertThrows(ValidationException.class, () -> paymentService.getMerchantTransactions(
+                new TransactionQuery("m-1", null, now, now.minusDays(1)), null, 50));
+        verify(transactionRepository, never()).findPage(any(), any(), anyInt());
+    }
+
+    @Test
+    void exportMerchantTransactions_StreamsEveryRow() {
+        TransactionQuery query = new TransactionQuery("m-1", null, null, null);
+        LocalDateTime now = LocalDateTime.now();
+        when(transactionRepository.streamAll(query)).thenReturn(Stream.of(summary("tx-1", now), summary("tx-2", now)));
+
+        List<String> exported = new ArrayList<>();
+        paymentService.exportMerchantTransactions(query, tx -> exported.add(tx.id()));
+
+        assertThat(exported).containsExactly("tx-1", "tx-2");
     }
 
     @Test
     void capturePayment_Success() {
         Transaction tx = Transaction.builder().status(Transaction.TransactionStatus.AUTHORIZED).build();
-        when(transactionRepository.findById("tx-1")).thenReturn(Optional.of(tx));
+        when(transactionRepository.findByIdForUpdate("tx-1")).thenReturn(Optional.of(tx));
         when(transactionRepository.save(any())).thenAnswer(i -> i.getArgument(0));
 
         Transaction result = paymentService.capturePayment("tx-1");
         assertThat(result.getStatus()).isEqualTo(Transaction.TransactionStatus.CAPTURED);
         assertThat(result.getSettledAt()).isNotNull();
+        verify(paymentOutbox).append(result);
     }
 
     @Test
     void capturePayment_InvalidStatus() {
         Transaction tx = Transaction.builder().status(Transaction.TransactionStatus.FAILED).build();
-        when(transactionRepository.findById("tx-1")).thenReturn(Optional.of(tx));
+        when(transactionRepository.findByIdForUpdate("tx-1")).thenReturn(Optional.of(tx));
 
         assertThrows(BusinessException.class, () -> paymentService.capturePayment("tx-1"));
     }
 
+    private static TransactionSummary summary(String id, LocalDateTime createdAt) {
+        return new TransactionSummary(id, "m-1", new BigDecimal("10.00"), "USD",
+                Transaction.TransactionStatus.AUTHORIZED, Transaction.PaymentMethod.CARD, null, null, null,
+                createdAt, null);
+    }
+
     private PaymentRequest createValidRequest() {
         return PaymentRequest.builder()
                 .merchantId("mer_123")
@@ -0,0 +1,62 @@
+package com.paymentgateway.payment.service;
+
+import com.paymentgateway.common.model.Transaction;
+import com.paymentgateway.payment.dto.PaymentRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentWarmupTest {
+
+    @Test
+    void run_ReplaysTheRecordedPaymentsAtLeastMinPaymentsTimes() {
+        PaymentWarmup warmup = new PaymentWarmup(Jackson2ObjectMapperBuilder.json().build(),
+                new DefaultListableBeanFactory().getBeanProvider(LoggingSystem.class));
+        ReflectionTestUtils.setField(warmup, "payments", new ClassPathResource("warmup/synthetic-payments.json"));
+        ReflectionTestUtils.setField(warmup, "minPayments", 50);
+        ReflectionTestUtils.setField(warmup, "maxDuration", Duration.ofSeconds(5));
+
+        PaymentWarmup.Result result = warmup.run();
+
+        assertThat(result.payments()).isGreaterThanOrEqualTo(50);
+        assertThat(result.elapsed()).isPositive();
+    }
+
+    @Test
+    void stubService_RunsEveryOutcomeWithoutDownstreams() {
+        PaymentWarmup warmup = new PaymentWarmup(Jackson2ObjectMapperBuilder.json().build(),
+                new DefaultListableBeanFactory().getBeanProvider(LoggingSystem.class));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PaymentStageExecutor stageExecutor = new PaymentStageExecutor(registry);
+        try {
+            PaymentService service = warmup.stubService(stageExecutor, registry);
+            Transaction authorized = service.processPayment(cardPayment("49.99"));
+            assertThat(authorized.getStatus()).isEqualTo(Transaction.TransactionStatus.AUTHORIZED);
+            assertThat(authorized.getCardToken()).isEqualTo("tok_warmup");
+
+            Transaction blocked = service.processPayment(cardPayment("7500.00"));
+            assertThat(blocked.getFailureReason()).isEqualTo("High Risk Fraud Detected");
+        } finally {
+            stageExecutor.shutdown();
+        }
+    }
+
+    private static PaymentRequest cardPayment(String amount) {
+        return PaymentRequest.builder()
+                .merchantId("warmup-merchant-1")
+                .amount(new BigDecimal(amount))
+                .currency("USD")
+                .paymentMethod("CARD")
+                .cardNumber("4111111111111111")
+                .build();
+    }
+}
@@ -0,0 +1,127 @@
+package com.paymentgateway.payment.service;
+
+import com.paymentgateway.common.event.SettlementBatchEvent;
+import com.paymentgateway.payment.messaging.PaymentOutbox;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@Testcontainers(disabledWithoutDocker = true)
+class SettlementEngineIT {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PaymentOutbox paymentOutbox = mock(PaymentOutbox.class);
+    private PGSimpleDataSource dataSource;
+    private SettlementEngine engine;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = new PGSimpleDataSource();
+        dataSource.setUrl(POSTGRES.getJdbcUrl());
+        dataSource.setUser(POSTGRES.getUsername());
+        dataSource.setPassword(POSTGRES.getPassword());
+        Flyway.configure().dataSource(dataSource).cleanDisabled(false).load().clean();
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        engine = new SettlementEngine(dataSource,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)), paymentOutbox, meterRegistry);
+        ReflectionTestUtils.setField(engine, "batchSize", 2);
+        ReflectionTestUtils.setField(engine, "fetchSize", 2);
+
+        execute("""
+                INSERT INTO transactions (id, merchant_id, amount, currency, status, payment_method, created_at)
+                VALUES ('tx-1', 'm-1', 10.00, 'USD', 'AUTHORIZED', 'CARD', now() - INTERVAL '2 hours'),
+                       ('tx-2', 'm-1', 20.00, 'USD', 'CAPTURED', 'CARD', now() - INTERVAL '2 hours'),
+                       ('tx-3', 'm-1', 30.50, 'USD', 'CAPTURED', 'CARD', now() - INTERVAL '1 hour'),
+                       ('tx-4', 'm-1', 5.00, 'EUR', 'CAPTURED', 'CARD', now() - INTERVAL '1 hour'),
+                       ('tx-recent', 'm-2', 7.00, 'USD', 'AUTHORIZED', 'CARD', now() - INTERVAL '1 minute'),
+                       ('tx-failed', 'm-2', 8.00, 'USD', 'FAILED', 'CARD', now() - INTERVAL '2 hours')
+                """);
+    }
+
+    @Test
+    void settleDue_SettlesDueRowsInOneEventPerBatch() throws SQLException {
+        assertThat(engine.settleDue()).isEqualTo(4);
+
+        assertThat(status("tx-1")).isEqualTo("SETTLED");
+        assertThat(status("tx-4")).isEqualTo("SETTLED");
+        assertThat(status("tx-recent")).isEqualTo("AUTHORIZED");
+        assertThat(status("tx-failed")).isEqualTo("FAILED");
+
+        // m-1/USD holds three rows: one full batch of two, then the remainder
+        ArgumentCaptor<SettlementBatchEvent> events = ArgumentCaptor.forClass(SettlementBatchEvent.class);
+        verify(paymentOutbox, times(3)).appendSettlement(events.capture());
+        assertThat(events.getAllValues())
+                .filteredOn(event -> event.getCurrency().equals("USD"))
+                .allSatisfy(event -> assertThat(event.getMerchantId()).isEqualTo("m-1"))
+                .extracting(SettlementBatchEvent::getTransactionCount)
+                .containsExactlyInAnyOrder(2, 1);
+        assertThat(events.getAllValues().stream()
+                .filter(event -> event.getCurrency().equals("USD"))
+                .map(SettlementBatchEvent::getTotalAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add))
+                .isEqualByComparingTo("60.50");
+        assertThat(meterRegistry.get("payment.settlement.settled").counter().count()).isEqualTo(4.0);
+
+        // Nothing is left for a second pass
+        assertThat(engine.settleDue()).isZero();
+    }
+
+    @Test
+    void settleDue_SkipsRowsLockedElsewhere() throws SQLException {
+        try (Connection other = dataSource.getConnection()) {
+            other.setAutoCommit(false);
+            try (Statement statement = other.createStatement()) {
+                statement.execute("SELECT * FROM transactions WHERE id = 'tx-4' FOR UPDATE");
+            }
+
+            assertThat(engine.settleDue()).isEqualTo(3);
+            assertThat(status("tx-4")).isEqualTo("CAPTURED");
+            assertThat(meterRegistry.get("payment.settlement.skipped").counter().count()).isEqualTo(1.0);
+
+            other.rollback();
+        }
+
+        assertThat(engine.settleDue()).isEqualTo(1);
+        assertThat(status("tx-4")).isEqualTo("SETTLED");
+    }
+
+    private String status(String id) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet rows = statement.executeQuery("SELECT status FROM transactions WHERE id = '" + id + "'")) {
+            rows.next();
+            return rows.getString(1);
+        }
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.paymentgateway.payment.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Testcontainers(disabledWithoutDocker = true)
+class TransactionPartitionManagerIT {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @TempDir
+    Path archiveDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PGSimpleDataSource dataSource;
+    private TransactionPartitionManager manager;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new PGSimpleDataSource();
+        dataSource.setUrl(POSTGRES.getJdbcUrl());
+        dataSource.setUser(POSTGRES.getUsername());
+        dataSource.setPassword(POSTGRES.getPassword());
+        Flyway.configure().dataSource(dataSource).cleanDisabled(false).load().clean();
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        manager = new TransactionPartitionManager(dataSource, meterRegistry);
+        ReflectionTestUtils.setField(manager, "archiveDir", archiveDir);
+        // The temp directory may share the root filesystem
+        ReflectionTestUtils.setField(manager, "requireMountedArchive", false);
+    }
+
+    @Test
+    void maintain_CreatesUpcomingPartitionsOnce() throws SQLException {
+        ReflectionTestUtils.setField(manager, "monthsAhead", 5);
+
+        manager.maintain();
+        manager.maintain();
+
+        // The migration already created the next three months; only months four and five are new
+        assertThat(meterRegistry.get("payment.partitions.created").counter().count()).isEqualTo(2.0);
+        try (Connection connection = dataSource.getConnection()) {
+            assertThat(manager.partitions(connection)).hasSize(6);
+        }
+    }
+
+    @Test
+    void maintain_ArchivesPartitionsOutsideTheHotWindow() throws Exception {
+        execute("""
+                INSERT INTO transactions (id, merchant_id, amount, currency, status, payment_method,
+                                          idempotency_key, created_at)
+                VALUES ('tx-old', 'm-1', 10.00, 'USD', 'SETTLED', 'CARD', 'key-old', TIMESTAMP '2025-01-15')
+                """);
+        // Two years on, the legacy partition is well past the 13 hot months
+        LocalDate later = LocalDate.now().plusYears(2);
+        ReflectionTestUtils.setField(manager, "clock",
+                Clock.fixed(later.atStartOfDay(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault()));
+
+        manager.maintain();
+
+        try (Connection connection = dataSource.getConnection()) {
+            assertThat(manager.partitions(connection))
+                    .extracting(TransactionPartitionManager.Partition::name)
+                    .doesNotContain("transactions_legacy");
+        }
+        assertThat(count("SELECT count(*) FROM transaction_idempotency_keys")).isZero();
+        Path archive = archiveDir.resolve("transactions_legacy.csv.gz");
+        assertThat(archive).exists();
+        assertThat(archiveDir.resolve("transactions_legacy.csv.gz.partial")).doesNotExist();
+        assertThat(gunzip(archive)).contains("tx-old");
+        assertThat(meterRegistry.get("payment.partitions.archived").counter().count()).isGreaterThanOrEqualTo(1.0);
+    }
+
+    @Test
+    void maintain_FinalizesInterruptedDetach() throws Exception {
+        // What a DETACH ... CONCURRENTLY cut short between its two transactions leaves behind
+        execute("""
+                UPDATE pg_inherits SET inhdetachpending = true
+                WHERE inhrelid = 'transactions_legacy'::regclass
+                """);
+        try (Connection connection = dataSource.getConnection()) {
+            assertThat(manager.partitions(connection))
+                    .filteredOn(TransactionPartitionManager.Partition::detachPending)
+                    .extracting(TransactionPartitionManager.Partition::name)
+                    .containsExactly("transactions_legacy");
+        }
+        LocalDate later = LocalDate.now().plusYears(2);
+        ReflectionTestUtils.setField(manager, "clock",
+                Clock.fixed(later.atStartOfDay(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault()));
+
+        manager.maintain();
+
+        assertThat(count("SELECT count(*) FROM pg_class WHERE relname = 'transactions_legacy'")).isZero();
+        assertThat(archiveDir.resolve("transactions_legacy.csv.gz")).exists();
+        assertThat(meterRegistry.find("payment.partitions.failures").counter()).isNull();
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private long count(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet rows = statement.executeQuery(sql)) {
+            rows.next();
+            return rows.getLong(1);
+        }
+    }
+
+    private static String gunzip(Path file) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
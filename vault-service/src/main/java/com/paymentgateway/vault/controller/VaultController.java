@@ -15,6 +15,8 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
+import java.util.List;
+
 @Slf4j
 @RestController
 @RequestMapping("/vault")
@@ -29,6 +31,13 @@ public class VaultController {
         return ResponseEntity.ok(ApiResponse.success("Card tokenized successfully", vaultService.tokenize(request)));
     }
 
+    @PostMapping("/tokenize/batch")
+    public ResponseEntity<ApiResponse<List<TokenizeResponse>>> tokenizeBatch(
+            @RequestBody List<TokenizeRequest> requests) {
+        log.info("Tokenizing a batch of {} cards", requests.size());
+        return ResponseEntity.ok(ApiResponse.success("Cards tokenized", vaultService.tokenizeAll(requests)));
+    }
+
     @GetMapping("/detokenize/{token}")
     public ResponseEntity<ApiResponse<CardDataResponse>> detokenize(@PathVariable("token") String token) {
         log.info("Detokenizing token: {}", token);
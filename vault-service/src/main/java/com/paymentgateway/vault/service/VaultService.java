@@ -4,6 +4,7 @@ import com.paymentgateway.common.dto.vault.CardDataResponse;
 import com.paymentgateway.common.dto.vault.TokenizeRequest;
 import com.paymentgateway.common.dto.vault.TokenizeResponse;
 import com.paymentgateway.common.exception.BusinessException;
+import com.paymentgateway.common.exception.ValidationException;
 import com.paymentgateway.common.security.EncryptionService;
 import com.paymentgateway.vault.entity.CardData;
 import com.paymentgateway.vault.repository.CardDataRepository;
@@ -11,6 +12,9 @@ import com.paymentgateway.vault.validator.CardValidator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 public class VaultService {
@@ -38,6 +42,43 @@ public class VaultService {
                                 .build();
         }
 
+        /**
+         * Tokenize a batch of cards with a single {@code saveAll}. A card that
+         * fails validation gets an {@code error} instead of failing the batch;
+         * responses keep request order.
+         */
+        public List<TokenizeResponse> tokenizeAll(List<TokenizeRequest> requests) {
+                TokenizeResponse[] responses = new TokenizeResponse[requests.size()];
+                List<Integer> accepted = new ArrayList<>();
+                List<CardData> cards = new ArrayList<>();
+                for (int i = 0; i < requests.size(); i++) {
+                        TokenizeRequest request = requests.get(i);
+                        try {
+                                CardValidator.validateCard(request.getPan(), request.getExpiryDate());
+                        } catch (ValidationException e) {
+                                responses[i] = TokenizeResponse.builder().error(e.getMessage()).build();
+                                continue;
+                        }
+                        accepted.add(i);
+                        cards.add(CardData.builder()
+                                        .encryptedPan(encryptionService.encrypt(request.getPan()))
+                                        .expiryDate(request.getExpiryDate())
+                                        .cardHolderName(request.getCardHolderName())
+                                        .build());
+                }
+
+                List<CardData> saved = cardDataRepository.saveAll(cards);
+                for (int j = 0; j < saved.size(); j++) {
+                        int i = accepted.get(j);
+                        String pan = requests.get(i).getPan();
+                        responses[i] = TokenizeResponse.builder()
+                                        .token(saved.get(j).getId())
+                                        .lastFour(pan.substring(pan.length() - 4))
+                                        .build();
+                }
+                return List.of(responses);
+        }
+
         public CardDataResponse detokenize(String token) {
                 CardData cardData = cardDataRepository.findById(token)
                                 .orElseThrow(() -> new BusinessException("Token not found", "NOT_FOUND", 404));
@@ -13,10 +13,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -56,6 +58,33 @@ public class VaultServiceTest {
                 assertEquals("4242", result.getLastFour());
         }
 
+        @Test
+        public void tokenizeAll_RejectsInvalidCardsWithoutFailingTheBatch() {
+                TokenizeRequest valid = TokenizeRequest.builder()
+                                .pan("4242424242424242")
+                                .expiryDate("12/30")
+                                .cardHolderName("John Doe")
+                                .build();
+                TokenizeRequest invalid = TokenizeRequest.builder()
+                                .pan("4242424242424241")
+                                .expiryDate("12/30")
+                                .build();
+
+                when(encryptionService.encrypt("4242424242424242")).thenReturn("encrypted_pan");
+                when(cardDataRepository.saveAll(anyList())).thenReturn(List.of(CardData.builder()
+                                .id("token_123")
+                                .encryptedPan("encrypted_pan")
+                                .build()));
+
+                List<TokenizeResponse> results = vaultService.tokenizeAll(List.of(invalid, valid));
+
+                assertEquals(2, results.size());
+                assertNull(results.get(0).getToken());
+                assertNotNull(results.get(0).getError());
+                assertEquals("token_123", results.get(1).getToken());
+                assertEquals("4242", results.get(1).getLastFour());
+        }
+
         @Test
         public void detokenize_Success() {
                 CardData cardData = CardData.builder()